@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import org.eclipse.jgit.junit.TestRepository.BranchBuilder;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.MutableObjectId;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevTag;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.FileUtils;
+import org.junit.Test;
+
+public class CommitGraphTest extends GcTestCase {
+	@Test
+	public void testWriteAndRead() throws Exception {
+		RevCommit root = tr.commit().add("a", "a").create();
+		RevCommit a = tr.commit().parent(root).add("a", "b").create();
+		RevCommit b = tr.commit().parent(root).add("b", "b").create();
+		RevCommit c = tr.commit().parent(root).add("c", "c").create();
+		RevCommit merge = tr.commit().parent(a).parent(b).create();
+		RevCommit octopus = tr.commit().parent(merge).parent(b).parent(c)
+				.create();
+		RevTag tag = tr.tag("v1", octopus);
+
+		byte[] data = write(tag, a);
+		CommitGraph graph = CommitGraph.read(new ByteArrayInputStream(data));
+		assertEquals(6, graph.getCommitCount());
+
+		assertParents(graph, root);
+		assertParents(graph, a, root);
+		assertParents(graph, merge, a, b);
+		assertParents(graph, octopus, merge, b, c);
+		assertEquals(1, graph.getGeneration(graph.findGraphPosition(root)));
+		assertEquals(2, graph.getGeneration(graph.findGraphPosition(c)));
+		assertEquals(3, graph.getGeneration(graph.findGraphPosition(merge)));
+		assertEquals(4, graph.getGeneration(graph.findGraphPosition(octopus)));
+		assertEquals(-1, graph.findGraphPosition(tag));
+		assertEquals(-1, graph.findGraphPosition(octopus.getTree()));
+
+		MessageDigest md = Constants.newMessageDigest();
+		md.update(data, 0, data.length - Constants.OBJECT_ID_LENGTH);
+		assertArrayEquals(md.digest(), Arrays.copyOfRange(data,
+				data.length - Constants.OBJECT_ID_LENGTH, data.length));
+	}
+
+	@Test
+	public void testLongHistory() throws Exception {
+		BranchBuilder bb = tr.branch("refs/heads/master");
+		RevCommit tip = null;
+		for (int i = 0; i < 2000; i++) {
+			tip = bb.commit().noFiles().create();
+		}
+		CommitGraph graph = CommitGraph
+				.read(new ByteArrayInputStream(write(tip)));
+		assertEquals(2000, graph.getCommitCount());
+		assertEquals(2000, graph.getGeneration(graph.findGraphPosition(tip)));
+	}
+
+	@Test
+	public void testCorruptFile() throws Exception {
+		RevCommit tip = tr.commit().add("a", "a").create();
+		byte[] data = write(tip);
+		try {
+			CommitGraph.read(new ByteArrayInputStream(
+					Arrays.copyOf(data, data.length / 2)));
+			fail("truncated commit-graph was read");
+		} catch (IOException expected) {
+			// expected
+		}
+		data[4] = 2;
+		try {
+			CommitGraph.read(new ByteArrayInputStream(data));
+			fail("commit-graph of an unknown version was read");
+		} catch (IOException expected) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testGcWritesCommitGraph() throws Exception {
+		BranchBuilder bb = tr.branch("refs/heads/master");
+		bb.commit().add("A", "A").create();
+		RevCommit tip = bb.commit().add("A", "A2").create();
+		tr.branch("refs/heads/side").commit().parent(tip).add("B", "B")
+				.create();
+		gc.gc();
+
+		File file = repo.getObjectDatabase().getCommitGraphFile();
+		assertTrue(file.isFile());
+		CommitGraph graph = repo.getObjectDatabase().getCommitGraph();
+		assertNotNull(graph);
+		assertEquals(3, graph.getCommitCount());
+
+		try (RevWalk rw = new RevWalk(repo)) {
+			rw.setRetainBody(false);
+			RevCommit c = rw.lookupCommit(tip);
+			rw.parseHeaders(c);
+			assertNull(c.getRawBuffer());
+			assertEquals(tip.getTree(), c.getTree());
+			assertEquals(tip.getCommitTime(), c.getCommitTime());
+			assertEquals(tip.getParent(0), c.getParent(0));
+			rw.parseBody(c);
+			assertEquals(tip.getFullMessage(), c.getFullMessage());
+		}
+	}
+
+	@Test
+	public void testGcCommitGraphDisabled() throws Exception {
+		StoredConfig config = repo.getConfig();
+		config.setBoolean(ConfigConstants.CONFIG_GC_SECTION, null,
+				ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH, false);
+		config.save();
+		tr.branch("refs/heads/master").commit().add("A", "A").create();
+		gc.gc();
+		assertFalse(repo.getObjectDatabase().getCommitGraphFile().exists());
+	}
+
+	@Test
+	public void testReadCommitGraphDisabled() throws Exception {
+		tr.branch("refs/heads/master").commit().add("A", "A").create();
+		gc.gc();
+		assertNotNull(repo.getObjectDatabase().getCommitGraph());
+		StoredConfig config = repo.getConfig();
+		config.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null,
+				ConfigConstants.CONFIG_KEY_COMMIT_GRAPH, false);
+		config.save();
+		assertNull(repo.getObjectDatabase().getCommitGraph());
+	}
+
+	@Test
+	public void testCorruptCommitGraphIsIgnored() throws Exception {
+		RevCommit tip = tr.branch("refs/heads/master").commit().add("A", "A")
+				.create();
+		File file = repo.getObjectDatabase().getCommitGraphFile();
+		FileUtils.mkdirs(file.getParentFile(), true);
+		tr.tick(1);
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(new byte[] { 'C', 'G', 'P', 'H' });
+		}
+		assertNull(repo.getObjectDatabase().getCommitGraph());
+		try (RevWalk rw = new RevWalk(repo)) {
+			rw.setRetainBody(false);
+			assertEquals(tip.getTree(), rw.parseCommit(tip).getTree());
+		}
+	}
+
+	private byte[] write(RevObject... tips) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ObjectReader reader = repo.newObjectReader()) {
+			new CommitGraphWriter(reader).write(NullProgressMonitor.INSTANCE,
+					Arrays.asList(tips), out);
+		}
+		return out.toByteArray();
+	}
+
+	private static void assertParents(CommitGraph graph, RevCommit c,
+			RevCommit... parents) {
+		int pos = graph.findGraphPosition(c);
+		assertTrue(pos >= 0);
+		assertEquals(c, graph.getObjectId(pos));
+		MutableObjectId id = new MutableObjectId();
+		graph.copyTreeId(pos, id);
+		assertEquals(c.getTree(), id);
+		assertEquals(c.getCommitTime(), graph.getCommitTime(pos));
+		assertEquals(parents.length, graph.getParentCount(pos));
+		for (int i = 0; i < parents.length; i++) {
+			assertEquals(parents[i],
+					graph.getObjectId(graph.getParent(pos, i)));
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FrequencySketchTest {
+	@Test
+	public void testFrequency() {
+		FrequencySketch sketch = new FrequencySketch(512);
+		assertEquals(0, sketch.frequency(42));
+		for (int i = 0; i < 5; i++)
+			sketch.increment(42);
+		assertEquals(5, sketch.frequency(42));
+		assertEquals(0, sketch.frequency(43));
+	}
+
+	@Test
+	public void testFrequencyIsCapped() {
+		FrequencySketch sketch = new FrequencySketch(512);
+		for (int i = 0; i < 100; i++)
+			sketch.increment(42);
+		assertEquals(15, sketch.frequency(42));
+	}
+
+	@Test
+	public void testOldAccessesFade() {
+		FrequencySketch sketch = new FrequencySketch(64);
+		for (int i = 0; i < 8; i++)
+			sketch.increment(42);
+		// A scan of other keys eventually halves every counter.
+		for (int i = 0; i < 10 * 64; i++)
+			sketch.increment(1000 + i);
+		assertTrue(sketch.frequency(42) < 8);
+		assertTrue(sketch.frequency(42) > 0);
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class OffHeapArenaTest {
+	@Test
+	public void testAllocateUpToLimit() {
+		OffHeapArena arena = new OffHeapArena(4096, 5 * 4096, 2 * 4096);
+		ByteBuffer[] chunks = new ByteBuffer[5];
+		for (int i = 0; i < chunks.length; i++) {
+			chunks[i] = arena.allocate();
+			assertNotNull(chunks[i]);
+			assertTrue(chunks[i].isDirect());
+			assertEquals(4096, chunks[i].capacity());
+		}
+		assertNull(arena.allocate());
+		assertEquals(5 * 4096, arena.getReservedBytes());
+		assertEquals(5 * 4096, arena.getUsedBytes());
+
+		arena.free(chunks[2]);
+		assertEquals(4 * 4096, arena.getUsedBytes());
+		assertSame(chunks[2], arena.allocate());
+		assertEquals(5 * 4096, arena.getReservedBytes());
+	}
+
+	@Test
+	public void testChunksDoNotOverlap() {
+		OffHeapArena arena = new OffHeapArena(4096, 4 * 4096, 4 * 4096);
+		ByteBuffer a = arena.allocate();
+		ByteBuffer b = arena.allocate();
+		for (int i = 0; i < 4096; i++)
+			a.put(i, (byte) 1);
+		for (int i = 0; i < 4096; i++)
+			assertEquals(0, b.get(i));
+	}
+
+	@Test
+	public void testWindowFreesChunkWithLastReference() {
+		OffHeapArena arena = new OffHeapArena(4096, 4096, 4096);
+		ByteBuffer chunk = arena.allocate();
+		OffHeapWindow w = new OffHeapWindow(null, 0, chunk.duplicate(),
+				arena, chunk);
+		assertTrue(w.retain());
+		// Evicted by the cache while a reader still uses it.
+		w.release();
+		assertNull(arena.allocate());
+		w.release();
+		assertFalse(w.retain());
+		assertSame(chunk, arena.allocate());
+	}
+
+	@Test
+	public void testPinReleasesWindowOfUnreachableOwner() throws Exception {
+		OffHeapArena arena = new OffHeapArena(4096, 4096, 4096);
+		ByteBuffer chunk = arena.allocate();
+		OffHeapWindow w = new OffHeapWindow(null, 0, chunk.duplicate(),
+				arena, chunk);
+		assertTrue(w.retain());
+		w.release();
+		pinByUnreachableOwner(w);
+		for (int i = 0; i < 100 && arena.getUsedBytes() > 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+			OffHeapWindow.Pin.releaseUnreachable();
+		}
+		assertEquals(0, arena.getUsedBytes());
+		assertSame(chunk, arena.allocate());
+	}
+
+	@Test
+	public void testUnregisteredPinKeepsWindow() throws Exception {
+		OffHeapArena arena = new OffHeapArena(4096, 4096, 4096);
+		ByteBuffer chunk = arena.allocate();
+		OffHeapWindow w = new OffHeapWindow(null, 0, chunk.duplicate(),
+				arena, chunk);
+		Object owner = new Object();
+		OffHeapWindow.Pin pin = new OffHeapWindow.Pin(owner);
+		pin.set(w);
+		pin.unregister();
+		owner = null;
+		System.gc();
+		Thread.sleep(10);
+		OffHeapWindow.Pin.releaseUnreachable();
+		assertEquals(4096, arena.getUsedBytes());
+	}
+
+	private static void pinByUnreachableOwner(ByteWindow w) {
+		new OffHeapWindow.Pin(new Object()).set(w);
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.jgit.internal.storage.file.PackIndex.MutableEntry;
+import org.eclipse.jgit.junit.JGitTestUtil;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.transport.PackedObjectInfo;
+import org.junit.Test;
+
+public class PackIndexV2MappedTest extends PackIndexV2Test {
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		smallIdx = PackIndex.open(getFileForPack34be9032(), true);
+		denseIdx = PackIndex.open(getFileForPackdf2982f28(), true);
+	}
+
+	@Test
+	public void testMapped() {
+		assertTrue(smallIdx instanceof PackIndexV2Mapped);
+		assertTrue(denseIdx instanceof PackIndexV2Mapped);
+	}
+
+	@Test
+	public void testSameAsHeapIndex() throws Exception {
+		PackIndex heap = PackIndex.open(getFileForPackdf2982f28());
+		assertSameIndex(heap, denseIdx);
+
+		Set<ObjectId> heapMatches = new HashSet<>();
+		Set<ObjectId> mappedMatches = new HashSet<>();
+		for (MutableEntry me : heap) {
+			AbbreviatedObjectId abbr = me.toObjectId().abbreviate(3);
+			heapMatches.clear();
+			mappedMatches.clear();
+			heap.resolve(heapMatches, abbr, 256);
+			denseIdx.resolve(mappedMatches, abbr, 256);
+			assertEquals(heapMatches, mappedMatches);
+			assertTrue(mappedMatches.contains(me.toObjectId()));
+		}
+	}
+
+	@Test
+	public void testVersion1IsReadOntoHeap() throws Exception {
+		PackIndex idx = PackIndex.open(JGitTestUtil.getTestResourceFile(
+				"pack-34be9032ac282b11fa9babdc2b2a93ca996c9c2f.idx"), true);
+		assertTrue(idx instanceof PackIndexV1);
+	}
+
+	@Test
+	public void test64BitOffsets() throws Exception {
+		Random rng = new Random(1);
+		List<PackedObjectInfo> objs = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			byte[] raw = new byte[20];
+			rng.nextBytes(raw);
+			PackedObjectInfo oe = new PackedObjectInfo(ObjectId.fromRaw(raw));
+			oe.setOffset(i % 3 == 0 ? (1L << 32) + i : 12 + i);
+			oe.setCRC(rng.nextInt());
+			objs.add(oe);
+		}
+		Collections.sort(objs);
+		byte[] packChecksum = new byte[20];
+		rng.nextBytes(packChecksum);
+		File file = new File(db.getDirectory(), "pack-test.idx");
+		try (OutputStream out = new FileOutputStream(file)) {
+			PackIndexWriter.createVersion(out, 2).write(objs, packChecksum);
+		}
+
+		PackIndex mapped = PackIndex.open(file, true);
+		assertTrue(mapped instanceof PackIndexV2Mapped);
+		assertSameIndex(PackIndex.open(file), mapped);
+		assertEquals(334, mapped.getOffset64Count());
+		assertArrayEquals(packChecksum, mapped.packChecksum);
+		for (PackedObjectInfo oe : objs) {
+			assertEquals(oe.getOffset(), mapped.findOffset(oe));
+			assertEquals(oe.getCRC() & 0xffffffffL, mapped.findCRC32(oe));
+		}
+	}
+
+	@Test
+	public void testPackFileUsesWindowCacheConfig() throws Exception {
+		WindowCacheConfig cfg = new WindowCacheConfig();
+		cfg.setPackedIndexMMAP(true);
+		cfg.install();
+		try {
+			String name = "pack-34be9032ac282b11fa9babdc2b2a93ca996c9c2f";
+			File pack = new File(db.getDirectory(), name + ".pack");
+			Files.copy(JGitTestUtil.getTestResourceFile(name + ".pack")
+					.toPath(), pack.toPath());
+			Files.copy(getFileForPack34be9032().toPath(),
+					new File(db.getDirectory(), name + ".idx").toPath());
+			PackFile p = new PackFile(pack, 0);
+			try {
+				assertTrue(p.getIndex() instanceof PackIndexV2Mapped);
+				assertTrue(p.hasObject(ObjectId.fromString(
+						"4b825dc642cb6eb9a060e54bf8d69288fbee4904")));
+			} finally {
+				p.close();
+			}
+		} finally {
+			new WindowCacheConfig().install();
+		}
+	}
+
+	private static void assertSameIndex(PackIndex expected, PackIndex actual)
+			throws Exception {
+		assertEquals(expected.getObjectCount(), actual.getObjectCount());
+		assertEquals(expected.getOffset64Count(), actual.getOffset64Count());
+		assertArrayEquals(expected.packChecksum, actual.packChecksum);
+		Iterator<MutableEntry> it = actual.iterator();
+		long n = 0;
+		for (MutableEntry me : expected) {
+			MutableEntry ae = it.next();
+			ObjectId id = me.toObjectId();
+			assertEquals(id, ae.toObjectId());
+			assertEquals(me.getOffset(), ae.getOffset());
+			assertEquals(id, actual.getObjectId(n));
+			assertEquals(me.getOffset(), actual.getOffset(n));
+			assertEquals(me.getOffset(), actual.findOffset(id));
+			assertEquals(expected.findCRC32(id), actual.findCRC32(id));
+			n++;
+		}
+		ObjectId missing = ObjectId
+				.fromString("0000000000000000000000000000000000000001");
+		assertEquals(-1, actual.findOffset(missing));
+	}
+}
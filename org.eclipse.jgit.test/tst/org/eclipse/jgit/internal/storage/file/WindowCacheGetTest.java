@@ -57,10 +57,13 @@
 
 import org.eclipse.jgit.errors.CorruptObjectException;
 import org.eclipse.jgit.junit.JGitTestUtil;
+import org.eclipse.jgit.lib.Config;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.storage.file.WindowCacheConfig.EvictionPolicy;
+import org.eclipse.jgit.storage.file.WindowCacheStats;
 import org.eclipse.jgit.test.resources.SampleDataRepositoryTestCase;
 import org.eclipse.jgit.util.MutableInteger;
 import org.junit.Before;
@@ -125,6 +128,121 @@ public void testCache_TooSmallLimit() throws IOException {
 		checkLimits(cfg);
 	}
 
+	@Test
+	public void testCache_StrongRefs() throws IOException {
+		final WindowCacheConfig cfg = new WindowCacheConfig();
+		cfg.setPackedGitWindowSize(4096);
+		cfg.setPackedGitLimit(4096);
+		cfg.setPackedGitUseStrongRefs(true);
+		cfg.install();
+		doCacheTests();
+		checkLimits(cfg);
+		assertTrue(0 < WindowCache.getInstance().getEvictionCount());
+	}
+
+	@Test
+	public void testCache_OffHeap() throws IOException {
+		final WindowCacheConfig cfg = new WindowCacheConfig();
+		cfg.setPackedGitWindowSize(4096);
+		cfg.setPackedGitLimit(3 * 4096);
+		cfg.setPackedGitOffHeap(true);
+		cfg.install();
+		doCacheTests();
+		doCacheTests();
+		checkLimits(cfg);
+		assertTrue(0 < WindowCacheStats.getOffHeapBytes());
+		assertTrue(WindowCacheStats.getOffHeapBytes() <= cfg
+				.getPackedGitLimit());
+	}
+
+	@Test
+	public void testCache_TinyLfu() throws IOException {
+		final WindowCacheConfig cfg = new WindowCacheConfig();
+		cfg.setPackedGitWindowSize(4096);
+		cfg.setPackedGitLimit(3 * 4096);
+		cfg.setPackedGitEvictionPolicy(EvictionPolicy.TINY_LFU);
+		cfg.install();
+		doCacheTests();
+		doCacheTests();
+		checkLimits(cfg);
+	}
+
+	@Test
+	public void testCache_TinyLfuScanResistant() throws IOException {
+		final WindowCacheConfig cfg = new WindowCacheConfig();
+		cfg.setPackedGitWindowSize(4096);
+		cfg.setPackedGitLimit(4096);
+		cfg.setPackedGitUseStrongRefs(true);
+		cfg.setPackedGitEvictionPolicy(EvictionPolicy.TINY_LFU);
+		cfg.install();
+
+		final List<PackFile> packs = new ArrayList<>(
+				db.getObjectDatabase().getPacks());
+		PackFile hot = packs.get(0);
+		for (PackFile p : packs) {
+			if (hot.getPackFile().length() < p.getPackFile().length())
+				hot = p;
+		}
+		for (int i = 0; i < 10; i++)
+			WindowCache.get(hot, 0).release();
+
+		int scanned = 0;
+		for (PackFile p : packs) {
+			for (long pos = 0; pos < p.getPackFile().length(); pos += 4096) {
+				if (p == hot && pos == 0)
+					continue;
+				WindowCache.get(p, pos).release();
+				scanned++;
+
+				final long hits = WindowCacheStats.getHitCount();
+				final long misses = WindowCacheStats.getMissCount();
+				WindowCache.get(hot, 0).release();
+				assertEquals(hits + 1, WindowCacheStats.getHitCount());
+				assertEquals(misses, WindowCacheStats.getMissCount());
+			}
+		}
+		// The cache holds one window, the scan read more than that.
+		assertTrue(1 < scanned);
+		assertEquals(scanned, WindowCacheStats.getEvictionCount());
+	}
+
+	@Test
+	public void testCache_Stats() throws IOException {
+		final WindowCacheConfig cfg = new WindowCacheConfig();
+		cfg.setPackedGitUseStrongRefs(true);
+		cfg.install();
+		doCacheTests();
+
+		final long misses = WindowCacheStats.getMissCount();
+		assertTrue(0 < misses);
+		assertEquals(misses, WindowCacheStats.getLoadSuccessCount());
+		assertEquals(0, WindowCacheStats.getLoadFailureCount());
+		assertEquals(0, WindowCacheStats.getEvictionCount());
+		assertTrue(0 < WindowCacheStats.getTotalLoadTime());
+
+		final long hits = WindowCacheStats.getHitCount();
+		doCacheTests();
+		assertEquals(misses, WindowCacheStats.getMissCount());
+		assertTrue(hits < WindowCacheStats.getHitCount());
+		assertTrue(WindowCacheStats.getHitRatio() > 0.5);
+
+		WindowCacheStats.resetCounters();
+		assertEquals(0, WindowCacheStats.getHitCount());
+		assertEquals(0, WindowCacheStats.getMissCount());
+		assertEquals(0, WindowCacheStats.getTotalLoadTime());
+		assertEquals(1.0, WindowCacheStats.getHitRatio(), 0);
+	}
+
+	@Test
+	public void testConfig() {
+		final Config rc = new Config();
+		rc.setBoolean("core", null, "packedGitUseStrongRefs", true);
+		rc.setString("core", null, "packedGitEvictionPolicy", "tiny-lfu");
+		final WindowCacheConfig cfg = new WindowCacheConfig().fromConfig(rc);
+		assertTrue(cfg.isPackedGitUseStrongRefs());
+		assertEquals(EvictionPolicy.TINY_LFU, cfg.getPackedGitEvictionPolicy());
+	}
+
 	private static void checkLimits(WindowCacheConfig cfg) {
 		final WindowCache cache = WindowCache.getInstance();
 		assertTrue(cache.getOpenFiles() <= cfg.getPackedGitOpenFiles());
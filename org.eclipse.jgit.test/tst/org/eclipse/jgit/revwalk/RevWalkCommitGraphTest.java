@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.revwalk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.internal.storage.file.CommitGraphWriter;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.util.FileUtils;
+import org.junit.Test;
+
+public class RevWalkCommitGraphTest extends RevWalkTestCase {
+	@Test
+	public void testWalkWithCommitGraph() throws Exception {
+		RevCommit a = commit();
+		RevCommit b = commit(a);
+		RevCommit c = commit(a);
+		RevCommit d = commit(b, c);
+		RevCommit e = commit(d);
+		writeCommitGraph(e);
+
+		List<RevCommit> expected = walk(false, e);
+		try (RevWalk walk = new RevWalk(db)) {
+			walk.setRetainBody(false);
+			assertNotNull(walk.getCommitGraph());
+			walk.markStart(walk.parseCommit(e));
+			List<RevCommit> actual = new ArrayList<>();
+			for (RevCommit commit : walk) {
+				assertNull(commit.getRawBuffer());
+				assertTrue(commit.generation > 0);
+				actual.add(commit);
+			}
+			assertEquals(expected, actual);
+			assertEquals(1, walk.lookupCommit(a).generation);
+			assertEquals(4, walk.lookupCommit(e).generation);
+		}
+	}
+
+	@Test
+	public void testRetainBodyIgnoresCommitGraph() throws Exception {
+		RevCommit a = commit();
+		writeCommitGraph(a);
+		try (RevWalk walk = new RevWalk(db)) {
+			RevCommit commit = walk.parseCommit(a);
+			assertNotNull(commit.getRawBuffer());
+			assertEquals(1, commit.generation);
+		}
+	}
+
+	@Test
+	public void testMergedIntoWithCommitGraph() throws Exception {
+		RevCommit a = commit();
+		RevCommit b = commit(a);
+		RevCommit c = commit(a);
+		RevCommit d = commit(b, c);
+		RevCommit e = commit(c);
+		writeCommitGraph(d, e);
+		// f is not in the commit-graph.
+		RevCommit f = commit(e);
+
+		List<RevCommit> all = Arrays.asList(a, b, c, d, e, f);
+		try (RevWalk walk = new RevWalk(db)) {
+			walk.setRetainBody(false);
+			for (RevCommit base : all) {
+				for (RevCommit tip : all) {
+					assertEquals(base.name() + " merged into " + tip.name(),
+							rw.isMergedInto(base, tip),
+							walk.isMergedInto(walk.lookupCommit(base),
+									walk.lookupCommit(tip)));
+				}
+			}
+			assertTrue(walk.isMergedInto(walk.lookupCommit(a),
+					walk.lookupCommit(f)));
+			assertFalse(walk.isMergedInto(walk.lookupCommit(b),
+					walk.lookupCommit(f)));
+		}
+	}
+
+	private List<RevCommit> walk(boolean retainBody, RevCommit tip)
+			throws Exception {
+		try (RevWalk walk = new RevWalk(db)) {
+			walk.setRetainBody(retainBody);
+			walk.markStart(walk.parseCommit(tip));
+			List<RevCommit> commits = new ArrayList<>();
+			for (RevCommit commit : walk) {
+				commits.add(commit);
+			}
+			return commits;
+		}
+	}
+
+	private void writeCommitGraph(RevCommit... tips) throws Exception {
+		File file = new File(db.getObjectDatabase().getDirectory(),
+				"info/commit-graph");
+		FileUtils.mkdirs(file.getParentFile(), true);
+		try (ObjectReader reader = db.newObjectReader();
+				OutputStream out = new FileOutputStream(file)) {
+			new CommitGraphWriter(reader).write(NullProgressMonitor.INSTANCE,
+					Arrays.asList(tips), out);
+		}
+	}
+}
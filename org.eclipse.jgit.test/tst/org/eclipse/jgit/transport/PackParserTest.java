@@ -46,32 +46,45 @@
 
 package org.eclipse.jgit.transport;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.zip.Deflater;
 
+import org.eclipse.jgit.errors.CorruptObjectException;
 import org.eclipse.jgit.errors.TooLargeObjectInPackException;
 import org.eclipse.jgit.internal.JGitText;
 import org.eclipse.jgit.internal.storage.file.ObjectDirectoryPackParser;
 import org.eclipse.jgit.internal.storage.file.PackFile;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
 import org.eclipse.jgit.junit.JGitTestUtil;
 import org.eclipse.jgit.junit.RepositoryTestCase;
 import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.junit.TestRepository.CommitBuilder;
+import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectChecker;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevBlob;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.storage.pack.PackConfig;
 import org.eclipse.jgit.util.NB;
 import org.eclipse.jgit.util.TemporaryBuffer;
 import org.eclipse.jgit.util.io.UnionInputStream;
@@ -139,6 +152,103 @@ public void test2() throws  IOException {
 		}
 	}
 
+	@Test
+	public void testParallelDeltaResolution() throws Exception {
+		TestRepository<Repository> d = new TestRepository<>(db);
+		RevCommit tip = null;
+		for (int rev = 0; rev < 10; rev++) {
+			CommitBuilder b = tip == null ? d.commit() : d.commit().parent(tip);
+			for (int file = 0; file < 20; file++) {
+				StringBuilder content = new StringBuilder();
+				for (int line = 0; line < 50; line++)
+					content.append("file ").append(file).append(" line ")
+							.append(line).append(line % 10 == rev ? " changed" : "")
+							.append('\n');
+				b.add("f" + file, content.toString());
+			}
+			tip = b.create();
+		}
+
+		for (boolean ofsDelta : new boolean[] { true, false }) {
+			byte[] pack = deltaPack(tip, ofsDelta);
+			RecordingChecker sequential = new RecordingChecker();
+			byte[] sequentialIdx = indexWithThreads(createBareRepository(),
+					pack, 1, sequential);
+			RecordingChecker parallel = new RecordingChecker();
+			byte[] parallelIdx = indexWithThreads(createBareRepository(), pack,
+					4, parallel);
+
+			assertTrue(sequential.checked.size() >= 200);
+			assertEquals(sequential.checked, parallel.checked);
+			assertArrayEquals(sequentialIdx, parallelIdx);
+		}
+	}
+
+	@Test
+	public void testParallelDeltaResolutionThinPack() throws Exception {
+		db.getConfig().setInt("pack", null, "threads", 4);
+		TestRepository d = new TestRepository<Repository>(db);
+		RevBlob a = d.blob("a");
+
+		TemporaryBuffer.Heap pack = new TemporaryBuffer.Heap(1024);
+		packHeader(pack, 3);
+
+		pack.write((Constants.OBJ_REF_DELTA) << 4 | 4);
+		a.copyRawTo(pack);
+		deflate(pack, new byte[] { 0x1, 0x1, 0x1, 'b' });
+
+		long basePos = pack.length();
+		pack.write((Constants.OBJ_BLOB) << 4 | 1);
+		deflate(pack, new byte[] { 'c' });
+
+		long deltaPos = pack.length();
+		pack.write((Constants.OBJ_OFS_DELTA) << 4 | 4);
+		pack.write((int) (deltaPos - basePos));
+		deflate(pack, new byte[] { 0x1, 0x1, 0x1, 'd' });
+
+		digest(pack);
+
+		PackParser p = index(new ByteArrayInputStream(pack.toByteArray()));
+		assertEquals(4, p.getDeltaResolutionThreads());
+		p.setAllowThin(true);
+		p.setNeedNewObjectIds(true);
+		p.parse(NullProgressMonitor.INSTANCE);
+
+		ObjectInserter.Formatter fmt = new ObjectInserter.Formatter();
+		for (String s : new String[] { "b", "c", "d" }) {
+			ObjectId id = fmt.idFor(Constants.OBJ_BLOB, Constants.encode(s));
+			assertTrue(p.getNewObjectIds().contains(id));
+			assertTrue(db.hasObject(id));
+		}
+	}
+
+	@Test
+	public void testParallelMaxObjectSizeDeltaResultSize() throws Exception {
+		TemporaryBuffer.Heap pack = new TemporaryBuffer.Heap(1024);
+		packHeader(pack, 2);
+
+		long basePos = pack.length();
+		pack.write((Constants.OBJ_BLOB) << 4 | 10);
+		deflate(pack, Constants.encode("0123456789"));
+
+		long deltaPos = pack.length();
+		pack.write((Constants.OBJ_OFS_DELTA) << 4 | 4);
+		pack.write((int) (deltaPos - basePos));
+		deflate(pack, new byte[] { 10, 11, 1, 'a' });
+		digest(pack);
+
+		PackParser p = index(new ByteArrayInputStream(pack.toByteArray()));
+		p.setDeltaResolutionThreads(4);
+		p.setMaxObjectSizeLimit(10);
+		try {
+			p.parse(NullProgressMonitor.INSTANCE);
+			fail("PackParser should have failed");
+		} catch (TooLargeObjectInPackException e) {
+			assertTrue(e.getMessage().contains("11")); // result obj size
+			assertTrue(e.getMessage().contains("10")); // max obj size
+		}
+	}
+
 	@Test
 	public void testTinyThinPack() throws Exception {
 		TestRepository d = new TestRepository<Repository>(db);
@@ -489,4 +599,45 @@ private PackParser index(InputStream in) throws IOException {
 			inserter = db.newObjectInserter();
 		return inserter.newPackParser(in);
 	}
+
+	private byte[] deltaPack(RevCommit tip, boolean ofsDelta)
+			throws IOException {
+		PackConfig pc = new PackConfig(db);
+		pc.setReuseDeltas(false);
+		pc.setReuseObjects(false);
+		pc.setDeltaBaseAsOffset(ofsDelta);
+		try (PackWriter pw = new PackWriter(pc, db.newObjectReader())) {
+			pw.preparePack(NullProgressMonitor.INSTANCE,
+					Collections.singleton(tip), Collections.<ObjectId> emptySet());
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			pw.writePack(NullProgressMonitor.INSTANCE,
+					NullProgressMonitor.INSTANCE, out);
+			assertTrue(pw.getStatistics().getTotalDeltas() > 100);
+			return out.toByteArray();
+		}
+	}
+
+	private static byte[] indexWithThreads(Repository repo, byte[] pack,
+			int threads, ObjectChecker checker) throws IOException {
+		try (ObjectInserter ins = repo.newObjectInserter()) {
+			ObjectDirectoryPackParser p = (ObjectDirectoryPackParser) ins
+					.newPackParser(new ByteArrayInputStream(pack));
+			p.setDeltaResolutionThreads(threads);
+			p.setObjectChecker(checker);
+			p.parse(NullProgressMonitor.INSTANCE);
+			String name = p.getPackFile().getPackFile().getPath();
+			return Files.readAllBytes(new File(name.substring(0,
+					name.length() - ".pack".length()) + ".idx").toPath());
+		}
+	}
+
+	private static class RecordingChecker extends ObjectChecker {
+		final List<String> checked = new ArrayList<>();
+
+		@Override
+		public void check(AnyObjectId id, int objType, byte[] raw)
+				throws CorruptObjectException {
+			checked.add(id.name() + ' ' + objType);
+		}
+	}
 }
@@ -73,7 +73,7 @@ protected int copy(int p, byte[] b, int o, int n) {
 
 	/** {@inheritDoc} */
 	@Override
-	protected int setInput(int pos, Inflater inf)
+	protected int setInput(int pos, Inflater inf, byte[] tmp)
 			throws DataFormatException {
 		int n = array.length - pos;
 		inf.setInput(array, pos, n);
@@ -57,7 +57,7 @@
  *
  * @see ByteWindow
  */
-final class ByteBufferWindow extends ByteWindow {
+class ByteBufferWindow extends ByteWindow {
 	private final ByteBuffer buffer;
 
 	ByteBufferWindow(PackFile pack, long o, ByteBuffer b) {
@@ -92,13 +92,13 @@ void write(PackOutputStream out, long pos, int cnt)
 
 	/** {@inheritDoc} */
 	@Override
-	protected int setInput(int pos, Inflater inf)
+	protected int setInput(int pos, Inflater inf, byte[] tmp)
 			throws DataFormatException {
 		final ByteBuffer s = buffer.slice();
 		s.position(pos);
-		final byte[] tmp = new byte[Math.min(s.remaining(), 512)];
-		s.get(tmp, 0, tmp.length);
-		inf.setInput(tmp, 0, tmp.length);
-		return tmp.length;
+		final int n = Math.min(s.remaining(), tmp.length);
+		s.get(tmp, 0, n);
+		inf.setInput(tmp, 0, n);
+		return n;
 	}
 }
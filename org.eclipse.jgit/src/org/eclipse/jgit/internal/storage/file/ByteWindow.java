@@ -86,6 +86,28 @@ final int size() {
 		return (int) (end - start);
 	}
 
+	/**
+	 * Acquire a reference to the storage of this window.
+	 * <p>
+	 * Windows whose storage is released explicitly count their users, see
+	 * {@link OffHeapWindow}. Other windows are freed by the garbage collector
+	 * and ignore the count.
+	 *
+	 * @return true if the reference was acquired; false if the storage was
+	 *         already released and the window must not be used.
+	 */
+	boolean retain() {
+		return true;
+	}
+
+	/**
+	 * Release a reference acquired by {@link #retain()}, or the reference of
+	 * the cache when the window is evicted.
+	 */
+	void release() {
+		// Heap windows are freed by the garbage collector.
+	}
+
 	final boolean contains(PackFile neededFile, long neededPos) {
 		return pack == neededFile && start <= neededPos && neededPos < end;
 	}
@@ -133,8 +155,9 @@ final int copy(long pos, byte[] dstbuf, int dstoff, int cnt) {
 	abstract void write(PackOutputStream out, long pos, int cnt)
 			throws IOException;
 
-	final int setInput(long pos, Inflater inf) throws DataFormatException {
-		return setInput((int) (pos - start), inf);
+	final int setInput(long pos, Inflater inf, byte[] tmp)
+			throws DataFormatException {
+		return setInput((int) (pos - start), inf, tmp);
 	}
 
 	/**
@@ -144,10 +167,14 @@ final int setInput(long pos, Inflater inf) throws DataFormatException {
 	 *            position
 	 * @param inf
 	 *            an {@link java.util.zip.Inflater} object.
+	 * @param tmp
+	 *            buffer the window may copy the input into, if its storage
+	 *            cannot be passed to the inflater. It must not be modified
+	 *            until the inflater consumed the input.
 	 * @return size of the byte window
 	 * @throws java.util.zip.DataFormatException
 	 *             if any.
 	 */
-	protected abstract int setInput(int pos, Inflater inf)
+	protected abstract int setInput(int pos, Inflater inf, byte[] tmp)
 			throws DataFormatException;
 }
@@ -154,6 +154,11 @@ Set<ObjectId> getShallowCommits() throws IOException {
 		return wrapped.getShallowCommits();
 	}
 
+	@Override
+	CommitGraph getCommitGraph() throws IOException {
+		return wrapped.getCommitGraph();
+	}
+
 	private CachedObjectDirectory[] myAlternates() {
 		if (alts == null) {
 			ObjectDirectory.AlternateHandle[] src = wrapped.myAlternates();
@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+import static org.eclipse.jgit.lib.Constants.OBJECT_ID_LENGTH;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+
+import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.CommitGraphIndex;
+import org.eclipse.jgit.lib.MutableObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.util.IO;
+import org.eclipse.jgit.util.NB;
+
+/**
+ * Reads the {@code objects/info/commit-graph} file.
+ * <p>
+ * The commit-graph stores the tree, the parents, the commit time and the
+ * generation number of commits, so a walk can obtain them without inflating
+ * the commit objects. The layout is the one written by C git:
+ *
+ * <pre>
+ * header:  "CGPH", version 1, hash version 1 (SHA-1), chunk count, 0
+ * chunks:  (4 byte chunk id, 8 byte offset)* and a terminating entry
+ * OIDF:    fan-out table of 256 cumulative commit counts
+ * OIDL:    sorted commit ids
+ * CDAT:    tree id, first parent, second parent, generation and commit time
+ * EDGE:    the remaining parents of octopus merges
+ * trailer: SHA-1 of the file content
+ * </pre>
+ * <p>
+ * The generation number of a commit is one more than the largest generation
+ * number of its parents, so a commit can only reach commits of a lower
+ * generation. The file is closed under reachability: all ancestors of a commit
+ * in the graph are in the graph too, so a commit missing from the graph cannot
+ * be reached from a commit in it.
+ * <p>
+ * Positions used by this class are indexes into the sorted commit list. They
+ * are only meaningful for the instance they were obtained from.
+ */
+public class CommitGraph implements CommitGraphIndex {
+	/** "CGPH" */
+	static final int SIGNATURE = 0x43475048;
+
+	static final int VERSION = 1;
+
+	static final int HASH_VERSION_SHA1 = 1;
+
+	/** "OIDF" */
+	static final int CHUNK_OID_FANOUT = 0x4f494446;
+
+	/** "OIDL" */
+	static final int CHUNK_OID_LOOKUP = 0x4f49444c;
+
+	/** "CDAT" */
+	static final int CHUNK_COMMIT_DATA = 0x43444154;
+
+	/** "EDGE" */
+	static final int CHUNK_EXTRA_EDGES = 0x45444745;
+
+	static final int HEADER_LENGTH = 8;
+
+	static final int CHUNK_LOOKUP_WIDTH = 12;
+
+	static final int FANOUT = 256;
+
+	/** Tree id, two parents and the generation and commit time word. */
+	static final int COMMIT_DATA_WIDTH = OBJECT_ID_LENGTH + 16;
+
+	static final int PARENT_NONE = 0x70000000;
+
+	static final int PARENT_EXTRA_EDGES = 0x80000000;
+
+	static final int PARENT_LAST = 0x80000000;
+
+	/** Largest generation number the file can store. */
+	public static final int GENERATION_NUMBER_MAX = 0x3FFFFFFF;
+
+	/**
+	 * Read a commit-graph file.
+	 *
+	 * @param file
+	 *            the {@code commit-graph} file.
+	 * @return the commit-graph.
+	 * @throws java.io.IOException
+	 *             the file cannot be read or is not a valid commit-graph.
+	 */
+	public static CommitGraph open(File file) throws IOException {
+		return new CommitGraph(IO.readFully(file));
+	}
+
+	/**
+	 * Read a commit-graph from a stream.
+	 *
+	 * @param in
+	 *            the stream to read the commit-graph from. The stream is read
+	 *            to the end but not closed.
+	 * @return the commit-graph.
+	 * @throws java.io.IOException
+	 *             the stream cannot be read or is not a valid commit-graph.
+	 */
+	public static CommitGraph read(InputStream in) throws IOException {
+		ByteBuffer buf = IO.readWholeStream(in, 0);
+		byte[] data = new byte[buf.remaining()];
+		buf.get(data);
+		return new CommitGraph(data);
+	}
+
+	private final byte[] data;
+
+	private final int[] fanoutTable;
+
+	private final int commitCnt;
+
+	private final int oidLookup;
+
+	private final int commitData;
+
+	private final int extraEdges;
+
+	private final int extraEdgesCnt;
+
+	CommitGraph(byte[] data) throws IOException {
+		this.data = data;
+		int trailer = data.length - OBJECT_ID_LENGTH;
+		if (trailer < HEADER_LENGTH + CHUNK_LOOKUP_WIDTH) {
+			throw corrupt("truncated file"); //$NON-NLS-1$
+		}
+		if (NB.decodeInt32(data, 0) != SIGNATURE) {
+			throw corrupt("bad signature"); //$NON-NLS-1$
+		}
+		int version = data[4] & 0xff;
+		if (version != VERSION) {
+			throw new IOException(MessageFormat.format(
+					JGitText.get().unsupportedCommitGraphVersion,
+					Integer.valueOf(version)));
+		}
+		if ((data[5] & 0xff) != HASH_VERSION_SHA1) {
+			throw corrupt("unsupported hash version " + (data[5] & 0xff)); //$NON-NLS-1$
+		}
+
+		int chunkCnt = data[6] & 0xff;
+		long chunksStart = HEADER_LENGTH + (chunkCnt + 1L) * CHUNK_LOOKUP_WIDTH;
+		if (chunksStart > trailer) {
+			throw corrupt("truncated chunk lookup"); //$NON-NLS-1$
+		}
+		int oidFanout = -1, oidl = -1, cdat = -1, edge = -1;
+		long oidlLen = 0, cdatLen = 0, edgeLen = 0;
+		for (int i = 0; i < chunkCnt; i++) {
+			int p = HEADER_LENGTH + i * CHUNK_LOOKUP_WIDTH;
+			int id = NB.decodeInt32(data, p);
+			long start = NB.decodeInt64(data, p + 4);
+			long end = NB.decodeInt64(data, p + 4 + CHUNK_LOOKUP_WIDTH);
+			if (start < chunksStart || end < start || end > trailer) {
+				throw corrupt("bad chunk offset"); //$NON-NLS-1$
+			}
+			switch (id) {
+			case CHUNK_OID_FANOUT:
+				if (end - start != FANOUT * 4) {
+					throw corrupt("bad fan-out length"); //$NON-NLS-1$
+				}
+				oidFanout = (int) start;
+				break;
+			case CHUNK_OID_LOOKUP:
+				oidl = (int) start;
+				oidlLen = end - start;
+				break;
+			case CHUNK_COMMIT_DATA:
+				cdat = (int) start;
+				cdatLen = end - start;
+				break;
+			case CHUNK_EXTRA_EDGES:
+				edge = (int) start;
+				edgeLen = end - start;
+				break;
+			default:
+				// Chunks of later versions of git are ignored.
+				break;
+			}
+		}
+		if (oidFanout < 0 || oidl < 0 || cdat < 0) {
+			throw corrupt("missing chunk"); //$NON-NLS-1$
+		}
+
+		fanoutTable = new int[FANOUT];
+		int last = 0;
+		for (int k = 0; k < FANOUT; k++) {
+			int n = NB.decodeInt32(data, oidFanout + k * 4);
+			if (n < last) {
+				throw corrupt("bad fan-out table"); //$NON-NLS-1$
+			}
+			fanoutTable[k] = last = n;
+		}
+		commitCnt = last;
+		if (oidlLen != (long) commitCnt * OBJECT_ID_LENGTH
+				|| cdatLen != (long) commitCnt * COMMIT_DATA_WIDTH
+				|| edgeLen % 4 != 0) {
+			throw corrupt("bad chunk length"); //$NON-NLS-1$
+		}
+		oidLookup = oidl;
+		commitData = cdat;
+		extraEdges = edge;
+		extraEdgesCnt = (int) (edgeLen / 4);
+		checkParents();
+	}
+
+	/**
+	 * Check all parent positions once, so the lookups can trust them.
+	 */
+	private void checkParents() throws IOException {
+		for (int pos = 0; pos < commitCnt; pos++) {
+			int p = commitData + pos * COMMIT_DATA_WIDTH + OBJECT_ID_LENGTH;
+			int p1 = NB.decodeInt32(data, p);
+			int p2 = NB.decodeInt32(data, p + 4);
+			if (p1 == PARENT_NONE) {
+				if (p2 != PARENT_NONE) {
+					throw corrupt("second parent without first parent"); //$NON-NLS-1$
+				}
+				continue;
+			}
+			checkPosition(p1);
+			if (p2 == PARENT_NONE) {
+				continue;
+			}
+			if ((p2 & PARENT_EXTRA_EDGES) == 0) {
+				checkPosition(p2);
+				continue;
+			}
+			for (int e = p2 & ~PARENT_EXTRA_EDGES;; e++) {
+				if (e >= extraEdgesCnt) {
+					throw corrupt("bad extra edge"); //$NON-NLS-1$
+				}
+				int v = NB.decodeInt32(data, extraEdges + e * 4);
+				checkPosition(v & ~PARENT_LAST);
+				if ((v & PARENT_LAST) != 0) {
+					break;
+				}
+			}
+		}
+	}
+
+	private void checkPosition(int pos) throws IOException {
+		if (pos < 0 || pos >= commitCnt) {
+			throw corrupt("bad parent position " + pos); //$NON-NLS-1$
+		}
+	}
+
+	private static IOException corrupt(String why) {
+		return new IOException(
+				MessageFormat.format(JGitText.get().corruptCommitGraph, why));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getCommitCount() {
+		return commitCnt;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int findGraphPosition(AnyObjectId id) {
+		int levelOne = id.getFirstByte();
+		int low = levelOne == 0 ? 0 : fanoutTable[levelOne - 1];
+		int high = fanoutTable[levelOne];
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			int cmp = id.compareTo(data, oidLookup + mid * OBJECT_ID_LENGTH);
+			if (cmp < 0) {
+				high = mid;
+			} else if (cmp == 0) {
+				return mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return -1;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ObjectId getObjectId(int pos) {
+		return ObjectId.fromRaw(data, oidLookup + pos * OBJECT_ID_LENGTH);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void copyObjectId(int pos, MutableObjectId dst) {
+		dst.fromRaw(data, oidLookup + pos * OBJECT_ID_LENGTH);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void copyTreeId(int pos, MutableObjectId dst) {
+		dst.fromRaw(data, commitData + pos * COMMIT_DATA_WIDTH);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getParentCount(int pos) {
+		int p = commitData + pos * COMMIT_DATA_WIDTH + OBJECT_ID_LENGTH;
+		if (NB.decodeInt32(data, p) == PARENT_NONE) {
+			return 0;
+		}
+		int p2 = NB.decodeInt32(data, p + 4);
+		if (p2 == PARENT_NONE) {
+			return 1;
+		}
+		if ((p2 & PARENT_EXTRA_EDGES) == 0) {
+			return 2;
+		}
+		int n = 1;
+		for (int e = p2 & ~PARENT_EXTRA_EDGES;; e++) {
+			n++;
+			if ((NB.decodeInt32(data, extraEdges + e * 4) & PARENT_LAST) != 0) {
+				return n;
+			}
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getParent(int pos, int nth) {
+		int p = commitData + pos * COMMIT_DATA_WIDTH + OBJECT_ID_LENGTH;
+		if (nth == 0) {
+			return NB.decodeInt32(data, p);
+		}
+		int p2 = NB.decodeInt32(data, p + 4);
+		if ((p2 & PARENT_EXTRA_EDGES) == 0) {
+			return p2;
+		}
+		int e = (p2 & ~PARENT_EXTRA_EDGES) + nth - 1;
+		return NB.decodeInt32(data, extraEdges + e * 4) & ~PARENT_LAST;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getCommitTime(int pos) {
+		int p = commitData + pos * COMMIT_DATA_WIDTH + OBJECT_ID_LENGTH + 8;
+		long high = NB.decodeUInt32(data, p) & 0x3;
+		return (high << 32) | NB.decodeUInt32(data, p + 4);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getGeneration(int pos) {
+		int p = commitData + pos * COMMIT_DATA_WIDTH + OBJECT_ID_LENGTH + 8;
+		return NB.decodeInt32(data, p) >>> 2;
+	}
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.CHUNK_COMMIT_DATA;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.CHUNK_EXTRA_EDGES;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.CHUNK_LOOKUP_WIDTH;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.CHUNK_OID_FANOUT;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.CHUNK_OID_LOOKUP;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.COMMIT_DATA_WIDTH;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.FANOUT;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.GENERATION_NUMBER_MAX;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.HASH_VERSION_SHA1;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.HEADER_LENGTH;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.PARENT_EXTRA_EDGES;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.PARENT_LAST;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.PARENT_NONE;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.SIGNATURE;
+import static org.eclipse.jgit.internal.storage.file.CommitGraph.VERSION;
+import static org.eclipse.jgit.lib.Constants.OBJECT_ID_LENGTH;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.NB;
+
+/**
+ * Writes a {@link CommitGraph} of all commits reachable from a set of tips.
+ * <p>
+ * The graph of a shallow repository would record the shallow commits as roots
+ * with wrong generation numbers, callers must not write one for it.
+ */
+public class CommitGraphWriter {
+	private final ObjectReader reader;
+
+	private final byte[] buf = new byte[COMMIT_DATA_WIDTH];
+
+	/**
+	 * Create a writer reading the commits from a reader.
+	 *
+	 * @param reader
+	 *            reader to load the commits from. It is not closed.
+	 */
+	public CommitGraphWriter(ObjectReader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Write the commit-graph of all commits reachable from the tips.
+	 *
+	 * @param pm
+	 *            progress monitor to report the walk and the write to.
+	 * @param tips
+	 *            objects to start the walk from. Annotated tags are peeled,
+	 *            missing objects and objects which are not commits are
+	 *            ignored.
+	 * @param out
+	 *            stream the file is written to. The stream is flushed but not
+	 *            closed.
+	 * @return number of commits written.
+	 * @throws java.io.IOException
+	 *             a commit cannot be read, or the stream cannot be written.
+	 */
+	public int write(ProgressMonitor pm, Collection<? extends AnyObjectId> tips,
+			OutputStream out) throws IOException {
+		RevCommit[] commits = findCommits(pm, tips);
+		Arrays.sort(commits);
+		int[] generations = computeGenerations(commits);
+		writeGraph(pm, commits, generations, out);
+		return commits.length;
+	}
+
+	private RevCommit[] findCommits(ProgressMonitor pm,
+			Collection<? extends AnyObjectId> tips) throws IOException {
+		try (RevWalk rw = new RevWalk(reader)) {
+			rw.setRetainBody(false);
+			for (AnyObjectId id : tips) {
+				RevObject o;
+				try {
+					o = rw.peel(rw.parseAny(id));
+				} catch (MissingObjectException notFound) {
+					continue;
+				}
+				if (o instanceof RevCommit) {
+					rw.markStart((RevCommit) o);
+				}
+			}
+			pm.beginTask(JGitText.get().findingCommitsForCommitGraph,
+					ProgressMonitor.UNKNOWN);
+			List<RevCommit> list = new ArrayList<>();
+			for (RevCommit c; (c = rw.next()) != null;) {
+				list.add(c);
+				pm.update(1);
+			}
+			pm.endTask();
+			return list.toArray(new RevCommit[0]);
+		}
+	}
+
+	/**
+	 * Compute the generation numbers without recursion, a long first parent
+	 * chain would overflow the stack.
+	 */
+	private static int[] computeGenerations(RevCommit[] commits)
+			throws IOException {
+		int[] generations = new int[commits.length];
+		int[] stack = new int[64];
+		for (int i = 0; i < commits.length; i++) {
+			if (generations[i] != 0) {
+				continue;
+			}
+			int top = 0;
+			stack[top++] = i;
+			while (top > 0) {
+				int pos = stack[top - 1];
+				if (generations[pos] != 0) {
+					top--;
+					continue;
+				}
+				int max = 0;
+				boolean ready = true;
+				for (RevCommit p : commits[pos].getParents()) {
+					int parent = position(commits, commits[pos], p);
+					if (generations[parent] == 0) {
+						if (top == stack.length) {
+							stack = Arrays.copyOf(stack, top * 2);
+						}
+						stack[top++] = parent;
+						ready = false;
+					} else {
+						max = Math.max(max, generations[parent]);
+					}
+				}
+				if (ready) {
+					generations[pos] = Math.min(max + 1, GENERATION_NUMBER_MAX);
+					top--;
+				}
+			}
+		}
+		return generations;
+	}
+
+	private static int position(RevCommit[] commits, RevCommit c,
+			RevCommit parent) throws IOException {
+		int pos = Arrays.binarySearch(commits, parent);
+		if (pos < 0) {
+			throw new IOException(MessageFormat.format(
+					JGitText.get().commitGraphParentMissing, parent.name(),
+					c.name()));
+		}
+		return pos;
+	}
+
+	private void writeGraph(ProgressMonitor pm, RevCommit[] commits,
+			int[] generations, OutputStream dst) throws IOException {
+		int edgeCnt = 0;
+		for (RevCommit c : commits) {
+			if (c.getParentCount() > 2) {
+				edgeCnt += c.getParentCount() - 1;
+			}
+		}
+		int chunkCnt = edgeCnt > 0 ? 4 : 3;
+		long[] chunkLengths = { FANOUT * 4,
+				(long) commits.length * OBJECT_ID_LENGTH,
+				(long) commits.length * COMMIT_DATA_WIDTH, edgeCnt * 4L };
+		int[] chunkIds = { CHUNK_OID_FANOUT, CHUNK_OID_LOOKUP,
+				CHUNK_COMMIT_DATA, CHUNK_EXTRA_EDGES };
+
+		MessageDigest md = Constants.newMessageDigest();
+		OutputStream out = new DigestOutputStream(new BufferedOutputStream(dst),
+				md);
+
+		pm.beginTask(JGitText.get().writingCommitGraph, commits.length);
+		NB.encodeInt32(buf, 0, SIGNATURE);
+		buf[4] = VERSION;
+		buf[5] = HASH_VERSION_SHA1;
+		buf[6] = (byte) chunkCnt;
+		buf[7] = 0;
+		out.write(buf, 0, HEADER_LENGTH);
+
+		long offset = HEADER_LENGTH + (chunkCnt + 1L) * CHUNK_LOOKUP_WIDTH;
+		for (int i = 0; i <= chunkCnt; i++) {
+			NB.encodeInt32(buf, 0, i < chunkCnt ? chunkIds[i] : 0);
+			NB.encodeInt64(buf, 4, offset);
+			out.write(buf, 0, CHUNK_LOOKUP_WIDTH);
+			if (i < chunkCnt) {
+				offset += chunkLengths[i];
+			}
+		}
+
+		int[] fanout = new int[FANOUT];
+		for (RevCommit c : commits) {
+			fanout[c.getFirstByte()]++;
+		}
+		for (int k = 0, n = 0; k < FANOUT; k++) {
+			n += fanout[k];
+			NB.encodeInt32(buf, 0, n);
+			out.write(buf, 0, 4);
+		}
+
+		for (RevCommit c : commits) {
+			c.copyRawTo(buf, 0);
+			out.write(buf, 0, OBJECT_ID_LENGTH);
+		}
+
+		int[] edges = new int[edgeCnt];
+		int edgePos = 0;
+		for (int pos = 0; pos < commits.length; pos++) {
+			RevCommit c = commits[pos];
+			RevCommit[] parents = c.getParents();
+			c.getTree().copyRawTo(buf, 0);
+			int p1 = PARENT_NONE;
+			int p2 = PARENT_NONE;
+			if (parents.length > 0) {
+				p1 = position(commits, c, parents[0]);
+			}
+			if (parents.length == 2) {
+				p2 = position(commits, c, parents[1]);
+			} else if (parents.length > 2) {
+				p2 = PARENT_EXTRA_EDGES | edgePos;
+				for (int i = 1; i < parents.length; i++) {
+					edges[edgePos++] = position(commits, c, parents[i]);
+				}
+				edges[edgePos - 1] |= PARENT_LAST;
+			}
+			long time = c.getCommitTime() & 0xffffffffL;
+			NB.encodeInt32(buf, OBJECT_ID_LENGTH, p1);
+			NB.encodeInt32(buf, OBJECT_ID_LENGTH + 4, p2);
+			NB.encodeInt32(buf, OBJECT_ID_LENGTH + 8,
+					(generations[pos] << 2) | (int) (time >>> 32));
+			NB.encodeInt32(buf, OBJECT_ID_LENGTH + 12, (int) time);
+			out.write(buf, 0, COMMIT_DATA_WIDTH);
+			pm.update(1);
+		}
+
+		for (int e : edges) {
+			NB.encodeInt32(buf, 0, e);
+			out.write(buf, 0, 4);
+		}
+
+		out.flush();
+		dst.write(md.digest());
+		dst.flush();
+		pm.endTask();
+	}
+}
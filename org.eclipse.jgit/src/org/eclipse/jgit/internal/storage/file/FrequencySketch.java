@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+/**
+ * Approximate access frequency of cache keys, for frequency aware eviction.
+ * <p>
+ * This is a count-min sketch of 4 bit counters, four counters per key packed
+ * into {@code long} words. The estimate of a key is the smallest of its
+ * counters, so collisions can only overestimate it. Once the number of
+ * increments reaches ten times the expected number of cached keys all
+ * counters are halved, so the estimates follow a changing working set and old
+ * popularity fades.
+ * <p>
+ * Updates are not synchronized. Like the access clock of
+ * {@link WindowCache}, a lost increment under contention only makes the
+ * estimate a little less accurate.
+ */
+class FrequencySketch {
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L,
+			0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private static final int MAX_COUNT = 15;
+
+	private final long[] table;
+
+	private final int tableMask;
+
+	private final int sampleSize;
+
+	private int additions;
+
+	/**
+	 * Create a sketch.
+	 *
+	 * @param maximumSize
+	 *            expected number of keys held by the cache.
+	 */
+	FrequencySketch(int maximumSize) {
+		int size = Integer.highestOneBit(Math.max(16,
+				Math.min(maximumSize, 1 << 29)) - 1) << 1;
+		table = new long[size];
+		tableMask = size - 1;
+		sampleSize = (int) Math.min(10L * Math.max(maximumSize, 1),
+				Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Get the estimated frequency of a key.
+	 *
+	 * @param hash
+	 *            hash of the key.
+	 * @return estimated number of recent accesses, at most 15.
+	 */
+	int frequency(int hash) {
+		hash = spread(hash);
+		int start = (hash & 3) << 2;
+		int min = MAX_COUNT;
+		for (int i = 0; i < 4; i++) {
+			int shift = (start + i) << 2;
+			int count = (int) ((table[indexOf(hash, i)] >>> shift) & 0xf);
+			min = Math.min(min, count);
+		}
+		return min;
+	}
+
+	/**
+	 * Record an access of a key.
+	 *
+	 * @param hash
+	 *            hash of the key.
+	 */
+	void increment(int hash) {
+		hash = spread(hash);
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++)
+			added |= incrementAt(indexOf(hash, i), start + i);
+		if (added && ++additions >= sampleSize)
+			reset();
+	}
+
+	private boolean incrementAt(int i, int j) {
+		int shift = j << 2;
+		long mask = 0xfL << shift;
+		long word = table[i];
+		if ((word & mask) == mask)
+			return false;
+		table[i] = word + (1L << shift);
+		return true;
+	}
+
+	private void reset() {
+		for (int i = 0; i < table.length; i++)
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		additions >>>= 1;
+	}
+
+	private int indexOf(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return ((int) h) & tableMask;
+	}
+
+	private static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+}
@@ -892,12 +892,67 @@ public Collection<PackFile> repack() throws IOException {
 		deleteEmptyRefsFolders();
 		deleteOrphans();
 		deleteTempPacksIdx();
+		writeCommitGraph(allHeadsAndTags, nonHeads);
 
 		lastPackedRefs = refsBefore;
 		lastRepackTime = time;
 		return ret;
 	}
 
+	/**
+	 * Write the commit-graph of all commits reachable from the refs, reflogs
+	 * and the index, unless {@code gc.writeCommitGraph} is false.
+	 * <p>
+	 * The commit-graph only speeds up walks, a failure to write it does not
+	 * fail the gc.
+	 *
+	 * @param heads
+	 *            the branch tips and tags.
+	 * @param nonHeads
+	 *            the other refs, reflog and index objects.
+	 * @throws CancelledException
+	 *             the gc was cancelled.
+	 */
+	private void writeCommitGraph(Set<ObjectId> heads, Set<ObjectId> nonHeads)
+			throws CancelledException {
+		if (!repo.getConfig().getBoolean(ConfigConstants.CONFIG_GC_SECTION,
+				ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH, true)) {
+			return;
+		}
+		checkCancelled();
+		ObjectDirectory odb = repo.getObjectDatabase();
+		File graphFile = odb.getCommitGraphFile();
+		try {
+			if (!odb.getShallowCommits().isEmpty()) {
+				return;
+			}
+			Set<ObjectId> tips = new HashSet<>(heads);
+			tips.addAll(nonHeads);
+			FileUtils.mkdirs(graphFile.getParentFile(), true);
+			LockFile lock = new LockFile(graphFile);
+			if (!lock.lock()) {
+				// A concurrent gc is writing it.
+				return;
+			}
+			try (ObjectReader reader = repo.newObjectReader()) {
+				lock.setFSync(true);
+				try (OutputStream out = lock.getOutputStream()) {
+					new CommitGraphWriter(reader).write(pm, tips, out);
+				}
+				if (!lock.commit()) {
+					throw new IOException(MessageFormat.format(
+							JGitText.get().cannotCommitWriteTo, graphFile));
+				}
+			} finally {
+				lock.unlock();
+			}
+		} catch (CancelledException e) {
+			throw e;
+		} catch (IOException e) {
+			LOG.warn(e.getMessage(), e);
+		}
+	}
+
 	private static boolean isHead(Ref ref) {
 		return ref.getName().startsWith(Constants.R_HEADS);
 	}
@@ -115,6 +115,9 @@ public class ObjectDirectory extends FileObjectDatabase {
 	private static final PackList NO_PACKS = new PackList(
 			FileSnapshot.DIRTY, new PackFile[0]);
 
+	private static final CommitGraphSnapshot NO_COMMIT_GRAPH = new CommitGraphSnapshot(
+			FileSnapshot.DIRTY, null);
+
 	/** Maximum number of candidates offered as resolutions of abbreviation. */
 	private static final int RESOLVE_ABBREV_LIMIT = 256;
 
@@ -132,8 +135,12 @@ public class ObjectDirectory extends FileObjectDatabase {
 
 	private final File alternatesFile;
 
+	private final File commitGraphFile;
+
 	private final AtomicReference<PackList> packList;
 
+	private final AtomicReference<CommitGraphSnapshot> commitGraph;
+
 	private final FS fs;
 
 	private final AtomicReference<AlternateHandle[]> alternates;
@@ -172,7 +179,9 @@ public ObjectDirectory(final Config cfg, final File dir,
 		packDirectory = new File(objects, "pack"); //$NON-NLS-1$
 		preservedDirectory = new File(packDirectory, "preserved"); //$NON-NLS-1$
 		alternatesFile = new File(infoDirectory, "alternates"); //$NON-NLS-1$
+		commitGraphFile = new File(infoDirectory, "commit-graph"); //$NON-NLS-1$
 		packList = new AtomicReference<>(NO_PACKS);
+		commitGraph = new AtomicReference<>(NO_COMMIT_GRAPH);
 		unpackedObjectCache = new UnpackedObjectCache();
 		this.fs = fs;
 		this.shallowFile = shallowFile;
@@ -247,6 +256,7 @@ public PackInserter newPackInserter() {
 	@Override
 	public void close() {
 		unpackedObjectCache.clear();
+		commitGraph.set(NO_COMMIT_GRAPH);
 
 		final PackList packs = packList.get();
 		if (packs != NO_PACKS && packList.compareAndSet(packs, NO_PACKS)) {
@@ -814,6 +824,46 @@ Set<ObjectId> getShallowCommits() throws IOException {
 		return shallowCommitsIds;
 	}
 
+	/**
+	 * Get the location of the commit-graph file.
+	 *
+	 * @return the location of the {@code info/commit-graph} file.
+	 */
+	File getCommitGraphFile() {
+		return commitGraphFile;
+	}
+
+	@Override
+	CommitGraph getCommitGraph() throws IOException {
+		// The commit-graph records the shallow commits of the repository it
+		// was written for as roots, it cannot be trusted once the repository
+		// is shallow.
+		if (!config.getBoolean(ConfigConstants.CONFIG_CORE_SECTION,
+				ConfigConstants.CONFIG_KEY_COMMIT_GRAPH, true)
+				|| !getShallowCommits().isEmpty()) {
+			return null;
+		}
+		CommitGraphSnapshot o = commitGraph.get();
+		if (!o.snapshot.isModified(commitGraphFile)) {
+			return o.graph;
+		}
+		FileSnapshot snapshot = FileSnapshot.save(commitGraphFile);
+		CommitGraph graph = null;
+		if (commitGraphFile.isFile()) {
+			try {
+				graph = CommitGraph.open(commitGraphFile);
+			} catch (FileNotFoundException replaced) {
+				// Replaced by a concurrent gc, read it again on the next call.
+				snapshot = FileSnapshot.DIRTY;
+			} catch (IOException e) {
+				// Walks work without the commit-graph, only slower.
+				LOG.warn(e.getMessage(), e);
+			}
+		}
+		commitGraph.compareAndSet(o, new CommitGraphSnapshot(snapshot, graph));
+		return graph;
+	}
+
 	private void insertPack(PackFile pf) {
 		PackList o, n;
 		do {
@@ -1069,6 +1119,19 @@ public File fileFor(AnyObjectId objectId) {
 		return new File(new File(getDirectory(), d), f);
 	}
 
+	private static final class CommitGraphSnapshot {
+		/** State just before reading the commit-graph file. */
+		final FileSnapshot snapshot;
+
+		/** The commit-graph, null if there is no valid file. */
+		final CommitGraph graph;
+
+		CommitGraphSnapshot(FileSnapshot snapshot, CommitGraph graph) {
+			this.snapshot = snapshot;
+			this.graph = graph;
+		}
+	}
+
 	private static final class PackList {
 		/** State just before reading the pack directory. */
 		final FileSnapshot snapshot;
@@ -61,6 +61,7 @@
 import org.eclipse.jgit.errors.LockFailedException;
 import org.eclipse.jgit.internal.JGitText;
 import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.CoreConfig;
 import org.eclipse.jgit.lib.ObjectId;
@@ -129,6 +130,8 @@ public class ObjectDirectoryPackParser extends PackParser {
 		this.tailDigest = Constants.newMessageDigest();
 
 		indexVersion = db.getConfig().get(CoreConfig.KEY).getPackIndexVersion();
+		setDeltaResolutionThreads(db.getConfig().getInt(
+				ConfigConstants.CONFIG_PACK_SECTION, "threads", 1)); //$NON-NLS-1$
 	}
 
 	/**
@@ -328,6 +331,27 @@ protected boolean checkCRC(int oldCRC) {
 		return oldCRC == (int) crc.getValue();
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	protected DatabaseReader openDatabaseReader() throws IOException {
+		// The stream is written straight to the file, another handle sees
+		// all of it.
+		final RandomAccessFile in = new RandomAccessFile(tmpPack, "r"); //$NON-NLS-1$
+		return new DatabaseReader() {
+			@Override
+			public int read(long position, byte[] dst, int pos, int cnt)
+					throws IOException {
+				in.seek(position);
+				return in.read(dst, pos, cnt);
+			}
+
+			@Override
+			public void close() throws IOException {
+				in.close();
+			}
+		};
+	}
+
 	private static String baseName(File tmpPack) {
 		String name = tmpPack.getName();
 		return name.substring(0, name.lastIndexOf('.'));
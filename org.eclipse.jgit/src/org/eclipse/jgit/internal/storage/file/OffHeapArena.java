@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Off-heap memory for the windows of the {@link WindowCache}.
+ * <p>
+ * Direct {@link ByteBuffer} slabs are allocated on demand, up to the limit of
+ * the cache, and cut into chunks of the window size. A chunk is handed to one
+ * window and returned by {@link #free(ByteBuffer)} when the window is evicted
+ * and no reader uses it any longer, so the memory is reused at once instead of
+ * waiting for the garbage collector. The slabs are only released with the
+ * arena, when the cache is reconfigured.
+ * <p>
+ * The slabs count against the JVM's direct memory limit
+ * ({@code -XX:MaxDirectMemorySize}), not the heap. If a slab cannot be
+ * allocated the arena stops growing and {@link #allocate()} returns null, the
+ * caller then reads the window onto the heap.
+ */
+class OffHeapArena {
+	/** Size of the slabs, unless the window size or the limit is larger. */
+	static final int DEFAULT_SLAB_SIZE = 64 << 20;
+
+	private final int chunkSize;
+
+	private final int chunksPerSlab;
+
+	private final long maxChunks;
+
+	private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+	/** Keeps the slabs reachable while their chunks are free. */
+	private final List<ByteBuffer> slabs = new ArrayList<>();
+
+	private long chunkCount;
+
+	private long usedChunks;
+
+	private boolean exhausted;
+
+	/**
+	 * Create an arena.
+	 *
+	 * @param chunkSize
+	 *            size of each chunk, the window size of the cache.
+	 * @param limit
+	 *            maximum number of bytes to allocate.
+	 * @param slabSize
+	 *            number of bytes to allocate at once.
+	 */
+	OffHeapArena(int chunkSize, long limit, int slabSize) {
+		this.chunkSize = chunkSize;
+		this.chunksPerSlab = Math.max(1, slabSize / chunkSize);
+		this.maxChunks = Math.max(1, limit / chunkSize);
+	}
+
+	/**
+	 * Take a free chunk.
+	 *
+	 * @return a chunk of the window size, or null if the arena is full.
+	 */
+	synchronized ByteBuffer allocate() {
+		if (free.isEmpty() && !grow())
+			return null;
+		usedChunks++;
+		return free.pop();
+	}
+
+	/**
+	 * Return a chunk taken by {@link #allocate()}.
+	 *
+	 * @param chunk
+	 *            the chunk, it must not be used afterwards.
+	 */
+	synchronized void free(ByteBuffer chunk) {
+		chunk.clear();
+		free.push(chunk);
+		usedChunks--;
+	}
+
+	/** @return number of bytes allocated from the JVM. */
+	synchronized long getReservedBytes() {
+		return chunkCount * chunkSize;
+	}
+
+	/** @return number of bytes held by windows. */
+	synchronized long getUsedBytes() {
+		return usedChunks * chunkSize;
+	}
+
+	private boolean grow() {
+		if (exhausted || chunkCount >= maxChunks)
+			return false;
+		int n = (int) Math.min(chunksPerSlab, maxChunks - chunkCount);
+		ByteBuffer slab;
+		try {
+			slab = ByteBuffer.allocateDirect(n * chunkSize);
+		} catch (OutOfMemoryError e) {
+			// The direct memory limit is lower than the cache limit.
+			exhausted = true;
+			return false;
+		}
+		slabs.add(slab);
+		for (int i = 0; i < n; i++) {
+			slab.limit((i + 1) * chunkSize);
+			slab.position(i * chunkSize);
+			free.push(slab.slice());
+		}
+		chunkCount += n;
+		return true;
+	}
+}
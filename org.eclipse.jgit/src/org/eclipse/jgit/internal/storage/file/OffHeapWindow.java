@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A window stored in a chunk of an {@link OffHeapArena}.
+ * <p>
+ * The window is reference counted. The cache holds the first reference,
+ * released when the window is evicted, and every reader holds one from
+ * {@link WindowCache#get(PackFile, long)} until it moves to another window.
+ * The chunk goes back to the arena with the last reference, so it is never
+ * reused while a reader may still see its bytes.
+ * <p>
+ * A reader that is never closed would keep its reference forever and the
+ * arena would slowly run dry. Readers therefore register a {@link Pin} for
+ * the window they hold, and the reference of a reader found unreachable is
+ * released by {@link Pin#releaseUnreachable()}.
+ */
+final class OffHeapWindow extends ByteBufferWindow {
+	private final OffHeapArena arena;
+
+	private final ByteBuffer chunk;
+
+	private final AtomicInteger refs = new AtomicInteger(1);
+
+	OffHeapWindow(PackFile pack, long o, ByteBuffer b, OffHeapArena arena,
+			ByteBuffer chunk) {
+		super(pack, o, b);
+		this.arena = arena;
+		this.chunk = chunk;
+	}
+
+	@Override
+	boolean retain() {
+		for (;;) {
+			int n = refs.get();
+			if (n <= 0)
+				return false;
+			if (refs.compareAndSet(n, n + 1))
+				return true;
+		}
+	}
+
+	@Override
+	void release() {
+		if (refs.decrementAndGet() == 0)
+			arena.free(chunk);
+	}
+
+	/**
+	 * The reference held by one reader, released by the cache if the reader
+	 * becomes unreachable without being closed.
+	 */
+	static final class Pin extends PhantomReference<Object> {
+		private static final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+		/** Keeps the pins reachable until their owner is. */
+		private static final Set<Pin> pins = ConcurrentHashMap.newKeySet();
+
+		private volatile ByteWindow window;
+
+		/**
+		 * Register a pin.
+		 *
+		 * @param owner
+		 *            the reader holding the window.
+		 */
+		Pin(Object owner) {
+			super(owner, queue);
+			pins.add(this);
+		}
+
+		/**
+		 * Set the window held by the owner.
+		 *
+		 * @param w
+		 *            the window, or null once the owner released it.
+		 */
+		void set(ByteWindow w) {
+			window = w;
+		}
+
+		/** Unregister the pin, the owner released its window itself. */
+		void unregister() {
+			window = null;
+			pins.remove(this);
+			clear();
+		}
+
+		/** Release the windows held by readers that were never closed. */
+		static void releaseUnreachable() {
+			Pin p;
+			while ((p = (Pin) queue.poll()) != null) {
+				pins.remove(p);
+				ByteWindow w = p.window;
+				p.window = null;
+				if (w != null)
+					w.release();
+			}
+		}
+	}
+}
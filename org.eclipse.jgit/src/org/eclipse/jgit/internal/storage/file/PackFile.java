@@ -55,6 +55,7 @@
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.AccessDeniedException;
@@ -123,6 +124,9 @@ public int compare(PackFile a, PackFile b) {
 	/** Serializes reads performed against {@link #fd}. */
 	private final Object readLock = new Object();
 
+	/** Staging buffer of off-heap reads, guarded by {@link #readLock}. */
+	private byte[] offHeapReadBuffer;
+
 	long length;
 
 	private int activeWindows;
@@ -180,7 +184,8 @@ private synchronized PackIndex idx() throws IOException {
 				throw new PackInvalidException(packFile);
 
 			try {
-				final PackIndex idx = PackIndex.open(extFile(INDEX));
+				final PackIndex idx = PackIndex.open(extFile(INDEX),
+						WindowCache.isPackedIndexMMAP());
 
 				if (packChecksum == null) {
 					packChecksum = idx.packChecksum;
@@ -703,6 +708,43 @@ ByteArrayWindow read(long pos, int size) throws IOException {
 		}
 	}
 
+	ByteWindow read(long pos, int size, OffHeapArena arena)
+			throws IOException {
+		final ByteBuffer chunk = arena.allocate();
+		if (chunk == null)
+			return read(pos, size);
+		boolean ok = false;
+		try {
+			synchronized (readLock) {
+				if (length < pos + size)
+					size = (int) (length - pos);
+				// Read through the RandomAccessFile rather than the channel,
+				// an interrupted channel read would close the pack for all
+				// readers.
+				//
+				final ByteBuffer buf = chunk.duplicate();
+				if (offHeapReadBuffer == null)
+					offHeapReadBuffer = new byte[64 * 1024];
+				final byte[] tmp = offHeapReadBuffer;
+				fd.seek(pos);
+				for (int done = 0; done < size;) {
+					final int n = Math.min(tmp.length, size - done);
+					fd.readFully(tmp, 0, n);
+					buf.put(tmp, 0, n);
+					done += n;
+				}
+				buf.flip();
+				final ByteWindow w = new OffHeapWindow(this, pos,
+						buf.slice(), arena, chunk);
+				ok = true;
+				return w;
+			}
+		} finally {
+			if (!ok)
+				arena.free(chunk);
+		}
+	}
+
 	ByteWindow mmap(long pos, int size) throws IOException {
 		synchronized (readLock) {
 			if (length < pos + size)
@@ -48,6 +48,10 @@
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.text.MessageFormat;
 import java.util.Iterator;
 import java.util.Set;
@@ -106,6 +110,45 @@ public static PackIndex open(File idxFile) throws IOException {
 		}
 	}
 
+	/**
+	 * Open an existing pack <code>.idx</code> file for reading, optionally
+	 * mapping it instead of reading it onto the heap.
+	 * <p>
+	 * A mapped index is searched in place, so opening it does not read the
+	 * file and its pages are held by the operating system rather than the
+	 * Java heap. Only version 2 indexes smaller than 2 GB are mapped; other
+	 * indexes are read as by {@link #open(File)}. A mapped file stays mapped
+	 * until the index is garbage collected, which on some platforms prevents
+	 * the file from being deleted or replaced until then.
+	 *
+	 * @param idxFile
+	 *            existing pack .idx to read.
+	 * @param mmap
+	 *            true to map the file.
+	 * @return access implementation for the requested file.
+	 * @throws java.io.IOException
+	 *             the file does not exist or could not be read.
+	 */
+	static PackIndex open(File idxFile, boolean mmap) throws IOException {
+		if (!mmap)
+			return open(idxFile);
+		try (RandomAccessFile raf = new RandomAccessFile(idxFile, "r"); //$NON-NLS-1$
+				FileChannel channel = raf.getChannel()) {
+			long size = channel.size();
+			if (size < Integer.MAX_VALUE) {
+				ByteBuffer buf = channel.map(MapMode.READ_ONLY, 0, size);
+				if (PackIndexV2Mapped.accepts(buf))
+					return new PackIndexV2Mapped(buf);
+			}
+		} catch (IOException ioe) {
+			throw new IOException(
+					MessageFormat.format(JGitText.get().unreadablePackIndex,
+							idxFile.getAbsolutePath()),
+					ioe);
+		}
+		return open(idxFile);
+	}
+
 	/**
 	 * Read an existing pack index file from a buffered stream.
 	 * <p>
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.internal.storage.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.util.NB;
+
+/**
+ * Support for the pack index v2 format, searched in place in a mapped file.
+ * <p>
+ * Unlike {@link PackIndexV2} nothing is copied onto the heap: the fan-out,
+ * object names, CRC-32 and offset tables are read from the buffer on demand,
+ * so opening the index costs only the mapping, and the pages of the index are
+ * kept by the operating system's page cache rather than the Java heap.
+ */
+class PackIndexV2Mapped extends PackIndex {
+	private static final long IS_O64 = 1L << 31;
+
+	private static final int FANOUT = 256;
+
+	private static final int FANOUT_START = 8;
+
+	private static final int NAMES_START = FANOUT_START + 4 * FANOUT;
+
+	/** Bytes per object in the name, CRC-32 and 32 bit offset tables. */
+	private static final int ENTRY_LENGTH = Constants.OBJECT_ID_LENGTH + 4 + 4;
+
+	/** Pack checksum and index checksum. */
+	private static final int TRAILER_LENGTH = 2 * Constants.OBJECT_ID_LENGTH;
+
+	private final ByteBuffer buf;
+
+	private final int objectCnt;
+
+	private final int crc32Start;
+
+	private final int offset32Start;
+
+	private final int offset64Start;
+
+	private final int offset64Cnt;
+
+	/**
+	 * Check the buffer holds an index this class can search.
+	 *
+	 * @param buf
+	 *            the index file.
+	 * @return true if the buffer starts with the header of a version 2 index.
+	 */
+	static boolean accepts(ByteBuffer buf) {
+		if (buf.limit() < FANOUT_START)
+			return false;
+		byte[] toc = PackIndexWriter.TOC;
+		for (int i = 0; i < toc.length; i++)
+			if (buf.get(i) != toc[i])
+				return false;
+		return buf.getInt(toc.length) == 2;
+	}
+
+	PackIndexV2Mapped(ByteBuffer buf) throws IOException {
+		this.buf = buf;
+		long length = buf.limit();
+		if (length < NAMES_START + TRAILER_LENGTH)
+			throw new IOException(MessageFormat.format(
+					JGitText.get().indexFileCorruptedLength,
+					Long.valueOf(length)));
+
+		long last = 0;
+		for (int k = 0; k < FANOUT; k++) {
+			long n = fanout(k);
+			if (n < last)
+				throw new IOException(MessageFormat.format(
+						JGitText.get().indexFileCorruptedNegativeBucketCount,
+						Long.valueOf(n - last)));
+			last = n;
+		}
+
+		// The 64 bit offset table fills what the fixed size tables leave,
+		// so its size is known without scanning the 32 bit offsets.
+		//
+		long o64Len = length - NAMES_START - last * ENTRY_LENGTH
+				- TRAILER_LENGTH;
+		if (o64Len < 0 || o64Len % 8 != 0)
+			throw new IOException(MessageFormat.format(
+					JGitText.get().indexFileCorruptedLength,
+					Long.valueOf(length)));
+
+		objectCnt = (int) last;
+		crc32Start = NAMES_START + objectCnt * Constants.OBJECT_ID_LENGTH;
+		offset32Start = crc32Start + objectCnt * 4;
+		offset64Start = offset32Start + objectCnt * 4;
+		offset64Cnt = (int) (o64Len / 8);
+
+		packChecksum = new byte[Constants.OBJECT_ID_LENGTH];
+		for (int i = 0; i < packChecksum.length; i++)
+			packChecksum[i] = buf.get((int) length - TRAILER_LENGTH + i);
+	}
+
+	private long fanout(int k) {
+		return buf.getInt(FANOUT_START + 4 * k) & 0xffffffffL;
+	}
+
+	private int bucketStart(int levelOne) {
+		return levelOne > 0 ? (int) fanout(levelOne - 1) : 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getObjectCount() {
+		return objectCnt;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getOffset64Count() {
+		return offset64Cnt;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ObjectId getObjectId(long nthPosition) {
+		int p = NAMES_START + (int) nthPosition * Constants.OBJECT_ID_LENGTH;
+		return new ObjectId(buf.getInt(p), buf.getInt(p + 4),
+				buf.getInt(p + 8), buf.getInt(p + 12), buf.getInt(p + 16));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	long getOffset(long nthPosition) {
+		long p = buf.getInt(offset32Start + 4 * (int) nthPosition)
+				& 0xffffffffL;
+		if ((p & IS_O64) != 0)
+			return buf.getLong(offset64Start + 8 * (int) (p & ~IS_O64));
+		return p;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long findOffset(AnyObjectId objId) {
+		int p = findPosition(objId);
+		if (p == -1)
+			return -1;
+		return getOffset(p);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long findCRC32(AnyObjectId objId) throws MissingObjectException {
+		int p = findPosition(objId);
+		if (p == -1)
+			throw new MissingObjectException(objId.copy(), "unknown"); //$NON-NLS-1$
+		return buf.getInt(crc32Start + 4 * p) & 0xffffffffL;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean hasCRC32Support() {
+		return true;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Iterator<MutableEntry> iterator() {
+		return new EntriesIteratorV2Mapped();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void resolve(Set<ObjectId> matches, AbbreviatedObjectId id,
+			int matchLimit) throws IOException {
+		int levelOne = id.getFirstByte();
+		int min = bucketStart(levelOne);
+		int max = (int) fanout(levelOne);
+		int high = max;
+		if (high == min)
+			return;
+		int[] name = new int[Constants.OBJECT_ID_LENGTH / 4];
+		int low = min;
+		do {
+			int p = (low + high) >>> 1;
+			final int cmp = id.prefixCompare(readName(p, name), 0);
+			if (cmp < 0)
+				high = p;
+			else if (cmp == 0) {
+				// We may have landed in the middle of the matches.  Move
+				// backwards to the start of matches, then walk forwards.
+				//
+				while (min < p
+						&& id.prefixCompare(readName(p - 1, name), 0) == 0)
+					p--;
+				for (; p < max
+						&& id.prefixCompare(readName(p, name), 0) == 0; p++) {
+					matches.add(ObjectId.fromRaw(name));
+					if (matches.size() > matchLimit)
+						break;
+				}
+				return;
+			} else
+				low = p + 1;
+		} while (low < high);
+	}
+
+	private int[] readName(int p, int[] name) {
+		int o = NAMES_START + p * Constants.OBJECT_ID_LENGTH;
+		for (int i = 0; i < name.length; i++, o += 4)
+			name[i] = buf.getInt(o);
+		return name;
+	}
+
+	private int findPosition(AnyObjectId objId) {
+		int levelOne = objId.getFirstByte();
+		int low = bucketStart(levelOne);
+		int high = (int) fanout(levelOne);
+		if (low == high)
+			return -1;
+		int[] id = new int[Constants.OBJECT_ID_LENGTH / 4];
+		objId.copyRawTo(id, 0);
+		do {
+			final int mid = (low + high) >>> 1;
+			final int cmp = compare(id, mid);
+			if (cmp < 0)
+				high = mid;
+			else if (cmp == 0)
+				return mid;
+			else
+				low = mid + 1;
+		} while (low < high);
+		return -1;
+	}
+
+	private int compare(int[] id, int p) {
+		int o = NAMES_START + p * Constants.OBJECT_ID_LENGTH;
+		for (int i = 0; i < id.length; i++, o += 4) {
+			int cmp = NB.compareUInt32(id[i], buf.getInt(o));
+			if (cmp != 0)
+				return cmp;
+		}
+		return 0;
+	}
+
+	private class EntriesIteratorV2Mapped extends EntriesIterator {
+		private final int[] name = new int[Constants.OBJECT_ID_LENGTH / 4];
+
+		@Override
+		protected MutableEntry initEntry() {
+			return new MutableEntry() {
+				@Override
+				protected void ensureId() {
+					idBuffer.fromRaw(readName((int) returnedNumber - 1, name));
+				}
+			};
+		}
+
+		@Override
+		public MutableEntry next() {
+			if (returnedNumber >= objectCnt)
+				throw new NoSuchElementException();
+			entry.offset = getOffset(returnedNumber);
+			returnedNumber++;
+			return entry;
+		}
+	}
+}
@@ -48,13 +48,16 @@
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.jgit.internal.JGitText;
 import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.storage.file.WindowCacheConfig.EvictionPolicy;
 
 /**
  * Caches slices of a {@link org.eclipse.jgit.internal.storage.file.PackFile} in
@@ -80,11 +83,26 @@
  * <p>
  * This cache implements a loose LRU policy by randomly picking a window
  * comprised of roughly 10% of the cache, and evicting the oldest accessed entry
- * within that window.
+ * within that window. With the {@link EvictionPolicy#TINY_LFU} policy the
+ * entry evicted from that window is instead the one least frequently accessed
+ * recently, as estimated by a {@link FrequencySketch}. Entries accessed within
+ * the last 1% of the cache's capacity are spared, so a new window gets the
+ * chance to build up its frequency, while a large scan of windows read only
+ * once cannot push out the windows in frequent use.
  * <p>
  * Entities created by the cache are held under SoftReferences, permitting the
  * Java runtime's garbage collector to evict entries when heap memory gets low.
  * Most JREs implement a loose least recently used algorithm for this eviction.
+ * If {@link WindowCacheConfig#isPackedGitUseStrongRefs()} is set, entities are
+ * held under strong references instead and are released only by the eviction
+ * policy, keeping the cache at its configured byte limit and sparing the
+ * garbage collector the work of clearing SoftReferences.
+ * <p>
+ * If {@link WindowCacheConfig#isPackedGitOffHeap()} is set, windows are read
+ * into chunks of an {@link OffHeapArena} and always held under strong
+ * references. Such a window returns its chunk to the arena once it is evicted
+ * and released by every {@link WindowCursor} still reading it, see
+ * {@link ByteWindow#retain()}.
  * <p>
  * The internal hash table does not expand at runtime, instead it is fixed in
  * size at cache creation time. The internal lock table used to gate load
@@ -100,8 +118,8 @@
  * <li>{@link #load(PackFile, long)} is invoked by at most one thread at a time
  * for a given <code>(PackFile,position)</code> tuple.</li>
  * <li>For every <code>load()</code> invocation there is exactly one
- * {@link #createRef(PackFile, long, ByteWindow)} invocation to wrap a
- * SoftReference around the cached entity.</li>
+ * {@link #createRef(PackFile, long, ByteWindow)} invocation to wrap a soft or
+ * strong reference around the cached entity.</li>
  * <li>For every Reference created by <code>createRef()</code> there will be
  * exactly one call to {@link #clear(Ref)} to cleanup any resources associated
  * with the (now expired) cached entity.</li>
@@ -138,6 +156,8 @@ private static final int bits(int newSize) {
 
 	private static volatile int streamFileThreshold;
 
+	private static volatile boolean packedIndexMMAP;
+
 	static {
 		reconfigure(new WindowCacheConfig());
 	}
@@ -164,6 +184,7 @@ public static void reconfigure(WindowCacheConfig cfg) {
 			oc.removeAll();
 		cache = nc;
 		streamFileThreshold = cfg.getStreamFileThreshold();
+		packedIndexMMAP = cfg.isPackedIndexMMAP();
 		DeltaBaseCache.reconfigure(cfg);
 	}
 
@@ -171,6 +192,10 @@ static int getStreamFileThreshold() {
 		return streamFileThreshold;
 	}
 
+	static boolean isPackedIndexMMAP() {
+		return packedIndexMMAP;
+	}
+
 	/**
 	 * @return the cached instance.
 	 */
@@ -178,6 +203,20 @@ public static WindowCache getInstance() {
 		return cache;
 	}
 
+	/**
+	 * Get the window holding a position of a pack.
+	 * <p>
+	 * The window is retained for the caller, who must call
+	 * {@link ByteWindow#release()} once it no longer reads from it.
+	 *
+	 * @param pack
+	 *            the pack.
+	 * @param offset
+	 *            position within the pack.
+	 * @return the window.
+	 * @throws IOException
+	 *             the window could not be loaded.
+	 */
 	static final ByteWindow get(PackFile pack, long offset)
 			throws IOException {
 		final WindowCache c = cache;
@@ -200,6 +239,9 @@ static final void purge(PackFile pack) {
 	/** ReferenceQueue to cleanup released and garbage collected windows. */
 	private final ReferenceQueue<ByteWindow> queue;
 
+	/** Queue to cleanup released windows held under strong references. */
+	private final ConcurrentLinkedQueue<Ref> strongQueue;
+
 	/** Number of entries in {@link #table}. */
 	private final int tableSize;
 
@@ -224,6 +266,12 @@ static final void purge(PackFile pack) {
 
 	private final boolean mmap;
 
+	private final boolean useStrongRefs;
+
+	private final OffHeapArena arena;
+
+	private final Policy policy;
+
 	private final int windowSizeShift;
 
 	private final int windowSize;
@@ -232,6 +280,18 @@ static final void purge(PackFile pack) {
 
 	private final AtomicLong openBytes;
 
+	private final LongAdder hitCount;
+
+	private final LongAdder missCount;
+
+	private final LongAdder loadSuccessCount;
+
+	private final LongAdder loadFailureCount;
+
+	private final LongAdder evictionCount;
+
+	private final LongAdder totalLoadTime;
+
 	private WindowCache(WindowCacheConfig cfg) {
 		tableSize = tableSize(cfg);
 		final int lockCount = lockCount(cfg);
@@ -241,6 +301,7 @@ private WindowCache(WindowCacheConfig cfg) {
 			throw new IllegalArgumentException(JGitText.get().lockCountMustBeGreaterOrEqual1);
 
 		queue = new ReferenceQueue<>();
+		strongQueue = new ConcurrentLinkedQueue<>();
 		clock = new AtomicLong(1);
 		table = new AtomicReferenceArray<>(tableSize);
 		locks = new Lock[lockCount];
@@ -262,9 +323,27 @@ else if (eb < 4)
 		mmap = cfg.isPackedGitMMAP();
 		windowSizeShift = bits(cfg.getPackedGitWindowSize());
 		windowSize = 1 << windowSizeShift;
+		if (cfg.isPackedGitOffHeap())
+			arena = new OffHeapArena(windowSize, cfg.getPackedGitLimit(),
+					OffHeapArena.DEFAULT_SLAB_SIZE);
+		else
+			arena = null;
+		useStrongRefs = cfg.isPackedGitUseStrongRefs() || arena != null;
 
 		openFiles = new AtomicInteger();
 		openBytes = new AtomicLong();
+		hitCount = new LongAdder();
+		missCount = new LongAdder();
+		loadSuccessCount = new LongAdder();
+		loadFailureCount = new LongAdder();
+		evictionCount = new LongAdder();
+		totalLoadTime = new LongAdder();
+
+		int capacity = (int) Math.min(maxBytes / windowSize, Integer.MAX_VALUE);
+		if (cfg.getPackedGitEvictionPolicy() == EvictionPolicy.TINY_LFU)
+			policy = new TinyLfuPolicy(capacity);
+		else
+			policy = new LruPolicy();
 
 		if (maxFiles < 1)
 			throw new IllegalArgumentException(JGitText.get().openFilesMustBeAtLeast1);
@@ -286,6 +365,78 @@ public long getOpenBytes() {
 		return openBytes.get();
 	}
 
+	/**
+	 * @return the number of lookups served by a cached window.
+	 * @since 5.3
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * @return the number of lookups which had to load a window.
+	 * @since 5.3
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * @return the number of windows loaded successfully.
+	 * @since 5.3
+	 */
+	public long getLoadSuccessCount() {
+		return loadSuccessCount.sum();
+	}
+
+	/**
+	 * @return the number of window loads which failed.
+	 * @since 5.3
+	 */
+	public long getLoadFailureCount() {
+		return loadFailureCount.sum();
+	}
+
+	/**
+	 * @return the number of windows evicted to make room, or cleared by the
+	 *         garbage collector.
+	 * @since 5.3
+	 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * @return the total time spent loading windows, in nanoseconds.
+	 * @since 5.3
+	 */
+	public long getTotalLoadTime() {
+		return totalLoadTime.sum();
+	}
+
+	/**
+	 * Reset the hit, miss, load and eviction counters.
+	 *
+	 * @since 5.3
+	 */
+	public void resetStats() {
+		hitCount.reset();
+		missCount.reset();
+		loadSuccessCount.reset();
+		loadFailureCount.reset();
+		evictionCount.reset();
+		totalLoadTime.reset();
+	}
+
+	/**
+	 * @return the number of bytes of direct memory allocated for windows, 0
+	 *         if windows are not stored off-heap.
+	 * @since 5.3
+	 */
+	public long getOffHeapBytes() {
+		return arena != null ? arena.getReservedBytes() : 0;
+	}
+
 	private int hash(int packHash, long off) {
 		return packHash + (int) (off >>> windowSizeShift);
 	}
@@ -295,6 +446,10 @@ private ByteWindow load(PackFile pack, long offset)
 		if (pack.beginWindowCache())
 			openFiles.incrementAndGet();
 		try {
+			if (arena != null) {
+				OffHeapWindow.Pin.releaseUnreachable();
+				return pack.read(offset, windowSize, arena);
+			}
 			if (mmap)
 				return pack.mmap(offset, windowSize);
 			return pack.read(offset, windowSize);
@@ -311,14 +466,18 @@ private ByteWindow load(PackFile pack, long offset)
 	}
 
 	private Ref createRef(PackFile p, long o, ByteWindow v) {
-		final Ref ref = new Ref(p, o, v, queue);
-		openBytes.addAndGet(ref.size);
+		final Ref ref;
+		if (useStrongRefs)
+			ref = new StrongRef(p, o, v, strongQueue);
+		else
+			ref = new SoftRef(p, o, v, queue);
+		openBytes.addAndGet(ref.getSize());
 		return ref;
 	}
 
 	private void clear(Ref ref) {
-		openBytes.addAndGet(-ref.size);
-		close(ref.pack);
+		openBytes.addAndGet(-ref.getSize());
+		close(ref.getPack());
 	}
 
 	private void close(PackFile pack) {
@@ -365,18 +524,36 @@ private ByteWindow getOrLoad(PackFile pack, long position)
 		final int slot = slot(pack, position);
 		final Entry e1 = table.get(slot);
 		ByteWindow v = scan(e1, pack, position);
-		if (v != null)
+		if (v != null) {
+			hitCount.increment();
 			return v;
+		}
 
 		synchronized (lock(pack, position)) {
 			Entry e2 = table.get(slot);
 			if (e2 != e1) {
 				v = scan(e2, pack, position);
-				if (v != null)
+				if (v != null) {
+					hitCount.increment();
 					return v;
+				}
 			}
 
-			v = load(pack, position);
+			missCount.increment();
+			final long start = System.nanoTime();
+			boolean loaded = false;
+			try {
+				v = load(pack, position);
+				loaded = true;
+			} finally {
+				totalLoadTime.add(System.nanoTime() - start);
+				if (loaded)
+					loadSuccessCount.increment();
+				else
+					loadFailureCount.increment();
+			}
+			// One reference for the cache, one for the caller.
+			v.retain();
 			final Ref ref = createRef(pack, position, v);
 			hit(ref);
 			for (;;) {
@@ -402,9 +579,9 @@ private ByteWindow getOrLoad(PackFile pack, long position)
 	private ByteWindow scan(Entry n, PackFile pack, long position) {
 		for (; n != null; n = n.next) {
 			final Ref r = n.ref;
-			if (r.pack == pack && r.position == position) {
+			if (r.getPack() == pack && r.getPosition() == position) {
 				final ByteWindow v = r.get();
-				if (v != null) {
+				if (v != null && v.retain()) {
 					hit(r);
 					return v;
 				}
@@ -425,7 +602,8 @@ private void hit(Ref r) {
 		//
 		final long c = clock.get();
 		clock.compareAndSet(c, c + 1);
-		r.lastAccess = c;
+		r.setLastAccess(c);
+		policy.recordAccess(r);
 	}
 
 	private void evict() {
@@ -433,20 +611,22 @@ private void evict() {
 			int ptr = rng.nextInt(tableSize);
 			Entry old = null;
 			int slot = 0;
+			final long now = clock.get();
 			for (int b = evictBatch - 1; b >= 0; b--, ptr++) {
 				if (tableSize <= ptr)
 					ptr = 0;
 				for (Entry e = table.get(ptr); e != null; e = e.next) {
 					if (e.dead)
 						continue;
-					if (old == null || e.ref.lastAccess < old.ref.lastAccess) {
+					if (old == null
+							|| policy.isBetterVictim(e.ref, old.ref, now)) {
 						old = e;
 						slot = ptr;
 					}
 				}
 			}
 			if (old != null) {
-				old.kill();
+				old.evict();
 				gc();
 				final Entry e1 = table.get(slot);
 				table.compareAndSet(slot, e1, clean(e1));
@@ -492,7 +672,7 @@ private void removeAll(PackFile pack) {
 			final Entry e1 = table.get(s);
 			boolean hasDead = false;
 			for (Entry e = e1; e != null; e = e.next) {
-				if (e.ref.pack == pack) {
+				if (e.ref.getPack() == pack) {
 					e.kill();
 					hasDead = true;
 				} else if (e.dead)
@@ -506,10 +686,12 @@ private void removeAll(PackFile pack) {
 
 	private void gc() {
 		Ref r;
-		while ((r = (Ref) queue.poll()) != null) {
+		while ((r = poll()) != null) {
 			clear(r);
+			if (r.isEvicted())
+				evictionCount.increment();
 
-			final int s = slot(r.pack, r.position);
+			final int s = slot(r.getPack(), r.getPosition());
 			final Entry e1 = table.get(s);
 			for (Entry n = e1; n != null; n = n.next) {
 				if (n.ref == r) {
@@ -521,6 +703,12 @@ private void gc() {
 		}
 	}
 
+	private Ref poll() {
+		if (useStrongRefs)
+			return strongQueue.poll();
+		return (Ref) queue.poll();
+	}
+
 	private int slot(PackFile pack, long position) {
 		return (hash(pack.hash, position) >>> 1) % tableSize;
 	}
@@ -531,7 +719,7 @@ private Lock lock(PackFile pack, long position) {
 
 	private static Entry clean(Entry top) {
 		while (top != null && top.dead) {
-			top.ref.enqueue();
+			top.ref.kill(false);
 			top = top.next;
 		}
 		if (top == null)
@@ -563,27 +751,255 @@ private static class Entry {
 
 		final void kill() {
 			dead = true;
-			ref.enqueue();
+			ref.kill(false);
+		}
+
+		final void evict() {
+			dead = true;
+			ref.kill(true);
 		}
 	}
 
+	/** A reference wrapped around a cached object. */
+	private interface Ref {
+		PackFile getPack();
+
+		long getPosition();
+
+		int getSize();
+
+		long getLastAccess();
+
+		void setLastAccess(long time);
+
+		/** @return the cached object, or null if it was released. */
+		ByteWindow get();
+
+		/**
+		 * Release the cached object and queue this reference for cleanup.
+		 *
+		 * @param evicted
+		 *            true if the object is released to make room, rather
+		 *            than removed.
+		 * @return true if the reference was queued by this call.
+		 */
+		boolean kill(boolean evicted);
+
+		/**
+		 * Whether the object was evicted. Checked once when the reference is
+		 * cleaned up, so every reference is counted at most once.
+		 *
+		 * @return true if the object was released by {@link #kill(boolean)}
+		 *         to make room, or by the garbage collector.
+		 */
+		boolean isEvicted();
+	}
+
 	/** A soft reference wrapped around a cached object. */
-	private static class Ref extends SoftReference<ByteWindow> {
-		final PackFile pack;
+	private static class SoftRef extends SoftReference<ByteWindow>
+			implements Ref {
+		private final PackFile pack;
 
-		final long position;
+		private final long position;
 
-		final int size;
+		private final int size;
 
-		long lastAccess;
+		private long lastAccess;
 
-		protected Ref(final PackFile pack, final long position,
+		private volatile boolean killed;
+
+		private volatile boolean evicted;
+
+		protected SoftRef(final PackFile pack, final long position,
 				final ByteWindow v, final ReferenceQueue<ByteWindow> queue) {
 			super(v, queue);
 			this.pack = pack;
 			this.position = position;
 			this.size = v.size();
 		}
+
+		@Override
+		public PackFile getPack() {
+			return pack;
+		}
+
+		@Override
+		public long getPosition() {
+			return position;
+		}
+
+		@Override
+		public int getSize() {
+			return size;
+		}
+
+		@Override
+		public long getLastAccess() {
+			return lastAccess;
+		}
+
+		@Override
+		public void setLastAccess(long time) {
+			lastAccess = time;
+		}
+
+		@Override
+		public boolean kill(boolean evict) {
+			if (get() != null) {
+				evicted = evict;
+				killed = true;
+			}
+			return enqueue();
+		}
+
+		@Override
+		public boolean isEvicted() {
+			return !killed || evicted;
+		}
+	}
+
+	/** A strong reference wrapped around a cached object. */
+	private static class StrongRef implements Ref {
+		private final PackFile pack;
+
+		private final long position;
+
+		private final int size;
+
+		private final ConcurrentLinkedQueue<Ref> queue;
+
+		private long lastAccess;
+
+		private volatile ByteWindow ref;
+
+		private volatile boolean evicted;
+
+		protected StrongRef(final PackFile pack, final long position,
+				final ByteWindow v, final ConcurrentLinkedQueue<Ref> queue) {
+			this.pack = pack;
+			this.position = position;
+			this.size = v.size();
+			this.queue = queue;
+			this.ref = v;
+		}
+
+		@Override
+		public PackFile getPack() {
+			return pack;
+		}
+
+		@Override
+		public long getPosition() {
+			return position;
+		}
+
+		@Override
+		public int getSize() {
+			return size;
+		}
+
+		@Override
+		public long getLastAccess() {
+			return lastAccess;
+		}
+
+		@Override
+		public void setLastAccess(long time) {
+			lastAccess = time;
+		}
+
+		@Override
+		public ByteWindow get() {
+			return ref;
+		}
+
+		@Override
+		public synchronized boolean kill(boolean evict) {
+			final ByteWindow v = ref;
+			if (v == null)
+				return false;
+			ref = null;
+			evicted = evict;
+			v.release();
+			return queue.add(this);
+		}
+
+		@Override
+		public boolean isEvicted() {
+			return evicted;
+		}
+	}
+
+	/** Chooses which entry to evict. */
+	private abstract static class Policy {
+		/**
+		 * Record an access of the entry.
+		 *
+		 * @param r
+		 *            the accessed entry.
+		 */
+		void recordAccess(Ref r) {
+			// Only frequency aware policies need to track accesses.
+		}
+
+		/**
+		 * Compare two eviction candidates.
+		 *
+		 * @param candidate
+		 *            the entry considered for eviction.
+		 * @param victim
+		 *            the entry currently chosen for eviction.
+		 * @param now
+		 *            the current value of the access clock.
+		 * @return true if {@code candidate} should be evicted rather than
+		 *         {@code victim}.
+		 */
+		abstract boolean isBetterVictim(Ref candidate, Ref victim, long now);
+	}
+
+	/** Evicts the least recently used entry. */
+	private static class LruPolicy extends Policy {
+		@Override
+		boolean isBetterVictim(Ref candidate, Ref victim, long now) {
+			return candidate.getLastAccess() < victim.getLastAccess();
+		}
+	}
+
+	/**
+	 * Evicts the least frequently used entry, sparing the entries accessed
+	 * within the admission window.
+	 */
+	private class TinyLfuPolicy extends Policy {
+		private final FrequencySketch sketch;
+
+		private final long window;
+
+		TinyLfuPolicy(int capacity) {
+			sketch = new FrequencySketch(capacity);
+			window = Math.max(1, capacity / 100);
+		}
+
+		@Override
+		void recordAccess(Ref r) {
+			sketch.increment(hash(r));
+		}
+
+		@Override
+		boolean isBetterVictim(Ref candidate, Ref victim, long now) {
+			boolean candidateInWindow = now - candidate.getLastAccess() < window;
+			boolean victimInWindow = now - victim.getLastAccess() < window;
+			if (candidateInWindow != victimInWindow)
+				return victimInWindow;
+			int candidateFreq = sketch.frequency(hash(candidate));
+			int victimFreq = sketch.frequency(hash(victim));
+			if (candidateFreq != victimFreq)
+				return candidateFreq < victimFreq;
+			return candidate.getLastAccess() < victim.getLastAccess();
+		}
+
+		private int hash(Ref r) {
+			return WindowCache.this.hash(r.getPack().hash, r.getPosition());
+		}
 	}
 
 	private static final class Lock {
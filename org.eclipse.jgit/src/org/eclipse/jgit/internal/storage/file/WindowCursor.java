@@ -67,6 +67,7 @@
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.BitmapIndex;
 import org.eclipse.jgit.lib.BitmapIndex.BitmapBuilder;
+import org.eclipse.jgit.lib.CommitGraphIndex;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.InflaterCache;
 import org.eclipse.jgit.lib.ObjectId;
@@ -84,6 +85,12 @@ final class WindowCursor extends ObjectReader implements ObjectReuseAsIs {
 
 	private ByteWindow window;
 
+	/** Releases an off-heap {@link #window} if this cursor is not closed. */
+	private OffHeapWindow.Pin offHeapPin;
+
+	/** Input of the inflater, for windows not backed by an array. */
+	private byte[] inflaterInput;
+
 	private DeltaBaseCache baseCache;
 
 	@Nullable
@@ -180,6 +187,12 @@ public Set<ObjectId> getShallowCommits() throws IOException {
 		return db.getShallowCommits();
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public CommitGraphIndex getCommitGraph() throws IOException {
+		return db.getCommitGraph();
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public long getObjectSize(AnyObjectId objectId, int typeHint)
@@ -312,7 +325,7 @@ int inflate(final PackFile pack, long position, final byte[] dstbuf,
 			boolean headerOnly) throws IOException, DataFormatException {
 		prepareInflater();
 		pin(pack, position);
-		position += window.setInput(position, inf);
+		position += window.setInput(position, inf, inflaterInput());
 		for (int dstoff = 0;;) {
 			int n = inf.inflate(dstbuf, dstoff, dstbuf.length - dstoff);
 			dstoff += n;
@@ -320,7 +333,7 @@ int inflate(final PackFile pack, long position, final byte[] dstbuf,
 				return dstoff;
 			if (inf.needsInput()) {
 				pin(pack, position);
-				position += window.setInput(position, inf);
+				position += window.setInput(position, inf, inflaterInput());
 			} else if (n == 0)
 				throw new DataFormatException();
 		}
@@ -335,6 +348,12 @@ ByteArrayWindow quickCopy(PackFile p, long pos, long cnt)
 		return null;
 	}
 
+	private byte[] inflaterInput() {
+		if (inflaterInput == null)
+			inflaterInput = new byte[4096];
+		return inflaterInput;
+	}
+
 	Inflater inflater() {
 		prepareInflater();
 		return inf;
@@ -357,7 +376,17 @@ void pin(PackFile pack, long position)
 			// it again.
 			//
 			window = null;
-			window = WindowCache.get(pack, position);
+			if (offHeapPin != null)
+				offHeapPin.set(null);
+			if (w != null)
+				w.release();
+			final ByteWindow n = WindowCache.get(pack, position);
+			if (n instanceof OffHeapWindow) {
+				if (offHeapPin == null)
+					offHeapPin = new OffHeapWindow.Pin(this);
+				offHeapPin.set(n);
+			}
+			window = n;
 		}
 	}
 
@@ -375,7 +404,14 @@ public ObjectInserter getCreatedFromInserter() {
 	 */
 	@Override
 	public void close() {
+		final ByteWindow w = window;
 		window = null;
+		if (offHeapPin != null) {
+			offHeapPin.unregister();
+			offHeapPin = null;
+		}
+		if (w != null)
+			w.release();
 		baseCache = null;
 		try {
 			InflaterCache.release(inf);
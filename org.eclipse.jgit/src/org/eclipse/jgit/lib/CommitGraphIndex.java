@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026, Tyler Chen <iffiff1@gmail.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * This program and the accompanying materials are made available
+ * under the terms of the Eclipse Distribution License v1.0 which
+ * accompanies this distribution, is reproduced below, and is
+ * available at http://www.eclipse.org/org/documents/edl-v10.php
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or
+ * without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the following
+ *   disclaimer in the documentation and/or other materials provided
+ *   with the distribution.
+ *
+ * - Neither the name of the Eclipse Foundation, Inc. nor the
+ *   names of its contributors may be used to endorse or promote
+ *   products derived from this software without specific prior
+ *   written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND
+ * CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.eclipse.jgit.lib;
+
+/**
+ * Commit data stored in a commit-graph, read without inflating the commits.
+ * <p>
+ * Positions are indexes into the sorted commit list of the graph. They are
+ * only meaningful for the instance they were obtained from.
+ *
+ * @since 5.3
+ */
+public interface CommitGraphIndex {
+	/**
+	 * Get the number of commits in the graph.
+	 *
+	 * @return number of commits in the graph.
+	 */
+	int getCommitCount();
+
+	/**
+	 * Find the position of a commit in the graph.
+	 *
+	 * @param id
+	 *            the commit to find.
+	 * @return position of the commit, or -1 if it is not in the graph.
+	 */
+	int findGraphPosition(AnyObjectId id);
+
+	/**
+	 * Get the id of the commit at a position.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @return id of the commit.
+	 */
+	ObjectId getObjectId(int pos);
+
+	/**
+	 * Copy the id of the commit at a position.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @param dst
+	 *            receives the id of the commit.
+	 */
+	void copyObjectId(int pos, MutableObjectId dst);
+
+	/**
+	 * Copy the tree id of the commit at a position.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @param dst
+	 *            receives the id of the tree.
+	 */
+	void copyTreeId(int pos, MutableObjectId dst);
+
+	/**
+	 * Get the number of parents of the commit at a position.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @return number of parents.
+	 */
+	int getParentCount(int pos);
+
+	/**
+	 * Get the position of a parent of the commit at a position.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @param nth
+	 *            parent index, in the range 0 through
+	 *            {@link #getParentCount(int)}-1.
+	 * @return position of the parent.
+	 */
+	int getParent(int pos, int nth);
+
+	/**
+	 * Get the commit time of the commit at a position.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @return commit time in seconds since the epoch.
+	 */
+	long getCommitTime(int pos);
+
+	/**
+	 * Get the generation number of the commit at a position.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @return generation number, 1 for root commits.
+	 */
+	int getGeneration(int pos);
+}
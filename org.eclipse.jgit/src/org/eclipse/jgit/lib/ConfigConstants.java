@@ -476,4 +476,18 @@ public final class ConfigConstants {
 	 * @since 5.2
 	 */
 	public static final String CONFIG_KEY_LOG_OUTPUT_ENCODING = "logOutputEncoding";
+
+	/**
+	 * The "commitGraph" key
+	 *
+	 * @since 5.3
+	 */
+	public static final String CONFIG_KEY_COMMIT_GRAPH = "commitGraph";
+
+	/**
+	 * The "writeCommitGraph" key
+	 *
+	 * @since 5.3
+	 */
+	public static final String CONFIG_KEY_WRITE_COMMIT_GRAPH = "writeCommitGraph";
 }
@@ -442,6 +442,20 @@ public BitmapIndex getBitmapIndex() throws IOException {
 		return null;
 	}
 
+	/**
+	 * The commit-graph of the repository, which can be used to parse commits
+	 * without reading them.
+	 *
+	 * @return the commit-graph or null if one does not exist.
+	 * @throws java.io.IOException
+	 *             when the commit-graph fails to load
+	 * @since 5.3
+	 */
+	@Nullable
+	public CommitGraphIndex getCommitGraph() throws IOException {
+		return null;
+	}
+
 	/**
 	 * Get the {@link org.eclipse.jgit.lib.ObjectInserter} from which this
 	 * reader was created using {@code inserter.newReader()}
@@ -584,6 +598,12 @@ public BitmapIndex getBitmapIndex() throws IOException {
 			return delegate().getBitmapIndex();
 		}
 
+		@Override
+		@Nullable
+		public CommitGraphIndex getCommitGraph() throws IOException {
+			return delegate().getCommitGraph();
+		}
+
 		@Override
 		@Nullable
 		public ObjectInserter getCreatedFromInserter() {
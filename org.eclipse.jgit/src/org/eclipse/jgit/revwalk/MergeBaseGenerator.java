@@ -76,6 +76,8 @@ class MergeBaseGenerator extends Generator {
 	private final RevWalk walker;
 	private final DateRevQueue pending;
 
+	private final int minGeneration;
+
 	private int branchMask;
 	private int recarryTest;
 	private int recarryMask;
@@ -87,6 +89,7 @@ class MergeBaseGenerator extends Generator {
 	MergeBaseGenerator(RevWalk w) {
 		walker = w;
 		pending = new DateRevQueue();
+		minGeneration = w.minGeneration;
 	}
 
 	void init(AbstractRevQueue p) throws IOException {
@@ -151,6 +154,10 @@ private RevCommit _next() throws MissingObjectException,
 					continue;
 				if ((p.flags & PARSED) == 0)
 					p.parseHeaders(walker);
+				if (p.generation > 0 && p.generation < minGeneration) {
+					// p cannot reach the commit we are looking for.
+					continue;
+				}
 				p.flags |= IN_PENDING;
 				pending.add(p);
 			}
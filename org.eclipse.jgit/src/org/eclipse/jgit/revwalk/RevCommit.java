@@ -59,6 +59,7 @@
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.CommitGraphIndex;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.MutableObjectId;
 import org.eclipse.jgit.lib.ObjectInserter;
@@ -141,6 +142,12 @@ public static RevCommit parse(RevWalk rw, byte[] raw) throws IOException {
 
 	int inDegree;
 
+	/**
+	 * Generation number from the commit-graph, 0 if the commit is not in it. A
+	 * commit only reaches commits of a lower generation.
+	 */
+	int generation;
+
 	private byte[] buffer;
 
 	/**
@@ -156,9 +163,44 @@ protected RevCommit(AnyObjectId id) {
 	@Override
 	void parseHeaders(RevWalk walk) throws MissingObjectException,
 			IncorrectObjectTypeException, IOException {
+		if (!walk.isRetainBody()) {
+			// The body is not needed, the commit-graph has everything else.
+			CommitGraphIndex graph = walk.getCommitGraph();
+			int pos = graph != null ? graph.findGraphPosition(this) : -1;
+			if (pos >= 0) {
+				parseInGraph(walk, graph, pos);
+				return;
+			}
+		}
 		parseCanonical(walk, walk.getCachedBytes(this));
 	}
 
+	private void parseInGraph(RevWalk walk, CommitGraphIndex graph, int pos)
+			throws IOException {
+		if (!walk.shallowCommitsInitialized) {
+			walk.initializeShallowCommits(this);
+		}
+
+		final MutableObjectId idBuffer = walk.idBuffer;
+		graph.copyTreeId(pos, idBuffer);
+		tree = walk.lookupTree(idBuffer);
+
+		if (parents == null) {
+			int nParents = graph.getParentCount(pos);
+			RevCommit[] pList = nParents == 0 ? NO_PARENTS
+					: new RevCommit[nParents];
+			for (int i = 0; i < nParents; i++) {
+				graph.copyObjectId(graph.getParent(pos, i), idBuffer);
+				pList[i] = walk.lookupCommit(idBuffer);
+			}
+			parents = pList;
+		}
+
+		commitTime = (int) graph.getCommitTime(pos);
+		generation = graph.getGeneration(pos);
+		flags |= PARSED;
+	}
+
 	@Override
 	void parseBody(RevWalk walk) throws MissingObjectException,
 			IncorrectObjectTypeException, IOException {
@@ -220,6 +262,14 @@ void parseCanonical(RevWalk walk, byte[] raw) throws IOException {
 			commitTime = RawParseUtils.parseBase10(raw, ptr, null);
 		}
 
+		CommitGraphIndex graph = walk.getCommitGraph();
+		if (graph != null) {
+			int pos = graph.findGraphPosition(this);
+			if (pos >= 0) {
+				generation = graph.getGeneration(pos);
+			}
+		}
+
 		if (walk.isRetainBody()) {
 			buffer = raw;
 		}
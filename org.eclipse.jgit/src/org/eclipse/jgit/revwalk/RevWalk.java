@@ -63,6 +63,7 @@
 import org.eclipse.jgit.internal.JGitText;
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.AsyncObjectLoaderQueue;
+import org.eclipse.jgit.lib.CommitGraphIndex;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.MutableObjectId;
 import org.eclipse.jgit.lib.ObjectId;
@@ -202,6 +203,17 @@ public class RevWalk implements Iterable<RevCommit>, AutoCloseable {
 
 	boolean shallowCommitsInitialized;
 
+	private CommitGraphIndex commitGraph;
+
+	private boolean commitGraphLoaded;
+
+	/**
+	 * Commits of a lower generation than this are not walked by the merge base
+	 * generator, as they cannot reach the commit {@link #isMergedInto} looks
+	 * for. 0 walks all commits.
+	 */
+	int minGeneration;
+
 	/**
 	 * Create a new revision walker for a given repository.
 	 *
@@ -415,6 +427,12 @@ public boolean isMergedInto(RevCommit base, RevCommit tip)
 			treeFilter = TreeFilter.ALL;
 			markStart(tip);
 			markStart(base);
+			if (tip != base && tip.generation > 0
+					&& tip.generation <= base.generation) {
+				// A commit only reaches commits of a lower generation.
+				return false;
+			}
+			minGeneration = base.generation;
 			RevCommit mergeBase;
 			while ((mergeBase = next()) != null)
 				if (mergeBase == base)
@@ -423,6 +441,7 @@ public boolean isMergedInto(RevCommit base, RevCommit tip)
 		} finally {
 			filter = oldRF;
 			treeFilter = oldTF;
+			minGeneration = 0;
 		}
 	}
 
@@ -929,6 +948,22 @@ private RevObject parseNew(AnyObjectId id, ObjectLoader ldr)
 		return r;
 	}
 
+	/**
+	 * Get the commit-graph of the reader, it is loaded once for the walk.
+	 *
+	 * @return the commit-graph, or null if the repository has none.
+	 * @throws IOException
+	 *             the commit-graph cannot be loaded.
+	 */
+	@Nullable
+	CommitGraphIndex getCommitGraph() throws IOException {
+		if (!commitGraphLoaded) {
+			commitGraph = reader != null ? reader.getCommitGraph() : null;
+			commitGraphLoaded = true;
+		}
+		return commitGraph;
+	}
+
 	byte[] getCachedBytes(RevObject obj) throws LargeObjectException,
 			MissingObjectException, IncorrectObjectTypeException, IOException {
 		return getCachedBytes(obj, reader.open(obj, obj.getType()));
@@ -1334,6 +1369,8 @@ public void dispose() {
 		queue = new DateRevQueue();
 		pending = new StartGenerator(this);
 		shallowCommitsInitialized = false;
+		commitGraph = null;
+		commitGraphLoaded = false;
 	}
 
 	/**
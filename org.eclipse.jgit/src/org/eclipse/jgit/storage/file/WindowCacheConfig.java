@@ -51,6 +51,23 @@
  * Configuration parameters for JVM-wide buffer cache used by JGit.
  */
 public class WindowCacheConfig {
+	/**
+	 * Policy choosing which cached window is evicted when the cache is full.
+	 *
+	 * @since 5.3
+	 */
+	public enum EvictionPolicy {
+		/** Evict the least recently used window. */
+		LRU,
+
+		/**
+		 * Evict the least frequently used window, as estimated over recent
+		 * accesses, sparing recently loaded windows. A scan of many windows
+		 * read only once does not evict the windows in frequent use.
+		 */
+		TINY_LFU;
+	}
+
 	/** 1024 (number of bytes in one kibibyte/kilobyte) */
 	public static final int KB = 1024;
 
@@ -65,6 +82,14 @@ public class WindowCacheConfig {
 
 	private boolean packedGitMMAP;
 
+	private boolean packedGitUseStrongRefs;
+
+	private boolean packedGitOffHeap;
+
+	private EvictionPolicy packedGitEvictionPolicy;
+
+	private boolean packedIndexMMAP;
+
 	private int deltaBaseCacheLimit;
 
 	private int streamFileThreshold;
@@ -77,6 +102,10 @@ public WindowCacheConfig() {
 		packedGitLimit = 10 * MB;
 		packedGitWindowSize = 8 * KB;
 		packedGitMMAP = false;
+		packedGitUseStrongRefs = false;
+		packedGitOffHeap = false;
+		packedGitEvictionPolicy = EvictionPolicy.LRU;
+		packedIndexMMAP = false;
 		deltaBaseCacheLimit = 10 * MB;
 		streamFileThreshold = PackConfig.DEFAULT_BIG_FILE_THRESHOLD;
 	}
@@ -169,6 +198,117 @@ public void setPackedGitMMAP(boolean usemmap) {
 		packedGitMMAP = usemmap;
 	}
 
+	/**
+	 * Whether the window cache holds windows under strong references
+	 *
+	 * @return {@code true} if windows are held under strong references and
+	 *         only released by eviction; false if they are held under soft
+	 *         references the garbage collector may clear when heap memory
+	 *         gets low. <b>Default false.</b>
+	 * @since 5.3
+	 */
+	public boolean isPackedGitUseStrongRefs() {
+		return packedGitUseStrongRefs;
+	}
+
+	/**
+	 * Set whether the window cache holds windows under strong references
+	 * <p>
+	 * Strong references keep the cache at {@link #getPackedGitLimit()} and
+	 * spare the garbage collector clearing soft references, the limit must
+	 * then fit in the heap with the rest of the application.
+	 *
+	 * @param useStrongRefs
+	 *            {@code true} to hold windows under strong references and
+	 *            release them only by eviction; false to hold them under soft
+	 *            references.
+	 * @since 5.3
+	 */
+	public void setPackedGitUseStrongRefs(boolean useStrongRefs) {
+		packedGitUseStrongRefs = useStrongRefs;
+	}
+
+	/**
+	 * Whether the window cache stores windows in direct memory
+	 *
+	 * @return {@code true} if windows are read into direct memory slabs
+	 *         allocated by the cache and freed explicitly on eviction; false
+	 *         if they are read onto the heap or mapped as configured by
+	 *         {@link #isPackedGitMMAP()}. <b>Default false.</b>
+	 * @since 5.3
+	 */
+	public boolean isPackedGitOffHeap() {
+		return packedGitOffHeap;
+	}
+
+	/**
+	 * Set whether the window cache stores windows in direct memory
+	 * <p>
+	 * Off-heap windows are held under strong references and take up to
+	 * {@link #getPackedGitLimit()} bytes of direct memory, which must be
+	 * permitted by {@code -XX:MaxDirectMemorySize}. The heap then only holds
+	 * the bookkeeping of the cache, so the limit can exceed the heap size.
+	 * This setting takes precedence over {@link #isPackedGitMMAP()}.
+	 *
+	 * @param offHeap
+	 *            {@code true} to read windows into direct memory.
+	 * @since 5.3
+	 */
+	public void setPackedGitOffHeap(boolean offHeap) {
+		packedGitOffHeap = offHeap;
+	}
+
+	/**
+	 * Get the policy choosing which window is evicted when the cache is full.
+	 *
+	 * @return the eviction policy. <b>Default {@link EvictionPolicy#LRU}.</b>
+	 * @since 5.3
+	 */
+	public EvictionPolicy getPackedGitEvictionPolicy() {
+		return packedGitEvictionPolicy;
+	}
+
+	/**
+	 * Set the policy choosing which window is evicted when the cache is full.
+	 *
+	 * @param policy
+	 *            the eviction policy.
+	 * @since 5.3
+	 */
+	public void setPackedGitEvictionPolicy(EvictionPolicy policy) {
+		packedGitEvictionPolicy = policy;
+	}
+
+	/**
+	 * Whether to use Java NIO virtual memory mapping for pack indexes
+	 *
+	 * @return {@code true} maps pack index files and searches them in place;
+	 *         false reads each index onto the heap when its pack is first
+	 *         accessed. <b>Default false.</b>
+	 * @since 5.3
+	 */
+	public boolean isPackedIndexMMAP() {
+		return packedIndexMMAP;
+	}
+
+	/**
+	 * Set whether to enable use of Java NIO virtual memory mapping for pack
+	 * indexes
+	 * <p>
+	 * A mapped index does not use heap memory and is opened without reading
+	 * it, so the heap used by indexes no longer grows with the number of open
+	 * packs. Like mapped pack windows, a mapped index is released only when it
+	 * is garbage collected.
+	 *
+	 * @param usemmap
+	 *            {@code true} maps pack index files and searches them in
+	 *            place; false reads each index onto the heap.
+	 * @since 5.3
+	 */
+	public void setPackedIndexMMAP(boolean usemmap) {
+		packedIndexMMAP = usemmap;
+	}
+
 	/**
 	 * Get maximum number of bytes to cache in delta base cache for inflated,
 	 * recently accessed objects, without delta chains.
@@ -235,6 +375,14 @@ public WindowCacheConfig fromConfig(Config rc) {
 				"core", null, "packedgitwindowsize", getPackedGitWindowSize())); //$NON-NLS-1$ //$NON-NLS-2$
 		setPackedGitMMAP(rc.getBoolean(
 				"core", null, "packedgitmmap", isPackedGitMMAP())); //$NON-NLS-1$ //$NON-NLS-2$
+		setPackedGitUseStrongRefs(rc.getBoolean(
+				"core", null, "packedgitusestrongrefs", isPackedGitUseStrongRefs())); //$NON-NLS-1$ //$NON-NLS-2$
+		setPackedGitOffHeap(rc.getBoolean(
+				"core", null, "packedgitoffheap", isPackedGitOffHeap())); //$NON-NLS-1$ //$NON-NLS-2$
+		setPackedGitEvictionPolicy(rc.getEnum(
+				"core", null, "packedgitevictionpolicy", getPackedGitEvictionPolicy())); //$NON-NLS-1$ //$NON-NLS-2$
+		setPackedIndexMMAP(rc.getBoolean(
+				"core", null, "packedindexmmap", isPackedIndexMMAP())); //$NON-NLS-1$ //$NON-NLS-2$
 		setDeltaBaseCacheLimit(rc.getInt(
 				"core", null, "deltabasecachelimit", getDeltaBaseCacheLimit())); //$NON-NLS-1$ //$NON-NLS-2$
 
@@ -65,4 +65,95 @@ public static int getOpenFiles() {
 	public static long getOpenBytes() {
 		return WindowCache.getInstance().getOpenBytes();
 	}
+
+	/**
+	 * @return the number of bytes of direct memory allocated for windows.
+	 * @since 5.3
+	 */
+	public static long getOffHeapBytes() {
+		return WindowCache.getInstance().getOffHeapBytes();
+	}
+
+	/**
+	 * @return the number of lookups served by a cached window.
+	 * @since 5.3
+	 */
+	public static long getHitCount() {
+		return WindowCache.getInstance().getHitCount();
+	}
+
+	/**
+	 * @return the number of lookups which had to load a window.
+	 * @since 5.3
+	 */
+	public static long getMissCount() {
+		return WindowCache.getInstance().getMissCount();
+	}
+
+	/**
+	 * @return the ratio of lookups served by a cached window, 1.0 if there
+	 *         was no lookup.
+	 * @since 5.3
+	 */
+	public static double getHitRatio() {
+		WindowCache cache = WindowCache.getInstance();
+		long hits = cache.getHitCount();
+		long total = hits + cache.getMissCount();
+		return total == 0 ? 1.0 : (double) hits / total;
+	}
+
+	/**
+	 * @return the number of windows loaded successfully.
+	 * @since 5.3
+	 */
+	public static long getLoadSuccessCount() {
+		return WindowCache.getInstance().getLoadSuccessCount();
+	}
+
+	/**
+	 * @return the number of window loads which failed.
+	 * @since 5.3
+	 */
+	public static long getLoadFailureCount() {
+		return WindowCache.getInstance().getLoadFailureCount();
+	}
+
+	/**
+	 * @return the number of windows evicted to make room, or cleared by the
+	 *         garbage collector.
+	 * @since 5.3
+	 */
+	public static long getEvictionCount() {
+		return WindowCache.getInstance().getEvictionCount();
+	}
+
+	/**
+	 * @return the total time spent loading windows, in nanoseconds.
+	 * @since 5.3
+	 */
+	public static long getTotalLoadTime() {
+		return WindowCache.getInstance().getTotalLoadTime();
+	}
+
+	/**
+	 * @return the average time spent loading a window, in nanoseconds.
+	 * @since 5.3
+	 */
+	public static double getAverageLoadTime() {
+		WindowCache cache = WindowCache.getInstance();
+		long loads = cache.getLoadSuccessCount() + cache.getLoadFailureCount();
+		return loads == 0 ? 0.0 : (double) cache.getTotalLoadTime() / loads;
+	}
+
+	/**
+	 * Reset the hit, miss, load and eviction counters.
+	 * <p>
+	 * The counters are also reset when a new
+	 * {@link org.eclipse.jgit.storage.file.WindowCacheConfig} is installed.
+	 *
+	 * @since 5.3
+	 */
+	public static void resetCounters() {
+		WindowCache.getInstance().resetStats();
+	}
 }
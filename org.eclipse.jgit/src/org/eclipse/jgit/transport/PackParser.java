@@ -45,16 +45,23 @@
 
 package org.eclipse.jgit.transport;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
 
@@ -102,6 +109,15 @@ public abstract class PackParser {
 	/** Size of the internal stream buffer. */
 	private static final int BUFFER_SIZE = 8192;
 
+	/** Resolved deltas a worker may queue ahead of the calling thread. */
+	private static final int RESOLVED_QUEUE_SIZE = 16;
+
+	/**
+	 * Bytes of resolved deltas a worker may queue ahead of the calling thread.
+	 * A larger object is still queued alone.
+	 */
+	private static final int RESOLVED_QUEUE_BYTES = 1 << 20;
+
 	/** Location data is being obtained from. */
 	public static enum Source {
 		/** Data is read from the incoming stream. */
@@ -189,6 +205,9 @@ public static enum Source {
 	/** Git object size limit */
 	private long maxObjectSizeLimit;
 
+	/** Number of threads resolving deltas, 0 for one per processor. */
+	private int deltaResolutionThreads = 1;
+
 	private final ReceivedPackStatistics.Builder stats =
 			new ReceivedPackStatistics.Builder();
 
@@ -436,6 +455,43 @@ public void setMaxObjectSizeLimit(long limit) {
 		maxObjectSizeLimit = limit;
 	}
 
+	/**
+	 * Get the number of threads resolving deltas.
+	 *
+	 * @return the number of threads resolving deltas; 0 for one thread per
+	 *         available processor.
+	 * @since 5.3
+	 */
+	public int getDeltaResolutionThreads() {
+		return deltaResolutionThreads;
+	}
+
+	/**
+	 * Set the number of threads resolving deltas.
+	 * <p>
+	 * The deltas hanging off different base objects are independent, with
+	 * more than one thread each base and its deltas are resolved by a worker
+	 * with its own inflater and base data. Worker threads are only used if the
+	 * implementation can read the stored objects concurrently, see
+	 * {@link #openDatabaseReader()}. The resolved objects are still checked
+	 * and handed to the implementation by the calling thread, in the order a
+	 * single thread would resolve them, so the result does not depend on the
+	 * number of threads.
+	 * <p>
+	 * Each thread holds the objects on the path to the delta it resolves, and
+	 * up to {@code 2 * threads} trees are in flight, each queuing up to 1 MiB
+	 * of resolved objects (or one larger object) for the calling thread. More
+	 * threads therefore need proportionally more memory.
+	 *
+	 * @param threads
+	 *            number of threads; 0 for one thread per available processor.
+	 *            The default is 1, deltas are resolved by the calling thread.
+	 * @since 5.3
+	 */
+	public void setDeltaResolutionThreads(int threads) {
+		deltaResolutionThreads = Math.max(0, threads);
+	}
+
 	/**
 	 * Get the number of objects in the stream.
 	 * <p>
@@ -631,6 +687,12 @@ private void processDeltas(ProgressMonitor resolving) throws IOException {
 
 	private void resolveDeltas(ProgressMonitor progress)
 			throws IOException {
+		int threads = deltaResolutionThreads;
+		if (threads == 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		if (threads > 1 && resolveDeltasInParallel(progress, threads))
+			return;
+
 		final int last = entryCount;
 		for (int i = 0; i < last; i++) {
 			resolveDeltas(entries[i], progress);
@@ -728,6 +790,160 @@ private void resolveDeltas(DeltaVisit visit, final int type,
 		} while (visit != null);
 	}
 
+	private boolean resolveDeltasInParallel(ProgressMonitor progress,
+			int threads) throws IOException {
+		List<DatabaseReader> readers = new ArrayList<>(threads);
+		ExecutorService pool = null;
+		Throwable failure = null;
+		try {
+			for (int i = 0; i < threads; i++) {
+				DatabaseReader r = openDatabaseReader();
+				if (r == null)
+					return false;
+				readers.add(r);
+			}
+
+			BlockingQueue<DeltaTree> work = new LinkedBlockingQueue<>();
+			pool = Executors.newFixedThreadPool(threads);
+			for (DatabaseReader r : readers)
+				pool.execute(new DeltaResolver(r, work));
+			resolveDeltaTrees(work, 2 * threads, progress);
+			return true;
+		} catch (Throwable err) {
+			failure = err;
+			throw err;
+		} finally {
+			try {
+				if (pool != null)
+					stopDeltaResolvers(pool, failure);
+			} finally {
+				for (DatabaseReader r : readers)
+					r.close();
+			}
+		}
+	}
+
+	private static void stopDeltaResolvers(ExecutorService pool,
+			Throwable failure) throws IOException {
+		// Workers may still be blocked on a tree the caller gave up on. They
+		// must be gone before their readers are closed.
+		pool.shutdownNow();
+		for (;;) {
+			try {
+				if (pool.awaitTermination(60, TimeUnit.SECONDS))
+					return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				IOException err = new IOException(
+						JGitText.get().downloadCancelledDuringIndexing, e);
+				if (failure != null)
+					err.addSuppressed(failure);
+				throw err;
+			}
+		}
+	}
+
+	private void resolveDeltaTrees(BlockingQueue<DeltaTree> work, int window,
+			ProgressMonitor progress) throws IOException {
+		// Workers only read baseById and baseByPos. The chains claimed by
+		// the resolved objects are tracked here, and removed once all of the
+		// workers are done.
+		ObjectIdSubclassMap<PackedObjectInfo> claimed = new ObjectIdSubclassMap<>();
+		ArrayDeque<DeltaTree> pending = new ArrayDeque<>(window);
+		final int last = entryCount;
+		int next = 0;
+		for (;;) {
+			while (pending.size() < window && next < last) {
+				PackedObjectInfo oe = entries[next++];
+				if (hasChildren(oe)) {
+					DeltaTree tree = new DeltaTree(oe);
+					pending.add(tree);
+					work.add(tree);
+				}
+			}
+			DeltaTree tree = pending.poll();
+			if (tree == null)
+				break;
+			resolveDeltaTree(tree, claimed, progress);
+			if (progress.isCancelled())
+				throw new IOException(
+						JGitText.get().downloadCancelledDuringIndexing);
+		}
+
+		for (int i = 0; i < entryCount; i++) {
+			removeBaseById(entries[i]);
+			baseByPos.remove(entries[i].getOffset());
+		}
+	}
+
+	private void resolveDeltaTree(DeltaTree tree,
+			ObjectIdSubclassMap<PackedObjectInfo> claimed,
+			ProgressMonitor progress) throws IOException {
+		ResolvedDelta base = tree.take();
+		base.info = tree.base;
+		base.live = true;
+		base.claimsId = claimed.addIfAbsent(tree.base) == tree.base;
+		if (!base.hasChildrenByPos
+				&& !(base.claimsId && base.hasChildrenById)) {
+			// An earlier object of the same name took the children, the
+			// base is not needed.
+			while (tree.take() != ResolvedDelta.END) {
+				// Discard the work done for nothing.
+			}
+			return;
+		}
+		if (base.error != null)
+			throwResolveError(base.error);
+
+		final int type = base.type;
+		stats.addDeltaObject(type);
+		for (ResolvedDelta r = tree.take(); r != ResolvedDelta.END; r = tree
+				.take()) {
+			ResolvedDelta parent = r.parent;
+			if (!parent.live || (r.byId && !parent.claimsId)) {
+				r.data = null;
+				continue;
+			}
+
+			progress.update(1);
+			if (r.error != null)
+				throwResolveError(r.error);
+
+			verifySafeObject(r.id, type, r.data);
+			if (isCheckObjectCollisions() && readCurs.has(r.id)) {
+				checkObjectCollision(r.id, type, r.data);
+			}
+
+			PackedObjectInfo oe;
+			oe = newInfo(r.id, r.delta, parent.info);
+			oe.setOffset(r.delta.position);
+			oe.setType(type);
+			onInflatedObjectData(oe, type, r.data);
+			addObjectAndTrack(oe);
+
+			r.info = oe;
+			r.live = true;
+			r.claimsId = claimed.addIfAbsent(oe) == oe;
+			r.data = null;
+		}
+	}
+
+	private boolean hasChildren(PackedObjectInfo oe) {
+		DeltaChain c = baseById.get(oe);
+		return (c != null && c.head != null)
+				|| baseByPos.get(oe.getOffset()) != null;
+	}
+
+	private static void throwResolveError(Throwable err) throws IOException {
+		if (err instanceof Error)
+			throw (Error) err;
+		if (err instanceof RuntimeException)
+			throw (RuntimeException) err;
+		if (err instanceof IOException)
+			throw (IOException) err;
+		throw new IOException(err.getMessage(), err);
+	}
+
 	private final void checkIfTooLarge(int typeCode, long size)
 			throws IOException {
 		if (0 < maxObjectSizeLimit && maxObjectSizeLimit < size) {
@@ -1547,6 +1763,33 @@ protected abstract int readDatabase(byte[] dst, int pos, int cnt)
 	 */
 	protected abstract boolean checkCRC(int oldCRC);
 
+	/**
+	 * Open a private reader of the stored objects for a delta resolution
+	 * thread.
+	 * <p>
+	 * Invoked after the whole pack stream has been stored, once for each of
+	 * the {@link #setDeltaResolutionThreads(int)} threads. A reader is used by
+	 * one thread only, but the readers are used concurrently with each other
+	 * and with the parser's own {@link #readDatabase(byte[], int, int)}. The
+	 * parser checks the data read against the CRC-32 of the object header and
+	 * compressed data recorded in {@link PackedObjectInfo#getCRC()} and
+	 * {@link UnresolvedDelta#getCRC()}, instead of calling
+	 * {@link #checkCRC(int)}.
+	 * <p>
+	 * By default there is no such reader and deltas are resolved by the
+	 * calling thread.
+	 *
+	 * @return a new reader, or null if the stored objects can only be read by
+	 *         {@link #seekDatabase(PackedObjectInfo, ObjectTypeAndSize)} and
+	 *         {@link #readDatabase(byte[], int, int)}.
+	 * @throws java.io.IOException
+	 *             the database cannot be opened.
+	 * @since 5.3
+	 */
+	protected DatabaseReader openDatabaseReader() throws IOException {
+		return null;
+	}
+
 	/**
 	 * Event notifying the start of an object stored whole (not as a delta).
 	 *
@@ -1636,6 +1879,32 @@ public static class ObjectTypeAndSize {
 		public long size;
 	}
 
+	/**
+	 * Reads the stored pack data at any position.
+	 *
+	 * @since 5.3
+	 */
+	public interface DatabaseReader extends Closeable {
+		/**
+		 * Read the stored pack data starting at a position.
+		 *
+		 * @param position
+		 *            position in the pack stream to read from.
+		 * @param dst
+		 *            the buffer to copy read data into.
+		 * @param pos
+		 *            position within {@code dst} to start copying data into.
+		 * @param cnt
+		 *            ideal target number of bytes to read. Actual read length
+		 *            may be shorter.
+		 * @return number of bytes stored; 0 or -1 at the end of the data.
+		 * @throws java.io.IOException
+		 *             the database cannot be accessed.
+		 */
+		int read(long position, byte[] dst, int pos, int cnt)
+				throws IOException;
+	}
+
 	private void inflateAndSkip(Source src, long inflatedSize)
 			throws IOException {
 		try (InputStream inf = inflate(src, inflatedSize)) {
@@ -1744,6 +2013,433 @@ DeltaVisit next() {
 		}
 	}
 
+	/** A base object and its deltas, resolved by one worker thread. */
+	private static class DeltaTree {
+		final PackedObjectInfo base;
+
+		/** The base, then its deltas in visiting order, then END. */
+		private final ArrayDeque<ResolvedDelta> resolved = new ArrayDeque<>();
+
+		/** Bytes of object data in {@link #resolved}. */
+		private long resolvedBytes;
+
+		DeltaTree(PackedObjectInfo base) {
+			this.base = base;
+		}
+
+		/**
+		 * Queue an object for the parsing thread, waiting while too many
+		 * objects or bytes are queued.
+		 */
+		synchronized void put(ResolvedDelta r) throws InterruptedException {
+			while (!resolved.isEmpty()
+					&& (resolved.size() >= RESOLVED_QUEUE_SIZE
+							|| resolvedBytes >= RESOLVED_QUEUE_BYTES))
+				wait();
+			resolved.add(r);
+			resolvedBytes += sizeOf(r);
+			notifyAll();
+		}
+
+		synchronized ResolvedDelta take() throws IOException {
+			try {
+				while (resolved.isEmpty())
+					wait();
+			} catch (InterruptedException e) {
+				throw new IOException(
+						JGitText.get().downloadCancelledDuringIndexing);
+			}
+			ResolvedDelta r = resolved.poll();
+			resolvedBytes -= sizeOf(r);
+			notifyAll();
+			return r;
+		}
+
+		private static int sizeOf(ResolvedDelta r) {
+			return r.data != null ? r.data.length : 0;
+		}
+	}
+
+	/** An object resolved by a worker, committed by the parsing thread. */
+	private static class ResolvedDelta {
+		static final ResolvedDelta END = new ResolvedDelta(null, null, false);
+
+		/** The object this delta applies to; null for the base. */
+		final ResolvedDelta parent;
+
+		/** The delta; null for the base. */
+		final UnresolvedDelta delta;
+
+		/** True if the delta names its base by ObjectId. */
+		final boolean byId;
+
+		ObjectId id;
+
+		byte[] data;
+
+		/** The failure to resolve this object, reported if it is used. */
+		Throwable error;
+
+		/** Type of the base, set on the base only. */
+		int type;
+
+		boolean hasChildrenById;
+
+		boolean hasChildrenByPos;
+
+		/** Set by the parsing thread once the object is stored. */
+		PackedObjectInfo info;
+
+		boolean live;
+
+		/** True if the deltas naming this object by ObjectId are its own. */
+		boolean claimsId;
+
+		ResolvedDelta(ResolvedDelta parent, UnresolvedDelta delta,
+				boolean byId) {
+			this.parent = parent;
+			this.delta = delta;
+			this.byId = byId;
+		}
+	}
+
+	/** The deltas of an object still to be visited by a worker. */
+	private static class DeltaFrame {
+		final ResolvedDelta object;
+
+		final UnresolvedDelta[] children;
+
+		final boolean[] byId;
+
+		byte[] data;
+
+		int next;
+
+		DeltaFrame(ResolvedDelta object, UnresolvedDelta[] children,
+				boolean[] byId) {
+			this.object = object;
+			this.children = children;
+			this.byId = byId;
+		}
+	}
+
+	/**
+	 * Resolves delta trees on a worker thread.
+	 * <p>
+	 * Each worker has its own reader, inflater and digest, and keeps the data
+	 * of the objects on its current path like {@code DeltaVisit} does. The
+	 * delta chains are only read, the parsing thread decides which of the
+	 * resolved objects are used.
+	 */
+	private class DeltaResolver implements Runnable {
+		private final DatabaseReader reader;
+
+		private final BlockingQueue<DeltaTree> work;
+
+		private final SHA1 objectDigest = SHA1.newInstance();
+
+		private final CRC32 crc = new CRC32();
+
+		private final ObjectTypeAndSize info = new ObjectTypeAndSize();
+
+		private final byte[] readBuffer = new byte[BUFFER_SIZE];
+
+		private final byte[] skipBuffer = new byte[512];
+
+		private Inflater inf;
+
+		/** Position in the pack of the next byte after {@link #readBuffer}. */
+		private long readPosition;
+
+		private int readOffset;
+
+		private int readLength;
+
+		DeltaResolver(DatabaseReader reader, BlockingQueue<DeltaTree> work) {
+			this.reader = reader;
+			this.work = work;
+		}
+
+		@Override
+		public void run() {
+			inf = InflaterCache.get();
+			try {
+				for (;;)
+					resolve(work.take());
+			} catch (InterruptedException e) {
+				// The parser is done, or gave up.
+			} finally {
+				inf.reset();
+				InflaterCache.release(inf);
+			}
+		}
+
+		private void resolve(DeltaTree tree) throws InterruptedException {
+			ObjectIdSubclassMap<ObjectId> expanded = new ObjectIdSubclassMap<>();
+			ResolvedDelta base = new ResolvedDelta(null, null, false);
+			base.id = tree.base;
+			DeltaFrame top = null;
+			try {
+				top = childrenOf(base, tree.base.getOffset(), expanded);
+				open(tree.base.getOffset());
+				switch (info.type) {
+				case Constants.OBJ_COMMIT:
+				case Constants.OBJ_TREE:
+				case Constants.OBJ_BLOB:
+				case Constants.OBJ_TAG:
+					break;
+				default:
+					throw new IOException(MessageFormat.format(
+							JGitText.get().unknownObjectType,
+							Integer.valueOf(info.type)));
+				}
+				base.type = info.type;
+				byte[] data = inflate(info.size);
+				if (tree.base.getCRC() != (int) crc.getValue()) {
+					throw new IOException(MessageFormat.format(
+							JGitText.get().corruptionDetectedReReadingAt,
+							Long.valueOf(tree.base.getOffset())));
+				}
+				if (top != null)
+					top.data = data;
+			} catch (Throwable err) {
+				base.error = err;
+				top = null;
+			}
+			tree.put(base);
+			if (top != null)
+				resolve(top, base.type, tree, expanded);
+			tree.put(ResolvedDelta.END);
+		}
+
+		private void resolve(DeltaFrame top, int type, DeltaTree tree,
+				ObjectIdSubclassMap<ObjectId> expanded)
+				throws InterruptedException {
+			List<DeltaFrame> stack = new ArrayList<>();
+			stack.add(top);
+			while (!stack.isEmpty()) {
+				DeltaFrame f = stack.get(stack.size() - 1);
+				int i = f.next++;
+				byte[] baseData = f.data;
+				if (f.next == f.children.length) {
+					// Discard the base once its last delta is applied.
+					stack.remove(stack.size() - 1);
+					f.data = null;
+				}
+
+				ResolvedDelta r = new ResolvedDelta(f.object, f.children[i],
+						f.byId[i]);
+				DeltaFrame child = null;
+				try {
+					r.data = apply(r, baseData, type);
+					child = childrenOf(r, r.delta.position, expanded);
+					if (child != null)
+						child.data = r.data;
+				} catch (Throwable err) {
+					r.error = err;
+					r.data = null;
+					child = null;
+				}
+				tree.put(r);
+				if (child != null)
+					stack.add(child);
+			}
+		}
+
+		private byte[] apply(ResolvedDelta r, byte[] baseData, int type)
+				throws IOException {
+			open(r.delta.position);
+			switch (info.type) {
+			case Constants.OBJ_OFS_DELTA:
+			case Constants.OBJ_REF_DELTA:
+				break;
+
+			default:
+				throw new IOException(MessageFormat.format(
+						JGitText.get().unknownObjectType,
+						Integer.valueOf(info.type)));
+			}
+
+			byte[] delta = inflate(info.size);
+			checkIfTooLarge(type, BinaryDelta.getResultSize(delta));
+
+			byte[] data = BinaryDelta.apply(baseData, delta);
+			delta = null;
+
+			if (r.delta.crc != (int) crc.getValue())
+				throw new IOException(MessageFormat.format(
+						JGitText.get().corruptionDetectedReReadingAt,
+						Long.valueOf(r.delta.position)));
+
+			objectDigest.reset();
+			objectDigest.update(Constants.encodedTypeString(type));
+			objectDigest.update((byte) ' ');
+			objectDigest.update(Constants.encodeASCII(data.length));
+			objectDigest.update((byte) 0);
+			objectDigest.update(data);
+			r.id = objectDigest.toObjectId();
+			return data;
+		}
+
+		/**
+		 * Collect the deltas of an object in the order of
+		 * {@code firstChildOf}, without removing them from the chains.
+		 */
+		private DeltaFrame childrenOf(ResolvedDelta obj, long position,
+				ObjectIdSubclassMap<ObjectId> expanded) {
+			UnresolvedDelta a = null;
+			if (!expanded.contains(obj.id)) {
+				// A name repeated within the tree has its deltas only once.
+				expanded.add(obj.id);
+				DeltaChain c = baseById.get(obj.id);
+				if (c != null)
+					a = c.head;
+			}
+			UnresolvedDelta b = baseByPos.get(position);
+			obj.hasChildrenById = a != null;
+			obj.hasChildrenByPos = b != null;
+
+			UnresolvedDelta[] byId = toArray(a);
+			UnresolvedDelta[] byPos = toArray(b);
+			int n = byId.length + byPos.length;
+			if (n == 0)
+				return null;
+
+			UnresolvedDelta[] children = new UnresolvedDelta[n];
+			boolean[] isById = new boolean[n];
+			int ia = 0, ib = 0;
+			for (int k = 0; k < n; k++) {
+				if (ib == byPos.length || (ia < byId.length
+						&& byId[ia].position < byPos[ib].position)) {
+					children[k] = byId[ia++];
+					isById[k] = true;
+				} else {
+					children[k] = byPos[ib++];
+				}
+			}
+			return new DeltaFrame(obj, children, isById);
+		}
+
+		/** @return the chain, oldest delta first. */
+		private UnresolvedDelta[] toArray(UnresolvedDelta chain) {
+			int n = 0;
+			for (UnresolvedDelta d = chain; d != null; d = d.next)
+				n++;
+			UnresolvedDelta[] r = new UnresolvedDelta[n];
+			for (UnresolvedDelta d = chain; d != null; d = d.next)
+				r[--n] = d;
+			return r;
+		}
+
+		private void open(long position) throws IOException {
+			crc.reset();
+			inf.reset();
+			readPosition = position;
+			readOffset = 0;
+			readLength = 0;
+			while (readLength < 64) {
+				int n = reader.read(readPosition, readBuffer, readLength,
+						readBuffer.length - readLength);
+				if (n <= 0)
+					break;
+				readPosition += n;
+				readLength += n;
+			}
+
+			int p = 0;
+			int c = readHeaderByte(p++);
+			info.type = (c >> 4) & 7;
+			long sz = c & 15;
+			int shift = 4;
+			while ((c & 0x80) != 0) {
+				c = readHeaderByte(p++);
+				sz += ((long) (c & 0x7f)) << shift;
+				shift += 7;
+			}
+			info.size = sz;
+
+			switch (info.type) {
+			case Constants.OBJ_OFS_DELTA:
+				do {
+					c = readHeaderByte(p++);
+				} while ((c & 128) != 0);
+				break;
+			case Constants.OBJ_REF_DELTA:
+				p += 20;
+				if (readLength < p)
+					throw new EOFException(
+							JGitText.get().packfileIsTruncatedNoParam);
+				break;
+			default:
+				break;
+			}
+
+			crc.update(readBuffer, 0, p);
+			readOffset = p;
+			inf.setInput(readBuffer, readOffset, readLength - readOffset);
+		}
+
+		private int readHeaderByte(int p) throws EOFException {
+			if (readLength <= p)
+				throw new EOFException(
+						JGitText.get().packfileIsTruncatedNoParam);
+			return readBuffer[p] & 0xff;
+		}
+
+		private byte[] inflate(long inflatedSize) throws IOException {
+			final byte[] dst = new byte[(int) inflatedSize];
+			int n = 0;
+			try {
+				for (;;) {
+					int r;
+					if (n < dst.length) {
+						r = inf.inflate(dst, n, dst.length - n);
+						n += r;
+					} else {
+						// Pump the trailing checksum into the Inflater, there
+						// must not be more data.
+						r = inf.inflate(skipBuffer);
+						if (0 < r)
+							throw wrongDecompressedLength();
+					}
+					if (inf.finished())
+						break;
+					if (inf.needsInput()) {
+						crc.update(readBuffer, readOffset,
+								readLength - readOffset);
+						readOffset = 0;
+						readLength = reader.read(readPosition, readBuffer, 0,
+								readBuffer.length);
+						if (readLength <= 0)
+							throw new EOFException(
+									JGitText.get().packfileIsTruncatedNoParam);
+						readPosition += readLength;
+						inf.setInput(readBuffer, 0, readLength);
+					} else if (r == 0) {
+						throw new CorruptObjectException(MessageFormat.format(
+								JGitText.get().packfileCorruptionDetected,
+								JGitText.get().unknownZlibError));
+					}
+				}
+			} catch (DataFormatException dfe) {
+				throw new CorruptObjectException(MessageFormat.format(JGitText
+						.get().packfileCorruptionDetected, dfe.getMessage()));
+			}
+			if (n != dst.length)
+				throw wrongDecompressedLength();
+
+			crc.update(readBuffer, readOffset,
+					readLength - readOffset - inf.getRemaining());
+			return dst;
+		}
+
+		private CorruptObjectException wrongDecompressedLength() {
+			return new CorruptObjectException(MessageFormat.format(
+					JGitText.get().packfileCorruptionDetected,
+					JGitText.get().wrongDecompressedLength));
+		}
+	}
+
 	private void addObjectAndTrack(PackedObjectInfo oe) {
 		entries[entryCount++] = oe;
 		if (needNewObjectIds())
@@ -148,6 +148,9 @@ class WalkFetchConnection extends BaseFetchConnection {
 	/** Objects we need to copy from the remote repository. */
 	private LinkedList<ObjectId> workQueue;
 
+	/** Objects added to {@link #workQueue} but not hinted to the remote. */
+	private final List<ObjectId> prefetchQueue = new ArrayList<>();
+
 	/** Databases we have not yet obtained the list of packs from. */
 	private final LinkedList<WalkRemoteObjectDatabase> noPacksYet;
 
@@ -233,12 +236,14 @@ protected void doFetch(final ProgressMonitor monitor,
 			throws TransportException {
 		markLocalRefsComplete(have);
 		queueWants(want);
+		prefetchQueued();
 
 		while (!monitor.isCancelled() && !workQueue.isEmpty()) {
 			final ObjectId id = workQueue.removeFirst();
 			if (!(id instanceof RevObject) || !((RevObject) id).has(COMPLETE))
 				downloadObject(monitor, id);
 			process(id);
+			prefetchQueued();
 		}
 
 		try {
@@ -289,10 +294,13 @@ private void queueWants(Collection<Ref> want)
 				if (inWorkQueue.add(id)) {
 					obj.add(IN_WORK_QUEUE);
 					workQueue.add(obj);
+					prefetchQueue.add(obj);
 				}
 			} catch (MissingObjectException e) {
-				if (inWorkQueue.add(id))
+				if (inWorkQueue.add(id)) {
 					workQueue.add(id);
+					prefetchQueue.add(id);
+				}
 			} catch (IOException e) {
 				throw new TransportException(MessageFormat.format(JGitText.get().cannotRead, id.name()), e);
 			}
@@ -402,7 +410,27 @@ private void needs(RevObject obj) {
 		if (!obj.has(IN_WORK_QUEUE)) {
 			obj.add(IN_WORK_QUEUE);
 			workQueue.add(obj);
+			prefetchQueue.add(obj);
+		}
+	}
+
+	/**
+	 * Tell the remote which loose objects the walk will ask for next, so it
+	 * can download them in the background.
+	 */
+	private void prefetchQueued() throws TransportException {
+		if (prefetchQueue.isEmpty())
+			return;
+		final List<String> names = new ArrayList<>(prefetchQueue.size());
+		for (ObjectId id : prefetchQueue) {
+			if (!alreadyHave(id)) {
+				final String idStr = id.name();
+				names.add(idStr.substring(0, 2) + "/" + idStr.substring(2)); //$NON-NLS-1$
+			}
 		}
+		prefetchQueue.clear();
+		if (!names.isEmpty())
+			remotes.get(lastRemoteIdx).prefetch(names);
 	}
 
 	private void downloadObject(ProgressMonitor pm, AnyObjectId id)
@@ -459,10 +487,17 @@ private void downloadObject(ProgressMonitor pm, AnyObjectId id)
 
 				if (packNameList == null || packNameList.isEmpty())
 					continue;
+				final List<String> idxNames = new ArrayList<>();
 				for (String packName : packNameList) {
-					if (packsConsidered.add(packName))
-						unfetchedPacks.add(new RemotePack(wrr, packName));
+					if (packsConsidered.add(packName)) {
+						final RemotePack p = new RemotePack(wrr, packName);
+						unfetchedPacks.add(p);
+						if (p.tmpIdx == null || !p.tmpIdx.isFile())
+							idxNames.add("pack/" + p.idxName); //$NON-NLS-1$
+					}
 				}
+				if (!idxNames.isEmpty())
+					wrr.prefetch(idxNames);
 				if (downloadPackedObject(pm, id))
 					return;
 			}
@@ -187,6 +187,21 @@ abstract WalkRemoteObjectDatabase openAlternate(String location)
 	 */
 	abstract void close();
 
+	/**
+	 * Hint that files will be opened soon.
+	 * <p>
+	 * Implementations able to download in the background may start fetching
+	 * the files, so {@link #open(String)} finds them ready. The default does
+	 * nothing.
+	 *
+	 * @param paths
+	 *            locations of the files, relative to this objects directory,
+	 *            in the order they are likely to be opened.
+	 */
+	void prefetch(Collection<String> paths) {
+		// Do nothing by default.
+	}
+
 	/**
 	 * Delete a file from the object database.
 	 * <p>
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.benchmarks;
+
+import org.apache.commons.io.FileUtils;
+import org.hitchain.core.HitIPFSStorage;
+import org.hitchain.hit.api.GitFileIndex;
+import org.hitchain.hit.api.ProjectInfoFile;
+import org.hitchain.hit.provider.LatencyBlobStore;
+import org.hitchain.hit.provider.MemoryBlobStore;
+import org.hitchain.hit.util.GitHelper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of the clone, fetch and push of a synthetic repository over the blob store interface.
+ * <pre>
+ * #1.The synthetic repository has fileCount random files of fileSize bytes in 16 object directories, the random seed is fixed.
+ * #2.The store is a memory store behind a LatencyBlobStore, latency is the round trip of each open and put in milliseconds.
+ * #3.push: upload all files with putAll and write the index.
+ * #4.clone: open the pushed index, prefetch and read all files.
+ * #5.fetch: open the index of a later push which changes 1/10 of the files, prefetch and read only the changed files.
+ * #6.The ipfs disk cache is disabled, so every read goes to the store.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class HitStorageBenchmark {
+
+    @Param({"200"})
+    int fileCount;
+
+    @Param({"4096"})
+    int fileSize;
+
+    @Param({"0", "20"})
+    long latency;
+
+    @Param({"1", "16"})
+    int concurrency;
+
+    File dir;
+    ProjectInfoFile info;
+    LatencyBlobStore store;
+    Map<String, File> files;
+    Map<String, File> delta;
+    String cloneIndexHash;
+    String fetchIndexHash;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        System.setProperty("hit.ipfs.cache", "false");
+        dir = Files.createTempDirectory("hit-storage-benchmark").toFile();
+        info = new ProjectInfoFile();// public repository, the benchmark measures the transfer but not the encryption.
+        info.setVersion("1");
+        info.setRepoName("benchmark");
+        Random random = new Random(1);
+        files = new LinkedHashMap<>();
+        delta = new LinkedHashMap<>();
+        for (int i = 0; i < fileCount; i++) {
+            String path = String.format("objects/%02x/object%d", i % 16, i);
+            files.put(path, writeRandomFile(new File(dir, path), random));
+            if (i % 10 == 0) {
+                String deltaPath = path + "-delta";
+                delta.put(deltaPath, writeRandomFile(new File(dir, deltaPath), random));
+            }
+        }
+        store = new LatencyBlobStore(new MemoryBlobStore(), latency, latency / 4);
+        {// the repository to clone.
+            HitIPFSStorage storage = new HitIPFSStorage(dir, info, store, null);
+            storage.putAll(files, 16);
+            cloneIndexHash = storage.put(GitHelper.HIT_GITFILE_IDX, GitFileIndex.toBytes(storage.getUploadedGitFileIndex()));
+        }
+        {// the later push to fetch, the index is a delta segment on the cloned index.
+            HitIPFSStorage storage = new HitIPFSStorage(dir, info, store, cloneIndexHash);
+            storage.putAll(delta, 16);
+            fetchIndexHash = storage.put(GitHelper.HIT_GITFILE_IDX, GitFileIndex.toBytes(storage.getUploadedGitFileIndex(), cloneIndexHash, 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Benchmark
+    public String push() {
+        HitIPFSStorage storage = new HitIPFSStorage(dir, info, store, null);
+        storage.putAll(files, concurrency);
+        return storage.put(GitHelper.HIT_GITFILE_IDX, GitFileIndex.toBytes(storage.getUploadedGitFileIndex()));
+    }
+
+    @Benchmark
+    public void clone(Blackhole blackhole) throws IOException {
+        read(cloneIndexHash, new ArrayList<>(files.keySet()), blackhole);
+    }
+
+    @Benchmark
+    public void fetch(Blackhole blackhole) throws IOException {
+        read(fetchIndexHash, new ArrayList<>(delta.keySet()), blackhole);
+    }
+
+    void read(String indexHash, List<String> paths, Blackhole blackhole) throws IOException {
+        HitIPFSStorage storage = new HitIPFSStorage(dir, info, store, indexHash);
+        try {
+            if (concurrency > 1) {
+                storage.prefetch(paths, concurrency);
+            }
+            for (String path : paths) {
+                blackhole.consume(storage.get(path));
+            }
+        } finally {
+            storage.close();
+        }
+    }
+
+    File writeRandomFile(File file, Random random) throws IOException {
+        byte[] content = new byte[fileSize];
+        random.nextBytes(content);
+        FileUtils.writeByteArrayToFile(file, content);
+        return file;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HitStorageBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
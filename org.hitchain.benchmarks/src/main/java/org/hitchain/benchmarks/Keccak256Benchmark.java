@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.benchmarks;
+
+import org.bouncycastle.crypto.digests.KeccakDigest;
+import org.hitchain.hit.util.cryptohash.FastKeccak256;
+import org.hitchain.hit.util.cryptohash.Keccak256;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the Keccak-256 implementations.
+ * <pre>
+ * #1.64 bytes is the public key of the address derivation, 32 bytes is the message hash, 4096 bytes is a large input.
+ * #2.The legacy and the bouncy castle digests are created for each hash, as ECKey did.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Keccak256Benchmark {
+
+    @Param({"32", "64", "4096"})
+    int size;
+
+    byte[] input;
+    ByteBuffer direct;
+    FastKeccak256 fast;
+    byte[] out;
+
+    @Setup
+    public void setup() {
+        input = new byte[size];
+        new Random(1).nextBytes(input);
+        direct = ByteBuffer.allocateDirect(size);
+        direct.put(input);
+        fast = new FastKeccak256();
+        out = new byte[FastKeccak256.DIGEST_LENGTH];
+    }
+
+    @Benchmark
+    public byte[] legacy() {
+        Keccak256 digest = new Keccak256();
+        digest.update(input);
+        return digest.digest();
+    }
+
+    @Benchmark
+    public byte[] bouncyCastle() {
+        KeccakDigest digest = new KeccakDigest(256);
+        digest.update(input, 0, input.length);
+        byte[] hash = new byte[32];
+        digest.doFinal(hash, 0);
+        return hash;
+    }
+
+    @Benchmark
+    public byte[] fastHash() {
+        return FastKeccak256.hash(input);
+    }
+
+    @Benchmark
+    public byte[] fastReused() {
+        fast.update(input, 0, input.length).digest(out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] fastDirectBuffer() {
+        direct.position(0);
+        fast.update(direct).digest(out, 0);
+        return out;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(Keccak256Benchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -12,8 +12,11 @@
 import org.web3j.utils.Numeric;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * ContractApi
@@ -75,6 +78,20 @@ public static boolean isValidAddress(String address) {
      */
     String readContract(String data);
 
+    /**
+     * read the contracts, the implementation may send the reads in one request.
+     *
+     * @param datas the data of readContract.
+     * @return the results in the order of the data, if has error, then the result starts with "ERROR:".
+     */
+    default List<String> readContracts(List<String> datas) {
+        List<String> results = new ArrayList<>(datas.size());
+        for (String data : datas) {
+            results.add(readContract(data));
+        }
+        return results;
+    }
+
     /**
      * <pre>
      * data(for ethereum):
@@ -92,4 +109,14 @@ public static boolean isValidAddress(String address) {
      * @return if has error, then return result starts with "ERROR:".
      */
     String writeContract(String data);
+
+    /**
+     * write the contract without waiting the transaction receipt, the caller can do the next work and join the result later.
+     *
+     * @param data the data of writeContract.
+     * @return the future of the result, if has error, then the result starts with "ERROR:".
+     */
+    default CompletableFuture<String> writeContractAsync(String data) {
+        return CompletableFuture.completedFuture(writeContract(data));
+    }
 }
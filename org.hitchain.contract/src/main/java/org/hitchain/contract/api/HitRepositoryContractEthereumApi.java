@@ -138,6 +138,26 @@ public interface HitRepositoryContractEthereumApi extends ContractApi {
      */
     String readUrlById(String fromAddress, String contractAddress, int id);
 
+    /**
+     * Get repository ids by names in one batch.
+     *
+     * @param fromAddress     the address to read contract
+     * @param contractAddress contract address
+     * @param repositories    repository names
+     * @return repository ids in the order of the names
+     */
+    List<Integer> readIdsByName(String fromAddress, String contractAddress, List<String> repositories);
+
+    /**
+     * Get repository name and url by id in one batch.
+     *
+     * @param fromAddress     the address to read contract
+     * @param contractAddress contract address
+     * @param id              repository id
+     * @return Tuple.Two[Object, String: name, String: url]
+     */
+    Tuple.Two<Object, String/*name*/, String/*url*/> readRepositoryAndUrlById(String fromAddress, String contractAddress, int id);
+
     /**
      * Test if contains address.
      *
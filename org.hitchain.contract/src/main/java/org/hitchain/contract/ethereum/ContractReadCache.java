@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.contract.ethereum;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the contract read results, the results are valid until a new block is observed.
+ * <pre>
+ * #1.The contract state only changes in a new block, so the eth_call result is cached by (from, contract, call data).
+ * #2.The block number is checked at most once per "blockCheckMillis", the check is sent in the same batch as the missed calls.
+ * #3.All the results are dropped when a newer block is observed, the results of a contract are dropped when it is written.
+ * #4.The least recently used result is dropped when the size is over "maxSize".
+ * ==system properties==
+ *     hit.contract.cache=false                    disable the cache.
+ *     hit.contract.cache.blockCheckMillis=millis  the interval to check the block number, default is 5000.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class ContractReadCache {
+
+    public static final long DEFAULT_BLOCK_CHECK_MILLIS = 5000;
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final Map<String/* from|contract|call data */, String/* result */> values = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private final long blockCheckMillis;
+    private final int maxSize;
+    private volatile BigInteger blockNumber;
+    private volatile long blockCheckedAt;
+
+    public ContractReadCache(long blockCheckMillis, int maxSize) {
+        this.blockCheckMillis = blockCheckMillis < 0 ? DEFAULT_BLOCK_CHECK_MILLIS : blockCheckMillis;
+        this.maxSize = maxSize < 1 ? DEFAULT_MAX_SIZE : maxSize;
+    }
+
+    /**
+     * create the cache by the system properties, or return null if the cache is disabled.
+     *
+     * @return
+     */
+    public static ContractReadCache create() {
+        if ("false".equalsIgnoreCase(System.getProperty("hit.contract.cache"))) {
+            return null;
+        }
+        long blockCheckMillis = DEFAULT_BLOCK_CHECK_MILLIS;
+        try {
+            blockCheckMillis = Long.parseLong(System.getProperty("hit.contract.cache.blockCheckMillis", String.valueOf(DEFAULT_BLOCK_CHECK_MILLIS)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid hit.contract.cache.blockCheckMillis, use default: " + DEFAULT_BLOCK_CHECK_MILLIS);
+        }
+        return new ContractReadCache(blockCheckMillis, DEFAULT_MAX_SIZE);
+    }
+
+    public static String key(String fromAddress, String contractAddress, String callData) {
+        return StringUtils.lowerCase(fromAddress) + "|" + StringUtils.lowerCase(contractAddress) + "|" + callData;
+    }
+
+    /**
+     * @return true if the block number should be checked before the cached results are used.
+     */
+    public boolean isBlockCheckDue() {
+        return blockNumber == null || System.currentTimeMillis() - blockCheckedAt >= blockCheckMillis;
+    }
+
+    /**
+     * @param key
+     * @return the cached result, or null if it is not cached or the block number check is due.
+     */
+    public synchronized String get(String key) {
+        if (isBlockCheckDue()) {
+            return null;
+        }
+        return values.get(key);
+    }
+
+    public synchronized void put(String key, String value) {
+        if (value == null) {
+            return;
+        }
+        values.put(key, value);
+    }
+
+    /**
+     * observe the latest block number, drop all the results if it is a new block.
+     *
+     * @param latest
+     */
+    public synchronized void observeBlock(BigInteger latest) {
+        if (latest == null) {
+            return;
+        }
+        if (blockNumber == null || latest.compareTo(blockNumber) > 0) {
+            values.clear();
+            blockNumber = latest;
+        }
+        blockCheckedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * drop the results of the contract, call it after the contract is written.
+     *
+     * @param contractAddress
+     */
+    public synchronized void invalidate(String contractAddress) {
+        String contract = "|" + StringUtils.lowerCase(contractAddress) + "|";
+        for (Iterator<String> it = values.keySet().iterator(); it.hasNext(); ) {
+            if (it.next().contains(contract)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        values.clear();
+        blockNumber = null;
+    }
+
+    public BigInteger getBlockNumber() {
+        return blockNumber;
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
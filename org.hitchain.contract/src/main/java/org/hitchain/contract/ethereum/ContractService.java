@@ -22,20 +22,27 @@
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameter;
 import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.core.methods.request.Transaction;
 import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
 import org.web3j.protocol.core.methods.response.EthCall;
 import org.web3j.protocol.core.methods.response.EthSendTransaction;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.utils.Convert;
 import org.web3j.utils.Numeric;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Contract service implements ContractApi
@@ -47,6 +54,9 @@
  */
 public class ContractService implements ContractApi {
 
+    protected static final ContractReadCache READ_CACHE = ContractReadCache.create();
+    private static volatile boolean batchSupported = true;
+
     public static Web3j getWeb3j() {
         return Web3jHelper.getWeb3j();
     }
@@ -154,104 +164,96 @@ public String deployContract(/*PrivateKey=\n
      * @see org.web3j.abi.datatypes.generated.AbiTypes
      */
     public String readContract(String data) {
-        try {
-            Map<String, Object> map = TransactionHelper.parseData(data);
-            String fromAddress = PreRequiredHelper.requireNotBlank((String) map.get("FromAddress"), "FromAddress is required!");
-            String contractAddress = PreRequiredHelper.requireNotBlank((String) map.get("ContractAddress"), "ContractAddress is required!");
-            String functionName = PreRequiredHelper.requireNotBlank((String) map.get("FunctionName"), "FunctionName is required!");
-            String functionType = PreRequiredHelper.requireNotBlank((String) map.get("FunctionType"), "FunctionType is required!");
-            {
-                functionType = "-".equals(functionType) ? "" : functionType;
-            }
-            TransactionHelper.FunctionCreator args = TransactionHelper.args();
-            TransactionHelper.FunctionResult result = TransactionHelper.result();
-            for (int i = 0; i < 1; i++) {// reduce code indent, function args and type.
-                String argTypes = functionName.indexOf("(") < 1 ? "" : StringUtils.substringBefore(StringUtils.substringAfter(functionName, "("), ")").trim();
-                functionName = StringUtils.substringBefore(functionName, "(").trim();
-                if (StringUtils.isBlank(argTypes)) {
-                    break;
-                }
-                String[] argTypeArr = StringUtils.split(argTypes, ",");
-                for (int count = 0; count < argTypeArr.length; count++) {
-                    String argType = argTypeArr[count].trim().toLowerCase();
-                    if ("addressarray".equals(argType)) {
-                        args.addressArray(StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if ("boolarray".equals(argType)) {
-                        args.addressArray(StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if ("utf8stringarray".equals(argType) || "stringarray".equals(argType)) {
-                        args.stringArray(StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if ("dynamicbytesarray".equals(argType) || "bytesarray".equals(argType)) {
-                        args.dynamicBytesArray(StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if (argType.endsWith("array") && argType.startsWith("uint")) {
-                        args.unintArray(StringUtils.remove(argType, "array"),
-                                StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if (argType.endsWith("array") && argType.startsWith("bytes")) {
-                        args.bytesArray(StringUtils.remove(argType, "array"),
-                                StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
+        return readContracts(Collections.singletonList(data)).get(0);
+    }
 
-                    if ("address".equals(argType)) {
-                        args.address((String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if ("bool".equals(argType)) {
-                        args.bool((String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if ("utf8string".equals(argType) || "string".equals(argType)) {
-                        args.string((String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if ("dynamicbytes".equals(argType) || "bytes".equals(argType)) {
-                        args.dynamicBytes((String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if (argType.startsWith("uint")) {
-                        args.uint(argType, (String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if (argType.startsWith("bytes")) {
-                        args.bytes(argType, (String) map.get("Arg" + count));
-                        continue;
-                    }
+    /**
+     * read the contracts in one json-rpc batch, the results are cached until a new block is observed.
+     * <pre>
+     * #1.Parse all the data, the cached results are returned directly.
+     * #2.The missed calls and the block number check (if due) are sent in one batch.
+     * #3.If the node does not support the batch, the requests are sent one by one.
+     * </pre>
+     *
+     * @param datas the data of readContract.
+     * @return the results in the order of the data, if has error, then the result starts with "ERROR:".
+     */
+    public List<String> readContracts(List<String> datas) {
+        int size = datas.size();
+        String[] results = new String[size];
+        Function[] functions = new Function[size];
+        String[] keys = new String[size];
+        List<Request> requests = new ArrayList<>();
+        List<Class<? extends Response>> types = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            try {
+                Map<String, Object> map = TransactionHelper.parseData(datas.get(i));
+                String fromAddress = PreRequiredHelper.requireNotBlank((String) map.get("FromAddress"), "FromAddress is required!");
+                String contractAddress = PreRequiredHelper.requireNotBlank((String) map.get("ContractAddress"), "ContractAddress is required!");
+                String functionName = PreRequiredHelper.requireNotBlank((String) map.get("FunctionName"), "FunctionName is required!");
+                String functionType = PreRequiredHelper.requireNotBlank((String) map.get("FunctionType"), "FunctionType is required!");
+                {
+                    functionType = "-".equals(functionType) ? "" : functionType;
                 }
-            }
-            {// function return type.
-                if (StringUtils.isBlank(functionType)) {
-                    //
-                } else {
-                    result.add(TransactionHelper.getType(functionType));
+                functions[i] = toFunction(map, functionName, functionType);
+                String callData = FunctionEncoder.encode(functions[i]);
+                keys[i] = ContractReadCache.key(fromAddress, contractAddress, callData);
+                results[i] = READ_CACHE == null ? null : READ_CACHE.get(keys[i]);
+                if (results[i] == null) {
+                    requests.add(getWeb3j().ethCall(Transaction.createEthCallTransaction(
+                            fromAddress, contractAddress, callData), DefaultBlockParameterName.LATEST));
+                    types.add(EthCall.class);
+                    indexes.add(i);
                 }
+            } catch (Exception e) {
+                results[i] = toError(e);
             }
-            Function function = new Function(functionName, args.get(), result.get());
-            EthCall send = getWeb3j().ethCall(Transaction.createEthCallTransaction(
-                    fromAddress, contractAddress, FunctionEncoder.encode(function)), DefaultBlockParameterName.LATEST).send();
+        }
+        if (requests.isEmpty()) {
+            return Arrays.asList(results);
+        }
+        boolean checkBlock = READ_CACHE != null && READ_CACHE.isBlockCheckDue();
+        if (checkBlock) {
+            requests.add(0, getWeb3j().ethBlockNumber());
+            types.add(0, EthBlockNumber.class);
+        }
+        List<Response> responses;
+        try {
+            responses = send(requests, types);
+        } catch (Exception e) {
+            String error = toError(e);
+            for (Integer index : indexes) {
+                results[index] = error;
+            }
+            return Arrays.asList(results);
+        }
+        int offset = 0;
+        if (checkBlock) {
+            EthBlockNumber blockNumber = (EthBlockNumber) responses.get(0);
+            if (!blockNumber.hasError()) {
+                READ_CACHE.observeBlock(blockNumber.getBlockNumber());
+            }
+            offset = 1;
+        }
+        for (int i = 0; i < indexes.size(); i++) {
+            int index = indexes.get(i);
+            EthCall send = (EthCall) responses.get(i + offset);
             if (send.hasError()) {
-                return "ERROR:" + send.getError().getMessage();
+                results[index] = "ERROR:" + send.getError().getMessage();
+                continue;
             }
-            List<Type> values = FunctionReturnDecoder.decode(send.getValue(), function.getOutputParameters());
-            if (values.isEmpty()) {
-                return "";
+            try {
+                List<Type> values = FunctionReturnDecoder.decode(send.getValue(), functions[index].getOutputParameters());
+                results[index] = values.isEmpty() ? "" : values.get(0).getValue().toString();
+                if (READ_CACHE != null) {
+                    READ_CACHE.put(keys[index], results[index]);
+                }
+            } catch (Exception e) {
+                results[index] = toError(e);
             }
-            return values.get(0).getValue().toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-            StringWriter writer = new StringWriter();
-            writer.append("ERROR: ");
-            e.printStackTrace(new PrintWriter(writer));
-            return writer.toString();
         }
+        return Arrays.asList(results);
     }
 
     /**
@@ -271,10 +273,20 @@ public String readContract(String data) {
      * @see org.web3j.abi.datatypes.generated.AbiTypes
      */
     public String writeContract(String data) {
+        return writeContractAsync(data).join();
+    }
+
+    /**
+     * send the transaction and wait the receipt without blocking, see writeContract.
+     *
+     * @param data
+     * @return the future of the result, if has error, then the result starts with "ERROR:".
+     */
+    public CompletableFuture<String> writeContractAsync(String data) {
         try {
             Map<String, Object> map = TransactionHelper.parseData(data);
             String privateKey = PreRequiredHelper.requireNotBlank((String) map.get("PrivateKey"), "PrivateKey is required!");
-            String contractAddress = PreRequiredHelper.requireNotBlank((String) map.get("ContractAddress"), "ContractAddress is required!");
+            final String contractAddress = PreRequiredHelper.requireNotBlank((String) map.get("ContractAddress"), "ContractAddress is required!");
             String functionName = PreRequiredHelper.requireNotBlank((String) map.get("FunctionName"), "FunctionName is required!");
             String functionType = PreRequiredHelper.requireNotBlank((String) map.get("FunctionType"), "FunctionType is required!");
             String gasLimit = PreRequiredHelper.requireNotBlank((String) map.get("GasLimit"), "GasLimit is required!");
@@ -285,78 +297,7 @@ public String writeContract(String data) {
                 functionType = "-".equals(functionType) ? "" : functionType;
             }
             Credentials credentials = TransactionHelper.getCredentials(privateKey);
-            TransactionHelper.FunctionCreator args = TransactionHelper.args();
-            TransactionHelper.FunctionResult result = TransactionHelper.result();
-            for (int i = 0; i < 1; i++) {// reduce code indent, function args and type.
-                String argTypes = functionName.indexOf("(") < 1 ? "" : StringUtils.substringBefore(StringUtils.substringAfter(functionName, "("), ")").trim();
-                functionName = StringUtils.substringBefore(functionName, "(").trim();
-                if (StringUtils.isBlank(argTypes)) {
-                    break;
-                }
-                String[] argTypeArr = StringUtils.split(argTypes, ",");
-                for (int count = 0; count < argTypeArr.length; count++) {
-                    String argType = argTypeArr[count].trim().toLowerCase();
-                    if ("addressarray".equals(argType)) {
-                        args.addressArray(StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if ("boolarray".equals(argType)) {
-                        args.addressArray(StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if ("utf8stringarray".equals(argType) || "stringarray".equals(argType)) {
-                        args.stringArray(StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if ("dynamicbytesarray".equals(argType) || "bytesarray".equals(argType)) {
-                        args.dynamicBytesArray(StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if (argType.endsWith("array") && argType.startsWith("uint")) {
-                        args.unintArray(StringUtils.remove(argType, "array"),
-                                StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-                    if (argType.endsWith("array") && argType.startsWith("bytes")) {
-                        args.bytesArray(StringUtils.remove(argType, "array"),
-                                StringUtils.split((String) map.get("Arg" + count), ","));
-                        continue;
-                    }
-
-                    if ("address".equals(argType)) {
-                        args.address((String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if ("bool".equals(argType)) {
-                        args.bool((String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if ("utf8string".equals(argType) || "string".equals(argType)) {
-                        args.string((String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if ("dynamicbytes".equals(argType) || "bytes".equals(argType)) {
-                        args.dynamicBytes((String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if (argType.startsWith("uint")) {
-                        args.uint(argType, (String) map.get("Arg" + count));
-                        continue;
-                    }
-                    if (argType.startsWith("bytes")) {
-                        args.bytes(argType, (String) map.get("Arg" + count));
-                        continue;
-                    }
-                }
-            }
-            {// function return type.
-                if (StringUtils.isBlank(functionType)) {
-                    //
-                } else {
-                    result.add(TransactionHelper.getType(functionType));
-                }
-            }
-            Function function = new Function(functionName, args.get(), result.get());
+            Function function = toFunction(map, functionName, functionType);
             BigInteger nonce = getWeb3j().ethGetTransactionCount(credentials.getAddress(), DefaultBlockParameterName.PENDING)
                     .send()
                     .getTransactionCount();
@@ -367,40 +308,151 @@ public String writeContract(String data) {
                     contractAddress,
                     BigInteger.ZERO,
                     FunctionEncoder.encode(function));
-            EthSendTransaction send = getWeb3j().ethSendRawTransaction(Numeric.toHexString(TransactionEncoder.signMessage(rawTransaction, credentials)))
+            final EthSendTransaction send = getWeb3j().ethSendRawTransaction(Numeric.toHexString(TransactionEncoder.signMessage(rawTransaction, credentials)))
                     .sendAsync().get();
             if (send.hasError()) {
-                return "ERROR:" + send.getError().getMessage();
+                return CompletableFuture.completedFuture("ERROR:" + send.getError().getMessage());
+            }
+            return TransactionHelper.waitTransactionAsync(getWeb3j(), send.getTransactionHash(), 180).thenApply(new java.util.function.Function<String, String>() {
+                public String apply(String json) {
+                    if (StringUtils.contains(json, "\"ERROR\":") && StringUtils.contains(json, "timeout")) {
+                        System.out.println("Get transaction " + send.getTransactionHash() + " timeout: " + json);
+                        return json;
+                    }
+                    try {
+                        TransactionReceipt receipt = null;
+                        try {
+                            receipt = JsonHelper.toObject(TransactionReceipt.class, json);
+                        } catch (Exception e) {
+                            System.out.println(e.getMessage() + ", TransactionReceipt:" + json);
+                            throw e;
+                        }
+                        if (receipt.getLogs() == null || receipt.getLogs().isEmpty()) {
+                            return "ERROR:May be out of gas please try 5000000gas or increase gas price, or maybe no authorization.";
+                        }
+                        if (READ_CACHE != null) {
+                            READ_CACHE.invalidate(contractAddress);
+                        }
+                        return "true";
+                    } catch (Exception e) {
+                        return toError(e);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(toError(e));
+        }
+    }
+
+    /**
+     * create the function by the data.
+     *
+     * @param map          the parsed data.
+     * @param functionName functionName(Uint256|Address|Utf8String|Uint256Array|AddressArray|Utf8StringArray,...)
+     * @param functionType Uint256|Address|Bool|Utf8String or empty
+     * @return
+     */
+    protected Function toFunction(Map<String, Object> map, String functionName, String functionType) {
+        TransactionHelper.FunctionCreator args = TransactionHelper.args();
+        TransactionHelper.FunctionResult result = TransactionHelper.result();
+        for (int i = 0; i < 1; i++) {// reduce code indent, function args and type.
+            String argTypes = functionName.indexOf("(") < 1 ? "" : StringUtils.substringBefore(StringUtils.substringAfter(functionName, "("), ")").trim();
+            functionName = StringUtils.substringBefore(functionName, "(").trim();
+            if (StringUtils.isBlank(argTypes)) {
+                break;
             }
-            String json = null;
-            for (int i = 1; i <= 3; i++) {
-                json = TransactionHelper.waitTransactionSeconds(getWeb3j(), send.getTransactionHash(), 60);
-                if (StringUtils.contains(json, "\"ERROR\":") && StringUtils.contains(json, "timeout")) {
-                    System.out.println("Get transaction(" + i + "/3) " + send.getTransactionHash() + " timeout: " + json);
+            String[] argTypeArr = StringUtils.split(argTypes, ",");
+            for (int count = 0; count < argTypeArr.length; count++) {
+                String argType = argTypeArr[count].trim().toLowerCase();
+                if ("addressarray".equals(argType)) {
+                    args.addressArray(StringUtils.split((String) map.get("Arg" + count), ","));
+                    continue;
+                }
+                if ("boolarray".equals(argType)) {
+                    args.boolArray(StringUtils.split((String) map.get("Arg" + count), ","));
+                    continue;
+                }
+                if ("utf8stringarray".equals(argType) || "stringarray".equals(argType)) {
+                    args.stringArray(StringUtils.split((String) map.get("Arg" + count), ","));
+                    continue;
+                }
+                if ("dynamicbytesarray".equals(argType) || "bytesarray".equals(argType)) {
+                    args.dynamicBytesArray(StringUtils.split((String) map.get("Arg" + count), ","));
+                    continue;
+                }
+                if (argType.endsWith("array") && argType.startsWith("uint")) {
+                    args.unintArray(StringUtils.remove(argType, "array"),
+                            StringUtils.split((String) map.get("Arg" + count), ","));
+                    continue;
+                }
+                if (argType.endsWith("array") && argType.startsWith("bytes")) {
+                    args.bytesArray(StringUtils.remove(argType, "array"),
+                            StringUtils.split((String) map.get("Arg" + count), ","));
+                    continue;
+                }
+
+                if ("address".equals(argType)) {
+                    args.address((String) map.get("Arg" + count));
+                    continue;
+                }
+                if ("bool".equals(argType)) {
+                    args.bool((String) map.get("Arg" + count));
+                    continue;
+                }
+                if ("utf8string".equals(argType) || "string".equals(argType)) {
+                    args.string((String) map.get("Arg" + count));
+                    continue;
+                }
+                if ("dynamicbytes".equals(argType) || "bytes".equals(argType)) {
+                    args.dynamicBytes((String) map.get("Arg" + count));
+                    continue;
+                }
+                if (argType.startsWith("uint")) {
+                    args.uint(argType, (String) map.get("Arg" + count));
+                    continue;
+                }
+                if (argType.startsWith("bytes")) {
+                    args.bytes(argType, (String) map.get("Arg" + count));
                     continue;
                 }
             }
-            if (StringUtils.contains(json, "\"ERROR\":") && StringUtils.contains(json, "timeout")) {
-                System.out.println("Get transaction " + send.getTransactionHash() + " timeout: " + json);
-                return json;
+        }
+        {// function return type.
+            if (StringUtils.isBlank(functionType)) {
+                //
+            } else {
+                result.add(TransactionHelper.getType(functionType));
             }
-            TransactionReceipt receipt = null;
+        }
+        return new Function(functionName, args.get(), result.get());
+    }
+
+    /**
+     * send the requests in one batch, or one by one if there is only one request or the batch is not supported.
+     */
+    protected List<Response> send(List<Request> requests, List<Class<? extends Response>> types) throws IOException {
+        if (requests.size() > 1 && batchSupported) {
             try {
-                receipt = JsonHelper.toObject(TransactionReceipt.class, json);
-            } catch (Exception e) {
-                System.out.println(e.getMessage() + ", TransactionReceipt:" + json);
-                throw e;
+                return Web3jHelper.getService().sendBatch(requests, types);
+            } catch (Web3jHelper.BatchNotSupportedException e) {
+                batchSupported = false;
+                System.err.println("Chain batch request is not supported, send one by one: " + e.getMessage());
+            } catch (IOException e) {// only this batch failed, the next one is sent as a batch again.
+                System.err.println("Chain batch request failed, send one by one: " + e.getMessage());
             }
-            if (receipt.getLogs() == null || receipt.getLogs().isEmpty()) {
-                return "ERROR:May be out of gas please try 5000000gas or increase gas price, or maybe no authorization.";
-            }
-            return "true";
-        } catch (Exception e) {
-            e.printStackTrace();
-            StringWriter writer = new StringWriter();
-            writer.append("ERROR: ");
-            e.printStackTrace(new PrintWriter(writer));
-            return writer.toString();
         }
+        List<Response> responses = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            responses.add(request.send());
+        }
+        return responses;
+    }
+
+    protected String toError(Exception e) {
+        e.printStackTrace();
+        StringWriter writer = new StringWriter();
+        writer.append("ERROR: ");
+        e.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
     }
 }
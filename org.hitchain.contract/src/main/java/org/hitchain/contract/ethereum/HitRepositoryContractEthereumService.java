@@ -95,6 +95,27 @@ public String readUrlById(String fromAddress, String contractAddress, int id) {
         return readContract(data);
     }
 
+    @Override
+    public List<Integer> readIdsByName(String fromAddress, String contractAddress, List<String> repositories) {
+        List<String> datas = new ArrayList<>(repositories.size());
+        for (String repository : repositories) {
+            datas.add(FCS.get(CONTRACT_READ, fromAddress, contractAddress, "repositoryId(string)", "uint256", repository).toString());
+        }
+        List<Integer> ids = new ArrayList<>(datas.size());
+        for (String result : readContracts(datas)) {
+            ids.add(new BigInteger(result).intValue());
+        }
+        return ids;
+    }
+
+    @Override
+    public Tuple.Two<Object, String/*name*/, String/*url*/> readRepositoryAndUrlById(String fromAddress, String contractAddress, int id) {
+        List<String> results = readContracts(Arrays.asList(
+                FCS.get(CONTRACT_READ, fromAddress, contractAddress, "id_name(uint256)", "string", id).toString(),
+                FCS.get(CONTRACT_READ, fromAddress, contractAddress, "id_url(uint256)", "string", id).toString()));
+        return new Tuple.Two<>(results.get(0), results.get(1));
+    }
+
     @Override
     public boolean readHasAddress(String fromAddress, String contractAddress, int id, int type, String address) {
         String data = FCS.get(CONTRACT_READ, fromAddress, contractAddress, "id_type_address(uint256,uint256,address)", "bool", id, type, address).toString();
@@ -236,9 +257,13 @@ public String deployContract(String privateKey, long gasLimit, long gWei) {
     public List<Tuple.Three<Object, String/*contract*/, Integer/*id*/, String/*name*/>> listRepositories(String fromAddress, String contractAddress) {
         List<Tuple.Three<Object, String/*contract*/, Integer/*id*/, String/*name*/>> list = new ArrayList<>();
         int id = readId(fromAddress, contractAddress);
+        List<String> datas = new ArrayList<>();
+        for (int i = id; i >= 1; i--) {
+            datas.add(FCS.get(CONTRACT_READ, fromAddress, contractAddress, "id_name(uint256)", "string", i).toString());
+        }
+        List<String> repositories = readContracts(datas);
         for (int i = id; i >= 1; i--) {
-            String repository = readRepositoryById(fromAddress, contractAddress, i);
-            list.add(new Tuple.Three<>(contractAddress, i, repository));
+            list.add(new Tuple.Three<>(contractAddress, i, repositories.get(id - i)));
         }
         return list;
     }
@@ -250,26 +275,12 @@ public String deployContract(String privateKey, long gasLimit, long gWei) {
 
     @Override
     public List<Tuple.Two<Object, String/*member*/, Boolean/*status*/>> listMembers(String fromAddress, String contractAddress, int id) {
-        List<Tuple.Two<Object, String/*member*/, Boolean/*status*/>> list = new ArrayList<>();
-        int count = readTypeCount(fromAddress, contractAddress, id, TYPE_MEMBER);
-        for (int i = count; i >= 1; i--) {
-            String address = readAddressByTypeIndex(fromAddress, contractAddress, id, TYPE_MEMBER, i);
-            boolean status = readHasAddress(fromAddress, contractAddress, id, TYPE_MEMBER, address);
-            list.add(new Tuple.Two<>(address, status));
-        }
-        return list;
+        return listAddresses0(fromAddress, contractAddress, id, TYPE_MEMBER);
     }
 
     @Override
     public List<Tuple.Two<Object, String/*member*/, Boolean/*status*/>> listPrMembers(String fromAddress, String contractAddress, int id) {
-        List<Tuple.Two<Object, String/*member*/, Boolean/*status*/>> list = new ArrayList<>();
-        int count = readTypeCount(fromAddress, contractAddress, id, TYPE_PR_MEMBER);
-        for (int i = count; i >= 1; i--) {
-            String address = readAddressByTypeIndex(fromAddress, contractAddress, id, TYPE_PR_MEMBER, i);
-            boolean status = readHasAddress(fromAddress, contractAddress, id, TYPE_PR_MEMBER, address);
-            list.add(new Tuple.Two<>(address, status));
-        }
-        return list;
+        return listAddresses0(fromAddress, contractAddress, id, TYPE_PR_MEMBER);
     }
 
     @Override
@@ -300,15 +311,38 @@ public List<Map<String, Object>> listCommunityPullRequests(String fromAddress, S
         return listPullRequests0(fromAddress, contractAddress, id, TYPE_PR_COMM);
     }
 
+    /**
+     * read the addresses and then the status of the addresses, each step is one batch.
+     */
+    private List<Tuple.Two<Object, String/*member*/, Boolean/*status*/>> listAddresses0(String fromAddress, String contractAddress, int id, int type) {
+        List<Tuple.Two<Object, String/*member*/, Boolean/*status*/>> list = new ArrayList<>();
+        int count = readTypeCount(fromAddress, contractAddress, id, type);
+        List<String> datas = new ArrayList<>();
+        for (int i = count; i >= 1; i--) {
+            datas.add(FCS.get(CONTRACT_READ, fromAddress, contractAddress, "id_type_count_address(uint256,uint256,uint256)", "address", id, type, i).toString());
+        }
+        List<String> addresses = readContracts(datas);
+        datas.clear();
+        for (String address : addresses) {
+            datas.add(FCS.get(CONTRACT_READ, fromAddress, contractAddress, "id_type_address(uint256,uint256,address)", "bool", id, type, address).toString());
+        }
+        List<String> statuses = readContracts(datas);
+        for (int i = 0; i < addresses.size(); i++) {
+            list.add(new Tuple.Two<>(addresses.get(i), "true".equals(statuses.get(i))));
+        }
+        return list;
+    }
+
     private List<Map<String, Object>> listPullRequests0(String fromAddress, String contractAddress, int id, int type) {
         List<Map<String, Object>> list = new ArrayList<>();
         List<String> urls = new ArrayList<>();
         {
             int count = readTypeCount(fromAddress, contractAddress, id, type);
+            List<String> datas = new ArrayList<>();
             for (int i = count; i >= 1 && i >= count - 100; i--) {// the latest 100 pull requests.
-                String url = readStringByTypeIndex(fromAddress, contractAddress, id, type, i);
-                urls.add(url);
+                datas.add(FCS.get(CONTRACT_READ, fromAddress, contractAddress, "id_type_count_string(uint256,uint256,uint256)", "string", id, type, i).toString());
             }
+            urls.addAll(readContracts(datas));
         }
         Method readFileFromIpfs = null;
         {
@@ -21,7 +21,6 @@
 import org.web3j.crypto.ECKeyPair;
 import org.web3j.crypto.Hash;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.utils.Convert;
 import org.web3j.utils.Numeric;
@@ -29,7 +28,10 @@
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -107,19 +109,32 @@ public static Credentials getCredentials(String privateKey) {
      * @return
      */
     public static String waitTransactionSeconds(Web3j web3j, String transactionHash, long seconds) {
-        long waitTime = (seconds < 1 ? 180 : seconds) * 1000, start = System.currentTimeMillis();
-        while (System.currentTimeMillis() - start < waitTime) {
-            try {
-                EthGetTransactionReceipt receipt = web3j.ethGetTransactionReceipt(transactionHash).sendAsync().get();
-                if (receipt.getTransactionReceipt().isPresent()) {
-                    String jsonString = GsonHelper.toJsonString(receipt.getTransactionReceipt().get());
-                    return jsonString;
+        return waitTransactionAsync(web3j, transactionHash, seconds).join();
+    }
+
+    /**
+     * wait the transaction receipt without blocking, the caller can do the next work and join the result later.
+     *
+     * @param web3j
+     * @param transactionHash
+     * @param seconds
+     * @return the receipt json, or the json starts with {"ERROR": if timeout or failed.
+     * @see TransactionWaiter
+     */
+    public static CompletableFuture<String> waitTransactionAsync(Web3j web3j, final String transactionHash, long seconds) {
+        final long timeout = seconds < 1 ? TransactionWaiter.DEFAULT_TIMEOUT_SECONDS : seconds;
+        return TransactionWaiter.get(web3j).watch(transactionHash, timeout).handle(new BiFunction<TransactionReceipt, Throwable, String>() {
+            public String apply(TransactionReceipt receipt, Throwable throwable) {
+                if (receipt != null) {
+                    return GsonHelper.toJsonString(receipt);
                 }
-                TimeUnit.SECONDS.sleep(3);
-            } catch (Exception e) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                if (cause == null || cause instanceof TimeoutException) {
+                    return "{\"ERROR\": \"Get Transaction status timeout(" + timeout + "s):\"} " + transactionHash;
+                }
+                return "{\"ERROR\": \"Get Transaction status failed(" + StringUtils.replace(String.valueOf(cause), "\"", "'") + "):\"} " + transactionHash;
             }
-        }
-        return "{\"ERROR\": \"Get Transaction status timeout(180s):\"} " + transactionHash;
+        });
     }
 
     /**
@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.contract.ethereum;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthFilter;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Wait the transaction receipts by the new blocks, one waiter thread tracks all the pending transactions.
+ * <pre>
+ * #1.The receipt only appears in a new block, so the receipts are checked when a new block is observed, not every 3 seconds.
+ * #2.The new block is observed by the block filter (eth_newBlockFilter) if the node supports it, otherwise by eth_blockNumber.
+ * #3.The observe interval is adaptive: it starts from a quarter of the block time after a new block, and doubles until a new block is observed.
+ * #4.The receipts of all the pending transactions are checked in one json-rpc batch.
+ * #5.The waiter thread is a daemon, it exits when there is no pending transaction and starts again by the next watch.
+ * ==system properties==
+ *     hit.tx.minPollMillis=millis  the min observe interval, default is 500.
+ *     hit.tx.maxPollMillis=millis  the max observe interval, default is 8000.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class TransactionWaiter {
+
+    public static final long DEFAULT_TIMEOUT_SECONDS = 180;
+    public static final long DEFAULT_BLOCK_MILLIS = 15000;
+    private static final Map<Web3j, TransactionWaiter> WAITERS = new IdentityHashMap<>();
+
+    private final Web3j web3j;
+    private final Web3jHelper.BatchHttpService service;
+    private final long minPollMillis;
+    private final long maxPollMillis;
+    private final Map<String/* transaction hash */, Pending> pending = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private Thread thread;
+    private boolean batchSupported = true;
+    private boolean filterSupported = true;
+    private BigInteger filterId;
+    private BigInteger blockNumber;
+    private long blockAt;
+    private long blockMillis = DEFAULT_BLOCK_MILLIS;
+
+    /**
+     * @param web3j
+     * @param service the service of the web3j to send the batch, the receipts are checked one by one if it is null.
+     */
+    public TransactionWaiter(Web3j web3j, Web3jHelper.BatchHttpService service) {
+        this.web3j = web3j;
+        this.service = service;
+        this.minPollMillis = Math.max(100, Long.getLong("hit.tx.minPollMillis", 500));
+        this.maxPollMillis = Math.max(minPollMillis, Long.getLong("hit.tx.maxPollMillis", 8000));
+    }
+
+    /**
+     * get the shared waiter of the web3j instance.
+     *
+     * @param web3j
+     * @return
+     */
+    public static TransactionWaiter get(Web3j web3j) {
+        synchronized (WAITERS) {
+            TransactionWaiter waiter = WAITERS.get(web3j);
+            if (waiter == null) {
+                waiter = new TransactionWaiter(web3j, web3j == Web3jHelper.getWeb3j() ? Web3jHelper.getService() : null);
+                WAITERS.put(web3j, waiter);
+            }
+            return waiter;
+        }
+    }
+
+    /**
+     * watch the transaction, the future completes with the receipt when it is mined,
+     * or completes exceptionally with TimeoutException if it is not mined in time.
+     *
+     * @param transactionHash
+     * @param seconds         the timeout, 180 seconds if less than 1.
+     * @return
+     */
+    public CompletableFuture<TransactionReceipt> watch(String transactionHash, long seconds) {
+        long deadline = System.currentTimeMillis() + (seconds < 1 ? DEFAULT_TIMEOUT_SECONDS : seconds) * 1000;
+        Pending p = new Pending(deadline);
+        Pending exists = pending.putIfAbsent(transactionHash, p);
+        if (exists != null) {
+            return exists.future;
+        }
+        synchronized (lock) {
+            if (thread == null) {
+                thread = new Thread(new Runnable() {
+                    public void run() {
+                        waitLoop();
+                    }
+                }, "hit-tx-waiter");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            lock.notifyAll();
+        }
+        return p.future;
+    }
+
+    /**
+     * @return the count of the transactions waiting for the receipts.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    protected void waitLoop() {
+        // check once at the beginning, the transaction may be mined already.
+        boolean newBlock = true;
+        long interval = minPollMillis;
+        while (true) {
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    uninstallFilter();
+                    thread = null;
+                    return;
+                }
+            }
+            if (newBlock) {
+                checkReceipts();
+            }
+            expire();
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    continue;
+                }
+                try {
+                    lock.wait(interval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failAll(e);
+                    thread = null;
+                    return;
+                }
+            }
+            newBlock = observeNewBlock();
+            interval = newBlock ? Math.max(minPollMillis, Math.min(maxPollMillis, blockMillis / 4)) : Math.min(maxPollMillis, interval * 2);
+        }
+    }
+
+    /**
+     * @return true if a new block is observed, or the block can not be observed.
+     */
+    protected boolean observeNewBlock() {
+        try {
+            if (filterSupported) {
+                if (filterId == null) {
+                    EthFilter filter = web3j.ethNewBlockFilter().send();
+                    if (filter.hasError() || filter.getFilterId() == null) {
+                        filterSupported = false;
+                    } else {
+                        filterId = filter.getFilterId();
+                        return true;// the block before the filter is installed.
+                    }
+                } else {
+                    EthLog changes = web3j.ethGetFilterChanges(filterId).send();
+                    if (changes.hasError()) {// the filter is dropped by the node, install it again.
+                        filterId = null;
+                        return true;
+                    }
+                    if (changes.getLogs() == null || changes.getLogs().isEmpty()) {
+                        return false;
+                    }
+                    onNewBlock(null);
+                    return true;
+                }
+            }
+            EthBlockNumber latest = web3j.ethBlockNumber().send();
+            if (latest.hasError()) {
+                return true;
+            }
+            if (blockNumber != null && latest.getBlockNumber().compareTo(blockNumber) <= 0) {
+                return false;
+            }
+            onNewBlock(latest.getBlockNumber());
+            return true;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    protected void onNewBlock(BigInteger latest) {
+        long now = System.currentTimeMillis();
+        if (blockAt > 0) {// moving average of the block time.
+            blockMillis = (blockMillis * 3 + (now - blockAt)) / 4;
+        }
+        blockAt = now;
+        if (latest != null) {
+            blockNumber = latest;
+        }
+        if (ContractService.READ_CACHE != null) {// the cached contract reads are stale in a new block.
+            if (latest == null) {
+                ContractService.READ_CACHE.clear();
+            } else {
+                ContractService.READ_CACHE.observeBlock(latest);
+            }
+        }
+    }
+
+    protected void checkReceipts() {
+        List<String> hashes = new ArrayList<>(pending.keySet());
+        if (hashes.isEmpty()) {
+            return;
+        }
+        List<Request> requests = new ArrayList<>(hashes.size());
+        List<Class<? extends Response>> types = new ArrayList<>(hashes.size());
+        for (String hash : hashes) {
+            requests.add(web3j.ethGetTransactionReceipt(hash));
+            types.add(EthGetTransactionReceipt.class);
+        }
+        List<Response> responses = null;
+        if (service != null && batchSupported && requests.size() > 1) {
+            try {
+                responses = service.sendBatch(requests, types);
+            } catch (Web3jHelper.BatchNotSupportedException e) {
+                batchSupported = false;
+            } catch (IOException e) {// only this batch failed, send one by one.
+            }
+        }
+        for (int i = 0; i < hashes.size(); i++) {
+            EthGetTransactionReceipt receipt;
+            try {
+                receipt = (EthGetTransactionReceipt) (responses == null ? requests.get(i).send() : responses.get(i));
+            } catch (Exception e) {// try again in the next block.
+                continue;
+            }
+            if (receipt.hasError() || !receipt.getTransactionReceipt().isPresent()) {
+                continue;
+            }
+            Pending p = pending.remove(hashes.get(i));
+            if (p != null) {
+                p.future.complete(receipt.getTransactionReceipt().get());
+            }
+        }
+    }
+
+    protected void expire() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+            if (entry.getValue().deadline <= now && pending.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().future.completeExceptionally(new TimeoutException("Get Transaction status timeout: " + entry.getKey()));
+            }
+        }
+    }
+
+    private void failAll(Exception e) {
+        for (String hash : new ArrayList<>(pending.keySet())) {
+            Pending p = pending.remove(hash);
+            if (p != null) {
+                p.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void uninstallFilter() {
+        if (filterId == null) {
+            return;
+        }
+        try {
+            web3j.ethUninstallFilter(filterId).send();
+        } catch (Exception e) {
+        }
+        filterId = null;
+    }
+
+    private static class Pending {
+        final CompletableFuture<TransactionReceipt> future = new CompletableFuture<>();
+        final long deadline;
+
+        Pending(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+}
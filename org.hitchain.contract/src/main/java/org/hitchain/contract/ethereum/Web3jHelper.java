@@ -7,10 +7,19 @@
  ******************************************************************************/
 package org.hitchain.contract.ethereum;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.http.HttpService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Web3jHelper
@@ -22,6 +31,7 @@
 public class Web3jHelper {
 
     private static Web3j web3j = null;
+    private static BatchHttpService service = null;
 
     /**
      * get web3j instance.
@@ -36,12 +46,23 @@ public static Web3j getWeb3j() {
                 url = (String) getChain.invoke(null);
             } catch (Exception e) {
             }
-            web3j = Web3j.build(new HttpService(url));
+            service = new BatchHttpService(url);
+            web3j = Web3j.build(service);
             System.out.println("Connect chain on " + url);
         }
         return web3j;
     }
 
+    /**
+     * get the http service of the web3j instance, which can send the json-rpc batch request.
+     *
+     * @return
+     */
+    public static BatchHttpService getService() {
+        getWeb3j();
+        return service;
+    }
+
     public static String getChainApiUrl() {
         String url = "http://api-ropsten.etherscan.io/api";
         try {
@@ -52,4 +73,70 @@ public static String getChainApiUrl() {
         System.out.println("Connect chain api on " + url);
         return url;
     }
+
+    /**
+     * Http service which sends the requests as one json-rpc batch (one round trip).
+     * <pre>
+     * #1.The requests are created by the web3j instance, the ids are unique.
+     * #2.The responses are matched by id, the order of the responses is not guaranteed by the node.
+     * #3.A BatchNotSupportedException is thrown if the node rejects the batch (no array of responses),
+     *    the caller should send the requests one by one from now on.
+     * #4.Any other IOException is an I/O failure of this batch, the batch may work for the next requests.
+     * </pre>
+     */
+    public static class BatchHttpService extends HttpService {
+
+        public BatchHttpService(String url) {
+            super(url);
+        }
+
+        /**
+         * send the requests in one batch.
+         *
+         * @param requests the requests.
+         * @param types    the response type of each request.
+         * @return the responses in the order of the requests.
+         * @throws IOException
+         */
+        public List<Response> sendBatch(List<Request> requests, List<Class<? extends Response>> types) throws IOException {
+            if (requests.size() != types.size()) {
+                throw new IllegalArgumentException("BatchHttpService requests and types size not match!");
+            }
+            List<Response> responses = new ArrayList<>(requests.size());
+            if (requests.isEmpty()) {
+                return responses;
+            }
+            String payload = objectMapper.writeValueAsString(requests);
+            try (InputStream is = performIO(payload)) {
+                JsonNode root = objectMapper.readTree(is);
+                if (root == null || !root.isArray()) {
+                    throw new BatchNotSupportedException("Batch request is not supported: " + root);
+                }
+                Map<Long, JsonNode> byId = new HashMap<>();
+                for (JsonNode node : root) {
+                    JsonNode id = node.get("id");
+                    if (id != null && id.canConvertToLong()) {
+                        byId.put(id.asLong(), node);
+                    }
+                }
+                for (int i = 0; i < requests.size(); i++) {
+                    JsonNode node = byId.get(requests.get(i).getId());
+                    if (node == null) {
+                        throw new BatchNotSupportedException("Batch response is missing: " + requests.get(i).getMethod());
+                    }
+                    responses.add(objectMapper.treeToValue(node, types.get(i)));
+                }
+            }
+            return responses;
+        }
+    }
+
+    /**
+     * the node answers the batch request with an error or an unexpected response.
+     */
+    public static class BatchNotSupportedException extends IOException {
+        public BatchNotSupportedException(String message) {
+            super(message);
+        }
+    }
 }
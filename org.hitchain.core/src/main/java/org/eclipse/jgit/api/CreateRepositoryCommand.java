@@ -7,13 +7,10 @@
  ******************************************************************************/
 package org.eclipse.jgit.api;
 
-import org.apache.commons.lang3.time.DateFormatUtils;
 import org.hitchain.contract.api.ContractApi;
 import org.hitchain.hit.util.HitHelper;
 
-import java.util.Date;
 import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 
 /**
  * AmCommand
@@ -52,17 +49,9 @@ public String call() throws Exception {
             throw new RuntimeException("Can not add repository, repository name is exists: " + name());
         }
         if (isRepositoryExists) {
-            for (int i = 0; i < 100; i++) {
-                String newName = name() + "-" + DateFormatUtils.format(new Date(), "yyyyMMddHHmmss");
-                if (Hit.util().readId(newName) > 0) {
-                    try {
-                        TimeUnit.SECONDS.sleep(1);
-                    } catch (Exception e) {
-                    }
-                } else {
-                    name(newName);
-                    break;
-                }
+            String newName = Hit.util().newRepositoryName(name(), 100);
+            if (newName != null) {
+                name(newName);
             }
         }
         String result = Hit.util().addRepository(name());
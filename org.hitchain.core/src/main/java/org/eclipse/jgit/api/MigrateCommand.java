@@ -11,28 +11,35 @@
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.time.DateFormatUtils;
 import org.apache.http.client.utils.DateUtils;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.TextProgressMonitor;
+import org.eclipse.jgit.transport.URIish;
 import org.hitchain.contract.api.ContractApi;
 import org.hitchain.hit.util.ByteHelper;
 import org.hitchain.hit.util.GitHelper;
 import org.hitchain.hit.util.HitHelper;
+import org.hitchain.hit.util.HttpRequestHelper;
 import org.hitchain.hit.util.PatchHelper;
+import org.hitchain.hit.util.ThreadHelper;
 import org.iff.infra.util.FCS;
 import org.iff.infra.util.GsonHelper;
 import org.iff.infra.util.MapHelper;
 import org.iff.infra.util.NumberHelper;
 
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * MigrateCommand
@@ -43,6 +50,22 @@
  */
 public class MigrateCommand extends TransportCommand<MigrateCommand, Hit> {
     public static final String PROP_TOKEN = "--token-for-authorization";
+    public static final int MAX_PER_PAGE = 100;
+    public static final int DEFAULT_CONCURRENCY = 8;
+    /**
+     * the longest wait for the rate limit reset, github resets the limit every hour.
+     */
+    public static final long MAX_RATE_LIMIT_WAIT_MILLIS = 60 * 60 * 1000;
+    /**
+     * parse the pull request diff from the response stream.
+     */
+    protected static final HttpRequestHelper.BodyReader<PatchHelper.PatchInfo> PARSE_DIFF = new HttpRequestHelper.BodyReader<PatchHelper.PatchInfo>() {
+        public PatchHelper.PatchInfo read(HttpRequestHelper.StreamResult result) throws IOException {
+            try (InputStream in = result.getBody()) {
+                return PatchHelper.parseDiff(in);
+            }
+        }
+    };
     protected Hit hit;
     /**
      * the repository uri github/gitee.
@@ -67,6 +90,14 @@ public class MigrateCommand extends TransportCommand<MigrateCommand, Hit> {
      * https://developer.github.com/apps/building-oauth-apps/creating-an-oauth-app/
      */
     protected String token;
+    /**
+     * max concurrent requests to fetch the pull requests and to upload the patches, default 8.
+     */
+    protected int concurrency = DEFAULT_CONCURRENCY;
+    /**
+     * the time the rate limit resets, the requests wait until the time.
+     */
+    protected volatile long rateLimitResetAt;
 
 
     public MigrateCommand() {
@@ -79,21 +110,19 @@ public Hit call() throws GitAPIException {
         if (StringUtils.isBlank(repositoryName)) {
             throw new RuntimeException("uri is invalid: " + uri());
         }
-        boolean isRepositoryExists = Hit.util().readId(repositoryName) > 0;
-        if (isRepositoryExists && !autoRename()) {
-            throw new RuntimeException("repository name exists: " + repositoryName);
-        }
-        if (isRepositoryExists && autoRename()) {
-            for (int i = 0; i < 100; i++) {
-                String newName = repositoryName + "-" + DateFormatUtils.format(new Date(), "yyyyMMddHHmmss");
-                if (Hit.util().readId(newName) > 0) {
-                    try {
-                        TimeUnit.SECONDS.sleep(1);
-                    } catch (Exception e) {
-                    }
-                } else {
+        MigrateCheckpoint checkpoint = new MigrateCheckpoint(workTree());
+        if (checkpoint.repositoryName() != null) {// resume the interrupted migration.
+            repositoryName = checkpoint.repositoryName();
+            System.out.println("Resume the migration of repository " + repositoryName + " from " + checkpoint.dir());
+        } else {
+            boolean isRepositoryExists = Hit.util().readId(repositoryName) > 0;
+            if (isRepositoryExists && !autoRename()) {
+                throw new RuntimeException("repository name exists: " + repositoryName);
+            }
+            if (isRepositoryExists && autoRename()) {
+                String newName = Hit.util().newRepositoryName(repositoryName, 100);
+                if (newName != null) {
                     repositoryName = newName;
-                    break;
                 }
             }
         }
@@ -101,7 +130,7 @@ public Hit call() throws GitAPIException {
             System.setProperty(PROP_TOKEN, token());
         }
         try {
-            migrateWithPullRequest(uri(), repositoryName, maxPrSize());
+            migrateWithPullRequest(uri(), repositoryName, maxPrSize(), checkpoint);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -110,52 +139,62 @@ public Hit call() throws GitAPIException {
     }
 
     protected String migrateWithPullRequest(String gitUrl, String repositoryName, int maxPrSize) throws Exception {
-        System.out.println("0/5 Start to clone repository " + gitUrl + " ...");
-        String workDir = System.getProperty("git_work_tree");
-        try (Repository repo = Git.cloneRepository()
-                .setDirectory(StringUtils.isBlank(workDir) ? null : new File(workDir))
+        return migrateWithPullRequest(gitUrl, repositoryName, maxPrSize, new MigrateCheckpoint(workTree()));
+    }
+
+    /**
+     * migrate the repository and the pull requests, the progress is saved to the checkpoint.
+     * <pre>
+     * #1.The work tree is reused if the migration is resumed, the fetched pull requests are not fetched again.
+     * #2.The repository is not created or pushed again if the step is done.
+     * #3.The uploaded patches are not uploaded again.
+     * #4.The checkpoint is deleted when the migration is done.
+     * </pre>
+     */
+    protected String migrateWithPullRequest(String gitUrl, String repositoryName, int maxPrSize, MigrateCheckpoint checkpoint) throws Exception {
+        File gitDir = new File(checkpoint.workTree(), Constants.DOT_GIT);
+        boolean resume = checkpoint.repositoryName() != null && gitDir.isDirectory();
+        System.out.println(resume ? "0/5 Open repository " + checkpoint.workTree() + " ..." : "0/5 Start to clone repository " + gitUrl + " ...");
+        try (Repository repo = resume ? Git.open(checkpoint.workTree()).getRepository() : Git.cloneRepository()
+                .setDirectory(checkpoint.workTree())
                 .setURI(gitUrl)
                 .setProgressMonitor(new TextProgressMonitor())
                 .call().getRepository()) {
             System.out.println("Check repository name...");
             repositoryName = StringUtils.isBlank(repositoryName) ? repo.getDirectory().getParentFile().getName() : repositoryName;
-            if (Hit.util().readId(repositoryName) > 0) {
+            if (!checkpoint.isDone(MigrateCheckpoint.STEP_CREATED) && Hit.util().readId(repositoryName) > 0) {
                 throw new Exception("Migrate repository name " + repositoryName + " exists, you should provide a new name for migrate.");
             }
             {
+                checkpoint.repositoryName(repositoryName);
                 System.out.println("1/5 Clone repository " + gitUrl + " success.");
             }
             List<PatchHelper.PatchSummaryInfo> summaryInfos = Collections.EMPTY_LIST;
             {
                 System.out.println("2/5 Start to fetch pull request...");
-                summaryInfos = fetchPullRequest2(repo, gitUrl, maxPrSize);
+                summaryInfos = fetchPullRequest2(repo, gitUrl, maxPrSize, checkpoint);
                 System.out.println("2/5 Fetch pull request success.");
             }
-            {
+            if (!checkpoint.isDone(MigrateCheckpoint.STEP_CREATED)) {
                 System.out.println("3/5 Start to add repository...");
                 HitHelper.createRepository(repo.getDirectory(), repositoryName, false);
+                checkpoint.done(MigrateCheckpoint.STEP_CREATED);
                 System.out.println("3/5 Add repository success.");
             }
-            {
+            if (!checkpoint.isDone(MigrateCheckpoint.STEP_PUSHED)) {
                 System.out.println("4/5 Start to push repository to hit...");
                 new Git(repo).push().call();
-                hit(new Hit(repo));
+                checkpoint.done(MigrateCheckpoint.STEP_PUSHED);
                 System.out.println("4/5 Push repository to hit success.");
             }
+            hit(new Hit(repo));
             System.out.println("5/5 Start to add pull request...");
             File pullRequestFetch = new File(repo.getDirectory(), "pullrequest_fetch");
             {//
                 List<Map<String, Object>> summaries = new ArrayList<>();
                 File[] files = pullRequestFetch.listFiles();
                 files = files == null ? new File[0] : files;
-                Map<String/*commitName*/, String/*ipfsHash*/> map = new HashMap<>();
-                for (File f : files) {
-                    if (!f.getName().endsWith(".patch")) {
-                        continue;
-                    }
-                    String ipfsHash = GitHelper.writeFileToIpfs(FileUtils.readFileToByteArray(f), f.getName());
-                    map.put(StringUtils.substringBefore(f.getName(), ".patch"), ipfsHash);
-                }
+                Map<String/*commitName*/, String/*ipfsHash*/> map = uploadPatches(files, checkpoint);
                 String url = null, author = null;
                 {
                     String name = hit().storedConfig().getUserName().call();
@@ -187,342 +226,463 @@ protected String migrateWithPullRequest(String gitUrl, String repositoryName, in
                 }
             }
             FileUtils.deleteQuietly(pullRequestFetch);
+            checkpoint.delete();
             System.out.println("5/5 Add request success.");
         }
         return "";
     }
 
-    protected List<PatchHelper.PatchSummaryInfo> fetchPullRequest2(Repository repo, String gitUrl, int maxPrSize) throws Exception {
+    /**
+     * upload the patch files to ipfs concurrently, the uploaded patches are saved to the checkpoint.
+     *
+     * @param files
+     * @param checkpoint
+     * @return {commitName: ipfsHash}
+     */
+    protected Map<String/*commitName*/, String/*ipfsHash*/> uploadPatches(File[] files, final MigrateCheckpoint checkpoint) throws Exception {
+        Map<String, String> map = new HashMap<>();
+        Map<String, Future<String>> futures = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrency()), ThreadHelper.daemonThreadFactory("hit-migrate-upload"));
+        try {
+            for (final File f : files) {
+                if (!f.getName().endsWith(".patch")) {
+                    continue;
+                }
+                final String commitName = StringUtils.substringBefore(f.getName(), ".patch");
+                String uploaded = checkpoint.uploaded(commitName);
+                if (uploaded != null) {
+                    map.put(commitName, uploaded);
+                    continue;
+                }
+                futures.put(commitName, executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        String ipfsHash = GitHelper.writeFileToIpfs(FileUtils.readFileToByteArray(f), f.getName());
+                        checkpoint.uploaded(commitName, ipfsHash);
+                        return ipfsHash;
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<String>> entry : futures.entrySet()) {
+                map.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return map;
+    }
+
+    protected List<PatchHelper.PatchSummaryInfo> fetchPullRequest2(Repository repo, String gitUrl, int maxPrSize, MigrateCheckpoint checkpoint) throws Exception {
         if (StringUtils.contains(gitUrl, "gitee.com")) {
-            return fetchPullRequestFromGiteeServer(repo, gitUrl, maxPrSize);
+            return fetchPullRequestFromGiteeServer(repo, gitUrl, maxPrSize, checkpoint);
         }
         if (StringUtils.contains(gitUrl, "github.com")) {
-            return fetchPullRequestFromGitServer(repo, gitUrl, maxPrSize);
+            return fetchPullRequestFromGitServer(repo, gitUrl, maxPrSize, checkpoint);
         }
         throw new RuntimeException("Git url not support yet: " + gitUrl);
     }
 
-    protected List<PatchHelper.PatchSummaryInfo> fetchPullRequestFromGitServer(Repository repo, String gitUrl, int maxPrSize) throws Exception {
-        List<PatchHelper.PatchSummaryInfo> summaryInfos = new ArrayList<>();
+    protected List<PatchHelper.PatchSummaryInfo> fetchPullRequestFromGitServer(Repository repo, String gitUrl, int maxPrSize, MigrateCheckpoint checkpoint) throws Exception {
         String[] split = StringUtils.split(gitUrl, "/");
         if (split.length < 2) {
             System.err.println("Git url is invalided.");
-            return summaryInfos;
+            return new ArrayList<>();
         }
         List<String> paths = Arrays.asList(split);
         Collections.reverse(paths);
         String repoName = StringUtils.remove(paths.get(0), ".git");
         String owner = paths.get(1);
         // pull url sample: https://api.github.com/repos/ethereum/ethereumj/pulls
-        String pullUrl = FCS.get("https://api.github.com/repos/{owner}/{repoName}/pulls?per_page=" + maxPrSize, owner, repoName).toString();
-        String pullsJson = httpGet2(pullUrl, "Try fetch pull request for {times} times, url {url}.");
-        List<Map<String, Object>> pulls = GsonHelper.toJsonList(pullsJson);
-        for (Map<String, Object> pull : pulls) {
-            System.out.println("Fetching pull request:" + pull.get("url"));
-            // sample: https://github.com/ethereum/ethereumj/pull/1278.patch
-            String patchUrl = (String) pull.get("patch_url");
-            // sample: https://api.github.com/repos/ethereum/ethereumj/pulls/1278/commits
-            String commitsUrl = (String) pull.get("commits_url");
-            String startRevision = "refs/heads/" + MapHelper.getByPath(pull, "base/ref");
-            String endRevision = "refs/heads/" + MapHelper.getByPath(pull, "head/ref");
-            String startCommit = (String) MapHelper.getByPath(pull, "base/sha");
-            String endCommit = (String) MapHelper.getByPath(pull, "head/sha");
-            String message = (String) pull.get("body");
-            //"created_at": "2019-05-01T09:59:35Z",
-            String dateStr = (String) pull.get("created_at");
-            Date date = DateUtils.parseDate(dateStr, new String[]{"yyyy-MM-dd'T'HH:mm:ss'Z'"});
-            //
-            String patchContent = httpGet2(patchUrl, "Try fetch pull request patch for {times} times, url {url}.");
-            PatchHelper.PatchInfo pi = null;
-            if (StringUtils.isBlank(patchContent)) {
-                // patchs could by empty in some case, such as a merge patch
-                // https://gitee.com/jfinal/jfinal/pulls/40.diff
-                // https://gitee.com/jfinal/jfinal/pulls/40.patch
-                // https://gitee.com/jfinal/jfinal/pulls/40/commits
-                String diffUrl = (String) pull.get("diff_url");
-                String diff = httpGet2(diffUrl, "Try fetch pull request diff for {times} times, url {url}.");
-                if (StringUtils.isBlank(diff)) {
-                    System.err.println("Warning can not fetch patch: " + patchUrl);
-                    continue;
-                }
-                pi = PatchHelper.parseDiff(new ByteArrayInputStream(ByteHelper.utf8(diffUrl)))
-                        .date(date);
+        String pullUrl = FCS.get("https://api.github.com/repos/{owner}/{repoName}/pulls", owner, repoName).toString();
+        List<Map<String, Object>> pulls = listPullRequests(pullUrl, maxPrSize);
+        if (pulls == null) {
+            System.err.println("Can not fetch pull request from url: " + pullUrl);
+            return new ArrayList<>();
+        }
+        List<PatchHelper.PatchSummaryInfo> summaryInfos = fetchPullRequests(checkpoint, pulls, new PullRequestFetcher() {
+            public PatchHelper.PatchSummaryInfo fetch(Map<String, Object> pull) throws Exception {
+                return fetchPullRequestFromGitServer(pull);
             }
-            //
-            String commitsJson = httpGet2(commitsUrl, "Try fetch pull request commits for {times} times, url {url}.");
-            List<Map<String, Object>> commits = GsonHelper.toJsonList(commitsJson);
-            if (commits == null || commits.isEmpty()) {
-                System.out.println("commits is empty: " + commitsJson);
+        });
+        writePullRequestFetch(repo, summaryInfos);
+        return summaryInfos;
+    }
+
+    protected PatchHelper.PatchSummaryInfo fetchPullRequestFromGitServer(Map<String, Object> pull) throws Exception {
+        System.out.println("Fetching pull request:" + pull.get("url"));
+        // sample: https://github.com/ethereum/ethereumj/pull/1278.patch
+        String patchUrl = (String) pull.get("patch_url");
+        // sample: https://api.github.com/repos/ethereum/ethereumj/pulls/1278/commits
+        String commitsUrl = (String) pull.get("commits_url");
+        String startRevision = "refs/heads/" + MapHelper.getByPath(pull, "base/ref");
+        String endRevision = "refs/heads/" + MapHelper.getByPath(pull, "head/ref");
+        String startCommit = (String) MapHelper.getByPath(pull, "base/sha");
+        String endCommit = (String) MapHelper.getByPath(pull, "head/sha");
+        String message = (String) pull.get("body");
+        //"created_at": "2019-05-01T09:59:35Z",
+        String dateStr = (String) pull.get("created_at");
+        Date date = DateUtils.parseDate(dateStr, new String[]{"yyyy-MM-dd'T'HH:mm:ss'Z'"});
+        //
+        String patchContent = httpGet2(patchUrl, "Try fetch pull request patch for {times} times, url {url}.");
+        PatchHelper.PatchInfo pi = null;
+        if (StringUtils.isBlank(patchContent)) {
+            // patchs could by empty in some case, such as a merge patch
+            // https://gitee.com/jfinal/jfinal/pulls/40.diff
+            // https://gitee.com/jfinal/jfinal/pulls/40.patch
+            // https://gitee.com/jfinal/jfinal/pulls/40/commits
+            String diffUrl = (String) pull.get("diff_url");
+            pi = httpGet2(diffUrl, "Try fetch pull request diff for {times} times, url {url}.", PARSE_DIFF);
+            if (pi == null || StringUtils.isBlank(pi.patch())) {
+                System.err.println("Warning can not fetch patch: " + patchUrl);
+                return null;
             }
-            int commitIndex = 0, commitTotal = commits == null ? 0 : commits.size();
-            PatchHelper.PatchSummaryInfo summaryInfo = new PatchHelper.PatchSummaryInfo();
-            {
-                summaryInfos.add(summaryInfo);
-                summaryInfo.startRevision(startRevision)
-                        .endRevision(endRevision)
-                        .startCommit(startCommit)
-                        .endCommit(endCommit)
-                        .totalCommit(commitTotal)
-                        .message(message)
-                        .date(date)
-                        .patch(patchContent);
-            }
-            if (pi != null && commits.size() > 0) {
-                pi.commitIndex(1)
-                        .commitTotal(1)
-                        .endCommit((String) commits.get(0).get("sha"))
-                        .startCommit((String) ((List<Map<String, Object>>) commits.get(commits.size() - 1).get("parents")).get(0).get("sha"))
-                        .author((String) MapHelper.getByPath(commits.get(0), "commit/author/name"))
-                        .email((String) MapHelper.getByPath(commits.get(0), "commit/author/email"))
-                        .msg((String) MapHelper.getByPath(commits.get(0), "commit/message"))
-                        .shortMsg(StringUtils.substringBefore(pi.msg(), "\n"))
-                        .patch(pi.genPatch(pi.patch()));
-                summaryInfo.patchs().add(pi);
-                continue;//no need to process commits.
-            }
-            for (Map<String, Object> commit : commits) {
-                commitIndex += 1;
-                String parentCommit = (String) ((List<Map<String, Object>>) commit.get("parents")).get(0).get("sha");
-                String currentCommit = (String) commit.get("sha");
-                String msg = (String) MapHelper.getByPath(commit, "commit/message");
-                String shortMsg = StringUtils.substringBefore(msg, "\n");
-                String author = (String) MapHelper.getByPath(commit, "commit/author/name");
-                String email = (String) MapHelper.getByPath(commit, "commit/author/email");
-                int files = 0, insertions = 0, deletions = 0;
-                String summary = "", patch = "";
-                try {
-                    String[] lines = StringUtils.split(patchContent, "\n");
-                    String starts = "From " + currentCommit;
-                    int mark = 0;
-                    StringBuilder sb = new StringBuilder();
-                    for (String line : lines) {
-                        if (line.startsWith(starts)) {
-                            mark = 1;
-                            continue;
-                        }
-                        if (mark == 1 && line.startsWith("---")) {
-                            mark = 2;
-                            continue;
-                        }
-                        if (mark != 2) {
-                            continue;
-                        }
-                        if (mark == 2 && line.startsWith("diff ")) {
-                            break;
-                        }
-                        sb.append(line).append("\n");
-                        if (line.indexOf(" files changed") > 0 && (line.indexOf(" insertions") > 0 || line.indexOf(" deletions") > 0)) {
-                            String[] counts = StringUtils.split(line, ",");
-                            for (String count : counts) {
-                                if (count.indexOf("files changed") > 0) {
-                                    files = NumberHelper.getInt(StringUtils.substringBefore(count, "files changed").trim(), 0);
-                                } else if (count.indexOf(" insertions") > 0) {
-                                    insertions = NumberHelper.getInt(StringUtils.substringBefore(count, " insertions").trim(), 0);
-                                } else if (count.indexOf(" deletions") > 0) {
-                                    deletions = NumberHelper.getInt(StringUtils.substringBefore(count, " deletions").trim(), 0);
-                                }
+            pi.date(date);
+        }
+        //
+        String commitsJson = httpGet2(commitsUrl, "Try fetch pull request commits for {times} times, url {url}.");
+        List<Map<String, Object>> commits = GsonHelper.toJsonList(commitsJson);
+        if (commits == null || commits.isEmpty()) {
+            System.out.println("commits is empty: " + commitsJson);
+        }
+        int commitIndex = 0, commitTotal = commits == null ? 0 : commits.size();
+        PatchHelper.PatchSummaryInfo summaryInfo = new PatchHelper.PatchSummaryInfo();
+        {
+            summaryInfo.startRevision(startRevision)
+                    .endRevision(endRevision)
+                    .startCommit(startCommit)
+                    .endCommit(endCommit)
+                    .totalCommit(commitTotal)
+                    .message(message)
+                    .date(date)
+                    .patch(patchContent);
+        }
+        if (pi != null && commits.size() > 0) {
+            pi.commitIndex(1)
+                    .commitTotal(1)
+                    .endCommit((String) commits.get(0).get("sha"))
+                    .startCommit((String) ((List<Map<String, Object>>) commits.get(commits.size() - 1).get("parents")).get(0).get("sha"))
+                    .author((String) MapHelper.getByPath(commits.get(0), "commit/author/name"))
+                    .email((String) MapHelper.getByPath(commits.get(0), "commit/author/email"))
+                    .msg((String) MapHelper.getByPath(commits.get(0), "commit/message"))
+                    .shortMsg(StringUtils.substringBefore(pi.msg(), "\n"))
+                    .patch(pi.genPatch(pi.patch()));
+            summaryInfo.patchs().add(pi);
+            return summaryInfo;//no need to process commits.
+        }
+        for (Map<String, Object> commit : commits) {
+            commitIndex += 1;
+            String parentCommit = (String) ((List<Map<String, Object>>) commit.get("parents")).get(0).get("sha");
+            String currentCommit = (String) commit.get("sha");
+            String msg = (String) MapHelper.getByPath(commit, "commit/message");
+            String shortMsg = StringUtils.substringBefore(msg, "\n");
+            String author = (String) MapHelper.getByPath(commit, "commit/author/name");
+            String email = (String) MapHelper.getByPath(commit, "commit/author/email");
+            int files = 0, insertions = 0, deletions = 0;
+            String summary = "", patch = "";
+            try {
+                String[] lines = StringUtils.split(patchContent, "\n");
+                String starts = "From " + currentCommit;
+                int mark = 0;
+                StringBuilder sb = new StringBuilder();
+                for (String line : lines) {
+                    if (line.startsWith(starts)) {
+                        mark = 1;
+                        continue;
+                    }
+                    if (mark == 1 && line.startsWith("---")) {
+                        mark = 2;
+                        continue;
+                    }
+                    if (mark != 2) {
+                        continue;
+                    }
+                    if (mark == 2 && line.startsWith("diff ")) {
+                        break;
+                    }
+                    sb.append(line).append("\n");
+                    if (line.indexOf(" files changed") > 0 && (line.indexOf(" insertions") > 0 || line.indexOf(" deletions") > 0)) {
+                        String[] counts = StringUtils.split(line, ",");
+                        for (String count : counts) {
+                            if (count.indexOf("files changed") > 0) {
+                                files = NumberHelper.getInt(StringUtils.substringBefore(count, "files changed").trim(), 0);
+                            } else if (count.indexOf(" insertions") > 0) {
+                                insertions = NumberHelper.getInt(StringUtils.substringBefore(count, " insertions").trim(), 0);
+                            } else if (count.indexOf(" deletions") > 0) {
+                                deletions = NumberHelper.getInt(StringUtils.substringBefore(count, " deletions").trim(), 0);
                             }
                         }
                     }
-                    summary = sb.toString().trim();
-                } catch (Exception e) {
-                    System.err.println("Warning " + e.getMessage());
-                }
-                {
-                    PatchHelper.PatchInfo patchInfo = new PatchHelper.PatchInfo()
-                            .commitIndex(commitIndex)
-                            .commitTotal(commitTotal)
-                            .startCommit(parentCommit)
-                            .endCommit(currentCommit)
-                            .shortMsg(shortMsg)
-                            .msg(msg)
-                            .author(author)
-                            .email(email)
-                            .files(files)
-                            .insertions(insertions)
-                            .deletions(deletions)
-                            .summary(summary)
-                            .patch(patch);
-                    summaryInfo.patchs().add(patchInfo);
                 }
+                summary = sb.toString().trim();
+            } catch (Exception e) {
+                System.err.println("Warning " + e.getMessage());
             }
-        }
-        String url = null, author = null;
-        {
-            Config config = repo.getConfig();
-            String name = config.getString("user", null, "name");
-            String email = config.getString("user", null, "email");
-            if (name == null || email == null) {
-                author = "unknown";
-            } else {
-                author = name + " <" + email + ">";
+            {
+                PatchHelper.PatchInfo patchInfo = new PatchHelper.PatchInfo()
+                        .commitIndex(commitIndex)
+                        .commitTotal(commitTotal)
+                        .startCommit(parentCommit)
+                        .endCommit(currentCommit)
+                        .shortMsg(shortMsg)
+                        .msg(msg)
+                        .author(author)
+                        .email(email)
+                        .files(files)
+                        .insertions(insertions)
+                        .deletions(deletions)
+                        .summary(summary)
+                        .patch(patch);
+                summaryInfo.patchs().add(patchInfo);
             }
-            url = config.getString("remote", "origin", "url");
         }
-        {
-            File pullRequestFetch = new File(repo.getDirectory(), "pullrequest_fetch");
-            pullRequestFetch.mkdirs();
-            List<Map<String, Object>> summaries = new ArrayList<>();
-            for (PatchHelper.PatchSummaryInfo psi : summaryInfos) {
-                Map<String, Object> format = PatchHelper.format(psi, url, author, HitHelper.getAccountAddress(), HitHelper.getRsaPubKey());
-                summaries.add(format);
-                FileUtils.writeStringToFile(new File(pullRequestFetch, format.get("id") + ".patch"), psi.patch());
-            }
-            String json = new GsonBuilder().setPrettyPrinting().setDateFormat("EEE, dd MMM yyyy HH:mm:ss Z").create().toJson(summaries);
-            FileUtils.writeStringToFile(new File(pullRequestFetch, "patch-summary-info.json"), json);
-        }
-        return summaryInfos;
+        return summaryInfo;
     }
 
-    protected List<PatchHelper.PatchSummaryInfo> fetchPullRequestFromGiteeServer(Repository repo, String gitUrl, int maxPrSize) throws Exception {
-        List<PatchHelper.PatchSummaryInfo> summaryInfos = new ArrayList<>();
+    protected List<PatchHelper.PatchSummaryInfo> fetchPullRequestFromGiteeServer(Repository repo, String gitUrl, int maxPrSize, MigrateCheckpoint checkpoint) throws Exception {
         String[] split = StringUtils.split(gitUrl, "/");
         if (split.length < 2) {
             System.err.println("Git url is invalided.");
-            return summaryInfos;
+            return new ArrayList<>();
         }
         List<String> paths = Arrays.asList(split);
         Collections.reverse(paths);
         String repoName = StringUtils.remove(paths.get(0), ".git");
         String owner = paths.get(1);
         // pull url sample: https://gitee.com/api/v5/repos/jfinal/jfinal/pulls
-        String pullUrl = FCS.get("https://gitee.com/api/v5/repos/{owner}/{repoName}/pulls?per_page=" + maxPrSize, owner, repoName).toString();
-        String pullsJson = httpGet2(pullUrl, "Try fetch pull request for {times} times, url {url}.");
-        List<Map<String, Object>> pulls = GsonHelper.toJsonList(pullsJson);
+        String pullUrl = FCS.get("https://gitee.com/api/v5/repos/{owner}/{repoName}/pulls", owner, repoName).toString();
+        List<Map<String, Object>> pulls = listPullRequests(pullUrl, maxPrSize);
         if (pulls == null) {
             System.err.println("Can not fetch pull request from url: " + pullUrl);
-            return summaryInfos;
+            return new ArrayList<>();
         }
-        for (Map<String, Object> pull : pulls) {
-            System.out.println("Fetching pull request:" + pull.get("url"));
-            // sample: https://gitee.com/jfinal/jfinal/pulls/40.patch
-            String patchUrl = (String) pull.get("patch_url");
-            // sample: https://gitee.com/api/v5/repos/jfinal/jfinal/pulls/40/commits
-            String commitsUrl = (String) pull.get("commits_url");
-            String startRevision = "refs/heads/" + MapHelper.getByPath(pull, "base/ref");
-            String endRevision = "refs/heads/" + MapHelper.getByPath(pull, "head/ref");
-            String startCommit = (String) MapHelper.getByPath(pull, "base/sha");
-            String endCommit = (String) MapHelper.getByPath(pull, "head/sha");
-            String message = (String) pull.get("body");
-            //created_at:"2019-04-18T13:12:57+08:00"
-            String dateStr = (String) pull.get("created_at");
-            Date date = DateUtils.parseDate(dateStr, new String[]{"yyyy-MM-dd'T'HH:mm:ssXXX"});
-            //
-            String patchContent = httpGet2(patchUrl, "Try fetch pull request patch for {times} times, url {url}.");
-            PatchHelper.PatchInfo pi = null;
-            if (StringUtils.isBlank(patchContent)) {
-                // patchs could by empty in some case, such as a merge patch
-                // https://gitee.com/jfinal/jfinal/pulls/40.diff
-                // https://gitee.com/jfinal/jfinal/pulls/40.patch
-                // https://gitee.com/jfinal/jfinal/pulls/40/commits
-                String diffUrl = (String) pull.get("diff_url");
-                String diff = httpGet2(diffUrl, "Try fetch pull request diff for {times} times, url {url}.");
-                if (StringUtils.isBlank(diff)) {
-                    System.err.println("Warning can not fetch patch: " + patchUrl);
-                    continue;
-                }
-                pi = PatchHelper.parseDiff(new ByteArrayInputStream(ByteHelper.utf8(diff)))
-                        .date(date);
-            }
-            //
-            String commitsJson = httpGet2(commitsUrl, "Try fetch pull request commits for {times} times, url {url}.");
-            List<Map<String, Object>> commits = GsonHelper.toJsonList(commitsJson);
-            int commitIndex = 0, commitTotal = commits.size();
-            PatchHelper.PatchSummaryInfo summaryInfo = new PatchHelper.PatchSummaryInfo();
-            {// create summary information
-                summaryInfos.add(summaryInfo);
-                summaryInfo.startRevision(startRevision)
-                        .endRevision(endRevision)
-                        .startCommit(startCommit)
-                        .endCommit(endCommit)
-                        .totalCommit(commitTotal)
-                        .message(message)
-                        .date(date)
-                        .patch(patchContent);
-            }
-            if (pi != null && commits.size() > 0) {// patch is empty and fetch from diff.
-                pi.commitIndex(1)
-                        .commitTotal(1)
-                        .endCommit((String) commits.get(0).get("sha"))
-                        .startCommit((String) MapHelper.getByPath(commits.get(0), "parents/sha"))
-                        .author((String) MapHelper.getByPath(commits.get(0), "commit/author/name"))
-                        .email((String) MapHelper.getByPath(commits.get(0), "commit/author/email"))
-                        .msg((String) MapHelper.getByPath(commits.get(0), "commit/message"))
-                        .shortMsg(StringUtils.substringBefore(pi.msg(), "\n"))
-                        .patch(pi.genPatch(pi.patch()));
-
-                summaryInfo.patch(pi.patch());// update patch content.
-                summaryInfo.patchs().add(pi);
-                continue;//no need to process commits.
-            }
-            // patch is not empty
-            for (Map<String, Object> commit : commits) {
-                commitIndex += 1;
-                String parentCommit = (String) MapHelper.getByPath(commit, "parents/sha");
-                String currentCommit = (String) commit.get("sha");
-                String msg = (String) MapHelper.getByPath(commit, "commit/message");
-                String shortMsg = StringUtils.substringBefore(msg, "\n");
-                String author = (String) MapHelper.getByPath(commit, "commit/author/name");
-                String email = (String) MapHelper.getByPath(commit, "commit/author/email");
-                int files = 0, insertions = 0, deletions = 0;
-                String summary = "", patch = "";
-                try {
-                    String[] lines = StringUtils.split(patchContent, "\n");
-                    String starts = "From " + currentCommit;
-                    int mark = 0;
-                    StringBuilder sb = new StringBuilder();
-                    for (String line : lines) {
-                        if (line.startsWith(starts)) {
-                            mark = 1;
-                            continue;
-                        }
-                        if (mark == 1 && line.startsWith("---")) {
-                            mark = 2;
-                            continue;
-                        }
-                        if (mark != 2) {
-                            continue;
-                        }
-                        if (mark == 2 && line.startsWith("diff ")) {
-                            break;
-                        }
-                        sb.append(line).append("\n");
-                        if (line.indexOf(" file changed") > 0 && (line.indexOf(" insertions") > 0 || line.indexOf(" deletions") > 0)) {
-                            String[] counts = StringUtils.split(line, ",");
-                            for (String count : counts) {
-                                if (count.indexOf("file changed") > 0) {
-                                    files = NumberHelper.getInt(StringUtils.substringBefore(count, "file changed").trim(), 0);
-                                } else if (count.indexOf(" insertions") > 0) {
-                                    insertions = NumberHelper.getInt(StringUtils.substringBefore(count, " insertions").trim(), 0);
-                                } else if (count.indexOf(" deletions") > 0) {
-                                    deletions = NumberHelper.getInt(StringUtils.substringBefore(count, " deletions").trim(), 0);
-                                }
+        List<PatchHelper.PatchSummaryInfo> summaryInfos = fetchPullRequests(checkpoint, pulls, new PullRequestFetcher() {
+            public PatchHelper.PatchSummaryInfo fetch(Map<String, Object> pull) throws Exception {
+                return fetchPullRequestFromGiteeServer(pull);
+            }
+        });
+        writePullRequestFetch(repo, summaryInfos);
+        return summaryInfos;
+    }
+
+    protected PatchHelper.PatchSummaryInfo fetchPullRequestFromGiteeServer(Map<String, Object> pull) throws Exception {
+        System.out.println("Fetching pull request:" + pull.get("url"));
+        // sample: https://gitee.com/jfinal/jfinal/pulls/40.patch
+        String patchUrl = (String) pull.get("patch_url");
+        // sample: https://gitee.com/api/v5/repos/jfinal/jfinal/pulls/40/commits
+        String commitsUrl = (String) pull.get("commits_url");
+        String startRevision = "refs/heads/" + MapHelper.getByPath(pull, "base/ref");
+        String endRevision = "refs/heads/" + MapHelper.getByPath(pull, "head/ref");
+        String startCommit = (String) MapHelper.getByPath(pull, "base/sha");
+        String endCommit = (String) MapHelper.getByPath(pull, "head/sha");
+        String message = (String) pull.get("body");
+        //created_at:"2019-04-18T13:12:57+08:00"
+        String dateStr = (String) pull.get("created_at");
+        Date date = DateUtils.parseDate(dateStr, new String[]{"yyyy-MM-dd'T'HH:mm:ssXXX"});
+        //
+        String patchContent = httpGet2(patchUrl, "Try fetch pull request patch for {times} times, url {url}.");
+        PatchHelper.PatchInfo pi = null;
+        if (StringUtils.isBlank(patchContent)) {
+            // patchs could by empty in some case, such as a merge patch
+            // https://gitee.com/jfinal/jfinal/pulls/40.diff
+            // https://gitee.com/jfinal/jfinal/pulls/40.patch
+            // https://gitee.com/jfinal/jfinal/pulls/40/commits
+            String diffUrl = (String) pull.get("diff_url");
+            pi = httpGet2(diffUrl, "Try fetch pull request diff for {times} times, url {url}.", PARSE_DIFF);
+            if (pi == null || StringUtils.isBlank(pi.patch())) {
+                System.err.println("Warning can not fetch patch: " + patchUrl);
+                return null;
+            }
+            pi.date(date);
+        }
+        //
+        String commitsJson = httpGet2(commitsUrl, "Try fetch pull request commits for {times} times, url {url}.");
+        List<Map<String, Object>> commits = GsonHelper.toJsonList(commitsJson);
+        int commitIndex = 0, commitTotal = commits.size();
+        PatchHelper.PatchSummaryInfo summaryInfo = new PatchHelper.PatchSummaryInfo();
+        {// create summary information
+            summaryInfo.startRevision(startRevision)
+                    .endRevision(endRevision)
+                    .startCommit(startCommit)
+                    .endCommit(endCommit)
+                    .totalCommit(commitTotal)
+                    .message(message)
+                    .date(date)
+                    .patch(patchContent);
+        }
+        if (pi != null && commits.size() > 0) {// patch is empty and fetch from diff.
+            pi.commitIndex(1)
+                    .commitTotal(1)
+                    .endCommit((String) commits.get(0).get("sha"))
+                    .startCommit((String) MapHelper.getByPath(commits.get(0), "parents/sha"))
+                    .author((String) MapHelper.getByPath(commits.get(0), "commit/author/name"))
+                    .email((String) MapHelper.getByPath(commits.get(0), "commit/author/email"))
+                    .msg((String) MapHelper.getByPath(commits.get(0), "commit/message"))
+                    .shortMsg(StringUtils.substringBefore(pi.msg(), "\n"))
+                    .patch(pi.genPatch(pi.patch()));
+
+            summaryInfo.patch(pi.patch());// update patch content.
+            summaryInfo.patchs().add(pi);
+            return summaryInfo;//no need to process commits.
+        }
+        // patch is not empty
+        for (Map<String, Object> commit : commits) {
+            commitIndex += 1;
+            String parentCommit = (String) MapHelper.getByPath(commit, "parents/sha");
+            String currentCommit = (String) commit.get("sha");
+            String msg = (String) MapHelper.getByPath(commit, "commit/message");
+            String shortMsg = StringUtils.substringBefore(msg, "\n");
+            String author = (String) MapHelper.getByPath(commit, "commit/author/name");
+            String email = (String) MapHelper.getByPath(commit, "commit/author/email");
+            int files = 0, insertions = 0, deletions = 0;
+            String summary = "", patch = "";
+            try {
+                String[] lines = StringUtils.split(patchContent, "\n");
+                String starts = "From " + currentCommit;
+                int mark = 0;
+                StringBuilder sb = new StringBuilder();
+                for (String line : lines) {
+                    if (line.startsWith(starts)) {
+                        mark = 1;
+                        continue;
+                    }
+                    if (mark == 1 && line.startsWith("---")) {
+                        mark = 2;
+                        continue;
+                    }
+                    if (mark != 2) {
+                        continue;
+                    }
+                    if (mark == 2 && line.startsWith("diff ")) {
+                        break;
+                    }
+                    sb.append(line).append("\n");
+                    if (line.indexOf(" file changed") > 0 && (line.indexOf(" insertions") > 0 || line.indexOf(" deletions") > 0)) {
+                        String[] counts = StringUtils.split(line, ",");
+                        for (String count : counts) {
+                            if (count.indexOf("file changed") > 0) {
+                                files = NumberHelper.getInt(StringUtils.substringBefore(count, "file changed").trim(), 0);
+                            } else if (count.indexOf(" insertions") > 0) {
+                                insertions = NumberHelper.getInt(StringUtils.substringBefore(count, " insertions").trim(), 0);
+                            } else if (count.indexOf(" deletions") > 0) {
+                                deletions = NumberHelper.getInt(StringUtils.substringBefore(count, " deletions").trim(), 0);
                             }
                         }
                     }
-                    summary = sb.toString().trim();
-                } catch (Exception e) {
-                    System.err.println("Warning " + e.getMessage());
                 }
-                {// create patch information.
-                    PatchHelper.PatchInfo patchInfo = new PatchHelper.PatchInfo()
-                            .commitIndex(commitIndex)
-                            .commitTotal(commitTotal)
-                            .startCommit(parentCommit)
-                            .endCommit(currentCommit)
-                            .shortMsg(shortMsg)
-                            .msg(msg)
-                            .author(author)
-                            .email(email)
-                            .files(files)
-                            .insertions(insertions)
-                            .deletions(deletions)
-                            .summary(summary)
-                            .patch(patch);
-                    summaryInfo.patchs().add(patchInfo);
+                summary = sb.toString().trim();
+            } catch (Exception e) {
+                System.err.println("Warning " + e.getMessage());
+            }
+            {// create patch information.
+                PatchHelper.PatchInfo patchInfo = new PatchHelper.PatchInfo()
+                        .commitIndex(commitIndex)
+                        .commitTotal(commitTotal)
+                        .startCommit(parentCommit)
+                        .endCommit(currentCommit)
+                        .shortMsg(shortMsg)
+                        .msg(msg)
+                        .author(author)
+                        .email(email)
+                        .files(files)
+                        .insertions(insertions)
+                        .deletions(deletions)
+                        .summary(summary)
+                        .patch(patch);
+                summaryInfo.patchs().add(patchInfo);
+            }
+        }
+        return summaryInfo;
+    }
+
+    /**
+     * list the open pull requests page by page.
+     *
+     * @param pullUrl   the pull request api url without the query.
+     * @param maxPrSize max pull request to list, list all if maxPrSize=0.
+     * @return null if the first page can not be fetched.
+     */
+    protected List<Map<String, Object>> listPullRequests(String pullUrl, int maxPrSize) {
+        List<Map<String, Object>> pulls = new ArrayList<>();
+        int perPage = maxPrSize < 1 ? MAX_PER_PAGE : Math.min(MAX_PER_PAGE, maxPrSize);
+        for (int page = 1; ; page++) {
+            String pageUrl = pullUrl + "?per_page=" + perPage + "&page=" + page;
+            List<Map<String, Object>> list = null;
+            try {
+                list = GsonHelper.toJsonList(httpGet2(pageUrl, "Try fetch pull request for {times} times, url {url}."));
+            } catch (Exception e) {
+                System.err.println("Can not parse pull request list: " + pageUrl + ", " + e.getMessage());
+            }
+            if (list == null) {
+                return page == 1 ? null : pulls;
+            }
+            for (Map<String, Object> pull : list) {
+                if (maxPrSize > 0 && pulls.size() >= maxPrSize) {
+                    break;
+                }
+                pulls.add(pull);
+            }
+            System.out.println("Listed pull request page " + page + ", total " + pulls.size() + ".");
+            if (list.size() < perPage || (maxPrSize > 0 && pulls.size() >= maxPrSize)) {
+                return pulls;
+            }
+        }
+    }
+
+    /**
+     * fetch the pull requests concurrently, the fetched pull request is saved as a checkpoint and not fetched again.
+     *
+     * @param checkpoint the checkpoint of the migration.
+     * @param pulls      the listed pull requests.
+     * @param fetcher    fetch the patch and the commits of one pull request, and log it.
+     * @return the summaries in the order of the pull requests.
+     */
+    protected List<PatchHelper.PatchSummaryInfo> fetchPullRequests(MigrateCheckpoint checkpoint, List<Map<String, Object>> pulls, final PullRequestFetcher fetcher) throws Exception {
+        final File checkpointDir = checkpoint.pullRequestDir();
+        checkpointDir.mkdirs();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency(), pulls.size())), ThreadHelper.daemonThreadFactory("hit-migrate-fetch"));
+        try {
+            List<Future<PatchHelper.PatchSummaryInfo>> futures = new ArrayList<>(pulls.size());
+            for (final Map<String, Object> pull : pulls) {
+                futures.add(executor.submit(new Callable<PatchHelper.PatchSummaryInfo>() {
+                    public PatchHelper.PatchSummaryInfo call() throws Exception {
+                        File checkpointFile = new File(checkpointDir, pullRequestNumber(pull) + ".ser");
+                        PatchHelper.PatchSummaryInfo summaryInfo = readCheckpoint(checkpointFile);
+                        if (summaryInfo != null) {
+                            System.out.println("Fetched pull request from checkpoint:" + pull.get("url"));
+                            return summaryInfo;
+                        }
+                        summaryInfo = fetcher.fetch(pull);
+                        if (summaryInfo != null) {
+                            writeCheckpoint(checkpointFile, summaryInfo);
+                        }
+                        return summaryInfo;
+                    }
+                }));
+            }
+            List<PatchHelper.PatchSummaryInfo> summaryInfos = new ArrayList<>(pulls.size());
+            for (Future<PatchHelper.PatchSummaryInfo> future : futures) {
+                PatchHelper.PatchSummaryInfo summaryInfo = future.get();
+                if (summaryInfo != null) {
+                    summaryInfos.add(summaryInfo);
                 }
             }
+            return summaryInfos;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
+    }
+
+    /**
+     * write the patches and the summary information to the pullrequest_fetch directory.
+     *
+     * @param repo
+     * @param summaryInfos
+     * @throws Exception
+     */
+    protected void writePullRequestFetch(Repository repo, List<PatchHelper.PatchSummaryInfo> summaryInfos) throws Exception {
         String url = null, author = null;
         {
             Config config = repo.getConfig();
@@ -537,7 +697,7 @@ protected List<PatchHelper.PatchSummaryInfo> fetchPullRequestFromGiteeServer(Rep
         }
         {
             File pullRequestFetch = new File(repo.getDirectory(), "pullrequest_fetch");
-            pullRequestFetch.mkdir();
+            pullRequestFetch.mkdirs();
             List<Map<String, Object>> summaries = new ArrayList<>();
             for (PatchHelper.PatchSummaryInfo psi : summaryInfos) {
                 Map<String, Object> format = PatchHelper.format(psi, url, author, HitHelper.getAccountAddress(), HitHelper.getRsaPubKey());
@@ -547,54 +707,142 @@ protected List<PatchHelper.PatchSummaryInfo> fetchPullRequestFromGiteeServer(Rep
             String json = new GsonBuilder().setPrettyPrinting().setDateFormat("EEE, dd MMM yyyy HH:mm:ss Z").create().toJson(summaries);
             FileUtils.writeStringToFile(new File(pullRequestFetch, "patch-summary-info.json"), json);
         }
-        return summaryInfos;
     }
 
+    protected static String pullRequestNumber(Map<String, Object> pull) {
+        Object number = pull.get("number");
+        if (number instanceof Number) {
+            return String.valueOf(((Number) number).longValue());
+        }
+        return GitHelper.sha1(ByteHelper.utf8(String.valueOf(pull.get("url"))));
+    }
+
+    protected static PatchHelper.PatchSummaryInfo readCheckpoint(File checkpoint) {
+        if (!checkpoint.isFile()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(checkpoint))) {
+            return (PatchHelper.PatchSummaryInfo) in.readObject();
+        } catch (Exception e) {// the broken checkpoint is fetched again.
+            return null;
+        }
+    }
+
+    protected static void writeCheckpoint(File checkpoint, PatchHelper.PatchSummaryInfo summaryInfo) throws IOException {
+        File tmp = new File(checkpoint.getParentFile(), checkpoint.getName() + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp))) {
+            out.writeObject(summaryInfo);
+        }
+        Files.move(tmp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * http get with retry, the request waits if the rate limit is exceeded.
+     * <pre>
+     * #1.The X-RateLimit-Remaining and X-RateLimit-Reset (github) or Retry-After headers are observed.
+     * #2.If the remaining is 0 or the request is limited (403/429), all the requests wait until the reset time.
+     * #3.The requests share the pooled connections of HttpRequestHelper, the concurrent fetches reuse the kept alive connections.
+     * </pre>
+     */
     protected String httpGet2(String requestUrl, String tryMessage) {
-        String content = "";
+        String content = httpGet2(requestUrl, tryMessage, new HttpRequestHelper.BodyReader<String>() {
+            public String read(HttpRequestHelper.StreamResult result) throws IOException {
+                return result.getBodyAsString();
+            }
+        });
+        return content == null ? "" : content;
+    }
+
+    /**
+     * http get with retry, the body of the 200 response is read by the reader from the stream.
+     *
+     * @return the result of the reader, or null if the request fails.
+     */
+    protected <T> T httpGet2(String requestUrl, String tryMessage, HttpRequestHelper.BodyReader<T> reader) {
+        Map<String, String> header = new HashMap<>();
+        header.put("Accept", "*/*");
+        header.put("User-Agent", "hit/1.0.0");
         String token = System.getProperty(PROP_TOKEN, "");
+        if (StringUtils.isNotBlank(token)) {
+            header.put("Authorization", "token " + token);
+        }
         for (int i = 0; i < 3; i++) {
             if (tryMessage != null && i > 0) {
                 System.out.println(FCS.get(tryMessage, i, requestUrl));
             }
-            HttpURLConnection connection = null;
-            try {
-                URL url = new URL(requestUrl);
-                {
-                    connection = (HttpURLConnection) url.openConnection();
-                    connection.setRequestMethod("GET");
-                    //connection.setDoOutput(true);
-                    //connection.setDoInput(true);
-                    connection.setInstanceFollowRedirects(true);
-                    connection.setRequestProperty("Charset", "UTF-8");
-                    connection.setRequestProperty("Accept", "*/*");
-                    connection.setRequestProperty("User-Agent", "hit/1.0.0");
-                    if (StringUtils.isNotBlank(token)) {
-                        connection.setRequestProperty("Authorization", "token " + token);
-                    }
-                    connection.setConnectTimeout(30 * 1000);
-                    connection.setReadTimeout(60 * 1000);
-                    connection.connect();
+            waitRateLimit();
+            try (HttpRequestHelper.StreamResult result = HttpRequestHelper.stream(requestUrl, null, header)) {
+                int responseCode = result.getCode();
+                System.out.println(result.getStatus());
+                if (observeRateLimit(result, responseCode)) {
+                    i--;// the limited request does not count as a try.
+                    continue;
                 }
-                int responseCode = connection.getResponseCode();
-                String responseMessage = connection.getResponseMessage();
-                System.out.println(responseCode + " " + responseMessage);
-                content = IOUtils.toString(connection.getInputStream(), "UTF-8");
                 if (responseCode == 200) {
-                    return content;
+                    return reader.read(result);
                 }
-            } catch (Exception e) {
-            } finally {
-                try {
-                    connection.disconnect();
-                } catch (Exception e) {
+                if (responseCode >= 400 && responseCode < 500) {// the client error is not changed by a retry.
+                    return null;
                 }
+            } catch (Exception e) {
+                System.err.println("Can not fetch " + requestUrl + ", " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the request is limited and should be sent again after the reset time.
+     */
+    protected boolean observeRateLimit(HttpRequestHelper.StreamResult result, int responseCode) {
+        long now = System.currentTimeMillis(), resetAt = 0;
+        String remaining = result.getHeader("X-RateLimit-Remaining");
+        String reset = result.getHeader("X-RateLimit-Reset");
+        String retryAfter = result.getHeader("Retry-After");
+        if ("0".equals(StringUtils.trim(remaining)) && NumberHelper.getLong(reset, 0L) > 0) {
+            resetAt = NumberHelper.getLong(reset, 0L) * 1000;
+        }
+        if ((responseCode == 403 || responseCode == 429) && NumberHelper.getLong(retryAfter, 0L) > 0) {
+            resetAt = Math.max(resetAt, now + NumberHelper.getLong(retryAfter, 0L) * 1000);
+        }
+        if (resetAt <= now) {
+            return false;
+        }
+        resetAt = Math.min(resetAt, now + MAX_RATE_LIMIT_WAIT_MILLIS);
+        synchronized (this) {
+            if (resetAt > rateLimitResetAt) {
+                rateLimitResetAt = resetAt;
+                System.out.println("Rate limit exceeded, wait until " + new Date(resetAt) + ", use --token to raise the limit.");
             }
-            if (StringUtils.isNotBlank(content)) {
-                return content;
+        }
+        return responseCode == 403 || responseCode == 429;
+    }
+
+    protected void waitRateLimit() {
+        long wait;
+        while ((wait = rateLimitResetAt - System.currentTimeMillis()) > 0) {
+            try {
+                Thread.sleep(Math.min(wait, 10 * 1000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the rate limit.", e);
             }
         }
-        return content;
+    }
+
+    /**
+     * @return the work tree to clone, it is the key of the checkpoint.
+     */
+    protected File workTree() {
+        String workDir = System.getProperty("git_work_tree");
+        if (StringUtils.isNotBlank(workDir)) {
+            return new File(workDir).getAbsoluteFile();
+        }
+        try {// the same as the clone command.
+            return new File(new URIish(uri()).getHumanishName()).getAbsoluteFile();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException("uri is invalid: " + uri(), e);
+        }
     }
 
     public Hit hit() {
@@ -650,4 +898,113 @@ public MigrateCommand maxPrSize(int maxPrSize) {
         this.maxPrSize = maxPrSize;
         return this;
     }
+
+    public int concurrency() {
+        return concurrency;
+    }
+
+    public MigrateCommand concurrency(int concurrency) {
+        this.concurrency = concurrency < 1 ? DEFAULT_CONCURRENCY : concurrency;
+        return this;
+    }
+
+    /**
+     * fetch the patch and the commits of one pull request.
+     */
+    protected interface PullRequestFetcher {
+        /**
+         * @param pull the pull request of the list api.
+         * @return null if the patch can not be fetched.
+         */
+        PatchHelper.PatchSummaryInfo fetch(Map<String, Object> pull) throws Exception;
+    }
+
+    /**
+     * The progress of a migration, so the interrupted migration continues where it stopped.
+     * <pre>
+     * ==~/.hit/cache/migrate/sha1(work tree path)==
+     *     migrate.properties    the repository name and the done steps.
+     *     uploaded.properties   {commitName: ipfsHash} of the uploaded patches.
+     *     pulls/number.ser      the fetched pull requests.
+     * </pre>
+     */
+    protected static class MigrateCheckpoint {
+        public static final String STEP_CREATED = "created";
+        public static final String STEP_PUSHED = "pushed";
+        private final File workTree;
+        private final File dir;
+        private final Properties state = new Properties();
+        private final Properties uploaded = new Properties();
+
+        public MigrateCheckpoint(File workTree) {
+            this.workTree = workTree;
+            this.dir = new File(new File(new File(HitHelper.FILE_HIT_CONFIG).getParentFile(), "cache/migrate"),
+                    GitHelper.sha1(ByteHelper.utf8(workTree.getAbsolutePath())));
+            load(new File(dir, "migrate.properties"), state);
+            load(new File(dir, "uploaded.properties"), uploaded);
+        }
+
+        public File workTree() {
+            return workTree;
+        }
+
+        public File dir() {
+            return dir;
+        }
+
+        public File pullRequestDir() {
+            return new File(dir, "pulls");
+        }
+
+        public String repositoryName() {
+            return state.getProperty("repositoryName");
+        }
+
+        public synchronized void repositoryName(String repositoryName) throws IOException {
+            state.setProperty("repositoryName", repositoryName);
+            store(new File(dir, "migrate.properties"), state);
+        }
+
+        public boolean isDone(String step) {
+            return "true".equals(state.getProperty(step));
+        }
+
+        public synchronized void done(String step) throws IOException {
+            state.setProperty(step, "true");
+            store(new File(dir, "migrate.properties"), state);
+        }
+
+        public String uploaded(String commitName) {
+            return uploaded.getProperty(commitName);
+        }
+
+        public synchronized void uploaded(String commitName, String ipfsHash) throws IOException {
+            uploaded.setProperty(commitName, ipfsHash);
+            store(new File(dir, "uploaded.properties"), uploaded);
+        }
+
+        public void delete() {
+            FileUtils.deleteQuietly(dir);
+        }
+
+        private static void load(File file, Properties properties) {
+            if (!file.isFile()) {
+                return;
+            }
+            try (InputStream is = new FileInputStream(file)) {
+                properties.load(is);
+            } catch (IOException e) {
+                System.err.println("Can not read the migrate checkpoint: " + file + ", " + e.getMessage());
+            }
+        }
+
+        private static void store(File file, Properties properties) throws IOException {
+            FileUtils.forceMkdir(file.getParentFile());
+            File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+            try (OutputStream os = new FileOutputStream(tmp)) {
+                properties.store(os, null);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
 }
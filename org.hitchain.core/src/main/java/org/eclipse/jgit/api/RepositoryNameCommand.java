@@ -13,6 +13,7 @@
 import org.hitchain.contract.api.ContractApi;
 import org.hitchain.contract.api.HitRepositoryContractEthereumApi;
 import org.hitchain.contract.ethereum.HitRepositoryContractEthereumService;
+import org.hitchain.core.HitIPFSCache;
 import org.hitchain.core.HitURIish;
 import org.hitchain.hit.api.HashedFile;
 import org.hitchain.hit.api.ProjectInfoFile;
@@ -78,7 +79,7 @@ public String call() throws Exception {
             if (StringUtils.isBlank(ipfsHashAndSha1.first())) {
                 return null;
             }
-            byte[] cat = ipfs.cat(Multihash.fromBase58(ipfsHashAndSha1.first()));
+            byte[] cat = HitIPFSCache.cat(ipfs, Multihash.fromBase58(ipfsHashAndSha1.first()));
             ProjectInfoFile projectInfoFile = ProjectInfoFile.fromFile(
                     new HashedFile.FileWrapper(GitHelper.HIT_PROJECT_INFO,
                             new HashedFile.ByteArrayInputStreamCallback(cat)));
@@ -8,12 +8,15 @@
 package org.eclipse.jgit.api;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.DateFormatUtils;
 import org.hitchain.contract.api.HitRepositoryContractEthereumApi;
 import org.hitchain.contract.ethereum.HitRepositoryContractEthereumService;
 import org.hitchain.hit.util.HitHelper;
 import org.iff.infra.util.Tuple;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -136,6 +139,39 @@ public int readId(BigInteger hash) {
         return api.readIdByHash(fromAddress(), contractAddress(), hash);
     }
 
+    /**
+     * Get repository ids by names in one request.
+     *
+     * @param repositories repository names
+     * @return repository ids in the order of the names
+     */
+    public List<Integer> readIds(List<String> repositories) {
+        return api.readIdsByName(fromAddress(), contractAddress(), repositories);
+    }
+
+    /**
+     * Get the first repository name which does not exist, the candidates are suffixed by the time of now, now + 1s, ...
+     * and checked in one request.
+     *
+     * @param repository repository name
+     * @param count      the number of candidates
+     * @return the new repository name, or null if all the candidates exist
+     */
+    public String newRepositoryName(String repository, int count) {
+        long now = System.currentTimeMillis();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(repository + "-" + DateFormatUtils.format(new Date(now + i * 1000L), "yyyyMMddHHmmss"));
+        }
+        List<Integer> ids = readIds(names);
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) < 1) {
+                return names.get(i);
+            }
+        }
+        return null;
+    }
+
     /**
      * Get repository name by hitUri.
      *
@@ -149,7 +185,8 @@ public String repositoryName(String hitUri) {
      * Get repository url by hitUri.
      */
     public String readUrl(String hitUri) {
-        return api.readUrlById(fromAddress(), contractAddress(hitUri), repositoryId(hitUri));
+        // the repository name is read in the same request and cached for repositoryName(hitUri).
+        return api.readRepositoryAndUrlById(fromAddress(), contractAddress(hitUri), repositoryId(hitUri)).second();
     }
 
     //================================================================================
@@ -87,10 +87,15 @@ public Collection<String> getPackNames() throws IOException {
     }
 
     public FileStream open(String path) throws IOException {
-        byte[] bs = hit.get(resolvePath(path));
-        bs = bs == null ? new byte[0] : bs;
-        int len = bs.length;
-        return new FileStream(new ByteArrayInputStream(bs), len);
+        return new FileStream(hit.open(resolvePath(path)));
+    }
+
+    void prefetch(Collection<String> paths) {
+        List<String> filePaths = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            filePaths.add(resolvePath(path));
+        }
+        hit.prefetch(filePaths);
     }
 
 
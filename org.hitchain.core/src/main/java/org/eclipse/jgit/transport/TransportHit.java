@@ -45,15 +45,25 @@
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.errors.NotSupportedException;
 import org.eclipse.jgit.errors.TransportException;
-import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.PackFile;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.ObjectWalk;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.hitchain.core.HitIPFSFetcher;
 import org.hitchain.core.HitIPFSStorage;
+import org.hitchain.hit.util.AESHelper;
 import org.hitchain.hit.util.GitHelper;
 import org.hitchain.hit.util.Tuple.Two;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 
 /**
@@ -87,10 +97,37 @@ public class TransportHit extends HttpTransport implements WalkTransport {
     // hits://contract-entrance/contract-address.git
     // hit://contract-address.git
     public static String HIT_SCHEME = "hit";
+    /**
+     * git config: [hit] fetchConcurrency = 16, the max number of ipfs requests in flight when fetching.
+     */
+    public static final String CONFIG_SECTION_HIT = "hit";
+    public static final String CONFIG_KEY_FETCH_CONCURRENCY = "fetchConcurrency";
+    /**
+     * git config: [hit] pushConcurrency = 16, the max number of ipfs uploads in flight when pushing.
+     */
+    public static final String CONFIG_KEY_PUSH_CONCURRENCY = "pushConcurrency";
+    /**
+     * git config: [hit] storage = loose|pack, how the pushed objects are stored in ipfs.
+     * <pre>
+     * loose: every object of the pushed range is uploaded as objects/xx/xxxx, the fetch downloads the objects one by one.
+     * pack:  the pushed range is uploaded as one pack and idx, the fetch downloads the whole packs.
+     * </pre>
+     */
+    public static final String CONFIG_KEY_STORAGE = "storage";
+    public static final String STORAGE_LOOSE = "loose";
+    public static final String STORAGE_PACK = "pack";
     /**
      * User information necessary to connect to hit.
      */
     protected HitIPFSStorage hit;
+    /**
+     * the refs of the hit repository before push.
+     */
+    private Map<String, Ref> remoteRefs;
+    /**
+     * the new object ids of the pushed refs.
+     */
+    private final Set<ObjectId> pushedObjectIds = new HashSet<>();
 
     protected TransportHit(Repository local, URIish uri) throws NotSupportedException {
         super(local, uri);
@@ -99,21 +136,148 @@ protected TransportHit(Repository local, URIish uri) throws NotSupportedExceptio
     }
 
     /**
-     * list git files.
+     * list the object files of the pushed range which are not in the hit repository.
+     * <pre>
+     * #1.Walk the objects from the pushed refs (or all local refs if nothing is pushed) to the refs of the hit repository.
+     * #2.The loose object is uploaded as objects/xx/xxxx.
+     * #3.The packed object is in the pack which is written by the push, or else the local pack which contains it is uploaded.
+     * </pre>
      *
-     * @param projectDir
+     * @param gitFileIndex         the files in the hit repository.
+     * @param uploadedGitFileIndex the files uploaded by this transport.
      * @return {relativePath/fileName: File}
+     * @throws IOException
+     */
+    private Map<String/* relativePath */, File> listPushedObjectsFiles(Map<String, Two<Object, String, String>> gitFileIndex,
+                                                                      Map<String, Two<Object, String, String>> uploadedGitFileIndex) throws IOException {
+        File projectDir = local.getDirectory();
+        boolean packPushed = isPackPushed(uploadedGitFileIndex);
+        Map<String, File> files = new LinkedHashMap<>();
+        Set<PackFile> packs = new HashSet<>();
+        try (ObjectWalk walk = new ObjectWalk(local)) {
+            for (ObjectId id : listPushedStarts()) {
+                walk.markStart(walk.parseAny(id));
+            }
+            for (ObjectId id : listRemoteHaves()) {
+                try {
+                    walk.markUninteresting(walk.parseAny(id));
+                } catch (MissingObjectException e) {
+                    // the local repository does not have it, so it is not in the pushed range.
+                }
+            }
+            List<RevObject> objects = new ArrayList<>();
+            for (RevObject o; (o = walk.next()) != null; ) {
+                objects.add(o);
+            }
+            for (RevObject o; (o = walk.nextObject()) != null; ) {
+                objects.add(o);
+            }
+            for (RevObject o : objects) {
+                String name = o.name();
+                String filePath = "objects/" + name.substring(0, 2) + "/" + name.substring(2);
+                if (gitFileIndex.containsKey(filePath) || uploadedGitFileIndex.containsKey(filePath)) {
+                    continue;
+                }
+                File file = new File(projectDir, filePath);
+                if (file.isFile()) {
+                    files.put(filePath, file);
+                } else if (!packPushed && local.getObjectDatabase() instanceof ObjectDirectory) {
+                    for (PackFile pack : ((ObjectDirectory) local.getObjectDatabase()).getPacks()) {
+                        if (!packs.contains(pack) && pack.hasObject(o)) {
+                            packs.add(pack);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        for (PackFile pack : packs) {
+            File packFile = pack.getPackFile();
+            String packName = packFile.getName();
+            File idxFile = new File(packFile.getParentFile(), packName.substring(0, packName.length() - 5) + ".idx");
+            for (File file : new File[]{packFile, idxFile}) {
+                String filePath = "objects/pack/" + file.getName();
+                if (!gitFileIndex.containsKey(filePath) && !uploadedGitFileIndex.containsKey(filePath)) {
+                    files.put(filePath, file);
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @param uploadedGitFileIndex
+     * @return true if the walk push connection has uploaded the pack of the pushed range.
+     */
+    private static boolean isPackPushed(Map<String, Two<Object, String, String>> uploadedGitFileIndex) {
+        for (String filePath : uploadedGitFileIndex.keySet()) {
+            if (filePath.startsWith("objects/pack/") && filePath.endsWith(".pack")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the new object ids of the pushed refs, or all the local refs if nothing is pushed (pull request).
+     * @throws IOException
+     */
+    private Collection<ObjectId> listPushedStarts() throws IOException {
+        Collection<ObjectId> starts = new ArrayList<>(pushedObjectIds);
+        if (starts.isEmpty()) {
+            for (Ref ref : local.getRefDatabase().getRefs()) {
+                if (ref.getObjectId() != null) {
+                    starts.add(ref.getObjectId());
+                }
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * @return the object ids of the hit repository refs before push.
+     * @throws IOException
      */
-    private static Map<String/* relativePath */, File> listGitObjectsFiles(File projectDir) {
-        String basePath = projectDir.getAbsolutePath();
-        Collection<File> files = FileUtils.listFiles(new File(projectDir, "objects"), null, true);
-        Map<String, File> map = new HashMap<>();
-        for (File file : files) {
-            if (file.isFile()) {
-                map.put(file.getAbsolutePath().substring(basePath.length() + 1), file);
+    private Set<ObjectId> listRemoteHaves() throws IOException {
+        if (remoteRefs == null) {
+            remoteRefs = new HitIPFSDatabase(hit).readAdvertisedRefs();
+        }
+        Set<ObjectId> haves = new HashSet<>();
+        for (Ref ref : remoteRefs.values()) {
+            if (ref.getObjectId() != null) {
+                haves.add(ref.getObjectId());
+            }
+            if (ref.getPeeledObjectId() != null) {
+                haves.add(ref.getPeeledObjectId());
+            }
+        }
+        return haves;
+    }
+
+    /**
+     * upload the pushed range as one pack and idx, the same as the pack written by the walk push connection.
+     *
+     * @throws IOException
+     */
+    private void uploadPushedPack() throws IOException {
+        try (PackWriter writer = new PackWriter(getPackConfig(), local.newObjectReader())) {
+            writer.preparePack(NullProgressMonitor.INSTANCE, new HashSet<>(listPushedStarts()), listRemoteHaves());
+            if (writer.getObjectCount() == 0) {
+                return;// the hit repository has all the objects.
+            }
+            String base = "pack-" + writer.computeName().name();
+            if (hit.getGitFileIndex().containsKey("objects/pack/" + base + ".pack")) {
+                return;
+            }
+            HitIPFSDatabase dest = new HitIPFSDatabase(hit);
+            // Write the pack file, then the index, as readers look the other direction (index, then pack file).
+            try (OutputStream os = new BufferedOutputStream(dest.writeFile("pack/" + base + ".pack", null, null))) {
+                writer.writePack(NullProgressMonitor.INSTANCE, NullProgressMonitor.INSTANCE, os);
+            }
+            try (OutputStream os = new BufferedOutputStream(dest.writeFile("pack/" + base + ".idx", null, null))) {
+                writer.writeIndex(os);
             }
         }
-        return map;
     }
 
     /**
@@ -123,6 +287,10 @@ public FetchConnection openFetch() throws TransportException {
         HitIPFSDatabase c = new HitIPFSDatabase(hit);
         WalkFetchConnection r = new WalkFetchConnection(this, c);
         r.available(c.readAdvertisedRefs());
+        {// the walk fetch hints the files it needs, they are downloaded concurrently and taken when the walk opens them.
+            int concurrency = local.getConfig().getInt(CONFIG_SECTION_HIT, CONFIG_KEY_FETCH_CONCURRENCY, HitIPFSFetcher.DEFAULT_CONCURRENCY);
+            hit.startPrefetch(concurrency);
+        }
         return r;
     }
 
@@ -132,15 +300,43 @@ public FetchConnection openFetch() throws TransportException {
     public PushConnection openPush() throws TransportException {
         HitIPFSDatabase c = new HitIPFSDatabase(hit);
         WalkPushConnection r = new WalkPushConnection(this, c);
-        r.available(c.readAdvertisedRefs());
+        remoteRefs = c.readAdvertisedRefs();
+        r.available(remoteRefs);
         return r;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Record the pushed objects, the close method uploads the objects of the pushed range only.
+     */
+    public PushResult push(ProgressMonitor monitor, Collection<RemoteRefUpdate> toPush, OutputStream out) throws NotSupportedException, TransportException {
+        PushResult result = super.push(monitor, toPush, out);
+        for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+            if (update.getStatus() == RemoteRefUpdate.Status.OK && !update.isDelete()) {
+                pushedObjectIds.add(update.getNewObjectId());
+            }
+        }
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void close() {
         // No explicit connections are maintained.
+        try {
+            updateRemote();
+        } finally {
+            // the repository keys are used to read and upload the files above, zero them at last.
+            hit.close();
+        }
+    }
+
+    /**
+     * update the local hit files, upload the pushed objects and the gitfile.idx.
+     */
+    private void updateRemote() {
         updateHitFile();
         //updateOriginAfterInitPush();
         Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> uploadedGitFileIndex = hit.getUploadedGitFileIndex();
@@ -150,21 +346,19 @@ public void close() {
         }
         File projectDir = local.getDirectory();
         Map<String, Two<Object, String, String>> gitFileIndex = hit.getGitFileIndex();
-        {// upload missing objects.
-            Map<String, File> objects = listGitObjectsFiles(projectDir);
-            for (Map.Entry<String, File> entry : objects.entrySet()) {
-                if (uploadedGitFileIndex.containsKey(entry.getKey())) {
-                    continue;
-                }
-                if (gitFileIndex.containsKey(entry.getKey())) {
-                    continue;
-                }
-                try {
-                    hit.put(entry.getKey(), FileUtils.readFileToByteArray(entry.getValue()));
-                    //System.out.println("Upload missing objects:" + entry.getKey());
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
+        {// upload the missing objects of the pushed range.
+            try {
+                if (STORAGE_PACK.equals(local.getConfig().getString(CONFIG_SECTION_HIT, null, CONFIG_KEY_STORAGE))) {
+                    if (!isPackPushed(uploadedGitFileIndex)) {
+                        uploadPushedPack();
+                    }
+                } else {
+                    Map<String, File> objects = listPushedObjectsFiles(gitFileIndex, uploadedGitFileIndex);
+                    int concurrency = local.getConfig().getInt(CONFIG_SECTION_HIT, CONFIG_KEY_PUSH_CONCURRENCY, HitIPFSFetcher.DEFAULT_CONCURRENCY);
+                    hit.putAll(objects, concurrency);
                 }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
         }
         uploadedGitFileIndex = hit.getUploadedGitFileIndex();
@@ -178,14 +372,14 @@ public void close() {
             // Write to ipfs and update the repository address.
             GitHelper.updateHitRepositoryGitFileIndex(projectDir, hit.getProjectInfoFile(), gitFileIndex, uploadedGitFileIndex);
         }
+        AESHelper.clearDataKeys();// the next push uses a new data key.
     }
 
     private void updateHitFile() {
         try {
             {
-                byte[] bytes = hit.get(GitHelper.HIT_GITFILE_IDX);
-                File projectDir = local.getDirectory();
-                FileUtils.writeByteArrayToFile(new File(projectDir, GitHelper.HIT_GITFILE_IDX), bytes);
+                // the remote index may be a delta segment, write the flattened index which is already read.
+                GitHelper.writeGitFileIndexToLocal(local.getDirectory(), hit.getGitFileIndex());
                 System.out.println("Update " + GitHelper.HIT_GITFILE_IDX);
             }
             {
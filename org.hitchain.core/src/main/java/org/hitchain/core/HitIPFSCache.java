@@ -0,0 +1,489 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.core;
+
+import io.ipfs.api.IPFS;
+import io.ipfs.multihash.Multihash;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.hitchain.hit.util.HitHelper;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local content-addressed cache of ipfs files.
+ * <pre>
+ * ==~/.hit/cache/ipfs==
+ *     Qm/Qmxxxxxxxx (the file name is the ipfs hash, the content is the raw ipfs content)
+ * #1.The ipfs hash is immutable, so the cached file never needs invalidation.
+ * #2.The file is written to a temporary file and renamed when the download is completed.
+ * #3.The last modified time is the access time, the least recently used files are evicted when the size is over the limit.
+ * #4.The downloaded content is hashed as "ipfs add" does (256K chunks, balanced dag, 174 links), the temporary file is
+ *    deleted instead of cached if the hash is not the requested one, only the "Qm" (CIDv0) hashes are cached.
+ * ==system properties==
+ *     hit.ipfs.cache=false           disable the cache.
+ *     hit.ipfs.cache.dir=path        the cache directory.
+ *     hit.ipfs.cache.maxSize=bytes   the max size of the cache, default is 1G.
+ * </pre>
+ * The cached content is the same as the ipfs content, the files of a private repository are stored encrypted.
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class HitIPFSCache {
+
+    public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+    private static final String TMP_PREFIX = "tmp-";
+    private static final String CID_V0_PREFIX = "Qm";
+    private static volatile HitIPFSCache defaultCache;
+
+    private final File dir;
+    private final long maxSize;
+    private final AtomicLong size = new AtomicLong(-1);
+
+    /**
+     * the source of the content if the cache is missed.
+     */
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    public HitIPFSCache(File dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize < 1 ? DEFAULT_MAX_SIZE : maxSize;
+    }
+
+    /**
+     * return the user's cache, or null if the cache is disabled.
+     *
+     * @return
+     */
+    public static HitIPFSCache getDefault() {
+        if ("false".equalsIgnoreCase(System.getProperty("hit.ipfs.cache"))) {
+            return null;
+        }
+        if (defaultCache == null) {
+            synchronized (HitIPFSCache.class) {
+                if (defaultCache == null) {
+                    String path = System.getProperty("hit.ipfs.cache.dir");
+                    File dir = StringUtils.isBlank(path)
+                            ? new File(new File(HitHelper.FILE_HIT_CONFIG).getParentFile(), "cache/ipfs")
+                            : new File(path);
+                    long maxSize = DEFAULT_MAX_SIZE;
+                    try {
+                        maxSize = Long.parseLong(System.getProperty("hit.ipfs.cache.maxSize", String.valueOf(DEFAULT_MAX_SIZE)));
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid hit.ipfs.cache.maxSize, use default: " + DEFAULT_MAX_SIZE);
+                    }
+                    defaultCache = new HitIPFSCache(dir, maxSize);
+                }
+            }
+        }
+        return defaultCache;
+    }
+
+    /**
+     * cat the ipfs file by the user's cache.
+     *
+     * @param ipfs
+     * @param hash
+     * @return
+     * @throws IOException
+     */
+    public static byte[] cat(IPFS ipfs, Multihash hash) throws IOException {
+        try (InputStream is = catStream(ipfs, hash)) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    /**
+     * cat the ipfs file stream by the user's cache.
+     *
+     * @param ipfs
+     * @param hash
+     * @return
+     * @throws IOException
+     */
+    public static InputStream catStream(IPFS ipfs, Multihash hash) throws IOException {
+        HitIPFSCache cache = getDefault();
+        if (cache == null) {
+            return ipfs.catStream(hash);
+        }
+        return cache.open(hash.toBase58(), new Source() {
+            public InputStream open() throws IOException {
+                return ipfs.catStream(hash);
+            }
+        });
+    }
+
+    /**
+     * open the cached content, or read from the source and cache it when the stream is read to the end.
+     *
+     * @param hash   ipfs hash.
+     * @param source the source of the content.
+     * @return
+     * @throws IOException
+     */
+    public InputStream open(String hash, Source source) throws IOException {
+        File file = toFile(hash);
+        if (file != null && file.isFile()) {
+            try {
+                InputStream is = new FileInputStream(file);
+                file.setLastModified(System.currentTimeMillis());
+                return is;
+            } catch (FileNotFoundException e) {
+                // evicted by other process.
+            }
+        }
+        InputStream in = source.open();
+        if (file == null || !hash.startsWith(CID_V0_PREFIX)) {
+            return in;// can not verify the content.
+        }
+        File tmp;
+        try {
+            FileUtils.forceMkdir(dir);
+            tmp = File.createTempFile(TMP_PREFIX, null, dir);
+        } catch (IOException e) {
+            return in;// the cache directory is not writable.
+        }
+        return new CachingInputStream(in, tmp, file, hash);
+    }
+
+    /**
+     * @param hash
+     * @return true if the content is cached.
+     */
+    public boolean contains(String hash) {
+        File file = toFile(hash);
+        return file != null && file.isFile();
+    }
+
+    /**
+     * @return the cached size in bytes.
+     */
+    public long size() {
+        long current = size.get();
+        if (current < 0) {
+            long total = 0;
+            for (File file : listFiles()) {
+                total += file.length();
+            }
+            size.compareAndSet(current, total);
+            current = size.get();
+        }
+        return current;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * evict the least recently used files until the size is less than 90% of the max size.
+     */
+    public synchronized void evict() {
+        List<File> files = listFiles();
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total > maxSize) {
+            final long lowWater = maxSize / 10 * 9;
+            Collections.sort(files, new Comparator<File>() {
+                public int compare(File o1, File o2) {
+                    return Long.compare(o1.lastModified(), o2.lastModified());
+                }
+            });
+            for (File file : files) {
+                if (total <= lowWater) {
+                    break;
+                }
+                long length = file.length();
+                if (file.delete()) {
+                    total -= length;
+                }
+            }
+        }
+        size.set(total);
+    }
+
+    protected File toFile(String hash) {
+        if (StringUtils.isBlank(hash) || hash.length() < 3 || !StringUtils.isAlphanumeric(hash)) {
+            return null;
+        }
+        return new File(new File(dir, hash.substring(0, 2)), hash);
+    }
+
+    protected void commit(File tmp, File file, long length) {
+        size();// scan the current size before the file is added.
+        try {
+            FileUtils.forceMkdir(file.getParentFile());
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(tmp);
+            return;
+        }
+        if (size.addAndGet(length) > maxSize) {
+            evict();
+        }
+    }
+
+    private List<File> listFiles() {
+        List<File> list = new ArrayList<>();
+        if (!dir.isDirectory()) {
+            return list;
+        }
+        Collection<File> files = FileUtils.listFiles(dir, null, true);
+        for (File file : files) {
+            if (file.isFile() && !file.getName().startsWith(TMP_PREFIX)) {
+                list.add(file);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * copy the content to the temporary file while reading, and commit it to the cache when the end is reached.
+     */
+    private class CachingInputStream extends FilterInputStream {
+        private final File tmp;
+        private final File file;
+        private final String hash;
+        private final OutputStream out;
+        private final DagHasher hasher = new DagHasher();
+        private long length;
+        private boolean eof;
+        private boolean closed;
+
+        CachingInputStream(InputStream in, File tmp, File file, String hash) throws IOException {
+            super(in);
+            this.tmp = tmp;
+            this.file = file;
+            this.hash = hash;
+            this.out = new BufferedOutputStream(new FileOutputStream(tmp));
+        }
+
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                eof = true;
+            } else {
+                out.write(b);
+                hasher.update(new byte[]{(byte) b}, 0, 1);
+                length++;
+            }
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                eof = true;
+            } else if (n > 0) {
+                out.write(b, off, n);
+                hasher.update(b, off, n);
+                length += n;
+            }
+            return n;
+        }
+
+        public long skip(long n) throws IOException {
+            byte[] buf = new byte[(int) Math.min(8192, Math.max(0, n))];
+            long skipped = 0;
+            while (skipped < n) {
+                int r = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+                if (r < 0) {
+                    break;
+                }
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        public boolean markSupported() {
+            return false;
+        }
+
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                IOUtils.closeQuietly(out);
+                if (eof && hash.equals(hasher.digest())) {
+                    commit(tmp, file, length);
+                } else {
+                    FileUtils.deleteQuietly(tmp);// not completed or not the requested content.
+                }
+            }
+        }
+    }
+
+    /**
+     * compute the CIDv0 hash of a file content as "ipfs add" with the default options.
+     * <pre>
+     * #1.The leaf is a dag-pb node with the unixfs file data of a 256K chunk.
+     * #2.The parent links at most 174 children, the tree is filled from left to right until one root is left.
+     * #3.The dag-pb node encodes the links before the data, the link name is encoded even it is empty.
+     * </pre>
+     */
+    static class DagHasher {
+        static final int CHUNK_SIZE = 256 * 1024;
+        static final int MAX_LINKS = 174;
+        private final List<DagNode> leaves = new ArrayList<>();
+        private byte[] chunk;
+        private int chunkLength;
+
+        void update(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (chunk == null) {
+                    chunk = new byte[CHUNK_SIZE];
+                }
+                int n = Math.min(len, CHUNK_SIZE - chunkLength);
+                System.arraycopy(b, off, chunk, chunkLength, n);
+                chunkLength += n;
+                off += n;
+                len -= n;
+                if (chunkLength == CHUNK_SIZE) {
+                    addLeaf();
+                }
+            }
+        }
+
+        /**
+         * @return the base58 hash of the content.
+         */
+        String digest() {
+            if (chunkLength > 0 || leaves.isEmpty()) {
+                addLeaf();
+            }
+            List<DagNode> level = leaves;
+            while (level.size() > 1) {
+                List<DagNode> parents = new ArrayList<>();
+                for (int i = 0; i < level.size(); i += MAX_LINKS) {
+                    parents.add(DagNode.parent(level.subList(i, Math.min(level.size(), i + MAX_LINKS))));
+                }
+                level = parents;
+            }
+            return new Multihash(Multihash.Type.sha2_256, level.get(0).sha256).toBase58();
+        }
+
+        private void addLeaf() {
+            leaves.add(DagNode.leaf(chunk, chunkLength));
+            chunkLength = 0;
+        }
+    }
+
+    private static class DagNode {
+        final byte[] sha256;
+        final long fileSize;
+        final long cumulativeSize;
+
+        DagNode(byte[] node, long fileSize, long cumulativeSize) {
+            this.sha256 = sha256(node);
+            this.fileSize = fileSize;
+            this.cumulativeSize = cumulativeSize;
+        }
+
+        static DagNode leaf(byte[] chunk, int length) {
+            ByteArrayOutputStream unixfs = new ByteArrayOutputStream(length + 16);
+            writeVarint(unixfs, 1 << 3);// type = file.
+            writeVarint(unixfs, 2);
+            if (length > 0) {
+                writeVarint(unixfs, 2 << 3 | 2);// data.
+                writeVarint(unixfs, length);
+                unixfs.write(chunk, 0, length);
+            }
+            writeVarint(unixfs, 3 << 3);// filesize.
+            writeVarint(unixfs, length);
+            byte[] node = field(1, unixfs.toByteArray());
+            return new DagNode(node, length, node.length);
+        }
+
+        static DagNode parent(List<DagNode> children) {
+            ByteArrayOutputStream node = new ByteArrayOutputStream();
+            ByteArrayOutputStream unixfs = new ByteArrayOutputStream();
+            long fileSize = 0, cumulativeSize = 0;
+            for (DagNode child : children) {
+                ByteArrayOutputStream link = new ByteArrayOutputStream();
+                byte[] multihash = new byte[child.sha256.length + 2];
+                multihash[0] = 0x12;// sha2-256.
+                multihash[1] = (byte) child.sha256.length;
+                System.arraycopy(child.sha256, 0, multihash, 2, child.sha256.length);
+                write(link, field(1, multihash));// hash.
+                write(link, field(2, new byte[0]));// name.
+                writeVarint(link, 3 << 3);// tsize.
+                writeVarint(link, child.cumulativeSize);
+                write(node, field(2, link.toByteArray()));
+                fileSize += child.fileSize;
+                cumulativeSize += child.cumulativeSize;
+            }
+            writeVarint(unixfs, 1 << 3);// type = file.
+            writeVarint(unixfs, 2);
+            writeVarint(unixfs, 3 << 3);// filesize.
+            writeVarint(unixfs, fileSize);
+            for (DagNode child : children) {
+                writeVarint(unixfs, 4 << 3);// blocksizes.
+                writeVarint(unixfs, child.fileSize);
+            }
+            write(node, field(1, unixfs.toByteArray()));
+            byte[] bytes = node.toByteArray();
+            return new DagNode(bytes, fileSize, bytes.length + cumulativeSize);
+        }
+
+        private static byte[] field(int number, byte[] value) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(value.length + 6);
+            writeVarint(out, number << 3 | 2);
+            writeVarint(out, value.length);
+            write(out, value);
+            return out.toByteArray();
+        }
+
+        private static void write(ByteArrayOutputStream out, byte[] value) {
+            out.write(value, 0, value.length);
+        }
+
+        private static void writeVarint(ByteArrayOutputStream out, long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        private static byte[] sha256(byte[] node) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(node);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
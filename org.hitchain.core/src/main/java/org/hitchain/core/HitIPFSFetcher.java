@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.core;
+
+import org.hitchain.hit.util.ThreadHelper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prefetch the git files of a hit repository from ipfs concurrently.
+ * <pre>
+ * #1.The files are added while the walk finds them, the dispatcher takes them in order and keeps at most "concurrency"
+ *    requests in flight.
+ * #2.The ipfs cat runs on the network pool, the decryption runs on the cpu pool, so network and cpu overlap.
+ * #3.The finished contents are kept until they are taken, the dispatcher pauses when the buffer is full.
+ * #4.The file which is taken before it is dispatched is left to the caller to download directly.
+ * #5.A content which is not taken in "maxUntakenMillis" is dropped when the buffer is full, so the files the walk does not
+ *    open (found in a pack, or already local) do not hold the buffer, the caller downloads a dropped file directly.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class HitIPFSFetcher implements Closeable {
+
+    public static final int DEFAULT_CONCURRENCY = 16;
+    public static final long DEFAULT_MAX_BUFFERED_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_MAX_UNTAKEN_MILLIS = 30_000;
+
+    private final HitIPFSStorage storage;
+    private final int concurrency;
+    private final long maxBufferedBytes;
+    private final long maxUntakenMillis = DEFAULT_MAX_UNTAKEN_MILLIS;
+    private final Map<String/* filename */, Entry> entries = new ConcurrentHashMap<>();
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Semaphore window;
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Object bufferLock = new Object();
+    private final ExecutorService network;
+    private final ExecutorService cpu;
+    private Thread dispatcher;
+
+    public HitIPFSFetcher(HitIPFSStorage storage, int concurrency) {
+        this(storage, concurrency, DEFAULT_MAX_BUFFERED_BYTES);
+    }
+
+    public HitIPFSFetcher(HitIPFSStorage storage, int concurrency, long maxBufferedBytes) {
+        if (storage == null) {
+            throw new IllegalArgumentException("HitIPFSFetcher storage is required!");
+        }
+        this.storage = storage;
+        this.concurrency = concurrency < 1 ? DEFAULT_CONCURRENCY : concurrency;
+        this.maxBufferedBytes = maxBufferedBytes < 1 ? DEFAULT_MAX_BUFFERED_BYTES : maxBufferedBytes;
+        this.window = new Semaphore(this.concurrency);
+        this.network = Executors.newFixedThreadPool(this.concurrency, ThreadHelper.daemonThreadFactory("hit-ipfs-fetch"));
+        this.cpu = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), ThreadHelper.daemonThreadFactory("hit-ipfs-decrypt"));
+    }
+
+    /**
+     * start prefetch the files in the given order.
+     *
+     * @param filePaths file name with relative path.
+     */
+    public synchronized void start(Collection<String> filePaths) {
+        if (dispatcher != null) {
+            throw new IllegalStateException("HitIPFSFetcher is started!");
+        }
+        add(filePaths);
+        dispatcher = ThreadHelper.daemonThreadFactory("hit-ipfs-dispatch").newThread(this::dispatch);
+        dispatcher.start();
+    }
+
+    /**
+     * add the files to prefetch after the files added before, the files in the list or taken are skipped.
+     *
+     * @param filePaths file name with relative path.
+     */
+    public void add(Collection<String> filePaths) {
+        for (String filePath : filePaths) {
+            Entry entry = new Entry(filePath);
+            if (!closed.get() && entries.putIfAbsent(filePath, entry) == null) {
+                queue.add(entry);
+            }
+        }
+    }
+
+    /**
+     * take the prefetched file content.
+     *
+     * @param filePath file name with relative path.
+     * @return the decrypted content, or null if the file is not prefetched and should be downloaded by caller.
+     * @throws IOException
+     */
+    public byte[] take(String filePath) throws IOException {
+        Entry entry = entries.remove(filePath);
+        if (entry == null || entry.claimed.compareAndSet(false, true)) {
+            return null;// not in the prefetch list or not dispatched yet.
+        }
+        try {
+            byte[] content = entry.result.get();
+            release(content);
+            return content;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching: " + filePath, e);
+        } catch (ExecutionException e) {
+            return null;// download again by caller.
+        }
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        network.shutdownNow();
+        cpu.shutdownNow();
+        for (Entry entry : entries.values()) {
+            entry.result.cancel(false);
+        }
+        entries.clear();
+        synchronized (bufferLock) {
+            bufferLock.notifyAll();
+        }
+    }
+
+    protected void dispatch() {
+        try {
+            while (!closed.get()) {
+                final Entry entry = queue.take();
+                waitForBuffer();
+                window.acquire();
+                if (closed.get()) {
+                    window.release();
+                    return;
+                }
+                if (!entry.claimed.compareAndSet(false, true)) {
+                    window.release();// taken by caller.
+                    continue;
+                }
+                CompletableFuture.supplyAsync(() -> cat(entry.filePath), network)
+                        .thenApplyAsync(content -> decrypt(entry.filePath, content), cpu)
+                        .whenComplete((content, error) -> {
+                            window.release();
+                            if (error != null) {
+                                entry.result.completeExceptionally(error);
+                                return;
+                            }
+                            bufferedBytes.addAndGet(content.length);
+                            entry.completedAt = System.currentTimeMillis();
+                            entry.result.complete(content);
+                            if (closed.get()) {
+                                release(content);
+                            }
+                        });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            // closed.
+        }
+    }
+
+    private void waitForBuffer() throws InterruptedException {
+        synchronized (bufferLock) {
+            while (!closed.get() && bufferedBytes.get() > maxBufferedBytes && !dropUntaken()) {
+                bufferLock.wait(1000);
+            }
+        }
+    }
+
+    /**
+     * drop the contents which are not taken in time.
+     *
+     * @return true if any content is dropped.
+     */
+    private boolean dropUntaken() {
+        long expired = System.currentTimeMillis() - maxUntakenMillis;
+        boolean dropped = false;
+        for (Entry entry : entries.values()) {
+            byte[] content = entry.result.getNow(null);
+            if (content != null && entry.completedAt < expired && entries.remove(entry.filePath, entry)) {
+                release(content);
+                dropped = true;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * @return the bytes of the contents which are not taken yet.
+     */
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    private void release(byte[] content) {
+        if (content == null) {
+            return;
+        }
+        bufferedBytes.addAndGet(-content.length);
+        synchronized (bufferLock) {
+            bufferLock.notifyAll();
+        }
+    }
+
+    private byte[] cat(String filePath) {
+        try {
+            return storage.cat(filePath);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private byte[] decrypt(String filePath, byte[] content) {
+        try {
+            return storage.decrypt(filePath, content);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static class Entry {
+        final String filePath;
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        volatile long completedAt;
+
+        Entry(String filePath) {
+            this.filePath = filePath;
+        }
+    }
+}
@@ -0,0 +1,525 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.core;
+
+import io.ipfs.api.IPFS;
+import io.ipfs.multihash.Multihash;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.hitchain.hit.provider.BlobStore;
+import org.hitchain.hit.util.GitHelper;
+import org.hitchain.hit.util.HitHelper;
+import org.hitchain.hit.util.HttpRequestHelper;
+import org.hitchain.hit.util.ThreadHelper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Read the ipfs files from several ipfs api endpoints and gateways, the content is the same on every node (content-addressed).
+ * <pre>
+ * #1.The endpoints are ordered by the health and the latency (moving average of the time to the first byte), the fastest healthy node is tried first.
+ * #2.If the first byte does not arrive within the hedge delay (the percentile of the recent latencies), a duplicate request is sent to the next node,
+ *    the first response wins and the others are closed when they arrive.
+ * #3.A failed request fails over to the next node immediately, a node is skipped for a while (exponential backoff) after 3 consecutive failures.
+ * #4.The endpoints are the repository file server, the configured storage api and gateway, and the endpoints of the system properties.
+ * ==system properties==
+ *     hit.ipfs.endpoints=url,url        the extra ipfs api endpoints, such as http://127.0.0.1:5001/api/v0/.
+ *     hit.ipfs.gateways=url,url         the extra ipfs gateways, such as https://ipfs.io/ipfs/.
+ *     hit.ipfs.hedge=false              disable the hedged requests, the nodes are only tried one by one on failures.
+ *     hit.ipfs.hedge.percentile=90      the latency percentile to send the hedged request.
+ *     hit.ipfs.hedge.max=2              the max requests in flight of a read.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class HitIPFSReader {
+
+    public static final long DEFAULT_HEDGE_MILLIS = 1000;
+    public static final long MIN_HEDGE_MILLIS = 50;
+    public static final int DEFAULT_HEDGE_PERCENTILE = 90;
+    public static final int DEFAULT_HEDGE_MAX = 2;
+    public static final int FAILURE_THRESHOLD = 3;
+    public static final long MAX_DOWN_MILLIS = 60 * 1000;
+    /**
+     * the count of the recent latencies to compute the percentile.
+     */
+    private static final int SAMPLE_SIZE = 64;
+    private static final int MIN_SAMPLE_SIZE = 8;
+    /**
+     * the stalled requests may block until the socket timeout, so the pool is not bounded.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(ThreadHelper.daemonThreadFactory("hit-ipfs-read"));
+
+    private final List<Node> nodes;
+    private final boolean hedge;
+    private final int percentile;
+    private final int hedgeMax;
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private int sampleCount;
+
+    /**
+     * the ipfs api endpoint or the gateway.
+     */
+    public interface Endpoint {
+        String getName();
+
+        /**
+         * @param hash the ipfs hash (base58).
+         * @return the raw content stream.
+         * @throws IOException
+         */
+        InputStream open(String hash) throws IOException;
+    }
+
+    public HitIPFSReader(List<? extends Endpoint> endpoints, boolean hedge, int percentile, int hedgeMax) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new IllegalArgumentException("HitIPFSReader endpoints are required!");
+        }
+        List<Node> list = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            list.add(new Node(endpoint));
+        }
+        this.nodes = Collections.unmodifiableList(list);
+        this.hedge = hedge;
+        this.percentile = Math.max(1, Math.min(100, percentile));
+        this.hedgeMax = Math.max(1, hedgeMax);
+    }
+
+    /**
+     * create the reader by the system properties.
+     *
+     * @param endpoints
+     * @return
+     */
+    public static HitIPFSReader create(List<? extends Endpoint> endpoints) {
+        return new HitIPFSReader(endpoints,
+                !"false".equalsIgnoreCase(System.getProperty("hit.ipfs.hedge")),
+                Integer.getInteger("hit.ipfs.hedge.percentile", DEFAULT_HEDGE_PERCENTILE),
+                Integer.getInteger("hit.ipfs.hedge.max", DEFAULT_HEDGE_MAX));
+    }
+
+    /**
+     * create the reader of the primary ipfs api and the configured endpoints.
+     *
+     * @param primary    the store to read first, such as the ipfs api of the repository file server.
+     * @param primaryUrl the url of the primary, the same endpoint in the configuration is ignored.
+     * @return
+     */
+    public static HitIPFSReader create(BlobStore primary, String primaryUrl) {
+        Set<String> apis = new LinkedHashSet<>(), gateways = new LinkedHashSet<>();
+        try {
+            URL storage = HitHelper.getStoragePersistentUrl();
+            if (storage != null) {
+                apis.add(storage.toString());
+            }
+            String view = HitHelper.getStorageViewUrl();
+            if (StringUtils.isNotBlank(view)) {
+                gateways.add(view);
+            }
+        } catch (Exception e) {// the storage is not configured.
+        }
+        apis.addAll(Arrays.asList(StringUtils.split(System.getProperty("hit.ipfs.endpoints", ""), ", ")));
+        gateways.addAll(Arrays.asList(StringUtils.split(System.getProperty("hit.ipfs.gateways", ""), ", ")));
+        apis.remove(primaryUrl);
+        apis.remove(StringUtils.appendIfMissing(primaryUrl, "/"));
+        List<Endpoint> endpoints = new ArrayList<>();
+        endpoints.add(store(primary));
+        for (String url : apis) {
+            endpoints.add(api(null, url));
+        }
+        for (String url : gateways) {
+            endpoints.add(gateway(url));
+        }
+        return create(endpoints);
+    }
+
+    /**
+     * the ipfs api endpoint, the api client is created on the first read.
+     *
+     * @param ipfs the api client, or null to create it by the url.
+     * @param url  such as http://127.0.0.1:5001/api/v0/
+     * @return
+     */
+    public static Endpoint api(final IPFS ipfs, final String url) {
+        return new Endpoint() {
+            private volatile IPFS client = ipfs;
+
+            public String getName() {
+                return url;
+            }
+
+            public InputStream open(String hash) throws IOException {
+                IPFS current = client;
+                if (current == null) {
+                    try {// the client may connect the node when it is created.
+                        client = current = GitHelper.getIpfs(url);
+                    } catch (RuntimeException e) {
+                        throw new IOException("Can not connect ipfs: " + url, e);
+                    }
+                }
+                return current.catStream(Multihash.fromBase58(hash));
+            }
+
+            public String toString() {
+                return getName();
+            }
+        };
+    }
+
+    /**
+     * the blob store endpoint.
+     *
+     * @param store
+     * @return
+     */
+    public static Endpoint store(final BlobStore store) {
+        return new Endpoint() {
+            public String getName() {
+                return store.getName();
+            }
+
+            public InputStream open(String hash) throws IOException {
+                return store.open(hash);
+            }
+
+            public String toString() {
+                return getName();
+            }
+        };
+    }
+
+    /**
+     * the ipfs gateway, the content is read by the url (gateway + hash).
+     *
+     * @param url such as https://ipfs.io/ipfs/
+     * @return
+     */
+    public static Endpoint gateway(final String url) {
+        final String prefix = StringUtils.appendIfMissing(url, "/");
+        return new Endpoint() {
+            public String getName() {
+                return prefix;
+            }
+
+            public InputStream open(String hash) throws IOException {
+                final HttpRequestHelper.StreamResult result = HttpRequestHelper.stream(prefix + hash, null, null);
+                if (!result.isOK()) {
+                    result.close();
+                    throw new IOException("Can not read ipfs file from gateway: " + prefix + hash + ", " + result.getStatus());
+                }
+                return new FilterInputStream(result.getBody()) {
+                    boolean eof;
+
+                    public int read() throws IOException {
+                        int b = super.read();
+                        eof |= b < 0;
+                        return b;
+                    }
+
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = super.read(b, off, len);
+                        eof |= n < 0;
+                        return n;
+                    }
+
+                    public void close() throws IOException {
+                        if (!eof) {// the dropped hedge or a partial read, do not download the rest of the body.
+                            result.abort();
+                            return;
+                        }
+                        try {
+                            super.close();
+                        } finally {
+                            result.close();// the connection is reused.
+                        }
+                    }
+                };
+            }
+
+            public String toString() {
+                return getName();
+            }
+        };
+    }
+
+    /**
+     * cat the ipfs file by the user's cache.
+     *
+     * @param hash
+     * @return
+     * @throws IOException
+     */
+    public byte[] cat(String hash) throws IOException {
+        try (InputStream is = catStream(hash)) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    /**
+     * cat the ipfs file stream by the user's cache.
+     *
+     * @param hash
+     * @return
+     * @throws IOException
+     */
+    public InputStream catStream(final String hash) throws IOException {
+        HitIPFSCache cache = HitIPFSCache.getDefault();
+        if (cache == null) {
+            return read(hash);
+        }
+        return cache.open(hash, new HitIPFSCache.Source() {
+            public InputStream open() throws IOException {
+                return read(hash);
+            }
+        });
+    }
+
+    /**
+     * read the ipfs file from the endpoints without the cache.
+     *
+     * @param hash
+     * @return the stream of the first node which responds.
+     * @throws IOException the last error if all the nodes fail.
+     */
+    public InputStream read(String hash) throws IOException {
+        List<Node> order = ordered();
+        AtomicBoolean claimed = new AtomicBoolean();
+        if (order.size() == 1) {
+            return open(order.get(0), hash, claimed);
+        }
+        final CompletionService<InputStream> completion = new ExecutorCompletionService<>(EXECUTOR);
+        int next = 0, running = 0;
+        Throwable last = null;
+        boolean returned = false;
+        try {
+            completion.submit(attempt(order.get(next++), hash, claimed));
+            running++;
+            while (running > 0) {
+                Future<InputStream> done;
+                if (hedge && next < order.size() && running < hedgeMax) {
+                    done = completion.poll(getHedgeMillis(), TimeUnit.MILLISECONDS);
+                    if (done == null) {// the first byte is late, send the hedged request.
+                        completion.submit(attempt(order.get(next++), hash, claimed));
+                        running++;
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+                running--;
+                try {
+                    InputStream is = done.get();
+                    if (is != null) {
+                        returned = true;
+                        return is;
+                    }
+                } catch (ExecutionException e) {// fail over to the next node.
+                    last = e.getCause();
+                    if (next < order.size()) {
+                        completion.submit(attempt(order.get(next++), hash, claimed));
+                        running++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading ipfs file: " + hash);
+        } finally {
+            claimed.set(true);// the late responses are closed.
+            if (!returned && running > 0) {// an attempt may have claimed the result before, nobody else takes it.
+                drain(completion, running);
+            }
+        }
+        if (last instanceof IOException) {
+            throw (IOException) last;
+        }
+        throw new IOException("Can not read ipfs file from any endpoint: " + hash, last);
+    }
+
+    /**
+     * @return the delay to send the hedged request, the percentile of the recent latencies.
+     */
+    public long getHedgeMillis() {
+        long[] copy;
+        synchronized (samples) {
+            if (sampleCount < MIN_SAMPLE_SIZE) {
+                return DEFAULT_HEDGE_MILLIS;
+            }
+            copy = Arrays.copyOf(samples, Math.min(sampleCount, SAMPLE_SIZE));
+        }
+        Arrays.sort(copy);
+        int index = Math.min(copy.length - 1, (int) Math.ceil(copy.length * percentile / 100.0) - 1);
+        return Math.max(MIN_HEDGE_MILLIS, copy[Math.max(0, index)]);
+    }
+
+    /**
+     * @return the state of each endpoint, in the order to be tried.
+     */
+    public List<String> getStats() {
+        List<String> list = new ArrayList<>();
+        for (Node node : ordered()) {
+            list.add(node.toString());
+        }
+        return list;
+    }
+
+    /**
+     * the healthy nodes by latency, then the down nodes by the time they come back.
+     */
+    protected List<Node> ordered() {
+        final long now = System.currentTimeMillis();
+        final long unknown = getHedgeMillis();
+        List<Node> healthy = new ArrayList<>(nodes.size()), down = new ArrayList<>();
+        for (Node node : nodes) {
+            (node.isDown(now) ? down : healthy).add(node);
+        }
+        Collections.sort(healthy, new Comparator<Node>() {
+            public int compare(Node o1, Node o2) {
+                return Long.compare(o1.latency(unknown), o2.latency(unknown));
+            }
+        });
+        Collections.sort(down, new Comparator<Node>() {
+            public int compare(Node o1, Node o2) {
+                return Long.compare(o1.downUntil, o2.downUntil);
+            }
+        });
+        healthy.addAll(down);
+        return healthy;
+    }
+
+    protected void sample(long millis) {
+        synchronized (samples) {
+            samples[sampleCount++ % SAMPLE_SIZE] = millis;
+            if (sampleCount == SAMPLE_SIZE * 2) {
+                sampleCount = SAMPLE_SIZE;
+            }
+        }
+    }
+
+    /**
+     * close the streams of the running attempts when they are done.
+     */
+    private static void drain(final CompletionService<InputStream> completion, final int running) {
+        EXECUTOR.execute(new Runnable() {
+            public void run() {
+                for (int i = 0; i < running; i++) {
+                    try {
+                        IOUtils.closeQuietly(completion.take().get());
+                    } catch (ExecutionException e) {// the failed attempt has no stream.
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    private Callable<InputStream> attempt(final Node node, final String hash, final AtomicBoolean claimed) {
+        return new Callable<InputStream>() {
+            public InputStream call() throws Exception {
+                return open(node, hash, claimed);
+            }
+        };
+    }
+
+    /**
+     * open the stream and wait the first byte, only the first node claims the result, the others close the streams.
+     *
+     * @return the stream, or null if the result is claimed by the other node.
+     */
+    private InputStream open(Node node, String hash, AtomicBoolean claimed) throws IOException {
+        long start = System.nanoTime();
+        InputStream in = null;
+        try {
+            in = node.endpoint.open(hash);
+            if (in == null) {
+                throw new IOException("Can not read ipfs file: " + hash + " from " + node.endpoint.getName());
+            }
+            PushbackInputStream pushback = new PushbackInputStream(in, 1);
+            in = pushback;
+            int first = pushback.read();
+            if (first >= 0) {
+                pushback.unread(first);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            node.success(millis);
+            sample(millis);
+            if (!claimed.compareAndSet(false, true)) {
+                IOUtils.closeQuietly(in);
+                return null;
+            }
+            return in;
+        } catch (IOException | RuntimeException e) {
+            node.failure();
+            IOUtils.closeQuietly(in);
+            throw e;
+        }
+    }
+
+    /**
+     * the health of an endpoint.
+     */
+    protected static class Node {
+        final Endpoint endpoint;
+        long latency = -1;
+        int failures;
+        volatile long downUntil;
+        long successCount;
+        long errorCount;
+
+        Node(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        synchronized void success(long millis) {
+            latency = latency < 0 ? millis : (latency * 3 + millis) / 4;
+            failures = 0;
+            downUntil = 0;
+            successCount++;
+        }
+
+        synchronized void failure() {
+            failures++;
+            errorCount++;
+            if (failures >= FAILURE_THRESHOLD) {
+                downUntil = System.currentTimeMillis() + Math.min(MAX_DOWN_MILLIS, 1000L << Math.min(16, failures - FAILURE_THRESHOLD));
+            }
+        }
+
+        boolean isDown(long now) {
+            return downUntil > now;
+        }
+
+        /**
+         * @param unknown the latency of the node which is not read yet.
+         */
+        synchronized long latency(long unknown) {
+            return latency < 0 ? unknown : latency;
+        }
+
+        public synchronized String toString() {
+            return endpoint.getName() + " [latency=" + latency + "ms, success=" + successCount + ", error=" + errorCount
+                    + (isDown(System.currentTimeMillis()) ? ", down" : "") + "]";
+        }
+    }
+}
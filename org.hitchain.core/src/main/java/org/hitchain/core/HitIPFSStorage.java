@@ -9,29 +9,40 @@
 package org.hitchain.core;
 
 import io.ipfs.api.IPFS;
-import io.ipfs.api.MerkleNode;
-import io.ipfs.multihash.Multihash;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.util.encoders.Hex;
 import org.eclipse.jgit.api.Hit;
 import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.NullProgressMonitor;
 import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.util.TemporaryBuffer;
 import org.hitchain.contract.api.ContractApi;
 import org.hitchain.hit.api.DecryptableFileWrapper;
 import org.hitchain.hit.api.EncryptableFileWrapper;
+import org.hitchain.hit.api.GitFileIndex;
 import org.hitchain.hit.api.HashedFile;
 import org.hitchain.hit.api.ProjectInfoFile;
+import org.hitchain.hit.api.RepositoryKeyHolder;
+import org.hitchain.hit.provider.BlobStore;
+import org.hitchain.hit.provider.IPFSBlobStore;
 import org.hitchain.hit.util.GitHelper;
 import org.hitchain.hit.util.HitHelper;
+import org.hitchain.hit.util.ThreadHelper;
 import org.hitchain.hit.util.Tuple.Two;
 
 import java.io.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
 
 /**
  * HitIPFSStorage
@@ -46,8 +57,18 @@ public class HitIPFSStorage {
     private File projectDir;
     private ProjectInfoFile projectInfoFile;
     private IPFS ipfs;
-    private Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> gitFileIndex;
-    private Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> uploadedGitFileIndex = new HashMap<>();
+    /**
+     * the store of the file server, the uploads only go to it.
+     */
+    private BlobStore store;
+    /**
+     * read the files from the file server and the other configured ipfs nodes.
+     */
+    private HitIPFSReader reader;
+    private GitFileIndex gitFileIndex;
+    private Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> uploadedGitFileIndex = new ConcurrentHashMap<>();
+    private volatile HitIPFSFetcher fetcher;
+    private volatile RepositoryKeyHolder keyHolder;
 
     public HitIPFSStorage(File gitDir, URIish uri) {
         this.projectDir = gitDir;
@@ -68,13 +89,15 @@ public HitIPFSStorage(File gitDir, URIish uri) {
             }
             String gitFileIndexHash = url;
             ipfs = GitHelper.getIpfs();
-            gitFileIndex = GitHelper.readGitFileIndexFromIpfs(ipfs, gitFileIndexHash);
+            store = new IPFSBlobStore(ipfs, HitHelper.getStoragePersistentUrl().toString());
+            reader = HitIPFSReader.create(store, store.getName());
+            gitFileIndex = GitHelper.readGitFileIndexFromIpfs(reader, gitFileIndexHash);
             {
                 gitFileIndex.put(GitHelper.HIT_GITFILE_IDX, new Two<>(gitFileIndexHash, ""));
             }
             Two<Object, String/* ipfs hash */, String/* sha1 */> ipfsHashAndSha1 = gitFileIndex.get(GitHelper.HIT_PROJECT_INFO);
             try {
-                byte[] cat = ipfs.cat(Multihash.fromBase58(ipfsHashAndSha1.first()));
+                byte[] cat = reader.cat(ipfsHashAndSha1.first());
                 projectInfoFile = ProjectInfoFile.fromFile(
                         new HashedFile.FileWrapper(GitHelper.HIT_PROJECT_INFO, new HashedFile.ByteArrayInputStreamCallback(cat)));
             } catch (Exception e) {
@@ -92,12 +115,37 @@ public HitIPFSStorage(File gitDir, URIish uri) {
         String url = Hit.util().readUrl(hitUri);
         String gitFileIndexHash = url;
         ipfs = GitHelper.getIpfs(projectInfoFile.getFileServerUrl());
-        gitFileIndex = GitHelper.readGitFileIndexFromIpfs(ipfs, gitFileIndexHash);
+        store = new IPFSBlobStore(ipfs, projectInfoFile.getFileServerUrl());
+        reader = HitIPFSReader.create(store, store.getName());
+        gitFileIndex = GitHelper.readGitFileIndexFromIpfs(reader, gitFileIndexHash);
         {
             gitFileIndex.put(GitHelper.HIT_GITFILE_IDX, new Two<>(gitFileIndexHash, ""));
         }
     }
 
+    /**
+     * open the repository on the blob store without the repository contract, such as the local stand-in of the tests and the benchmarks.
+     *
+     * @param gitDir           the local git dir.
+     * @param projectInfoFile  the project info of the repository.
+     * @param store            the store to read and write the files.
+     * @param gitFileIndexHash the address of the git file index, or blank if the repository is empty.
+     */
+    public HitIPFSStorage(File gitDir, ProjectInfoFile projectInfoFile, BlobStore store, String gitFileIndexHash) {
+        if (projectInfoFile == null || store == null) {
+            throw new IllegalArgumentException("HitIPFSStorage projectInfoFile and store are required!");
+        }
+        this.projectDir = gitDir;
+        this.projectInfoFile = projectInfoFile;
+        this.store = store;
+        this.ipfs = store instanceof IPFSBlobStore ? ((IPFSBlobStore) store).getIpfs() : null;
+        this.reader = HitIPFSReader.create(Collections.singletonList(HitIPFSReader.store(store)));
+        this.gitFileIndex = GitHelper.readGitFileIndexFromIpfs(reader, gitFileIndexHash);
+        if (StringUtils.isNotBlank(gitFileIndexHash)) {
+            gitFileIndex.put(GitHelper.HIT_GITFILE_IDX, new Two<>(gitFileIndexHash, ""));
+        }
+    }
+
     /**
      * List the path content.
      *
@@ -109,13 +157,10 @@ public List<String> list(String prefix) throws IOException {
         prefix = StringUtils.defaultString(prefix);
         prefix = StringUtils.appendIfMissing(prefix, "/", "/");
         prefix = StringUtils.removeStart(prefix, "/");
-        List<String> filePaths = new ArrayList<>();
-        for (Map.Entry<String, Two<Object, String, String>> entry : gitFileIndex.entrySet()) {
-            String filePath = entry.getKey();
-            if (prefix.length() < 1) {
-                filePaths.add(filePath);
-            } else if (filePath.startsWith(prefix)) {
-                filePaths.add(filePath.substring(prefix.length()));
+        List<String> filePaths = gitFileIndex.list(prefix);
+        if (prefix.length() > 0) {
+            for (int i = 0; i < filePaths.size(); i++) {
+                filePaths.set(i, filePaths.get(i).substring(prefix.length()));
             }
         }
         return filePaths;
@@ -129,28 +174,187 @@ public List<String> list(String prefix) throws IOException {
      * @throws IOException
      */
     public byte[] get(String filePath) throws IOException {
-        //System.out.println("get filename:" + filePath);
-        Two<Object, String, String> ipfsHashAndSha1 = gitFileIndex.get(filePath);
-        if (ipfsHashAndSha1 == null || StringUtils.isBlank(ipfsHashAndSha1.first())) {
-            throw new FileNotFoundException("File not found: " + filePath);
+        try (InputStream is = open(filePath)) {
+            return IOUtils.toByteArray(is);
         }
-        //System.out.println("get filename:" + filePath + ", ipfs:" + ipfsHashAndSha1.first() + ", sha1:" + ipfsHashAndSha1.second());
-        byte[] content = ipfs.cat(Multihash.fromBase58(ipfsHashAndSha1.first()));
+    }
+
+    /**
+     * open the file content as stream, the content is streamed from ipfs and decrypted on the fly.
+     *
+     * @param filePath
+     * @return
+     * @throws IOException
+     */
+    public InputStream open(String filePath) throws IOException {
+        HitIPFSFetcher prefetch = fetcher;
+        if (prefetch != null) {
+            byte[] contents = prefetch.take(filePath);
+            if (contents != null) {
+                return new ByteArrayInputStream(contents);
+            }
+        }
+        return decrypt(filePath, catStream(filePath));
+    }
+
+    /**
+     * return the file content without decrypt.
+     *
+     * @param filePath
+     * @return
+     * @throws IOException
+     */
+    public byte[] cat(String filePath) throws IOException {
+        //System.out.println("get filename:" + filePath);
+        return reader.cat(getIpfsHash(filePath));
+    }
+
+    /**
+     * return the file content stream without decrypt.
+     *
+     * @param filePath
+     * @return
+     * @throws IOException
+     */
+    public InputStream catStream(String filePath) throws IOException {
+        return reader.catStream(getIpfsHash(filePath));
+    }
+
+    /**
+     * decrypt the file content which is return by cat.
+     *
+     * @param filePath
+     * @param content
+     * @return
+     * @throws IOException
+     */
+    public byte[] decrypt(String filePath, byte[] content) throws IOException {
         //System.out.println("file content:" + new String(content));
-        String rsaPriKeyWithPasswordInput = null;
-        if (projectInfoFile.isPrivate()) {
-            rsaPriKeyWithPasswordInput = HitHelper.getRsaPriKeyWithPasswordInput();
+        try (InputStream is = decrypt(filePath, new ByteArrayInputStream(content))) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    /**
+     * decrypt the file content stream which is return by catStream.
+     *
+     * @param filePath
+     * @param content
+     * @return
+     * @throws IOException
+     */
+    public InputStream decrypt(String filePath, InputStream content) throws IOException {
+        if (!projectInfoFile.isPrivate() || GitHelper.HIT_PROJECT_INFO.equals(filePath) || GitHelper.HIT_GITFILE_IDX.equals(filePath)) {
+            return content;// not encrypted, do not ask for the password.
         }
         DecryptableFileWrapper file = new DecryptableFileWrapper(
                 new HashedFile.FileWrapper(
                         filePath,
-                        new HashedFile.ByteArrayInputStreamCallback(content)
+                        new HashedFile.InputStreamCallback() {
+                            public InputStream call(HashedFile hashedFile) throws IOException {
+                                return content;
+                            }
+                        }
                 ),
                 projectInfoFile,
-                HitHelper.getAccountAddress(),
-                rsaPriKeyWithPasswordInput);
-        byte[] contents = file.getContents();
-        return contents;
+                getKeyHolder());
+        return file.getInputStream();
+    }
+
+    /**
+     * return the repository keys of this session, the user rsa private key is read once.
+     *
+     * @return
+     */
+    public RepositoryKeyHolder getKeyHolder() {
+        RepositoryKeyHolder holder = keyHolder;
+        if (holder == null) {
+            synchronized (this) {
+                holder = keyHolder;
+                if (holder == null) {
+                    holder = new RepositoryKeyHolder(projectInfoFile, HitHelper.getAccountAddress(), HitHelper.getRsaPriKeyWithPasswordInput());
+                    keyHolder = holder;
+                }
+            }
+        }
+        return holder;
+    }
+
+    private String getIpfsHash(String filePath) throws FileNotFoundException {
+        Two<Object, String, String> ipfsHashAndSha1 = gitFileIndex.get(filePath);
+        if (ipfsHashAndSha1 == null || StringUtils.isBlank(ipfsHashAndSha1.first())) {
+            throw new FileNotFoundException("File not found: " + filePath);
+        }
+        //System.out.println("get filename:" + filePath + ", ipfs:" + ipfsHashAndSha1.first() + ", sha1:" + ipfsHashAndSha1.second());
+        return ipfsHashAndSha1.first();
+    }
+
+    /**
+     * start the prefetch with an empty list, the files are added by {@link #prefetch(Collection)}.
+     *
+     * @param concurrency the max number of ipfs requests in flight.
+     */
+    public synchronized void startPrefetch(int concurrency) {
+        if (fetcher != null) {
+            fetcher.close();
+        }
+        fetcher = new HitIPFSFetcher(this, concurrency);
+        fetcher.start(Collections.emptyList());
+    }
+
+    /**
+     * add the files to the started prefetch, the get method will return the prefetched content.
+     * the files which are not in the git file index are skipped, do nothing if the prefetch is not started.
+     *
+     * @param filePaths file name with relative path.
+     */
+    public void prefetch(Collection<String> filePaths) {
+        HitIPFSFetcher prefetch = fetcher;
+        if (prefetch == null || filePaths == null || filePaths.isEmpty()) {
+            return;
+        }
+        List<String> exists = new ArrayList<>(filePaths.size());
+        for (String filePath : filePaths) {
+            if (gitFileIndex.get(filePath) != null) {
+                exists.add(filePath);
+            }
+        }
+        if (exists.isEmpty()) {
+            return;
+        }
+        if (projectInfoFile.isPrivate()) {
+            // input the password on this thread, the workers will use the session keys.
+            getKeyHolder();
+        }
+        prefetch.add(exists);
+    }
+
+    /**
+     * prefetch the files concurrently, the get method will return the prefetched content.
+     *
+     * @param filePaths   file name with relative path.
+     * @param concurrency the max number of ipfs requests in flight.
+     */
+    public synchronized void prefetch(Collection<String> filePaths, int concurrency) {
+        if (filePaths == null || filePaths.isEmpty()) {
+            return;
+        }
+        startPrefetch(concurrency);
+        prefetch(filePaths);
+    }
+
+    /**
+     * stop the prefetch, release the threads and zero the repository keys.
+     */
+    public synchronized void close() {
+        if (fetcher != null) {
+            fetcher.close();
+            fetcher = null;
+        }
+        if (keyHolder != null) {
+            keyHolder.close();
+            keyHolder = null;
+        }
     }
 
     /**
@@ -172,20 +376,83 @@ public void delete(String path) throws IOException {
      * @return ipfs hash.
      */
     public String put(String filePath, byte[] data) {
+        return put(filePath, new ByteArrayInputStream(data), GitHelper.sha1(data));
+    }
+
+    /**
+     * put file to ipfs storage and return ipfs hash, the file is streamed to ipfs.
+     *
+     * @param filePath file name with relative path.
+     * @param data     local file.
+     * @return ipfs hash.
+     */
+    public String put(String filePath, File data) {
+        try (InputStream is = new FileInputStream(data)) {
+            return put(filePath, is, GitHelper.sha1(data));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * put the files to ipfs storage concurrently.
+     *
+     * @param files       {file name with relative path: local file}
+     * @param concurrency the max number of ipfs uploads in flight.
+     */
+    public void putAll(Map<String, File> files, int concurrency) {
+        if (files == null || files.isEmpty()) {
+            return;
+        }
+        if (files.size() == 1 || concurrency < 2) {
+            for (Map.Entry<String, File> entry : files.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, files.size()), ThreadHelper.daemonThreadFactory("hit-ipfs-upload"));
+        try {
+            List<Future<String>> futures = new ArrayList<>(files.size());
+            for (Map.Entry<String, File> entry : files.entrySet()) {
+                futures.add(executor.submit(() -> put(entry.getKey(), entry.getValue())));
+            }
+            for (Future<String> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while uploading files.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * put file stream to ipfs storage and return ipfs hash.
+     *
+     * @param filePath file name with relative path.
+     * @param data     file content, will be encrypted on the fly if the repository is private.
+     * @param sha1     the sha1 of the file content.
+     * @return ipfs hash.
+     */
+    protected String put(String filePath, InputStream data, String sha1) {
         //System.out.println("Uploading file:" + filePath + "...");
         try {
-            ByteArrayInputStream is = new ByteArrayInputStream(data);
             EncryptableFileWrapper file = new EncryptableFileWrapper(
-                    new HashedFile.FileWrapper(filePath,
-                            new HashedFile.ByteArrayInputStreamCallback(is)),
+                    new HashedFile.FileWrapper(filePath, new HashedFile.InputStreamCallback() {
+                        public InputStream call(HashedFile hashedFile) throws IOException {
+                            return data;
+                        }
+                    }),
                     projectInfoFile);
-            List<MerkleNode> add = ipfs.add(file);
-            String ipfsHash = add.get(add.size() - 1).hash.toBase58();
+            String ipfsHash = store.put(file);
             {// add ipfs hash to uploadedGitFileIndex.
                 if (StringUtils.isBlank(ipfsHash)) {
                     throw new IOException("Can not upload the file: " + filePath);
                 }
-                uploadedGitFileIndex.put(filePath, new Two(ipfsHash, GitHelper.sha1(data)));
+                uploadedGitFileIndex.put(filePath, new Two(ipfsHash, sha1));
             }
             System.out.println("Uploaded file:" + filePath + ", ipfs:" + ipfsHash);
             return ipfsHash;
@@ -195,7 +462,7 @@ public String put(String filePath, byte[] data) {
     }
 
     /**
-     * start put.
+     * start put, the content is spooled to a temporary file and streamed to ipfs on close.
      *
      * @param filePath
      * @param monitor
@@ -205,9 +472,16 @@ public String put(String filePath, byte[] data) {
      */
     public OutputStream beginPut(String filePath, ProgressMonitor monitor, String monitorTask) throws IOException {
         //System.out.println("BeginPut file:" + filePath + "...");
-        ByteArrayOutputStream os = new ByteArrayOutputStream() {
+        MessageDigest md = Constants.newMessageDigest();
+        TemporaryBuffer buffer = new TemporaryBuffer.LocalFile(null);
+        DigestOutputStream os = new DigestOutputStream(buffer, md) {
             public void close() throws IOException {
-                onBeginPutClose(filePath, monitor, monitorTask, toByteArray());
+                super.close();
+                try (InputStream is = buffer.openInputStream()) {
+                    onBeginPutClose(filePath, monitor, monitorTask, is, buffer.length(), Hex.toHexString(md.digest()));
+                } finally {
+                    buffer.destroy();
+                }
             }
         };
         return os;
@@ -227,7 +501,7 @@ public Map<String, Two<Object, String, String>> getUploadedGitFileIndex() {
      *
      * @return
      */
-    public Map<String, Two<Object, String, String>> getGitFileIndex() {
+    public GitFileIndex getGitFileIndex() {
         return gitFileIndex;
     }
 
@@ -243,18 +517,23 @@ public IPFS getIpfs() {
         return ipfs;
     }
 
-    protected String onBeginPutClose(String filePath, ProgressMonitor monitor, String monitorTask, byte[] bs) throws IOException {
+    public BlobStore getStore() {
+        return store;
+    }
+
+    public HitIPFSReader getReader() {
+        return reader;
+    }
+
+    protected String onBeginPutClose(String filePath, ProgressMonitor monitor, String monitorTask, InputStream content, long length, String sha1) throws IOException {
         if (monitor == null) {
             monitor = NullProgressMonitor.INSTANCE;
         }
         if (monitorTask == null) {
             monitorTask = MessageFormat.format(JGitText.get().progressMonUploading, filePath);
         }
-        ByteArrayInputStream bais = new ByteArrayInputStream(bs);
-        EncryptableFileWrapper file = new EncryptableFileWrapper(new HashedFile.FileWrapper(filePath, new HashedFile.ByteArrayInputStreamCallback(bais)), projectInfoFile);
-        byte[] content = file.getContents();
-        String ipfsHash = put(filePath, content);
-        monitor.beginTask(monitorTask, content.length / 1024);
+        String ipfsHash = put(filePath, content, sha1);
+        monitor.beginTask(monitorTask, (int) (length / 1024));
         monitor.endTask();
         return ipfsHash;
     }
@@ -15,6 +15,7 @@
 import org.eclipse.jgit.api.HitConfigCommand;
 import org.eclipse.jgit.api.HitRepositoryContractCommand;
 import org.eclipse.jgit.api.KeypairCommand;
+import org.eclipse.jgit.api.MigrateCommand;
 import org.eclipse.jgit.internal.storage.file.FileRepository;
 import org.eclipse.jgit.lib.Repository;
 import org.hitchain.contract.api.HitRepositoryContractEthereumApi;
@@ -119,7 +120,8 @@ public class Main {
             "hit am pathId [--ignore-space-change|--ignore-white-sapce|--force-merge|--no-commit]\n";
     public static final String HELP_MIGRATE = "" +
             "hit migrate help\n" +
-            "hit migrate [--auto-rename] [--name repositoryName] [--token authorizationToken] uri\n";
+            "hit migrate [--auto-rename] [--name repositoryName] [--token authorizationToken] [--max-pr-size 20] [--concurrency 8] uri\n" +
+            "    the interrupted migration continues where it stopped if it is run again in the same directory.\n";
     public static final String HELP_PULLREQUEST = "" +
             "hit pullrequest help\n" +
             "hit pullrequest create -m 'comment' [startBranch] [endBranch]\n";
@@ -790,11 +792,20 @@ else if (args != null && args.length > 0 && "migrate".equals(args[0])) {
                     return;
                 }
             }
+            String concurrencyValue = getOption(list, "--concurrency", true, "migrate option --concurrency missing value.", HELP_MIGRATE);
+            int concurrency = MigrateCommand.DEFAULT_CONCURRENCY;
+            if (StringUtils.isNotBlank(concurrencyValue)) {
+                concurrency = NumberHelper.getInt(concurrencyValue, 0);
+                if (concurrency < 1) {
+                    System.err.println("migrate option --concurrency value invalid.");
+                    return;
+                }
+            }
             String uri = getOption(list, null, false, "migrate missing uri.", HELP_MIGRATE);
             if (StringUtils.isBlank(uri)) {
                 return;
             }
-            Hit.migrate().uri(uri).autoRename(autoRename).name(name).token(token).maxPrSize(maxPrSize).call();
+            Hit.migrate().uri(uri).autoRename(autoRename).name(name).token(token).maxPrSize(maxPrSize).concurrency(concurrency).call();
             System.out.println(HELP_MIGRATE);
             return;
         }
@@ -12,12 +12,9 @@
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.bouncycastle.util.encoders.Hex;
-import org.hitchain.hit.api.ProjectInfoFile.TeamInfo;
+import org.hitchain.hit.util.AESHelper;
 import org.hitchain.hit.util.ByteHelper;
-import org.hitchain.hit.util.ECCHelper;
 import org.hitchain.hit.util.GitHelper;
-import org.hitchain.hit.util.RSAHelper;
 
 import java.io.*;
 import java.net.URLEncoder;
@@ -35,10 +32,20 @@
 public class DecryptableFileWrapper implements NamedStreamable {
     private final HashedFile source;
     private final ProjectInfoFile projectInfoFile;
-    private final String member;
-    private final String priKeyRsa;
+    private final RepositoryKeyHolder keyHolder;
 
     public DecryptableFileWrapper(HashedFile source, ProjectInfoFile projectInfoFile, String member, String priKeyRsa) {
+        this(source, projectInfoFile, newKeyHolder(projectInfoFile, member, priKeyRsa));
+    }
+
+    /**
+     * the repository keys are shared by the files of the session.
+     *
+     * @param source
+     * @param projectInfoFile
+     * @param keyHolder       the session key holder, required if the repository is private.
+     */
+    public DecryptableFileWrapper(HashedFile source, ProjectInfoFile projectInfoFile, RepositoryKeyHolder keyHolder) {
         if (source == null) {
             throw new IllegalStateException("DecryptableFileWrapper HashedFile does not exist: " + source);
         } else {
@@ -50,55 +57,46 @@ public DecryptableFileWrapper(HashedFile source, ProjectInfoFile projectInfoFile
         } else {
             this.projectInfoFile = projectInfoFile;
         }
-        if (projectInfoFile.isPrivate() && StringUtils.isBlank(member)) {
-            throw new IllegalStateException("DecryptableFileWrapper member does not exist: " + member);
+        if (projectInfoFile.isPrivate() && keyHolder == null) {
+            throw new IllegalStateException("DecryptableFileWrapper keyHolder does not exist: " + keyHolder);
         } else {
-            this.member = member;
+            this.keyHolder = keyHolder;
         }
-        if (projectInfoFile.isPrivate() && StringUtils.isBlank(priKeyRsa)) {
+    }
+
+    private static RepositoryKeyHolder newKeyHolder(ProjectInfoFile projectInfoFile, String member, String priKeyRsa) {
+        if (projectInfoFile == null || !projectInfoFile.isPrivate()) {
+            return null;
+        }
+        if (StringUtils.isBlank(member)) {
+            throw new IllegalStateException("DecryptableFileWrapper member does not exist: " + member);
+        }
+        if (StringUtils.isBlank(priKeyRsa)) {
             throw new IllegalStateException("DecryptableFileWrapper privateKey does not exist: " + priKeyRsa);
-        } else {
-            this.priKeyRsa = priKeyRsa;
         }
+        return new RepositoryKeyHolder(projectInfoFile, member, priKeyRsa);
     }
 
     public byte[] getContents() throws IOException {
-        return IOUtils.toByteArray(getInputStream());
+        try (InputStream is = getInputStream()) {
+            return IOUtils.toByteArray(is);
+        }
     }
 
     public InputStream getInputStream() throws IOException {
-        byte[] bs = source.getContents();
-        if (GitHelper.HIT_PROJECT_INFO.equals(source.getName()) || GitHelper.HIT_GITFILE_IDX.equals(source.getName()) || !projectInfoFile.isPrivate()) {
-            return new ByteArrayInputStream(bs);
+        InputStream is = source.getInputStream();
+        if (is instanceof ByteArrayInputStream) {// the callback may return the same stream.
+            is.reset();
         }
-        String encryptedRepositoryPriKey = null;
-        {// get the encrypted repository private key, if is owner return repository private key, if is member return member's repository private key.
-            if (StringUtils.equalsAny(member, projectInfoFile.getOwner(), projectInfoFile.getOwnerPubKeyRsa(),
-                    projectInfoFile.getOwnerAddressEcc())) {// #if is owner, get the repository encrypted private key.
-                encryptedRepositoryPriKey = projectInfoFile.getRepoPriKey();
-            } else {
-                for (TeamInfo ti : projectInfoFile.getMembers()) {
-                    if (StringUtils.equalsAny(member, ti.getMember(), ti.getMemberPubKeyRsa(),
-                            ti.getMemberAddressEcc())) {
-                        encryptedRepositoryPriKey = ti.getMemberRepoPriKey();
-                        break;
-                    }
-                }
-            }
+        if (GitHelper.HIT_PROJECT_INFO.equals(source.getName()) || GitHelper.HIT_GITFILE_IDX.equals(source.getName()) || !projectInfoFile.isPrivate()) {
+            return is;
         }
-        if (encryptedRepositoryPriKey == null) {
-            return new ByteArrayInputStream(bs);
+        if (!keyHolder.isMember()) {
+            return is;
         }
         try {
-            // Encrypt: private key -(hex decode)-> private key bytes -(encrypt with rsa public key)->  encrypt bytes -(hex encode)-> hex encrypt
-            // Decrypt: hex encrypt -(hex decode)-> encrypt bytes     -(decrypt with rsa private key)-> private key bytes -(hex encode) private key
-            String repositoryPriKey = Hex.toHexString(
-                    RSAHelper.decrypt(
-                            Hex.decode(encryptedRepositoryPriKey),
-                            RSAHelper.getPrivateKeyFromHex(priKeyRsa)
-                    ));
-            byte[] bytes = ECCHelper.privateDecrypt(bs, ECCHelper.getPrivateKeyFromEthereumHex(repositoryPriKey));
-            return new ByteArrayInputStream(bytes);
+            // the repository private key is only decrypted if the data key is not decrypted yet or the file is in the legacy format.
+            return AESHelper.hybridDecryptStream(is, keyHolder);
         } catch (Exception e) {
             throw new IOException(e);
         }
@@ -113,7 +111,7 @@ public List<NamedStreamable> getChildren() {
             List<HashedFile> children = source.getChildren();
             List<NamedStreamable> list = new ArrayList<>();
             for (HashedFile hf : children) {
-                list.add(new DecryptableFileWrapper(hf, projectInfoFile, member, priKeyRsa));
+                list.add(new DecryptableFileWrapper(hf, projectInfoFile, keyHolder));
             }
             return list;
         }
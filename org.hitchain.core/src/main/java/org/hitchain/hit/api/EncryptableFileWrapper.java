@@ -10,12 +10,11 @@
 
 import io.ipfs.api.NamedStreamable;
 import org.apache.commons.io.IOUtils;
-import org.hitchain.hit.util.ECCHelper;
+import org.hitchain.hit.util.AESHelper;
 import org.hitchain.hit.util.GitHelper;
 
 import java.io.*;
 import java.net.URLEncoder;
-import java.security.PublicKey;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -47,20 +46,23 @@ public EncryptableFileWrapper(HashedFile source, ProjectInfoFile projectInfoFile
     }
 
     public byte[] getContents() throws IOException {
-        return IOUtils.toByteArray(getInputStream());
+        try (InputStream is = getInputStream()) {
+            return IOUtils.toByteArray(is);
+        }
     }
 
     public InputStream getInputStream() throws IOException {
-        byte[] bs = source.getContents();
+        InputStream is = source.getInputStream();
+        if (is instanceof ByteArrayInputStream) {// the callback may return the same stream.
+            is.reset();
+        }
         if (GitHelper.HIT_PROJECT_INFO.equals(source.getName()) || GitHelper.HIT_GITFILE_IDX.equals(source.getName()) || !projectInfoFile.isPrivate()) {
-            return new ByteArrayInputStream(bs);
+            return is;
         }
         try {
-            // Encrypt: use repository public key to encrypt the file.
-            // Decrypt: decrypt repository private key by user rsa private key and then decrypt the file.
-            PublicKey publicKey = ECCHelper.getPublicKeyFromEthereumPublicKeyHex(projectInfoFile.getRepoPubKey());
-            byte[] bytes = ECCHelper.publicEncrypt(bs, publicKey);
-            return new ByteArrayInputStream(bytes);
+            // Encrypt: use the data key to encrypt the file, the data key is encrypted by repository public key once per push.
+            // Decrypt: decrypt repository private key by user rsa private key, decrypt the data key and then decrypt the file.
+            return AESHelper.hybridEncryptStream(is, projectInfoFile.getRepoPubKey());
         } catch (Exception e) {
             throw new IOException(e);
         }
@@ -0,0 +1,730 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.api;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.util.encoders.Hex;
+import org.hitchain.hit.util.Tuple.Two;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <pre>
+ * GitFileIndex: objects/hit/gitfile.idx, {filename: (ipfs hash, sha1)}.
+ * ==version 1 (binary, big-endian)==
+ * header:  magic "\377hix", version(int), count(int), hash width(int)
+ * fanout:  256 * int, the number of paths whose first byte is less than or equal to the index.
+ * offsets: (count + 1) * int, the offset of each path in the path data.
+ * hashes:  count * (1 + hash width), the length and the bytes of the ipfs multihash.
+ * sha1s:   count * (1 + 20), the length and the bytes of the sha1.
+ * paths:   the UTF-8 paths, sorted by bytes (code points).
+ * trailer: sha1 of all the content above, verified when the index is read.
+ * ==version 2 (delta segment)==
+ * header:  magic "\377hix", version(int), count(int), hash width(int), depth(int), parent hash length(byte), parent hash
+ * the rest is the same as version 1, the segment only contains the entries added by the push, the others are in the
+ * parent index whose ipfs hash is the parent hash, depth is the number of the parents.
+ * ==legacy (gzip text)==
+ * ipfsHash,sha1,filename\n
+ * </pre>
+ * The binary index is read lazily, the lookup is a binary search in the fanout range, the paths with the same prefix
+ * are adjacent so the list is a range scan. The put entries are kept in memory and override the index, the index
+ * overrides its parent.
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class GitFileIndex extends AbstractMap<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> {
+
+    public static final int VERSION = 1;
+    public static final int VERSION_DELTA = 2;
+    /**
+     * the max number of the delta segments before the index is compacted to a full index.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 16;
+    public static final Comparator<String> PATH_ORDER = new Comparator<String>() {
+        public int compare(String o1, String o2) {
+            return comparePath(o1, o2);
+        }
+    };
+    private static final byte[] MAGIC = {(byte) 0xff, 'h', 'i', 'x'};
+    private static final int HEADER_LENGTH = 16;
+    private static final int FANOUT = 256;
+    private static final int SHA1_LENGTH = 20;
+    private static final String BASE58_ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int hashWidth;
+    private final int fanoutStart;
+    private final int offsetsStart;
+    private final int hashesStart;
+    private final int sha1sStart;
+    private final int pathsStart;
+    private final int depth;
+    private final String parentHash;
+    private GitFileIndex parent;
+    private int layeredCount = -1;
+    private final TreeMap<String, Two<Object, String, String>> overlay = new TreeMap<>(PATH_ORDER);
+    private int added;
+
+    protected GitFileIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer == null) {
+            count = hashWidth = fanoutStart = offsetsStart = hashesStart = sha1sStart = pathsStart = depth = 0;
+            parentHash = null;
+            return;
+        }
+        if (!isBinary(buffer) || buffer.limit() < HEADER_LENGTH + FANOUT * 4 + 4 + SHA1_LENGTH) {
+            throw new IOException("Invalid gitfile.idx header.");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION && version != VERSION_DELTA) {
+            throw new IOException("Unsupported gitfile.idx version: " + version);
+        }
+        count = buffer.getInt(8);
+        hashWidth = buffer.getInt(12);
+        if (version == VERSION_DELTA) {
+            depth = buffer.getInt(HEADER_LENGTH);
+            int parentLength = buffer.get(HEADER_LENGTH + 4) & 0xff;
+            if (HEADER_LENGTH + 5 + parentLength + FANOUT * 4 + 4 + SHA1_LENGTH > buffer.limit()) {
+                throw new IOException("Corrupt gitfile.idx.");
+            }
+            parentHash = encodeBase58(bytes(HEADER_LENGTH + 5, parentLength));
+            fanoutStart = HEADER_LENGTH + 5 + parentLength;
+        } else {
+            depth = 0;
+            parentHash = null;
+            fanoutStart = HEADER_LENGTH;
+        }
+        long paths = fanoutStart + FANOUT * 4L + (count + 1L) * 4 + count * (1L + hashWidth) + count * (1L + SHA1_LENGTH);
+        if (count < 0 || hashWidth < 0 || hashWidth > 255 || depth < 0 || paths + SHA1_LENGTH > buffer.limit()
+                || (version == VERSION_DELTA && StringUtils.isEmpty(parentHash))) {
+            throw new IOException("Corrupt gitfile.idx.");
+        }
+        offsetsStart = fanoutStart + FANOUT * 4;
+        hashesStart = offsetsStart + (count + 1) * 4;
+        sha1sStart = hashesStart + count * (1 + hashWidth);
+        pathsStart = sha1sStart + count * (1 + SHA1_LENGTH);
+        if (buffer.getInt(fanoutStart + (FANOUT - 1) * 4) != count
+                || (long) pathsStart + buffer.getInt(offsetsStart + count * 4) + SHA1_LENGTH != buffer.limit()) {
+            throw new IOException("Corrupt gitfile.idx.");
+        }
+        verifyChecksum(buffer);
+    }
+
+    /**
+     * check the trailer, a truncated or modified index is not read.
+     *
+     * @param buffer the whole index.
+     * @throws IOException if the sha1 of the content does not match the trailer.
+     */
+    private static void verifyChecksum(ByteBuffer buffer) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        ByteBuffer content = buffer.duplicate();
+        content.limit(buffer.limit() - SHA1_LENGTH).position(0);
+        md.update(content);
+        byte[] actual = md.digest();
+        byte[] expected = new byte[SHA1_LENGTH];
+        ByteBuffer trailer = buffer.duplicate();
+        trailer.position(buffer.limit() - SHA1_LENGTH);
+        trailer.get(expected);
+        if (!MessageDigest.isEqual(actual, expected)) {
+            throw new IOException("Corrupt gitfile.idx, checksum mismatch.");
+        }
+    }
+
+    /**
+     * return an empty index.
+     *
+     * @return
+     */
+    public static GitFileIndex empty() {
+        try {
+            return new GitFileIndex(null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * parse the index content, the binary format or the legacy gzip text format.
+     *
+     * @param content
+     * @return
+     * @throws IOException
+     */
+    public static GitFileIndex parse(byte[] content) throws IOException {
+        if (content == null || content.length == 0) {
+            return empty();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(content).asReadOnlyBuffer();
+        if (isBinary(buffer)) {
+            return new GitFileIndex(buffer);
+        }
+        return parseLegacy(content);
+    }
+
+    /**
+     * read the index file.
+     *
+     * @param file
+     * @param mmap map the binary index file into memory instead of reading it into the heap.
+     * @return
+     * @throws IOException
+     */
+    public static GitFileIndex read(File file, boolean mmap) throws IOException {
+        if (!file.isFile()) {
+            return empty();
+        }
+        if (mmap) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                if (channel.size() > MAGIC.length && channel.size() < Integer.MAX_VALUE) {
+                    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    if (isBinary(buffer)) {
+                        return new GitFileIndex(buffer);
+                    }
+                }
+            }
+        }
+        try (InputStream is = new FileInputStream(file)) {
+            return parse(IOUtils.toByteArray(is));
+        }
+    }
+
+    /**
+     * write the index to the binary format.
+     *
+     * @param index {filename: (ipfs hash, sha1)}
+     * @return
+     */
+    public static byte[] toBytes(Map<String, Two<Object, String, String>> index) {
+        return toBytes(index, null, 0);
+    }
+
+    /**
+     * write the index to the binary format, the index is a delta segment if the parent hash is not empty.
+     *
+     * @param index      {filename: (ipfs hash, sha1)}
+     * @param parentHash the ipfs hash of the parent index.
+     * @param depth      the number of the parents.
+     * @return
+     */
+    public static byte[] toBytes(Map<String, Two<Object, String, String>> index, String parentHash, int depth) {
+        byte[] parentBytes = StringUtils.isEmpty(parentHash) ? null : decodeBase58(parentHash);
+        if (parentBytes != null && (parentBytes.length > 255 || depth < 1)) {
+            throw new IllegalArgumentException("Invalid parent index: " + parentHash + ", depth: " + depth);
+        }
+        TreeMap<String, Two<Object, String, String>> sorted = new TreeMap<>(PATH_ORDER);
+        sorted.putAll(index);
+        int count = sorted.size();
+        List<byte[]> paths = new ArrayList<>(count);
+        List<byte[]> hashes = new ArrayList<>(count);
+        List<byte[]> sha1s = new ArrayList<>(count);
+        int hashWidth = 0;
+        for (Map.Entry<String, Two<Object, String, String>> entry : sorted.entrySet()) {
+            if (StringUtils.isEmpty(entry.getKey())) {
+                throw new IllegalArgumentException("Empty filename in gitfile.idx.");
+            }
+            String ipfsHash = entry.getValue() == null ? null : entry.getValue().first();
+            String sha1 = entry.getValue() == null ? null : StringUtils.lowerCase(entry.getValue().second());
+            byte[] hash = StringUtils.isEmpty(ipfsHash) ? new byte[0] : decodeBase58(ipfsHash);
+            if (hash.length > 255) {
+                throw new IllegalArgumentException("Invalid ipfs hash: " + ipfsHash);
+            }
+            if (StringUtils.isNotEmpty(sha1) && (sha1.length() != SHA1_LENGTH * 2 || !StringUtils.containsOnly(sha1, "0123456789abcdef"))) {
+                throw new IllegalArgumentException("Invalid sha1: " + sha1);
+            }
+            paths.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            hashes.add(hash);
+            sha1s.add(StringUtils.isEmpty(sha1) ? new byte[0] : Hex.decode(sha1));
+            hashWidth = Math.max(hashWidth, hash.length);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.write(MAGIC);
+            out.writeInt(parentBytes == null ? VERSION : VERSION_DELTA);
+            out.writeInt(count);
+            out.writeInt(hashWidth);
+            if (parentBytes != null) {
+                out.writeInt(depth);
+                out.writeByte(parentBytes.length);
+                out.write(parentBytes);
+            }
+            {// fanout
+                int[] fanout = new int[FANOUT];
+                for (byte[] path : paths) {
+                    fanout[path[0] & 0xff]++;
+                }
+                for (int i = 0, total = 0; i < FANOUT; i++) {
+                    total += fanout[i];
+                    out.writeInt(total);
+                }
+            }
+            {// offsets
+                int offset = 0;
+                for (byte[] path : paths) {
+                    out.writeInt(offset);
+                    offset += path.length;
+                }
+                out.writeInt(offset);
+            }
+            for (byte[] hash : hashes) {
+                out.writeByte(hash.length);
+                out.write(hash);
+                out.write(new byte[hashWidth - hash.length]);
+            }
+            for (byte[] sha1 : sha1s) {
+                out.writeByte(sha1.length);
+                out.write(sha1);
+                out.write(new byte[SHA1_LENGTH - sha1.length]);
+            }
+            for (byte[] path : paths) {
+                out.write(path);
+            }
+            out.flush();
+            out.write(MessageDigest.getInstance("SHA-1").digest(bytes.toByteArray()));
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param content
+     * @return true if the content is the binary index.
+     */
+    public static boolean isBinary(byte[] content) {
+        return content != null && isBinary(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * compare the paths by code points, that is the same as the order of the UTF-8 bytes.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public static int comparePath(String a, String b) {
+        int i = 0, j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i), cb = b.codePointAt(j);
+            if (ca != cb) {
+                return ca < cb ? -1 : 1;
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return i < a.length() ? 1 : (j < b.length() ? -1 : 0);
+    }
+
+    /**
+     * list the filenames which start with the prefix, in path order.
+     *
+     * @param prefix
+     * @return
+     */
+    public List<String> list(String prefix) {
+        prefix = StringUtils.defaultString(prefix);
+        List<String> list = new ArrayList<>();
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        int i = lowerBound(prefixBytes);
+        Iterator<String> it = overlay.tailMap(prefix, true).keySet().iterator();
+        String next = it.hasNext() ? it.next() : null;
+        if (next != null && !next.startsWith(prefix)) {
+            next = null;
+        }
+        while (true) {
+            String base = i < count && startsWith(i, prefixBytes) ? path(i) : null;
+            if (base == null && next == null) {
+                break;
+            }
+            int cmp = base == null ? 1 : (next == null ? -1 : comparePath(base, next));
+            if (cmp <= 0) {
+                list.add(base);
+                i++;
+            }
+            if (cmp >= 0) {
+                if (cmp > 0) {
+                    list.add(next);
+                }
+                next = it.hasNext() ? it.next() : null;
+                if (next != null && !next.startsWith(prefix)) {
+                    next = null;
+                }
+            }
+        }
+        return parent == null ? list : merge(list, parent.list(prefix));
+    }
+
+    public Two<Object, String, String> get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        Two<Object, String, String> value = overlay.get(key);
+        if (value != null) {
+            return value;
+        }
+        int i = find((String) key);
+        if (i >= 0) {
+            return entryValue(i);
+        }
+        return parent == null ? null : parent.get(key);
+    }
+
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    public Two<Object, String, String> put(String key, Two<Object, String, String> value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("GitFileIndex does not permit null key or value.");
+        }
+        Two<Object, String, String> old = overlay.put(key, value);
+        if (old == null) {
+            int i = find(key);
+            if (i >= 0) {
+                old = entryValue(i);
+            } else if (parent != null) {
+                old = parent.get(key);
+            }
+            if (old == null) {
+                added++;
+            }
+        }
+        return old;
+    }
+
+    public int size() {
+        if (parent == null) {
+            return count + added;
+        }
+        if (layeredCount < 0) {
+            int n = 0;
+            for (Iterator<?> it = new EntryIterator(false); it.hasNext(); it.next()) {
+                n++;
+            }
+            layeredCount = n;
+        }
+        return layeredCount + added;
+    }
+
+    public Set<Entry<String, Two<Object, String, String>>> entrySet() {
+        return new AbstractSet<Entry<String, Two<Object, String, String>>>() {
+            public Iterator<Entry<String, Two<Object, String, String>>> iterator() {
+                return new EntryIterator(true);
+            }
+
+            public int size() {
+                return GitFileIndex.this.size();
+            }
+        };
+    }
+
+    /**
+     * @return the number of the entries in the binary index, exclude the put entries.
+     */
+    public int getIndexedCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of the parents, 0 if this is a full index.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the ipfs hash of the parent index, null if this is a full index.
+     */
+    public String getParentHash() {
+        return parentHash;
+    }
+
+    public GitFileIndex getParent() {
+        return parent;
+    }
+
+    /**
+     * set the parent index which is resolved by the parent hash.
+     *
+     * @param parent
+     */
+    public void setParent(GitFileIndex parent) {
+        if (parentHash == null) {
+            throw new IllegalStateException("The full index has no parent.");
+        }
+        if (!overlay.isEmpty()) {
+            throw new IllegalStateException("The parent must be set before put.");
+        }
+        this.parent = parent;
+        this.layeredCount = -1;
+    }
+
+    /**
+     * @return true if all the parents are resolved.
+     */
+    public boolean isResolved() {
+        return parentHash == null || (parent != null && parent.isResolved());
+    }
+
+    /**
+     * merge the sorted lists, the duplicated paths are removed.
+     */
+    private static List<String> merge(List<String> a, List<String> b) {
+        List<String> list = new ArrayList<>(a.size() + b.size());
+        int i = 0, j = 0;
+        while (i < a.size() || j < b.size()) {
+            int cmp = i >= a.size() ? 1 : (j >= b.size() ? -1 : comparePath(a.get(i), b.get(j)));
+            list.add(cmp <= 0 ? a.get(i) : b.get(j));
+            if (cmp <= 0) {
+                i++;
+            }
+            if (cmp >= 0) {
+                j++;
+            }
+        }
+        return list;
+    }
+
+    private static boolean isBinary(ByteBuffer buffer) {
+        if (buffer.limit() < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static GitFileIndex parseLegacy(byte[] contentWithCompress) throws IOException {
+        GitFileIndex index = empty();
+        byte[] content;
+        try (GZIPInputStream ungzip = new GZIPInputStream(new ByteArrayInputStream(contentWithCompress))) {
+            content = IOUtils.toByteArray(ungzip);
+        }
+        String[] lines = StringUtils.split(new String(content, StandardCharsets.UTF_8), '\n');
+        for (String line : lines) {
+            String[] nameIpfsSha = StringUtils.split(line, ',');
+            if (nameIpfsSha.length != 3) {
+                continue;
+            }
+            index.put(nameIpfsSha[2], new Two<>(nameIpfsSha[0], nameIpfsSha[1]));
+        }
+        return index;
+    }
+
+    private int find(String key) {
+        if (count == 0 || key.isEmpty()) {
+            return -1;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int first = keyBytes[0] & 0xff;
+        int low = first == 0 ? 0 : buffer.getInt(fanoutStart + (first - 1) * 4);
+        int high = buffer.getInt(fanoutStart + first * 4) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTo(mid, keyBytes);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the first index whose path is greater than or equal to the key.
+     */
+    private int lowerBound(byte[] keyBytes) {
+        if (count == 0) {
+            return 0;
+        }
+        int low = 0, high = count;
+        if (keyBytes.length > 0) {
+            int first = keyBytes[0] & 0xff;
+            low = first == 0 ? 0 : buffer.getInt(fanoutStart + (first - 1) * 4);
+            high = buffer.getInt(fanoutStart + first * 4);
+        }
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareTo(mid, keyBytes) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compareTo(int i, byte[] keyBytes) {
+        int start = pathsStart + buffer.getInt(offsetsStart + i * 4);
+        int length = pathsStart + buffer.getInt(offsetsStart + (i + 1) * 4) - start;
+        int n = Math.min(length, keyBytes.length);
+        for (int k = 0; k < n; k++) {
+            int a = buffer.get(start + k) & 0xff, b = keyBytes[k] & 0xff;
+            if (a != b) {
+                return a < b ? -1 : 1;
+            }
+        }
+        return Integer.compare(length, keyBytes.length);
+    }
+
+    private boolean startsWith(int i, byte[] prefixBytes) {
+        int start = pathsStart + buffer.getInt(offsetsStart + i * 4);
+        int length = pathsStart + buffer.getInt(offsetsStart + (i + 1) * 4) - start;
+        if (length < prefixBytes.length) {
+            return false;
+        }
+        for (int k = 0; k < prefixBytes.length; k++) {
+            if (buffer.get(start + k) != prefixBytes[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String path(int i) {
+        int start = buffer.getInt(offsetsStart + i * 4);
+        int end = buffer.getInt(offsetsStart + (i + 1) * 4);
+        return new String(bytes(pathsStart + start, end - start), StandardCharsets.UTF_8);
+    }
+
+    private Two<Object, String, String> entryValue(int i) {
+        int hashAt = hashesStart + i * (1 + hashWidth);
+        int sha1At = sha1sStart + i * (1 + SHA1_LENGTH);
+        byte[] hash = bytes(hashAt + 1, buffer.get(hashAt) & 0xff);
+        byte[] sha1 = bytes(sha1At + 1, buffer.get(sha1At) & 0xff);
+        return new Two<>(encodeBase58(hash), Hex.toHexString(sha1));
+    }
+
+    private byte[] bytes(int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+    private static String encodeBase58(byte[] bytes) {
+        if (bytes.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        BigInteger value = new BigInteger(1, bytes);
+        BigInteger base = BigInteger.valueOf(58);
+        while (value.signum() > 0) {
+            BigInteger[] qr = value.divideAndRemainder(base);
+            sb.append(BASE58_ALPHABET.charAt(qr[1].intValue()));
+            value = qr[0];
+        }
+        for (int i = 0; i < bytes.length && bytes[i] == 0; i++) {
+            sb.append(BASE58_ALPHABET.charAt(0));
+        }
+        return sb.reverse().toString();
+    }
+
+    private static byte[] decodeBase58(String text) {
+        BigInteger value = BigInteger.ZERO;
+        BigInteger base = BigInteger.valueOf(58);
+        int zeros = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int digit = BASE58_ALPHABET.indexOf(text.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid ipfs hash: " + text);
+            }
+            if (digit == 0 && zeros == i) {
+                zeros++;
+            }
+            value = value.multiply(base).add(BigInteger.valueOf(digit));
+        }
+        byte[] bytes = value.signum() == 0 ? new byte[0] : value.toByteArray();
+        int strip = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+        byte[] result = new byte[zeros + bytes.length - strip];
+        System.arraycopy(bytes, strip, result, zeros, bytes.length - strip);
+        return result;
+    }
+
+    /**
+     * merge the put entries, the binary index and the parent in path order, the former overrides the latter.
+     */
+    private class EntryIterator implements Iterator<Entry<String, Two<Object, String, String>>> {
+        private final Iterator<Entry<String, Two<Object, String, String>>> overlayIt;
+        private final Iterator<Entry<String, Two<Object, String, String>>> parentIt;
+        private Entry<String, Two<Object, String, String>> nextOverlay;
+        private Entry<String, Two<Object, String, String>> nextParent;
+        private int i;
+        private String base;
+
+        EntryIterator(boolean includeOverlay) {
+            overlayIt = includeOverlay ? overlay.entrySet().iterator() : Collections.<Entry<String, Two<Object, String, String>>>emptyIterator();
+            parentIt = parent == null ? Collections.<Entry<String, Two<Object, String, String>>>emptyIterator() : parent.entrySet().iterator();
+            nextOverlay = overlayIt.hasNext() ? overlayIt.next() : null;
+            nextParent = parentIt.hasNext() ? parentIt.next() : null;
+            base = count > 0 ? path(0) : null;
+        }
+
+        public boolean hasNext() {
+            return nextOverlay != null || base != null || nextParent != null;
+        }
+
+        public Entry<String, Two<Object, String, String>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String key = nextOverlay == null ? null : nextOverlay.getKey();
+            if (base != null && (key == null || comparePath(base, key) < 0)) {
+                key = base;
+            }
+            if (nextParent != null && (key == null || comparePath(nextParent.getKey(), key) < 0)) {
+                key = nextParent.getKey();
+            }
+            Entry<String, Two<Object, String, String>> entry = null;
+            if (nextOverlay != null && nextOverlay.getKey().equals(key)) {
+                entry = new SimpleImmutableEntry<>(nextOverlay.getKey(), nextOverlay.getValue());
+                nextOverlay = overlayIt.hasNext() ? overlayIt.next() : null;
+            }
+            if (base != null && base.equals(key)) {
+                if (entry == null) {
+                    entry = new SimpleImmutableEntry<>(base, entryValue(i));
+                }
+                i++;
+                base = i < count ? path(i) : null;
+            }
+            if (nextParent != null && nextParent.getKey().equals(key)) {
+                if (entry == null) {
+                    entry = nextParent;
+                }
+                nextParent = parentIt.hasNext() ? parentIt.next() : null;
+            }
+            return entry;
+        }
+    }
+}
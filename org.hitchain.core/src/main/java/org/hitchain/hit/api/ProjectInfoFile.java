@@ -46,6 +46,12 @@
  * @since 2018-11-28 auto generate by qdp.
  */
 public class ProjectInfoFile implements Serializable {
+    private static final String SIGN_ALGORITHM = "MD5withRSA";
+    private static final SignatureCache.Verifier VERIFIER = new SignatureCache.Verifier() {
+        public boolean verify(byte[] publicKey, byte[] data, byte[] sign) {
+            return RSAHelper.verify(data, sign, RSAHelper.getPublicKeyFromHex(ByteHelper.utf8(publicKey)));
+        }
+    };
     transient private HashedFile file;
     /**如果仓库拥有者的密钥更换了，需要使用旧的密钥把新的公钥加密，以便于其他成员进行验证，以确定是仓库拥有者的身份**/
     //private String newOwnerPubKeyRasEncryptedByOldPriKeyRsa;
@@ -184,8 +190,8 @@ public boolean verify(ProjectInfoFile old) {
                 return false;
             }
         }
-        return RSAHelper.verify(ByteHelper.utf8(getContent()), Hex.decode(getSign()),
-                RSAHelper.getPublicKeyFromHex(getOwnerPubKeyRsa()));
+        return SignatureCache.getDefault().verify(SIGN_ALGORITHM, ByteHelper.utf8(getOwnerPubKeyRsa()),
+                ByteHelper.utf8(getContent()), Hex.decode(getSign()), VERIFIER);
     }
 
     /**
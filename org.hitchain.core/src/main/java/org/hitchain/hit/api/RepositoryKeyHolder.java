@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.api;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.util.encoders.Hex;
+import org.hitchain.hit.api.ProjectInfoFile.TeamInfo;
+import org.hitchain.hit.util.AESHelper;
+import org.hitchain.hit.util.ECCHelper;
+import org.hitchain.hit.util.RSAHelper;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.security.PrivateKey;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hold the repository keys of a private repository for a session (one transport).
+ * <pre>
+ * #1.The repository private key is decrypted by the user rsa private key once, when it is first required.
+ * #2.The data keys are decrypted by the repository private key once and cached by the wrapped key.
+ * #3.Each thread keeps an initialized ECIES cipher and an idle AES-GCM cipher, so the objects do not look up the provider again.
+ * #4.The key material is zeroed and the ciphers of all the threads are dropped when the holder is closed,
+ *    the pool threads which decrypted for the holder keep only an empty slot.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class RepositoryKeyHolder implements AESHelper.KeyResolver, Closeable {
+
+    private final String encryptedRepoPriKey;
+    private final String priKeyRsa;
+    private final Map<String/* wrapped key hex */, AESHelper.RawKey> dataKeys = new ConcurrentHashMap<>();
+    /**
+     * the ciphers of the threads, registered in slots so close can drop them for every thread.
+     */
+    private final Set<CipherSlot> slots = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<CipherSlot> ciphers = new ThreadLocal<CipherSlot>() {
+        protected CipherSlot initialValue() {
+            CipherSlot slot = new CipherSlot();
+            slots.add(slot);
+            return slot;
+        }
+    };
+    private volatile PrivateKey privateKey;
+    private volatile boolean closed;
+
+    /**
+     * @param projectInfoFile the repository project info.
+     * @param member          the user account, rsa public key or ecc address.
+     * @param priKeyRsa       the user rsa private key.
+     */
+    public RepositoryKeyHolder(ProjectInfoFile projectInfoFile, String member, String priKeyRsa) {
+        this.encryptedRepoPriKey = getEncryptedRepoPriKey(projectInfoFile, member);
+        this.priKeyRsa = priKeyRsa;
+    }
+
+    /**
+     * get the encrypted repository private key, if is owner return repository private key, if is member return member's repository private key.
+     *
+     * @param projectInfoFile
+     * @param member
+     * @return null if the member can not read the repository.
+     */
+    public static String getEncryptedRepoPriKey(ProjectInfoFile projectInfoFile, String member) {
+        if (StringUtils.equalsAny(member, projectInfoFile.getOwner(), projectInfoFile.getOwnerPubKeyRsa(),
+                projectInfoFile.getOwnerAddressEcc())) {// #if is owner, get the repository encrypted private key.
+            return projectInfoFile.getRepoPriKey();
+        }
+        for (TeamInfo ti : projectInfoFile.getMembers()) {
+            if (StringUtils.equalsAny(member, ti.getMember(), ti.getMemberPubKeyRsa(),
+                    ti.getMemberAddressEcc())) {
+                return ti.getMemberRepoPriKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the member can read the repository.
+     */
+    public boolean isMember() {
+        return encryptedRepoPriKey != null;
+    }
+
+    /**
+     * @return the repository private key, decrypted once.
+     * @throws Exception
+     */
+    public PrivateKey getPrivateKey() throws Exception {
+        PrivateKey key = privateKey;
+        if (key == null) {
+            synchronized (this) {
+                checkOpen();
+                key = privateKey;
+                if (key == null) {
+                    if (encryptedRepoPriKey == null) {
+                        throw new IllegalStateException("RepositoryKeyHolder the member can not read the repository!");
+                    }
+                    // Encrypt: private key -(hex decode)-> private key bytes -(encrypt with rsa public key)->  encrypt bytes -(hex encode)-> hex encrypt
+                    // Decrypt: hex encrypt -(hex decode)-> encrypt bytes     -(decrypt with rsa private key)-> private key bytes
+                    byte[] raw = RSAHelper.decrypt(Hex.decode(encryptedRepoPriKey), RSAHelper.getPrivateKeyFromHex(priKeyRsa));
+                    try {
+                        key = ECCHelper.getPrivateKeyFromECBigIntAndCurve(new BigInteger(1, raw));
+                    } finally {
+                        Arrays.fill(raw, (byte) 0);
+                    }
+                    privateKey = key;
+                }
+            }
+        }
+        return key;
+    }
+
+    public SecretKey unwrap(byte[] wrapped) throws Exception {
+        String id = Hex.toHexString(wrapped);
+        AESHelper.RawKey key = dataKeys.get(id);
+        if (key == null) {
+            byte[] raw = eciesCipher().doFinal(wrapped);
+            key = new AESHelper.RawKey(raw);
+            Arrays.fill(raw, (byte) 0);
+            AESHelper.RawKey exists = dataKeys.putIfAbsent(id, key);
+            if (exists != null) {
+                key.destroy();
+                key = exists;
+            }
+            if (closed) {// closed while unwrapping.
+                key.destroy();
+                checkOpen();
+            }
+        }
+        return key;
+    }
+
+    public byte[] decryptLegacy(byte[] content) throws Exception {
+        return eciesCipher().doFinal(content);
+    }
+
+    public Cipher borrowCipher() throws Exception {
+        checkOpen();
+        CipherSlot slot = ciphers.get();
+        Cipher cipher = slot.aes;
+        if (cipher == null) {
+            cipher = AESHelper.newCipher();
+        } else {
+            slot.aes = null;// the cipher is in use until it is returned.
+        }
+        return cipher;
+    }
+
+    public void returnCipher(Cipher cipher) {
+        if (!closed) {
+            ciphers.get().aes = cipher;
+        }
+    }
+
+    /**
+     * zero the key material, the holder can not be used after closed.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        privateKey = null;
+        for (AESHelper.RawKey key : dataKeys.values()) {
+            key.destroy();
+        }
+        dataKeys.clear();
+        for (CipherSlot slot : slots) {
+            slot.ecies = null;
+            slot.aes = null;
+        }
+        slots.clear();
+        ciphers.remove();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private Cipher eciesCipher() throws Exception {
+        checkOpen();
+        CipherSlot slot = ciphers.get();
+        Cipher cipher = slot.ecies;
+        if (cipher == null) {
+            cipher = Cipher.getInstance("ECIES", "BC");
+            cipher.init(Cipher.DECRYPT_MODE, getPrivateKey());
+            slot.ecies = cipher;
+        }
+        return cipher;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("RepositoryKeyHolder is closed!");
+        }
+    }
+
+    /**
+     * the ciphers of one thread, only used by that thread until the holder is closed.
+     */
+    private static class CipherSlot {
+        volatile Cipher ecies;
+        volatile Cipher aes;
+    }
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.provider;
+
+import io.ipfs.api.NamedStreamable;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content-addressed blob store, the storage of the hit repository files.
+ * <pre>
+ * #1.The address (hash) is computed by the store from the content, the same content always has the same address.
+ * #2.The content of an address never changes, so the readers can cache it forever.
+ * #3.The implementations: IPFSBlobStore (ipfs api), FileBlobStore (local directory), MemoryBlobStore (in memory),
+ *    LatencyBlobStore (a decorator which injects the latency, for the tests and the benchmarks).
+ * #4.The implementations are thread safe.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public interface BlobStore {
+
+    /**
+     * @return the name of the store, such as the url.
+     */
+    String getName();
+
+    /**
+     * store the content.
+     *
+     * @param content the file content, the directory is not supported by the local stores.
+     * @return the address of the content.
+     * @throws IOException
+     */
+    String put(NamedStreamable content) throws IOException;
+
+    /**
+     * open the content.
+     *
+     * @param hash the address of the content.
+     * @return
+     * @throws java.io.FileNotFoundException if the content does not exist.
+     * @throws IOException
+     */
+    InputStream open(String hash) throws IOException;
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.provider;
+
+import io.ipfs.api.NamedStreamable;
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+
+/**
+ * Blob store of a local directory, a stand-in of ipfs which survives the process.
+ * <pre>
+ * ==dir==
+ *     xx/Qmxxxxxxxx (the file name is the address, the directory is the next to last two chars like the ipfs flatfs)
+ * #1.The content is written to a temporary file while it is hashed, and renamed to the address when it is completed.
+ * #2.The existing blob is not written again.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class FileBlobStore extends LocalBlobStore {
+
+    private static final String TMP_PREFIX = "tmp-";
+    private final File dir;
+
+    public FileBlobStore(File dir) {
+        if (dir == null) {
+            throw new IllegalArgumentException("FileBlobStore dir is required!");
+        }
+        this.dir = dir;
+    }
+
+    public String getName() {
+        return dir.getAbsolutePath();
+    }
+
+    public String put(NamedStreamable content) throws IOException {
+        FileUtils.forceMkdir(dir);
+        File tmp = File.createTempFile(TMP_PREFIX, null, dir);
+        try {
+            MessageDigest md = newDigest();
+            try (InputStream is = openContent(content);
+                 OutputStream os = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)), md)) {
+                byte[] buffer = new byte[8192];
+                for (int n; (n = is.read(buffer)) > -1; ) {
+                    os.write(buffer, 0, n);
+                }
+            }
+            String hash = toHash(md.digest());
+            File file = toFile(hash);
+            if (!file.isFile()) {
+                FileUtils.forceMkdir(file.getParentFile());
+                try {
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {// the same content is written by the other thread.
+                    if (!file.isFile()) {
+                        throw e;
+                    }
+                }
+            }
+            return hash;
+        } finally {
+            FileUtils.deleteQuietly(tmp);
+        }
+    }
+
+    public InputStream open(String hash) throws IOException {
+        if (!isValidHash(hash)) {
+            throw new FileNotFoundException("Blob not found: " + hash);
+        }
+        return new FileInputStream(toFile(hash));
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    protected File toFile(String hash) {
+        return new File(new File(dir, hash.substring(hash.length() - 3, hash.length() - 1)), hash);
+    }
+
+    public String toString() {
+        return "FileBlobStore [" + dir + "]";
+    }
+}
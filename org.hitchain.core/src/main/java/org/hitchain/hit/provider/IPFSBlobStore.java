@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.provider;
+
+import io.ipfs.api.IPFS;
+import io.ipfs.api.MerkleNode;
+import io.ipfs.api.NamedStreamable;
+import io.ipfs.multihash.Multihash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Blob store of the ipfs api, the address is the ipfs hash (base58).
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class IPFSBlobStore implements BlobStore {
+
+    private final IPFS ipfs;
+    private final String url;
+
+    public IPFSBlobStore(IPFS ipfs, String url) {
+        if (ipfs == null) {
+            throw new IllegalArgumentException("IPFSBlobStore ipfs is required!");
+        }
+        this.ipfs = ipfs;
+        this.url = url;
+    }
+
+    public String getName() {
+        return url;
+    }
+
+    public String put(NamedStreamable content) throws IOException {
+        List<MerkleNode> add = ipfs.add(content);
+        if (add == null || add.isEmpty()) {
+            throw new IOException("Can not add the content to ipfs: " + url);
+        }
+        return add.get(add.size() - 1).hash.toBase58();
+    }
+
+    public InputStream open(String hash) throws IOException {
+        return ipfs.catStream(Multihash.fromBase58(hash));
+    }
+
+    public IPFS getIpfs() {
+        return ipfs;
+    }
+
+    public String toString() {
+        return "IPFSBlobStore [" + url + "]";
+    }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.provider;
+
+import io.ipfs.api.NamedStreamable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Blob store decorator which injects the latency of a remote node, for the tests and the benchmarks.
+ * <pre>
+ * #1.Every open and put waits latency + random(0, jitter) milliseconds before it goes to the target store.
+ * #2.The waits are concurrent, like the round trips of the network, so the concurrent transfers overlap them.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class LatencyBlobStore implements BlobStore {
+
+    private final BlobStore target;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final AtomicLong openCount = new AtomicLong();
+    private final AtomicLong putCount = new AtomicLong();
+
+    public LatencyBlobStore(BlobStore target, long latencyMillis, long jitterMillis) {
+        if (target == null) {
+            throw new IllegalArgumentException("LatencyBlobStore target is required!");
+        }
+        this.target = target;
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+    }
+
+    public String getName() {
+        return target.getName() + "+" + latencyMillis + "ms";
+    }
+
+    public String put(NamedStreamable content) throws IOException {
+        putCount.incrementAndGet();
+        delay();
+        return target.put(content);
+    }
+
+    public InputStream open(String hash) throws IOException {
+        openCount.incrementAndGet();
+        delay();
+        return target.open(hash);
+    }
+
+    public long getOpenCount() {
+        return openCount.get();
+    }
+
+    public long getPutCount() {
+        return putCount.get();
+    }
+
+    public BlobStore getTarget() {
+        return target;
+    }
+
+    protected void delay() throws IOException {
+        long millis = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (millis < 1) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting the latency of " + target.getName());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.provider;
+
+import io.ipfs.api.NamedStreamable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The base of the blob stores without ipfs, the address is the base58 sha2-256 multihash of the raw content.
+ * <pre>
+ * #1.The address looks like the ipfs hash (Qm...), so it goes through the git file index and the ipfs cache unchanged.
+ * #2.The address is not the same as the ipfs hash of the content, ipfs hashes the unixfs dag, not the raw content.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public abstract class LocalBlobStore implements BlobStore {
+
+    private static final char[] BASE58 = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+    private static final BigInteger BASE = BigInteger.valueOf(58);
+    /**
+     * the multihash prefix of sha2-256: the function code and the digest length.
+     */
+    private static final byte[] SHA2_256 = {0x12, 0x20};
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param digest the sha2-256 digest of the content.
+     * @return the base58 multihash.
+     */
+    public static String toHash(byte[] digest) {
+        byte[] multihash = new byte[SHA2_256.length + digest.length];
+        System.arraycopy(SHA2_256, 0, multihash, 0, SHA2_256.length);
+        System.arraycopy(digest, 0, multihash, SHA2_256.length, digest.length);
+        StringBuilder sb = new StringBuilder();
+        for (BigInteger value = new BigInteger(1, multihash); value.signum() > 0; ) {
+            BigInteger[] qr = value.divideAndRemainder(BASE);
+            sb.append(BASE58[qr[1].intValue()]);
+            value = qr[0];
+        }
+        for (int i = 0; i < multihash.length && multihash[i] == 0; i++) {
+            sb.append(BASE58[0]);
+        }
+        return sb.reverse().toString();
+    }
+
+    /**
+     * @param hash
+     * @return true if the hash may be an address of this store, it is used as the file name.
+     */
+    public static boolean isValidHash(String hash) {
+        if (hash == null || hash.length() < 3) {
+            return false;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * open the content of the file, the directory is not supported.
+     *
+     * @param content
+     * @return
+     * @throws IOException
+     */
+    protected static InputStream openContent(NamedStreamable content) throws IOException {
+        if (content == null || content.isDirectory()) {
+            throw new IOException("LocalBlobStore only supports the file content: " + content);
+        }
+        InputStream is = content.getInputStream();
+        if (is == null) {
+            throw new IOException("LocalBlobStore content has no stream: " + content.getName());
+        }
+        return is;
+    }
+}
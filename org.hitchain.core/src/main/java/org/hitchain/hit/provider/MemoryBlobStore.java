@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.provider;
+
+import io.ipfs.api.NamedStreamable;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory blob store, for the tests and the benchmarks.
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class MemoryBlobStore extends LocalBlobStore {
+
+    private final Map<String/* hash */, byte[]> blobs = new ConcurrentHashMap<>();
+
+    public String getName() {
+        return "memory";
+    }
+
+    public String put(NamedStreamable content) throws IOException {
+        byte[] bytes;
+        try (InputStream is = openContent(content)) {
+            bytes = IOUtils.toByteArray(is);
+        }
+        String hash = toHash(newDigest().digest(bytes));
+        blobs.putIfAbsent(hash, bytes);
+        return hash;
+    }
+
+    public InputStream open(String hash) throws IOException {
+        byte[] bytes = hash == null ? null : blobs.get(hash);
+        if (bytes == null) {
+            throw new FileNotFoundException("Blob not found: " + hash);
+        }
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * @return the count of the blobs.
+     */
+    public int size() {
+        return blobs.size();
+    }
+
+    public void clear() {
+        blobs.clear();
+    }
+}
@@ -0,0 +1,465 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.util;
+
+import org.apache.commons.io.IOUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.*;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hybrid encryption of the private repository files: the file content is encrypted by an AES-GCM data key,
+ * and the data key is encrypted by the repository ECC public key.
+ * <pre>
+ * ==file format==
+ *     magic(4 bytes 'h','i','t','e') | version(1 byte) | wrapped key length(2 bytes) | wrapped key | iv(12 bytes) | segments
+ * ==segments (version 2)==
+ *     the plain text is cut into 64KB segments, each is sealed by AES-GCM with its own 16 bytes tag, the last one may be shorter or empty.
+ *     nonce of segment i = iv xor (i as 4 bytes at 7..10, 1 at 11 if it is the last segment)
+ * ==version 1==
+ *     one AES-GCM cipher text with 16 bytes tag, still readable.
+ * #1.The data key is generated once per repository public key in the process (one push), and wrapped by ECIES only once.
+ * #2.The iv is random for each file, so the same data key can be used for all the files of the push.
+ * #3.The key resolver caches the unwrapped data keys by the wrapped key, so the ECIES decryption runs once per push when reading.
+ * #4.The legacy ECIES file starts with the ephemeral public key (0x04), which never equals the magic, so it is still readable.
+ * #5.A segment is handed out only after its tag is verified, so the memory is bounded by a segment and no unverified plain text
+ *    is read. The segment index and the last flag in the nonce reject the reordered, dropped or truncated segments.
+ * #6.The data keys are zeroed when they are cleared, see clearDataKeys.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class AESHelper {
+
+    public static final byte[] MAGIC = {'h', 'i', 't', 'e'};
+    public static final int VERSION = 2;
+    public static final int VERSION_WHOLE = 1;
+    public static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    public static final int KEY_SIZE = 256;
+    public static final int IV_SIZE = 12;
+    public static final int TAG_BITS = 128;
+    public static final int TAG_SIZE = TAG_BITS / 8;
+    public static final int SEGMENT_SIZE = 64 * 1024;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Map<String/* repository public key */, DataKey> DATA_KEYS = new ConcurrentHashMap<>();
+
+    static {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    /**
+     * resolve the repository keys for decryption, see RepositoryKeyHolder.
+     */
+    public interface KeyResolver {
+        /**
+         * @param wrapped the ECIES encrypted data key.
+         * @return the data key.
+         */
+        SecretKey unwrap(byte[] wrapped) throws Exception;
+
+        /**
+         * @param content the content encrypted by the repository public key.
+         * @return the plain content.
+         */
+        byte[] decryptLegacy(byte[] content) throws Exception;
+
+        /**
+         * @return an AES-GCM cipher, it is initialized for each segment by the stream.
+         */
+        Cipher borrowCipher() throws Exception;
+
+        /**
+         * give back the cipher when the stream is closed.
+         */
+        void returnCipher(Cipher cipher);
+    }
+
+    /**
+     * the data key and its ECIES wrapped bytes.
+     */
+    public static class DataKey {
+        private final SecretKey key;
+        private final byte[] wrapped;
+
+        public DataKey(SecretKey key, byte[] wrapped) {
+            this.key = key;
+            this.wrapped = wrapped;
+        }
+
+        public SecretKey getKey() {
+            return key;
+        }
+
+        public byte[] getWrapped() {
+            return wrapped.clone();
+        }
+
+        /**
+         * zero the key, the key can not be used after destroyed.
+         */
+        public void destroy() {
+            if (key instanceof RawKey) {
+                ((RawKey) key).destroy();
+            }
+        }
+    }
+
+    /**
+     * the AES key which can be zeroed, the SecretKeySpec copies the key and can not be destroyed.
+     */
+    public static class RawKey implements SecretKey {
+        private final byte[] key;
+        private volatile boolean destroyed;
+
+        public RawKey(byte[] key) {
+            this.key = key.clone();
+        }
+
+        public String getAlgorithm() {
+            return "AES";
+        }
+
+        public String getFormat() {
+            return "RAW";
+        }
+
+        public byte[] getEncoded() {
+            if (destroyed) {
+                throw new IllegalStateException("The data key is destroyed!");
+            }
+            return key.clone();
+        }
+
+        public void destroy() {
+            destroyed = true;
+            Arrays.fill(key, (byte) 0);
+        }
+
+        public boolean isDestroyed() {
+            return destroyed;
+        }
+    }
+
+    public static SecretKey generateKey() {
+        byte[] raw = new byte[KEY_SIZE / 8];
+        RANDOM.nextBytes(raw);
+        try {
+            return new RawKey(raw);
+        } finally {
+            Arrays.fill(raw, (byte) 0);
+        }
+    }
+
+    public static byte[] generateIv() {
+        byte[] iv = new byte[IV_SIZE];
+        RANDOM.nextBytes(iv);
+        return iv;
+    }
+
+    /**
+     * encrypt the stream into the segments of the version 2.
+     */
+    public static InputStream encryptStream(InputStream is, SecretKey key, byte[] iv) throws Exception {
+        return new SegmentStream(is, newCipher(), Cipher.ENCRYPT_MODE, key, iv);
+    }
+
+    /**
+     * decrypt the segments of the version 2, a segment is returned after its tag is verified,
+     * an IOException is thrown when the modified segment is read.
+     */
+    public static InputStream decryptStream(InputStream is, SecretKey key, byte[] iv) throws Exception {
+        return new SegmentStream(is, newCipher(), Cipher.DECRYPT_MODE, key, iv);
+    }
+
+    /**
+     * return the data key of the repository, the data key is generated and wrapped once.
+     *
+     * @param repoPubKeyHex the repository ethereum public key hex.
+     * @return
+     * @throws Exception
+     */
+    public static DataKey getDataKey(String repoPubKeyHex) throws Exception {
+        DataKey dataKey = DATA_KEYS.get(repoPubKeyHex);
+        if (dataKey == null) {
+            synchronized (DATA_KEYS) {
+                dataKey = DATA_KEYS.get(repoPubKeyHex);
+                if (dataKey == null) {
+                    PublicKey publicKey = ECCHelper.getPublicKeyFromEthereumPublicKeyHex(repoPubKeyHex);
+                    SecretKey key = generateKey();
+                    byte[] raw = key.getEncoded();
+                    try {
+                        dataKey = new DataKey(key, ECCHelper.publicEncrypt(raw, publicKey));
+                    } finally {
+                        Arrays.fill(raw, (byte) 0);
+                    }
+                    DATA_KEYS.put(repoPubKeyHex, dataKey);
+                }
+            }
+        }
+        return dataKey;
+    }
+
+    /**
+     * forget and zero the data keys for encryption, the next push generates a new data key.
+     */
+    public static void clearDataKeys() {
+        synchronized (DATA_KEYS) {
+            for (DataKey dataKey : DATA_KEYS.values()) {
+                dataKey.destroy();
+            }
+            DATA_KEYS.clear();
+        }
+    }
+
+    /**
+     * encrypt the stream with the repository data key.
+     *
+     * @param is            plain content.
+     * @param repoPubKeyHex the repository ethereum public key hex.
+     * @return
+     * @throws Exception
+     */
+    public static InputStream hybridEncryptStream(InputStream is, String repoPubKeyHex) throws Exception {
+        DataKey dataKey = getDataKey(repoPubKeyHex);
+        byte[] iv = generateIv();
+        ByteArrayOutputStream header = new ByteArrayOutputStream(MAGIC.length + 3 + dataKey.wrapped.length + iv.length);
+        DataOutputStream out = new DataOutputStream(header);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeShort(dataKey.wrapped.length);
+        out.write(dataKey.wrapped);
+        out.write(iv);
+        out.flush();
+        return new SequenceInputStream(new ByteArrayInputStream(header.toByteArray()), encryptStream(is, dataKey.key, iv));
+    }
+
+    /**
+     * decrypt the stream which is encrypted by hybridEncryptStream, or the legacy content encrypted by ECCHelper.publicEncrypt.
+     *
+     * @param is       encrypted content.
+     * @param resolver the repository keys.
+     * @return
+     * @throws Exception
+     */
+    public static InputStream hybridDecryptStream(InputStream is, final KeyResolver resolver) throws Exception {
+        byte[] head = new byte[MAGIC.length];
+        int n = 0;
+        while (n < head.length) {
+            int r = is.read(head, n, head.length - n);
+            if (r < 0) {
+                break;
+            }
+            n += r;
+        }
+        if (n < head.length || !Arrays.equals(head, MAGIC)) {// the legacy format.
+            // ECIES can not decrypt before the mac is read, so read the whole content.
+            ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+            legacy.write(head, 0, n);
+            IOUtils.copy(is, legacy);
+            return new ByteArrayInputStream(resolver.decryptLegacy(legacy.toByteArray()));
+        }
+        DataInputStream in = new DataInputStream(is);
+        int version = in.readUnsignedByte();
+        if (version != VERSION && version != VERSION_WHOLE) {
+            throw new IOException("Unsupported encrypted file version: " + version);
+        }
+        byte[] wrapped = new byte[in.readUnsignedShort()];
+        in.readFully(wrapped);
+        byte[] iv = new byte[IV_SIZE];
+        in.readFully(iv);
+        SecretKey key = resolver.unwrap(wrapped);
+        final Cipher cipher = resolver.borrowCipher();
+        if (version == VERSION_WHOLE) {// one tag at the end, verify it before the content is returned.
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+                return new ByteArrayInputStream(decryptFully(is, cipher));
+            } finally {
+                resolver.returnCipher(cipher);
+            }
+        }
+        return new SegmentStream(is, cipher, Cipher.DECRYPT_MODE, key, iv) {
+            private boolean closed;
+
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    resolver.returnCipher(cipher);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param head the first bytes of the encrypted content.
+     * @return true if the content is encrypted by hybridEncryptStream.
+     */
+    public static boolean isHybrid(byte[] head) {
+        if (head == null || head.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a new AES-GCM cipher.
+     */
+    public static Cipher newCipher() throws Exception {
+        // the BC provider outputs the plain text while decrypting, the streams keep it until the tag is verified.
+        return Cipher.getInstance(TRANSFORMATION, BouncyCastleProvider.PROVIDER_NAME);
+    }
+
+    /**
+     * decrypt the whole content, the plain text is returned only after the tag is verified.
+     *
+     * @param is     AES-GCM cipher text with the tag.
+     * @param cipher the cipher initialized for decryption.
+     * @return the plain content.
+     * @throws IOException if the content can not be read or is modified.
+     */
+    private static byte[] decryptFully(InputStream is, Cipher cipher) throws IOException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        try {
+            for (int n; (n = is.read(buf)) >= 0; ) {
+                byte[] out = cipher.update(buf, 0, n);
+                if (out != null) {
+                    plain.write(out);
+                }
+            }
+            plain.write(cipher.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IOException("The encrypted content is modified: " + e.getMessage(), e);
+        }
+        return plain.toByteArray();
+    }
+
+    /**
+     * @return the nonce of the segment, unique for each index and the last flag of the file.
+     */
+    static byte[] segmentNonce(byte[] iv, int index, boolean last) {
+        byte[] nonce = iv.clone();
+        nonce[7] ^= (byte) (index >>> 24);
+        nonce[8] ^= (byte) (index >>> 16);
+        nonce[9] ^= (byte) (index >>> 8);
+        nonce[10] ^= (byte) index;
+        nonce[11] ^= last ? 1 : 0;
+        return nonce;
+    }
+
+    /**
+     * encrypt or decrypt the segments, one segment is kept in memory.
+     * <pre>
+     * #1.The source is read one byte ahead, so the last segment is known before it is sealed or opened.
+     * #2.A truncated file ends with a segment which is not sealed as the last one, so its tag does not match.
+     * </pre>
+     */
+    private static class SegmentStream extends InputStream {
+        private final InputStream in;
+        private final Cipher cipher;
+        private final int mode;
+        private final SecretKey key;
+        private final byte[] iv;
+        private final byte[] source;
+        private final byte[] segment = new byte[SEGMENT_SIZE + TAG_SIZE];
+        private int index;
+        private int pos;
+        private int length;
+        private int lookahead = -1;
+        private boolean done;
+
+        SegmentStream(InputStream in, Cipher cipher, int mode, SecretKey key, byte[] iv) {
+            this.in = in;
+            this.cipher = cipher;
+            this.mode = mode;
+            this.key = key;
+            this.iv = iv.clone();
+            this.source = new byte[mode == Cipher.ENCRYPT_MODE ? SEGMENT_SIZE : SEGMENT_SIZE + TAG_SIZE];
+        }
+
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return segment[pos++] & 0xff;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, length - pos);
+            System.arraycopy(segment, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        public int available() {
+            return length - pos;
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private boolean fill() throws IOException {
+            while (pos == length) {
+                if (done) {
+                    return false;
+                }
+                int n = 0;
+                if (lookahead >= 0) {
+                    source[n++] = (byte) lookahead;
+                    lookahead = -1;
+                }
+                for (int r; n < source.length && (r = in.read(source, n, source.length - n)) >= 0; ) {
+                    n += r;
+                }
+                boolean last = n < source.length || (lookahead = in.read()) < 0;
+                if (mode == Cipher.DECRYPT_MODE && n < TAG_SIZE) {
+                    throw new IOException("The encrypted content is truncated.");
+                }
+                try {
+                    cipher.init(mode, key, new GCMParameterSpec(TAG_BITS, segmentNonce(iv, index, last)));
+                    length = cipher.doFinal(source, 0, n, segment, 0);
+                } catch (GeneralSecurityException e) {
+                    throw new IOException("The encrypted content is modified: " + e.getMessage(), e);
+                }
+                pos = 0;
+                index++;
+                done = last;
+            }
+            return true;
+        }
+    }
+}
@@ -182,32 +182,66 @@ public static byte[] sign(byte[] data, byte[] privateKey) {
     }
 
     public static boolean verify(byte[] data, byte[] signedHash, byte[] publicKey) {
-        try {
-            return ECKey.verify(sha256(data), signedHash, publicKey);
-        } catch (Exception e) {
-            return false;
-        }
+        return SignatureCache.getDefault().verify("ecc", publicKey, data, signedHash, VERIFIER);
     }
 
+    /**
+     * verify the signature by the node id, the public key is recovered from the signature if the cache is missed.
+     *
+     * @param data
+     * @param signedHash
+     * @param nodeId
+     * @return
+     */
     public static boolean verifyByNodeId(byte[] data, byte[] signedHash, byte[] nodeId) {
-        try {
-            ECKey key = ECKey.signatureToKey(sha256(data), signedHash);
-            byte[] pubKeyToNodeId = pubKeyToNodeId(key.getPubKey());
-            return Arrays.equals(pubKeyToNodeId, nodeId);
-        } catch (Exception e) {
-            return false;
-        }
+        return SignatureCache.getDefault().verify("ecc-node-id", nodeId, data, signedHash, NODE_ID_VERIFIER);
     }
 
+    /**
+     * verify the signature by the address, the public key is recovered from the signature if the cache is missed.
+     *
+     * @param data
+     * @param signedHash
+     * @param address
+     * @return
+     */
     public static boolean verifyByAddress(byte[] data, byte[] signedHash, byte[] address) {
-        try {
-            ECKey key = ECKey.signatureToKey(sha256(data), signedHash);
-            return Arrays.equals(key.getAddress(), address);
-        } catch (Exception e) {
-            return false;
-        }
+        return SignatureCache.getDefault().verify("ecc-address", address, data, signedHash, ADDRESS_VERIFIER);
     }
 
+    private static final SignatureCache.Verifier VERIFIER = new SignatureCache.Verifier() {
+        public boolean verify(byte[] publicKey, byte[] data, byte[] sign) {
+            try {
+                return ECKey.verify(sha256(data), sign, publicKey);
+            } catch (Exception e) {
+                return false;
+            }
+        }
+    };
+
+    private static final SignatureCache.Verifier NODE_ID_VERIFIER = new SignatureCache.Verifier() {
+        public boolean verify(byte[] nodeId, byte[] data, byte[] sign) {
+            try {
+                ECKey key = ECKey.signatureToKey(sha256(data), sign);
+                byte[] pubKeyToNodeId = pubKeyToNodeId(key.getPubKey());
+                return Arrays.equals(pubKeyToNodeId, nodeId);
+            } catch (Exception e) {
+                return false;
+            }
+        }
+    };
+
+    private static final SignatureCache.Verifier ADDRESS_VERIFIER = new SignatureCache.Verifier() {
+        public boolean verify(byte[] address, byte[] data, byte[] sign) {
+            try {
+                ECKey key = ECKey.signatureToKey(sha256(data), sign);
+                return Arrays.equals(key.getAddress(), address);
+            } catch (Exception e) {
+                return false;
+            }
+        }
+    };
+
     public static byte[] pubKeyToNodeId(byte[] pubKey) {
         return sha256(pubKey);
     }
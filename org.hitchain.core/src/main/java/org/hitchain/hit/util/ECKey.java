@@ -52,7 +52,7 @@
 import org.bouncycastle.util.BigIntegers;
 import org.bouncycastle.util.encoders.Base64;
 import org.bouncycastle.util.encoders.Hex;
-import org.hitchain.hit.util.cryptohash.Keccak256;
+import org.hitchain.hit.util.cryptohash.FastKeccak256;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -508,9 +508,7 @@ public static byte[] sha3omit12(byte[] input) {
     }
 
     public static byte[] keccak256(byte[] input) {
-        Keccak256 digest = new Keccak256();
-        digest.update(input);
-        return digest.digest();
+        return FastKeccak256.hash(input);
     }
 
     /**
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent stat cache of the git file sha1, the unchanged files are not hashed again.
+ * <pre>
+ * ==~/.hit/cache/filehash==
+ *     sha1(git dir path) (the cache file of each repository)
+ * #1.The entry is keyed by the relative path, and valid if the size, the last modified time and the file key (inode) are not changed.
+ * #2.Like the jgit FileSnapshot, the entry is racily clean if the file is modified within the timestamp resolution
+ *    before it is hashed, such entry is not trusted and the file is hashed again.
+ * #3.The missed files are hashed on the fork-join pool.
+ * #4.Only the entries used in the session are saved, so the removed files do not stay in the cache, the added objects
+ *    are hashed with "remember=false" and never enter the cache.
+ * #5.The file which can not be read is not in the result, the caller decides how to handle it.
+ * ==system properties==
+ *     hit.filehash.cache=false       disable the cache, the files are still hashed in parallel.
+ *     hit.filehash.cache.dir=path    the cache directory.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class FileHashCache {
+
+    public static final int VERSION = 1;
+    /**
+     * the timestamp resolution of the file systems, the same as the jgit FileSnapshot fallback.
+     */
+    public static final long RACY_MILLIS = 2500;
+    private static final int THRESHOLD = 8;
+
+    private final File file;
+    private final Map<String/* relative path */, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String/* relative path */, Entry> used = new ConcurrentHashMap<>();
+
+    public FileHashCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * open the cache of the git dir.
+     *
+     * @param gitDir
+     * @return the cache, the cache file is null if the cache is disabled.
+     */
+    public static FileHashCache open(File gitDir) {
+        if ("false".equalsIgnoreCase(System.getProperty("hit.filehash.cache"))) {
+            return new FileHashCache(null);
+        }
+        String path = System.getProperty("hit.filehash.cache.dir");
+        File dir = StringUtils.isBlank(path)
+                ? new File(new File(HitHelper.FILE_HIT_CONFIG).getParentFile(), "cache/filehash")
+                : new File(path);
+        FileHashCache cache = new FileHashCache(new File(dir, GitHelper.sha1(ByteHelper.utf8(gitDir.getAbsolutePath()))));
+        cache.load();
+        return cache;
+    }
+
+    /**
+     * get the sha1 of the files, the missed files are hashed on the fork-join pool and remembered.
+     *
+     * @param files {relativePath: File}
+     * @return {relativePath: sha1}, the files which can not be read are not in the result.
+     */
+    public Map<String, String> sha1(Map<String, File> files) {
+        return sha1(files, true);
+    }
+
+    /**
+     * get the sha1 of the files, the missed files are hashed on the fork-join pool.
+     *
+     * @param files    {relativePath: File}
+     * @param remember false if the hashed files should not be saved in the cache, such as the files hashed only once.
+     * @return {relativePath: sha1}, the files which can not be read are not in the result.
+     */
+    public Map<String, String> sha1(Map<String, File> files, boolean remember) {
+        final Map<String, String> result = new ConcurrentHashMap<>();
+        final List<Map.Entry<String, File>> missed = new ArrayList<>();
+        for (Map.Entry<String, File> entry : files.entrySet()) {
+            String sha1 = get(entry.getKey(), entry.getValue());
+            if (sha1 == null) {
+                missed.add(entry);
+            } else {
+                result.put(entry.getKey(), sha1);
+            }
+        }
+        if (!missed.isEmpty()) {
+            ForkJoinPool.commonPool().invoke(new HashTask(missed, 0, missed.size(), result, remember));
+        }
+        return new HashMap<>(result);
+    }
+
+    /**
+     * @param path
+     * @param file
+     * @return the cached sha1, or null if the file is changed or the entry is racily clean.
+     */
+    public String get(String path, File file) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            return null;
+        }
+        Entry stat = stat(file, null);
+        if (stat == null || !entry.isSame(stat) || entry.isRacy()) {
+            return null;
+        }
+        used.put(path, entry);
+        return entry.sha1;
+    }
+
+    /**
+     * hash the file and remember the sha1.
+     *
+     * @param path
+     * @param file
+     * @return
+     */
+    public String put(String path, File file) {
+        long readAt = System.currentTimeMillis();
+        String sha1 = GitHelper.sha1(file);
+        Entry stat = stat(file, sha1);
+        if (stat != null) {
+            stat.readAt = readAt;
+            entries.put(path, stat);
+            used.put(path, stat);
+        }
+        return sha1;
+    }
+
+    /**
+     * write the used entries to the cache file.
+     */
+    public void save() {
+        if (file == null) {
+            return;
+        }
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            FileUtils.forceMkdir(file.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(VERSION);
+                out.writeInt(used.size());
+                for (Map.Entry<String, Entry> entry : used.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().write(out);
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {// the cache is optional.
+            FileUtils.deleteQuietly(tmp);
+            System.err.println("Can not write the file hash cache: " + e.getMessage());
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    protected void load() {
+        if (file == null || !file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != VERSION) {
+                return;
+            }
+            for (int i = 0, size = in.readInt(); i < size; i++) {
+                String path = in.readUTF();
+                entries.put(path, Entry.read(in));
+            }
+        } catch (IOException e) {// the broken cache is dropped.
+            entries.clear();
+        }
+    }
+
+    private static Entry stat(File file, String sha1) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            Object fileKey = attributes.fileKey();
+            return new Entry(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                    fileKey == null ? "" : fileKey.toString(), sha1);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static class Entry {
+        final long size;
+        final long modified;
+        final String fileKey;
+        final String sha1;
+        long readAt;
+
+        Entry(long size, long modified, String fileKey, String sha1) {
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+            this.sha1 = sha1;
+        }
+
+        static Entry read(DataInputStream in) throws IOException {
+            Entry entry = new Entry(in.readLong(), in.readLong(), in.readUTF(), in.readUTF());
+            entry.readAt = in.readLong();
+            return entry;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeUTF(fileKey);
+            out.writeUTF(sha1);
+            out.writeLong(readAt);
+        }
+
+        boolean isSame(Entry other) {
+            return size == other.size && modified == other.modified && fileKey.equals(other.fileKey);
+        }
+
+        /**
+         * @return true if the file may be modified again in the same timestamp after it is hashed.
+         */
+        boolean isRacy() {
+            return readAt - TimeUnit.NANOSECONDS.toMillis(modified) < RACY_MILLIS;
+        }
+    }
+
+    private class HashTask extends RecursiveAction {
+        private final List<Map.Entry<String, File>> files;
+        private final int from;
+        private final int to;
+        private final Map<String, String> result;
+        private final boolean remember;
+
+        HashTask(List<Map.Entry<String, File>> files, int from, int to, Map<String, String> result, boolean remember) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.result = result;
+            this.remember = remember;
+        }
+
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    Map.Entry<String, File> entry = files.get(i);
+                    try {
+                        String sha1 = remember ? put(entry.getKey(), entry.getValue()) : GitHelper.sha1(entry.getValue());
+                        result.put(entry.getKey(), sha1);
+                    } catch (RuntimeException e) {
+                        System.err.println("Can not hash the file: " + entry.getValue() + ", " + e.getMessage());
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new HashTask(files, from, middle, result, remember), new HashTask(files, middle, to, result, remember));
+        }
+    }
+}
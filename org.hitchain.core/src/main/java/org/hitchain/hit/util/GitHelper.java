@@ -25,8 +25,14 @@
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.TransportHit;
+import org.eclipse.jgit.util.SystemReader;
 import org.hitchain.contract.api.ContractApi;
+import org.hitchain.core.HitIPFSCache;
+import org.hitchain.core.HitIPFSFetcher;
+import org.hitchain.core.HitIPFSReader;
 import org.hitchain.hit.api.EncryptableFileWrapper;
+import org.hitchain.hit.api.GitFileIndex;
 import org.hitchain.hit.api.HashedFile;
 import org.hitchain.hit.api.ProjectInfoFile;
 import org.hitchain.hit.util.Tuple.Two;
@@ -36,8 +42,10 @@
 import java.net.URL;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * GitHelper
@@ -86,9 +94,11 @@ public static void onInitHitRepository(File gitDir) {
             }
         }
         //#4.Compare current files and GitFileIndex and get the changed files.
-        Two<Object, Map<String, File>/*add*/, Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>>/*remove*/> tuple = diffGitFiles(current, oldGitFileIndex);
+        FileHashCache hashCache = FileHashCache.open(gitDir);
+        Two<Object, Map<String, File>/*add*/, Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>>/*remove*/> tuple = diffGitFiles(current, oldGitFileIndex, hashCache);
         //#5.Write changed files to ipfs.
-        Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> newGitFileIndexToIpfs = writeNewFileToIpfs(tuple.first(), projectInfoFile, ipfs);
+        Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> newGitFileIndexToIpfs = writeNewFileToIpfs(tuple.first(), projectInfoFile, ipfs, hashCache, getPushConcurrency(gitDir));
+        hashCache.save();
         if (isLog) {
             for (Entry<String, Two<Object, String, String>> entry : newGitFileIndexToIpfs.entrySet()) {
                 System.out.println("ADD:" + entry.getKey());
@@ -153,9 +163,11 @@ public static void updateWholeHitRepository(File gitDir, ProjectInfoFile project
             current.remove(HIT_GITFILE_IDX);
         }
         //#4.Compare current files and GitFileIndex and get the changed files.
-        Two<Object, Map<String, File>/*add*/, Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>>/*remove*/> tuple = diffGitFiles(current, oldGitFileIndex);
+        FileHashCache hashCache = FileHashCache.open(gitDir);
+        Two<Object, Map<String, File>/*add*/, Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>>/*remove*/> tuple = diffGitFiles(current, oldGitFileIndex, hashCache);
         //#5.Write changed files to ipfs.
-        Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> newGitFileIndexToIpfs = writeNewFileToIpfs(tuple.first(), projectInfoFile, ipfs);
+        Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> newGitFileIndexToIpfs = writeNewFileToIpfs(tuple.first(), projectInfoFile, ipfs, hashCache, getPushConcurrency(gitDir));
+        hashCache.save();
         //#6.Gen the new GitFileIndex.
         Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> newGitFileIndex = generateNewGitFileIndex(current, oldGitFileIndex, newGitFileIndexToIpfs);
         //#7.Write the new GitFileIndex to disk and ipfs.
@@ -194,7 +206,7 @@ public static boolean updateHitRepositoryProjectInfoFile(File gitDir, ProjectInf
         {
             newGitFile.put(HIT_PROJECT_INFO, newProjectInfoFile);
         }
-        Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> twoMap = writeNewFileToIpfs(newGitFile, projectInfoFile, getIpfs());
+        Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> twoMap = writeNewFileToIpfs(newGitFile, projectInfoFile, getIpfs(), new FileHashCache(null), 1);
         Two<Object, String/* ipfs hash */, String/* sha1 */> two = twoMap.isEmpty() || twoMap.values().isEmpty() ? null : twoMap.values().iterator().next();
         if (two == null && StringUtils.isNotBlank(two.first())) {
             return false;
@@ -224,12 +236,8 @@ public static boolean updateHitRepositoryProjectInfoFile(File gitDir, ProjectInf
     }
 
     public static void updateHitRepositoryGitFileIndex(File gitDir, ProjectInfoFile projectInfoFile, Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> old, Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> upload) {
-        //#6.Gen the new GitFileIndex.
-        Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> combine = new LinkedHashMap<>();
-        combine.putAll(old);
-        combine.putAll(upload);
-        //#7.Write the new GitFileIndex to disk and ipfs.
-        String gitFileIndexHash = writeGitFileIndexToIpfs(gitDir, combine);
+        //#6.Gen the new GitFileIndex and #7.Write the new GitFileIndex to disk and the delta to ipfs.
+        String gitFileIndexHash = writeGitFileIndexDeltaToIpfs(gitDir, old, upload);
         System.out.println("Repository information local directory=" + gitDir.getPath() + ", index=" + HitHelper.getStorageViewUrl() + gitFileIndexHash + ", address=https://ropsten.etherscan.io/address/" + projectInfoFile.getRepoAddress());
         //#8.Call contract and update project hash(GitFileIndex hash).
         try (Hit hit = new Hit(new FileRepository((gitDir)))) {
@@ -243,25 +251,47 @@ public static void updateHitRepositoryGitFileIndex(File gitDir, ProjectInfoFile
     }
 
     public static void updatePullRequestGitFileIndex(File gitDir, ProjectInfoFile projectInfoFile, Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> old, Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> upload) {
-        //#6.Gen the new GitFileIndex.
-        Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> combine = new LinkedHashMap<>();
-        combine.putAll(old);
-        combine.putAll(upload);
-        //#7.Write the new GitFileIndex to disk and ipfs.
-        String gitFileIndexHash = writeGitFileIndexToIpfs(gitDir, combine);
+        //#6.Gen the new GitFileIndex and #7.Write the new GitFileIndex to disk and the delta to ipfs.
+        String gitFileIndexHash = writeGitFileIndexDeltaToIpfs(gitDir, old, upload);
         System.out.println("Repository information: directory=" + gitDir.getPath() +
                 ", index=" + HitHelper.getStorageViewUrl() + gitFileIndexHash +
                 ", address=https://ropsten.etherscan.io/address/" + StringUtils.substringBefore(projectInfoFile.getRepoAddress(), "-") +
                 ", repositoryId=" + StringUtils.substringAfter(projectInfoFile.getRepoAddress(), "-"));
     }
 
-    private static String writeGitFileIndexToIpfs(File projectDir, Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> gitFileHash) {
+    /**
+     * write the combined GitFileIndex to disk, and write the uploaded entries as a delta segment of the old index to ipfs.
+     * The full index is written to ipfs instead if the old index has no ipfs hash, the delta is too large or there are
+     * too many delta segments (compaction).
+     *
+     * @param projectDir
+     * @param old        the old index, the HIT_GITFILE_IDX entry is the ipfs hash of the old index.
+     * @param upload     the uploaded entries.
+     * @return the ipfs hash of the new index.
+     */
+    private static String writeGitFileIndexDeltaToIpfs(File projectDir, Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> old, Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> upload) {
+        Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> combine = new LinkedHashMap<>();
+        combine.putAll(old);
+        combine.putAll(upload);
+        Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>> delta = new LinkedHashMap<>();
+        for (Entry<String, Two<Object, String, String>> entry : upload.entrySet()) {
+            Two<Object, String, String> two = old.get(entry.getKey());
+            if (HIT_GITFILE_IDX.equals(entry.getKey()) || (two != null && StringUtils.equals(two.first(), entry.getValue().first())
+                    && StringUtils.equals(two.second(), entry.getValue().second()))) {
+                continue;
+            }
+            delta.put(entry.getKey(), entry.getValue());
+        }
+        Two<Object, String, String> parent = old.get(HIT_GITFILE_IDX);
+        String parentHash = parent == null ? null : parent.first();
+        int depth = old instanceof GitFileIndex && ((GitFileIndex) old).isResolved() ? ((GitFileIndex) old).getDepth() + 1 : -1;
+        if (StringUtils.isBlank(parentHash) || depth < 1 || depth > GitFileIndex.DEFAULT_MAX_DEPTH || delta.size() * 4 > combine.size()) {
+            return writeGitFileIndexToIpfs(projectDir, combine);
+        }
         IPFS ipfs = getIpfs();
         try {
-            byte[] gitFileIndexWithCompress = toGitFileIndexWithCompress(gitFileHash);
-            File gitFileIndex = new File(projectDir, HIT_GITFILE_IDX);
-            writeUpdateFile(gitFileIndex, gitFileIndexWithCompress);
-            NamedStreamable.ByteArrayWrapper file = new NamedStreamable.ByteArrayWrapper(HIT_GITFILE_IDX_NAME, gitFileIndexWithCompress);
+            writeGitFileIndexToLocal(projectDir, combine);
+            NamedStreamable.ByteArrayWrapper file = new NamedStreamable.ByteArrayWrapper(HIT_GITFILE_IDX_NAME, GitFileIndex.toBytes(delta, parentHash, depth));
             List<MerkleNode> add = ipfs.add(file);
             return add.get(add.size() - 1).hash.toBase58();
         } catch (Exception e) {
@@ -269,22 +299,31 @@ private static String writeGitFileIndexToIpfs(File projectDir, Map<String/* file
         }
     }
 
-    private static byte[] toGitFileIndexWithCompress(Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> gitFileIndex) {
-        StringBuilder sb = new StringBuilder();
-        for (Entry<String, Two<Object, String, String>> entry : gitFileIndex.entrySet()) {
-            sb.append(entry.getValue().first()).append(',').append(entry.getValue().second()).append(',').append(entry.getKey()).append('\n');
-        }
+    /**
+     * write the full GitFileIndex to disk, the delta segments are flattened.
+     *
+     * @param projectDir
+     * @param gitFileIndex
+     */
+    public static void writeGitFileIndexToLocal(File projectDir, Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> gitFileIndex) {
+        writeUpdateFile(new File(projectDir, HIT_GITFILE_IDX), GitFileIndex.toBytes(gitFileIndex));
+    }
+
+    private static String writeGitFileIndexToIpfs(File projectDir, Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> gitFileHash) {
+        IPFS ipfs = getIpfs();
         try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            GZIPOutputStream gzip = new GZIPOutputStream(out);
-            gzip.write(sb.toString().getBytes("UTF-8"));
-            gzip.close();
-            return out.toByteArray();
+            byte[] gitFileIndexWithCompress = GitFileIndex.toBytes(gitFileHash);
+            File gitFileIndex = new File(projectDir, HIT_GITFILE_IDX);
+            writeUpdateFile(gitFileIndex, gitFileIndexWithCompress);
+            NamedStreamable.ByteArrayWrapper file = new NamedStreamable.ByteArrayWrapper(HIT_GITFILE_IDX_NAME, gitFileIndexWithCompress);
+            List<MerkleNode> add = ipfs.add(file);
+            return add.get(add.size() - 1).hash.toBase58();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+
     private static Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> generateNewGitFileIndex(
             Map<String/* relativePath */, File> current,
             Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> oldGitFileIndex,
@@ -314,6 +353,24 @@ public static String writeFileToIpfs(byte[] data, String fileName) {
         }
     }
 
+    /**
+     * write the local file to ipfs, the file is streamed to ipfs.
+     *
+     * @param file
+     * @param fileName
+     * @return ipfs hash.
+     */
+    public static String writeFileToIpfs(File file, String fileName) {
+        IPFS ipfs = getIpfs();
+        try (InputStream is = new FileInputStream(file)) {
+            NamedStreamable.InputStreamWrapper wrapper = new NamedStreamable.InputStreamWrapper(fileName, is);
+            List<MerkleNode> add = ipfs.add(wrapper);
+            return add.get(add.size() - 1).hash.toBase58();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static IPFS getIpfs() {
         URL url = HitHelper.getStoragePersistentUrl();
         IPFS ipfs = new IPFS(url.getHost(), url.getPort(), url.getPath(), "https".equalsIgnoreCase(url.getProtocol()));
@@ -331,30 +388,76 @@ public static IPFS getIpfs(String urlIpfs) {
         return ipfs;
     }
 
-    private static Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> writeNewFileToIpfs(Map<String/* relativePath */, File> newGitFile, ProjectInfoFile projectInfoFile, IPFS ipfs) {
+    /**
+     * write the files to ipfs concurrently.
+     *
+     * @param newGitFile      the files to write.
+     * @param projectInfoFile the files are encrypted if the repository is private.
+     * @param ipfs
+     * @param hashCache       the sha1 of the unchanged files are read from the cache, the new objects are not remembered.
+     * @param concurrency     the max count of the concurrent uploads.
+     * @return {filename: (ipfs hash, sha1)}
+     */
+    private static Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> writeNewFileToIpfs(Map<String/* relativePath */, File> newGitFile, ProjectInfoFile projectInfoFile, IPFS ipfs, FileHashCache hashCache, int concurrency) {
         Map<String, Two<Object, String, String>> map = new HashMap();
-        Map<String, Two<Object, String, String>> hashMap = new HashMap();
-        for (Entry<String, File> entry : newGitFile.entrySet()) {
-            try {
-                byte[] buf = FileUtils.readFileToByteArray(entry.getValue());
-                ByteArrayInputStream bais = new ByteArrayInputStream(buf);
-                String fileName = entry.getKey();
-                EncryptableFileWrapper file = new EncryptableFileWrapper(
-                        new HashedFile.FileWrapper(fileName, new HashedFile.ByteArrayInputStreamCallback(bais)),
-                        projectInfoFile);
-                List<MerkleNode> add = ipfs.add(file);
-                hashMap.put(fileName, new Two(add.get(add.size() - 1).hash.toBase58(), sha1(entry.getValue())));
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+        if (newGitFile.isEmpty()) {
+            return map;
+        }
+        Map<String, String> sha1s = hashCache.sha1(newGitFile, false);
+        for (String key : newGitFile.keySet()) {
+            if (!sha1s.containsKey(key)) {
+                throw new RuntimeException("Can not hash the file: " + newGitFile.get(key));
             }
         }
-        for (Entry<String, File> entry : newGitFile.entrySet()) {
-            map.put(entry.getKey(), hashMap.get(entry.getKey()));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency, newGitFile.size())), ThreadHelper.daemonThreadFactory("hit-ipfs-upload"));
+        try {
+            Map<String, Future<String>> futures = new LinkedHashMap<>();
+            for (Entry<String, File> entry : newGitFile.entrySet()) {
+                futures.put(entry.getKey(), executor.submit(() -> writeFileToIpfs(entry.getKey(), entry.getValue(), projectInfoFile, ipfs)));
+            }
+            for (Entry<String, Future<String>> entry : futures.entrySet()) {
+                map.put(entry.getKey(), new Two(entry.getValue().get(), sha1s.get(entry.getKey())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while uploading files.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
         return map;
     }
 
-    private static String sha1(File file) {
+    private static String writeFileToIpfs(String fileName, File file, ProjectInfoFile projectInfoFile, IPFS ipfs) {
+        try (InputStream is = new FileInputStream(file)) {
+            EncryptableFileWrapper wrapper = new EncryptableFileWrapper(
+                    new HashedFile.FileWrapper(fileName, new HashedFile.InputStreamCallback() {
+                        public InputStream call(HashedFile hashedFile) throws IOException {
+                            return is;
+                        }
+                    }),
+                    projectInfoFile);
+            List<MerkleNode> add = ipfs.add(wrapper);
+            return add.get(add.size() - 1).hash.toBase58();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param gitDir
+     * @return the hit.pushConcurrency of the repository config.
+     */
+    private static int getPushConcurrency(File gitDir) {
+        try (Repository repo = new FileRepository(gitDir)) {
+            return repo.getConfig().getInt(TransportHit.CONFIG_SECTION_HIT, TransportHit.CONFIG_KEY_PUSH_CONCURRENCY, HitIPFSFetcher.DEFAULT_CONCURRENCY);
+        } catch (Exception e) {
+            return HitIPFSFetcher.DEFAULT_CONCURRENCY;
+        }
+    }
+
+    public static String sha1(File file) {
         FileInputStream is = null;
         try {
             is = new FileInputStream(file);
@@ -375,16 +478,24 @@ public static String sha1(byte[] data) {
 
     private static Two<Object, Map<String, File>/*add*/, Map<String, Two<Object, String/* ipfs hash */, String/* sha1 */>>/*remove*/> diffGitFiles(
             Map<String/* relativePath */, File> current,
-            Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> gitFileIndex) {
+            Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> gitFileIndex,
+            FileHashCache hashCache) {
         Map<String, File> fileAdd = new HashMap<String, File>();
         Map<String, Two<Object, String, String>> fileRemove = new HashMap<>();
+        Map<String, File> notObjects = new HashMap<>();
+        for (Entry<String, File> entry : current.entrySet()) {
+            if (!entry.getKey().startsWith("objects/")) {
+                notObjects.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Map<String, String> sha1s = hashCache.sha1(notObjects);
         for (Entry<String, File> entry : current.entrySet()) {
             String key = entry.getKey();
             File file = entry.getValue();
             if (!key.startsWith("objects/")) {// is not the hash object, so hash the file and compare the hash.
-                String sha1 = sha1(file);
+                String sha1 = sha1s.get(key);
                 Two<Object, String, String> two = gitFileIndex.get(key);
-                if (two == null || !sha1.equals(two.second())) {
+                if (two == null || sha1 == null || !sha1.equals(two.second())) {// changed, or not hashed and reported by the upload.
                     fileAdd.put(key, file);
                 }
                 continue;
@@ -419,23 +530,35 @@ public static String sha1(byte[] data) {
         return map;
     }
 
-    private static Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> readGitFileIndexFromLocal(File projectDir) {
+    private static GitFileIndex readGitFileIndexFromLocal(File projectDir) {
         try {
-            File gitFileIndex = new File(projectDir, HIT_GITFILE_IDX);
-            if (!gitFileIndex.exists()) {
-                return parseGitFilesIndex(null);
-            }
-            byte[] contentWithCompress = FileUtils.readFileToByteArray(gitFileIndex);
-            return parseGitFilesIndex(contentWithCompress);
+            // the mapped file can not be replaced on windows, so read it into the heap there.
+            return GitFileIndex.read(new File(projectDir, HIT_GITFILE_IDX), !SystemReader.getInstance().isWindows());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    public static Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> readGitFileIndexFromIpfs(IPFS ipfs, String gitFileIndexHash) {
+    public static GitFileIndex readGitFileIndexFromIpfs(IPFS ipfs, String gitFileIndexHash) {
+        return readGitFileIndexFromIpfs(HitIPFSReader.create(Collections.singletonList(HitIPFSReader.api(ipfs, "ipfs"))), gitFileIndexHash);
+    }
+
+    /**
+     * read the git file index and its parent segments by the reader, so the index is read from the fastest node.
+     *
+     * @param reader
+     * @param gitFileIndexHash
+     * @return
+     */
+    public static GitFileIndex readGitFileIndexFromIpfs(HitIPFSReader reader, String gitFileIndexHash) {
         try {
-            byte[] contentWithCompress = StringUtils.isBlank(gitFileIndexHash) ? new byte[0] : ipfs.cat(Multihash.fromBase58(gitFileIndexHash));//objects/hit/gitfile.idx from ipfs.
-            return parseGitFilesIndex(contentWithCompress);
+            byte[] contentWithCompress = StringUtils.isBlank(gitFileIndexHash) ? new byte[0] : reader.cat(gitFileIndexHash);//objects/hit/gitfile.idx from ipfs.
+            GitFileIndex index = parseGitFilesIndex(contentWithCompress);
+            for (GitFileIndex segment = index; segment.getParentHash() != null; segment = segment.getParent()) {
+                // the delta segment, read the parents until the full index.
+                segment.setParent(parseGitFilesIndex(reader.cat(segment.getParentHash())));
+            }
+            return index;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -443,36 +566,32 @@ public static String sha1(byte[] data) {
 
     public static byte[] readFileFromIpfs(String hash) {
         try {
-            return getIpfs().cat(Multihash.fromBase58(hash));
+            return HitIPFSCache.cat(getIpfs(), Multihash.fromBase58(hash));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private static Map<String/* filename */, Two<Object, String/* ipfs hash */, String/* sha1 */>> parseGitFilesIndex(byte[] contentWithCompress) {
-        Map<String, Two<Object, String, String>> map = new LinkedHashMap<>();
-        if (contentWithCompress == null || contentWithCompress.length == 0) {
-            return map;
+    /**
+     * read the ipfs file to the local file, the content is streamed to the file.
+     *
+     * @param hash
+     * @param file
+     */
+    public static void readFileFromIpfs(String hash, File file) {
+        try (InputStream is = HitIPFSCache.catStream(getIpfs(), Multihash.fromBase58(hash))) {
+            FileUtils.copyInputStreamToFile(is, file);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
+    }
+
+    private static GitFileIndex parseGitFilesIndex(byte[] contentWithCompress) {
         try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ByteArrayInputStream in = new ByteArrayInputStream(contentWithCompress);
-            GZIPInputStream ungzip = new GZIPInputStream(in);
-            IOUtils.copy(ungzip, out);
-            ungzip.close();
-            String index = new String(out.toByteArray(), "UTF-8");
-            String[] lines = StringUtils.split(index, '\n');
-            for (String line : lines) {
-                String[] nameIpfsSha = StringUtils.split(line, ',');
-                if (nameIpfsSha.length != 3) {
-                    continue;
-                }
-                map.put(nameIpfsSha[2], new Two<>(nameIpfsSha[0], nameIpfsSha[1]));
-            }
+            return GitFileIndex.parse(contentWithCompress);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        return map;
     }
 
     public static boolean isValidHitRepository(File projectDir) {
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.util;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.internal.storage.file.FileSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The hit config file, it is loaded when it is first used and parsed once.
+ * <pre>
+ * ==~/.hit/config==
+ *     [section]
+ *         name=value
+ * #1.The file is checked by the jgit FileSnapshot at most once per check interval, it is read again only if it is modified.
+ * #2.The config is parsed again only if the content is changed, the racily clean snapshot does not drop the parsed config.
+ * #3.The keyring is cleared when the content is changed by others, the keys are decrypted again from the new config.
+ * #4.The parsed config is mutable, the commands change it and write it to the file, the keyring is kept on the write,
+ *    the decrypted keys are kept by their encrypted keys.
+ * ==system properties==
+ *     hit.config.checkMillis=millis   the interval of the file check, default is 1000, 0 to check on each access.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class HitConfigService {
+
+    public static final long DEFAULT_CHECK_MILLIS = 1000;
+    private static volatile HitConfigService defaultService;
+
+    private final File file;
+    private final long checkMillis;
+    private final HitKeyring keyring;
+    private Map<String/*section*/, Map<String/*name*/, String/*value*/>> config;
+    private FileSnapshot snapshot;
+    private byte[] digest;
+    private long checkAt;
+
+    public HitConfigService(File file, long checkMillis, HitKeyring keyring) {
+        this.file = file;
+        this.checkMillis = Math.max(0, checkMillis);
+        this.keyring = keyring;
+    }
+
+    /**
+     * return the service of the user's hit config.
+     *
+     * @return
+     */
+    public static HitConfigService getDefault() {
+        if (defaultService == null) {
+            synchronized (HitConfigService.class) {
+                if (defaultService == null) {
+                    defaultService = new HitConfigService(new File(HitHelper.FILE_HIT_CONFIG),
+                            Long.getLong("hit.config.checkMillis", DEFAULT_CHECK_MILLIS), HitKeyring.getDefault());
+                }
+            }
+        }
+        return defaultService;
+    }
+
+    /**
+     * return the parsed config, the file is read again if it is modified.
+     *
+     * @return
+     */
+    public synchronized Map<String/*section*/, Map<String/*name*/, String/*value*/>> get() {
+        long now = System.currentTimeMillis();
+        if (config == null || (now - checkAt >= checkMillis && snapshot.isModified(file))) {
+            load(false);
+        }
+        checkAt = now;
+        return config;
+    }
+
+    /**
+     * read the file and parse it again, the unwritten changes of the parsed config are dropped.
+     *
+     * @return
+     */
+    public synchronized Map<String/*section*/, Map<String/*name*/, String/*value*/>> reload() {
+        load(true);
+        checkAt = System.currentTimeMillis();
+        return config;
+    }
+
+    /**
+     * write the config to the file, the config is the parsed config of the service after it is written.
+     *
+     * @param config
+     * @throws IOException
+     */
+    public synchronized void write(Map<String/*section*/, Map<String/*name*/, String/*value*/>> config) throws IOException {
+        String content = format(config);
+        FileUtils.forceMkdir(file.getAbsoluteFile().getParentFile());
+        FileUtils.writeStringToFile(file, content, "UTF-8");
+        snapshot = FileSnapshot.save(file);
+        digest = DigestUtils.sha256(ByteHelper.utf8(content));
+        this.config = config;
+        checkAt = System.currentTimeMillis();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public HitKeyring getKeyring() {
+        return keyring;
+    }
+
+    private void load(boolean force) {
+        FileSnapshot newSnapshot = FileSnapshot.save(file);
+        String content = null;
+        try {// read hit config from file.
+            if (file.exists()) {
+                content = FileUtils.readFileToString(file, "UTF-8");
+            }
+        } catch (Exception e) {
+            System.out.println("Can not read the hit config file.");
+        }
+        snapshot = newSnapshot;
+        byte[] newDigest = DigestUtils.sha256(ByteHelper.utf8(StringUtils.defaultString(content)));
+        boolean changed = config != null && !Arrays.equals(digest, newDigest);
+        if (config != null && !changed && !force) {
+            return;
+        }
+        Map<String, Map<String, String>> newConfig = parse(content);
+        if (changed) {
+            keyring.clear();
+        }
+        digest = newDigest;
+        config = newConfig;
+        {// set hit config to system.
+            System.getProperties().put("HitCfg", config);
+        }
+    }
+
+    /**
+     * parse the content of the hit config.
+     *
+     * @param content
+     * @return {section: {name: value}}
+     */
+    public static Map<String/*section*/, Map<String/*name*/, String/*value*/>> parse(String content) {
+        Map<String/*section*/, Map<String/*name*/, String/*value*/>> map = new LinkedHashMap<>();
+        if (StringUtils.isBlank(content)) {
+            return map;
+        }
+        // read hit config by line
+        String[] lines = StringUtils.split(content, '\n');
+        String type = null;
+        for (String line : lines) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            line = line.trim();
+            // this is the section start, starts with "[" and ends with "]"
+            if (line.startsWith("[")) {
+                type = line.substring(1, line.length() - 1);
+                continue;
+            }
+            // the key-value line.
+            int indexOf = line.indexOf('=');
+            if (indexOf < 1 || StringUtils.isBlank(type)) {
+                throw new RuntimeException("Hit config has wrong format!");
+            }
+            String key = line.substring(0, indexOf).trim();
+            String value = line.substring(indexOf + 1, line.length()).trim();
+            Map<String, String> kv = map.get(type);
+            if (kv == null) {
+                map.put(type, kv = new LinkedHashMap<>());
+            }
+            kv.put(key, value);
+        }
+        return map;
+    }
+
+    /**
+     * format the hit config to the content of the file.
+     *
+     * @param config
+     * @return
+     */
+    public static String format(Map<String/*section*/, Map<String/*name*/, String/*value*/>> config) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String/*section*/, Map<String/*name*/, String/*value*/>> entry : config.entrySet()) {
+            sb.append('[').append(entry.getKey()).append("]\n");
+            for (Map.Entry<String, String> kv : entry.getValue().entrySet()) {
+                sb.append("    ").append(kv.getKey()).append('=').append(kv.getValue()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,6 +1,7 @@
 package org.hitchain.hit.util;
 
 import com.google.gson.GsonBuilder;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -24,6 +25,7 @@
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
@@ -87,75 +89,23 @@ public class HitHelper {
 
     public static final String NAME_default = "default";
     public static final String FILE_HIT_CONFIG = StringUtils.defaultString(System.getProperty("user.home"), ".") + "/.hit/config";
-    private static Map<String/*section*/, Map<String/*name*/, String/*value*/>> hitConfig = null;
     /**
-     * cache the encrypted password by first input.
+     * the password and the decrypted private keys, the password is kept by first input.
      */
-    private static String passwordCache = null;
-    private static String passwordEncrypt = UUID.randomUUID().toString();
+    private static final String KEYRING_password = "password";
 
+    /**
+     * read and parse the hit config file again.
+     *
+     * @return
+     */
     public static Map<String/*section*/, Map<String/*name*/, String/*value*/>> hitConfig() {
-        Map<String/*section*/, Map<String/*name*/, String/*value*/>> map = new LinkedHashMap<>();
-        {// set hit config to system.
-            System.getProperties().put("HitCfg", map);
-        }
-        String content = null;
-        try {// read hit config from file.
-            File file = new File(FILE_HIT_CONFIG);
-            if (!file.exists()) {
-                return (hitConfig = map);
-            }
-            content = FileUtils.readFileToString(file, "UTF-8");
-        } catch (Exception e) {
-            System.out.println("Can not read the hit config file.");
-        }
-        if (StringUtils.isBlank(content)) {
-            return (hitConfig = map);
-        }
-        // read hit config by line
-        String[] lines = StringUtils.split(content, '\n');
-        String type = null;
-        for (String line : lines) {
-            if (StringUtils.isBlank(line)) {
-                continue;
-            }
-            line = line.trim();
-            // this is the section start, starts with "[" and ends with "]"
-            if (line.startsWith("[")) {
-                type = line.substring(1, line.length() - 1);
-                continue;
-            }
-            // the key-value line.
-            int indexOf = line.indexOf('=');
-            if (indexOf < 1 || StringUtils.isBlank(type)) {
-                throw new RuntimeException("Hit config has wrong format!");
-            }
-            String key = line.substring(0, indexOf).trim();
-            String value = line.substring(indexOf + 1, line.length()).trim();
-            Map<String, String> kv = map.get(type);
-            if (kv == null) {
-                map.put(type, kv = new LinkedHashMap<>());
-            }
-            kv.put(key, value);
-        }
-        return (hitConfig = map);
+        return HitConfigService.getDefault().reload();
     }
 
     public static void hitConfigToFile(Map<String/*section*/, Map<String/*name*/, String/*value*/>> config) {
-        StringBuilder sb = new StringBuilder();
-        for (Map.Entry<String/*section*/, Map<String/*name*/, String/*value*/>> entry : config.entrySet()) {
-            sb.append('[').append(entry.getKey()).append("]\n");
-            for (Map.Entry<String, String> kv : entry.getValue().entrySet()) {
-                sb.append("    ").append(kv.getKey()).append('=').append(kv.getValue()).append('\n');
-            }
-        }
         try {
-            File file = new File(FILE_HIT_CONFIG);
-            if (!file.exists()) {
-                file.getParentFile().mkdirs();
-                file.createNewFile();
-            }
-            FileUtils.writeStringToFile(file, sb.toString());
+            HitConfigService.getDefault().write(config);
             System.out.println("Hit config is updated.");
         } catch (Exception e) {
             System.out.println("Can not read the hit config file!");
@@ -361,11 +311,15 @@ public static boolean testHitConfigPassword(String password, boolean createNew)
                 return false;
             }
         }
+        if (password.equals(HitKeyring.getDefault().get(KEYRING_password))) {// verified, the keyring is cleared if the config is changed.
+            return true;
+        }
         Tuple.Two<String, String, String> two = getByName(getHitConfig(), TYPE_main, NAME_default);
         if (!WalletHelper.verifySign(two.first(), password)) {
             System.out.println("Password is not correct!");
             return false;
         }
+        HitKeyring.getDefault().put(KEYRING_password, password);
         return true;
     }
 
@@ -750,7 +704,7 @@ public static boolean contractSet(String name) {
     }
 
     public static Map<String, Map<String, String>> getHitConfig() {
-        return hitConfig == null ? hitConfig() : hitConfig;
+        return HitConfigService.getDefault().get();
     }
 
     public static Tuple.Two<String, String, String> getDefaultValue(String section) {
@@ -769,9 +723,7 @@ public static Tuple.Two<String, String, String> getAccount(String password) {
         Tuple.Two<String, String, String> two = getAccount();
         String pri = two == null ? null : two.second();
         if (StringUtils.isNotBlank(pri) && testHitConfigPassword(password, false)) {
-            Tuple.Two<String, String, String> value = new Tuple.Two<>(two.first(), WalletHelper.decryptWithPasswordHex(pri, password));
-            value.result(two.result());
-            return value;
+            return decryptPrivateKey(TYPE_account, two, password);
         }
         System.out.println("Private key or password is invalid!");
         return null;
@@ -783,12 +735,10 @@ public static Tuple.Two<String, String, String> getAccountWithPasswordInput() {
             return null;
         }
         String password = readPassword();
-        if (StringUtils.isBlank(password)) {
+        if (StringUtils.isBlank(password) || !testHitConfigPassword(password, false)) {
             return null;
         }
-        Tuple.Two<String, String, String> value = new Tuple.Two<>(two.first(), WalletHelper.decryptWithPasswordHex(two.second(), password));
-        value.result(two.result());
-        return value;
+        return decryptPrivateKey(TYPE_account, two, password);
     }
 
     public static Tuple.Two<String, String, String> getRsa() {
@@ -799,9 +749,7 @@ public static Tuple.Two<String, String, String> getRsa(String password) {
         Tuple.Two<String, String, String> two = getRsa();
         String pri = two == null ? null : two.second();
         if (StringUtils.isNotBlank(pri) && testHitConfigPassword(password, false)) {
-            Tuple.Two<String, String, String> value = new Tuple.Two<>(two.first(), WalletHelper.decryptWithPasswordHex(pri, password));
-            value.result(two.result());
-            return value;
+            return decryptPrivateKey(TYPE_rsa, two, password);
         }
         System.out.println("Private key or password is invalid!");
         return null;
@@ -813,10 +761,28 @@ public static Tuple.Two<String, String, String> getRsaWithPasswordInput() {
             return null;
         }
         String password = readPassword();
-        if (StringUtils.isBlank(password)) {
+        if (StringUtils.isBlank(password) || !testHitConfigPassword(password, false)) {
             return null;
         }
-        Tuple.Two<String, String, String> value = new Tuple.Two<>(two.first(), WalletHelper.decryptWithPasswordHex(two.second(), password));
+        return decryptPrivateKey(TYPE_rsa, two, password);
+    }
+
+    /**
+     * decrypt the private key, the decrypted key is kept in the keyring by the section and the encrypted key.
+     * the keyring entry does not depend on the password, so the caller must verify the password first.
+     *
+     * @param section
+     * @param two      Tuple.Two[String: public key or address, String: encrypted private key]
+     * @param password
+     * @return Tuple.Two[String: public key or address, String: private key]
+     */
+    private static Tuple.Two<String, String, String> decryptPrivateKey(String section, final Tuple.Two<String, String, String> two, final String password) {
+        String pri = HitKeyring.getDefault().get(section + ":" + DigestUtils.sha1Hex(StringUtils.defaultString(two.second())), new Supplier<String>() {
+            public String get() {
+                return WalletHelper.decryptWithPasswordHex(two.second(), password);
+            }
+        });
+        Tuple.Two<String, String, String> value = new Tuple.Two<>(two.first(), pri);
         value.result(two.result());
         return value;
     }
@@ -982,41 +948,35 @@ public static void checkValidCfg() {
     }
 
     public static String readPassword() {
-        if (StringUtils.isNotBlank(passwordCache)) {
-            return WalletHelper.decryptWithPasswordHex(passwordCache, passwordEncrypt);
+        String cached = HitKeyring.getDefault().get(KEYRING_password);
+        if (StringUtils.isNotBlank(cached)) {
+            return cached;
         }
         String password = "";
         Console console = System.console();
         if (console == null) {
             System.err.println("Couldn't get Console instance, password input will show in console!");
         }
-        if (console != null) {
-            for (int i = 0; i < 3; i++) {
+        boolean verified = false;
+        for (int i = 0; i < 3 && !verified; i++) {
+            if (console != null) {
                 char passwordArray[] = console.readPassword("Enter hit config password: ");
-                password = new String(passwordArray);
-                if (testHitConfigPassword(password, false)) {
-                    break;
-                }
-                System.err.println("Password is incorrect, try again!");
-            }
-        } else {
-            for (int i = 0; i < 3; i++) {
+                password = passwordArray == null ? "" : new String(passwordArray);
+            } else {
                 System.err.println("Enter hit config password:");
                 password = readFromSystemInput();
-                if (testHitConfigPassword(password, false)) {
-                    break;
-                }
+            }
+            // the verified password is kept in the keyring by testHitConfigPassword.
+            verified = testHitConfigPassword(password, false);
+            if (!verified && i < 2) {
                 System.err.println("Password is incorrect, try again!");
             }
         }
-        if (StringUtils.isBlank(password)) {
+        if (!verified) {
             System.err.println("Password is incorrect!");
             System.exit(0);
             return null;
         }
-        {
-            passwordCache = WalletHelper.encryptWithPasswordHex(password, passwordEncrypt);
-        }
         return password;
     }
 
@@ -1053,7 +1013,7 @@ public static String createPassword() {
             return null;
         }
         {
-            passwordCache = WalletHelper.encryptWithPasswordHex(password, passwordEncrypt);
+            HitKeyring.getDefault().put(KEYRING_password, password);
         }
         return password;
     }
@@ -1189,15 +1149,27 @@ public static Tuple.Two<Object, String, PatchHelper.PatchSummaryInfo> createPull
             startBranch = StringUtils.isBlank(startBranch) ? GitHelper.findDefaultRemoteBranch(gitDir) : startBranch;
             endBranch = StringUtils.isBlank(endBranch) ? GitHelper.findDefaultBranch(gitDir) : endBranch;
             System.out.println("Create pull request from start branch " + startBranch + " to end banch " + endBranch + ".");
-            PatchHelper.PatchSummaryInfo patch = PatchHelper.createPatch(gitDir, startBranch, endBranch, comment);
-            if (patch.patchs().isEmpty()) {
-                System.err.println("Nothing changed of pull request from start branch " + startBranch + " to end banch " + endBranch + ".");
-                return null;
+            File patchFile = null;
+            try {// the patch is streamed to the temporary file and ipfs, it is not kept in memory.
+                patchFile = File.createTempFile("pullRequest", ".patch");
+                PatchHelper.PatchSummaryInfo patch;
+                try (OutputStream os = new BufferedOutputStream(new FileOutputStream(patchFile))) {
+                    patch = PatchHelper.writePatch(gitDir, startBranch, endBranch, comment, os);
+                }
+                if (patch.patchs().isEmpty()) {
+                    System.err.println("Nothing changed of pull request from start branch " + startBranch + " to end banch " + endBranch + ".");
+                    return null;
+                }
+                FileUtils.copyFile(patchFile, System.out);
+                System.out.println();
+                String pullRequestHash = GitHelper.writeFileToIpfs(patchFile, "pullRequest.patch");
+                System.out.println("PullRequest: " + HitHelper.getStorageViewUrl() + pullRequestHash);
+                two = new Tuple.Two<>(pullRequestHash, patch);
+            } catch (IOException e) {
+                throw new RuntimeException("HitHelper can not create the pull request patch!", e);
+            } finally {
+                FileUtils.deleteQuietly(patchFile);
             }
-            System.out.println(patch.patch());
-            String pullRequestHash = GitHelper.writeFileToIpfs(ByteHelper.utf8(patch.patch()), "pullRequest.patch");
-            System.out.println("PullRequest: " + HitHelper.getStorageViewUrl() + pullRequestHash);
-            two = new Tuple.Two<>(pullRequestHash, patch);
         }
         // push repository
         try (Hit hit = new Hit(new FileRepository(gitDir), true)) {
@@ -1265,11 +1237,11 @@ public static boolean pullRequestMerge(File gitDir, Map<String, Object> pullRequ
             branchName = "pr-" + commitName.substring(0, 5);
             git.checkout().setCreateBranch(true).setName(branchName).setStartPoint(commitName).call();
             System.out.println("Branch " + branchName + " is created for pull request.");
-            byte[] patchBytes = GitHelper.readFileFromIpfs((String) pullRequestSummaryInfo.get("patch_hash"));
-            FileUtils.writeByteArrayToFile(new File(prDir, "pullrequest.patch"), patchBytes);
-            {
-                List<PatchHelper.PatchFileInfo> patchFileInfos = PatchHelper.parsePatch(new ByteArrayInputStream(patchBytes));
-                for (PatchHelper.PatchFileInfo pfi : patchFileInfos) {
+            File patchFile = new File(prDir, "pullrequest.patch");
+            GitHelper.readFileFromIpfs((String) pullRequestSummaryInfo.get("patch_hash"), patchFile);
+            try (PatchHelper.PatchReader patchReader = new PatchHelper.PatchReader(new FileInputStream(patchFile))) {
+                while (patchReader.hasNext()) {// only the patch of one commit is in memory.
+                    PatchHelper.PatchFileInfo pfi = patchReader.next();
                     ApplyResult call = ApplyHelper.createApply(repo)
                             .ignoreSpaceChange(ignoreSpaceChange).ignoreWhitespace(ignoreWhitespace).forceMergeLine(forceMergeLine)
                             .setPatch(new ByteArrayInputStream(pfi.diff().getBytes("UTF-8"))).call();
@@ -1280,6 +1252,8 @@ public static boolean pullRequestMerge(File gitDir, Map<String, Object> pullRequ
                         System.out.println("commit patched changes " + pfi.author() + " <" + pfi.email() + "> " + pfi.msg());
                     }
                 }
+            }
+            {
                 git.checkout().setName(currentBanch).call();
                 FileUtils.deleteQuietly(prDir);
             }
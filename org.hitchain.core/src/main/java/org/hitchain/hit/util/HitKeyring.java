@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.util;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * In-process keyring of the password and the decrypted private keys of the hit config.
+ * <pre>
+ * #1.The secrets are kept as char arrays, and zeroed when they expire, are removed or the keyring is cleared.
+ * #2.An entry expires if it is not used for the ttl, the expired entries are swept by a daemon thread.
+ * #3.The callers get a new String of the secret, like the WalletHelper returns, only the keyring copy can be zeroed.
+ * ==system properties==
+ *     hit.keyring.ttl=seconds    the idle time of the entries, default is 600, 0 to keep nothing.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class HitKeyring implements Closeable {
+
+    public static final long DEFAULT_TTL_SECONDS = 600;
+    private static volatile HitKeyring defaultKeyring;
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    public HitKeyring(long ttlMillis) {
+        this.ttlMillis = Math.max(0, ttlMillis);
+    }
+
+    /**
+     * return the keyring of the process.
+     *
+     * @return
+     */
+    public static HitKeyring getDefault() {
+        if (defaultKeyring == null) {
+            synchronized (HitKeyring.class) {
+                if (defaultKeyring == null) {
+                    defaultKeyring = new HitKeyring(TimeUnit.SECONDS.toMillis(Long.getLong("hit.keyring.ttl", DEFAULT_TTL_SECONDS)));
+                }
+            }
+        }
+        return defaultKeyring;
+    }
+
+    /**
+     * @param name
+     * @return the secret, or null if it is not kept or expired.
+     */
+    public String get(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (entry) {
+            if (entry.value == null || entry.isExpired(now)) {
+                remove(name, entry);
+                return null;
+            }
+            entry.accessAt = now;
+            return new String(entry.value);
+        }
+    }
+
+    /**
+     * return the kept secret, or load and keep it.
+     *
+     * @param name
+     * @param loader load the secret if it is not kept, the null value is not kept.
+     * @return
+     */
+    public String get(String name, Supplier<String> loader) {
+        String value = get(name);
+        if (value == null) {
+            value = loader.get();
+            put(name, value);
+        }
+        return value;
+    }
+
+    public void put(String name, String value) {
+        if (ttlMillis < 1 || value == null) {
+            return;
+        }
+        Entry old = entries.put(name, new Entry(value.toCharArray(), System.currentTimeMillis()));
+        if (old != null) {
+            old.zero();
+        }
+        startSweeper();
+    }
+
+    public void remove(String name) {
+        Entry entry = entries.remove(name);
+        if (entry != null) {
+            entry.zero();
+        }
+    }
+
+    /**
+     * zero and remove all secrets.
+     */
+    public void clear() {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            it.remove();
+            entry.zero();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public synchronized void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+        clear();
+    }
+
+    /**
+     * zero and remove the expired secrets.
+     */
+    protected void sweep() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            synchronized (entry.getValue()) {
+                if (entry.getValue().isExpired(now)) {
+                    remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    private void remove(String name, Entry entry) {
+        entries.remove(name, entry);
+        entry.zero();
+    }
+
+    private synchronized void startSweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        long period = Math.max(1000, ttlMillis / 4);
+        sweeper = Executors.newSingleThreadScheduledExecutor(ThreadHelper.daemonThreadFactory("hit-keyring"));
+        sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private class Entry {
+        char[] value;
+        long accessAt;
+
+        Entry(char[] value, long accessAt) {
+            this.value = value;
+            this.accessAt = accessAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - accessAt >= ttlMillis;
+        }
+
+        synchronized void zero() {
+            if (value != null) {
+                Arrays.fill(value, '\0');
+                value = null;
+            }
+        }
+    }
+}
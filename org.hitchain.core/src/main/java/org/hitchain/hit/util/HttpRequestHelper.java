@@ -7,38 +7,118 @@
  ******************************************************************************/
 package org.hitchain.hit.util;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.iff.infra.util.JsonHelper;
 import org.iff.infra.util.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 /**
  * A request helper provides a set of utility methods to process the http request.
+ * <pre>
+ * #1.The requests share one pooled client, the connections are kept alive and reused, the connections of a host are limited.
+ * #2.The async methods run the requests on a bounded daemon pool and return the futures, so the requests overlap.
+ * #3.The stream methods return the response body as a stream, the connection is released when the result is closed,
+ *    so the large response is not materialised as a string.
+ * ==system properties==
+ *     hit.http.maxTotal=count                      the max connections of the pool, default is 64.
+ *     hit.http.maxPerHost=count                    the max connections of a host, default is 8.
+ *     hit.http.connectTimeout=millis               default is 10000.
+ *     hit.http.socketTimeout=millis                the read timeout, default is 60000.
+ *     hit.http.connectionRequestTimeout=millis     the timeout to lease a connection from the pool, default is 30000.
+ *     hit.http.keepAliveMillis=millis              the keep alive time if the server does not tell, default is 30000.
+ *     hit.http.asyncThreads=count                  the threads of the async methods, default is 16.
+ * </pre>
  *
  * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
  * @since 2014-7-3
  */
 public class HttpRequestHelper {
 
+    public static final int DEFAULT_MAX_TOTAL = 64;
+    public static final int DEFAULT_MAX_PER_HOST = 8;
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    public static final int DEFAULT_SOCKET_TIMEOUT = 60000;
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 30000;
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+    public static final int DEFAULT_ASYNC_THREADS = 16;
+    /**
+     * the pool of the connections, the connections of each host (route) are limited.
+     */
+    static final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
     /**
      * setting http client properties
      **/
-    static final HttpClient httpClient = HttpClients.custom().setDefaultRequestConfig(
-            RequestConfig.custom().setConnectionRequestTimeout(2000).setSocketTimeout(2000).setCookieSpec(CookieSpecs.STANDARD).build()).build();
+    static final CloseableHttpClient httpClient;
+    private static volatile ExecutorService asyncExecutor;
+
+    static {
+        connectionManager.setMaxTotal(Math.max(1, Integer.getInteger("hit.http.maxTotal", DEFAULT_MAX_TOTAL)));
+        connectionManager.setDefaultMaxPerRoute(Math.max(1, Integer.getInteger("hit.http.maxPerHost", DEFAULT_MAX_PER_HOST)));
+        connectionManager.setValidateAfterInactivity(2000);
+        final long keepAliveMillis = Long.getLong("hit.http.keepAliveMillis", DEFAULT_KEEP_ALIVE_MILLIS);
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(Integer.getInteger("hit.http.connectTimeout", DEFAULT_CONNECT_TIMEOUT))
+                        .setSocketTimeout(Integer.getInteger("hit.http.socketTimeout", DEFAULT_SOCKET_TIMEOUT))
+                        .setConnectionRequestTimeout(Integer.getInteger("hit.http.connectionRequestTimeout", DEFAULT_CONNECTION_REQUEST_TIMEOUT))
+                        .setCookieSpec(CookieSpecs.STANDARD).build())
+                .setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+                    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                        return duration > 0 ? Math.min(duration, keepAliveMillis) : keepAliveMillis;
+                    }
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * set the max connections of the host, such as the chain api or the git server.
+     *
+     * @param url the url of the host.
+     * @param max
+     * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+     * @since 2026-10-18
+     */
+    public static void setMaxPerHost(String url, int max) {
+        HttpHost host = URIUtils.extractHost(URI.create(url));
+        if (host == null) {
+            throw new IllegalArgumentException("HttpRequestHelper url has no host: " + url);
+        }
+        boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+        int port = host.getPort() > 0 ? host.getPort() : (secure ? 443 : 80);
+        connectionManager.setMaxPerRoute(new HttpRoute(new HttpHost(host.getHostName(), port, host.getSchemeName()), null, secure), Math.max(1, max));
+    }
 
     /**
      * set request parameters
@@ -83,8 +163,7 @@ protected static void setHeader(HttpRequestBase method, Map<?, ?> header) {
      * @since 2015-2-6
      */
     protected static RequestResult executeMethod(HttpRequestBase method) {
-        try {
-            HttpResponse response = httpClient.execute(method);
+        try (CloseableHttpResponse response = httpClient.execute(method)) {
             return RequestResult.get(response.getStatusLine().getStatusCode(), response.getStatusLine().toString(),
                     getResponseBodyAsString(response));
         } catch (Exception e) {
@@ -97,6 +176,157 @@ protected static RequestResult executeMethod(HttpRequestBase method) {
         }
     }
 
+    /**
+     * execute http method and return the response body as a stream, the caller must close the result to release the connection.
+     *
+     * @param method
+     * @return
+     * @throws IOException
+     * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+     * @since 2026-10-18
+     */
+    public static StreamResult stream(HttpRequestBase method) throws IOException {
+        if (Logger.getLogger().isDebugEnabled()) {
+            Logger.debug(FCS.get("[method={0},url={1},stream=true]", method.getMethod(), method.getURI()));
+        }
+        return new StreamResult(method, httpClient.execute(method));
+    }
+
+    /**
+     * process request GET method and return the response body as a stream, the caller must close the result.
+     *
+     * @param url
+     * @param params
+     * @param header
+     * @return
+     * @throws IOException
+     * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+     * @since 2026-10-18
+     */
+    public static StreamResult stream(String url, Map<?, ?> params, Map<?, ?> header) throws IOException {
+        try {
+            HttpGet method = new HttpGet(setParams(new URIBuilder(url), params).build());
+            setHeader(method, header);
+            return stream(method);
+        } catch (URISyntaxException e) {
+            throw new IOException("HttpRequestHelper url is invalid: " + url, e);
+        }
+    }
+
+    /**
+     * process request GET method asynchronously, the body is read by the reader and the connection is released.
+     *
+     * @param url
+     * @param params
+     * @param header
+     * @param reader read the body of the response, it is called for any status, check the result code in the reader.
+     * @return
+     * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+     * @since 2026-10-18
+     */
+    public static <T> CompletableFuture<T> readAsync(final String url, final Map<?, ?> params, final Map<?, ?> header, final BodyReader<T> reader) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            asyncExecutor().execute(new Runnable() {
+                public void run() {
+                    try (StreamResult result = stream(url, params, header)) {
+                        future.complete(reader.read(result));
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * process request GET method asynchronously.
+     *
+     * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+     * @since 2026-10-18
+     */
+    public static CompletableFuture<RequestResult> getAsync(final String url, final Map<?, ?> params, final Map<?, ?> header) {
+        return async(new Supplier<RequestResult>() {
+            public RequestResult get() {
+                return HttpRequestHelper.get(url, params, header);
+            }
+        });
+    }
+
+    /**
+     * process request PUT method asynchronously.
+     *
+     * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+     * @since 2026-10-18
+     */
+    public static CompletableFuture<RequestResult> putAsync(final String url, final Map<?, ?> params, final Map<?, ?> header, final String data) {
+        return async(new Supplier<RequestResult>() {
+            public RequestResult get() {
+                return put(url, params, header, data);
+            }
+        });
+    }
+
+    /**
+     * process request POST method asynchronously.
+     *
+     * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+     * @since 2026-10-18
+     */
+    public static CompletableFuture<RequestResult> postAsync(final String url, final Map<?, ?> params, final Map<?, ?> header, final String data) {
+        return async(new Supplier<RequestResult>() {
+            public RequestResult get() {
+                return post(url, params, header, data);
+            }
+        });
+    }
+
+    /**
+     * process request DELETE method asynchronously.
+     *
+     * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+     * @since 2026-10-18
+     */
+    public static CompletableFuture<RequestResult> deleteAsync(final String url, final Map<?, ?> params, final Map<?, ?> header) {
+        return async(new Supplier<RequestResult>() {
+            public RequestResult get() {
+                return delete(url, params, header);
+            }
+        });
+    }
+
+    /**
+     * run the request on the async pool, the sync methods do not throw, so the future is completed with the error result.
+     */
+    protected static CompletableFuture<RequestResult> async(Supplier<RequestResult> request) {
+        try {
+            return CompletableFuture.supplyAsync(request, asyncExecutor());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(RequestResult.get(e.getMessage()));
+        }
+    }
+
+    /**
+     * the threads are more than the connections of a host, so the requests of different hosts do not wait each other.
+     */
+    protected static ExecutorService asyncExecutor() {
+        if (asyncExecutor == null) {
+            synchronized (HttpRequestHelper.class) {
+                if (asyncExecutor == null) {
+                    int threads = Math.max(1, Integer.getInteger("hit.http.asyncThreads", DEFAULT_ASYNC_THREADS));
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(), ThreadHelper.daemonThreadFactory("hit-http"));
+                    executor.allowCoreThreadTimeOut(true);
+                    asyncExecutor = executor;
+                }
+            }
+        }
+        return asyncExecutor;
+    }
+
     /**
      * process request GET method and return result
      *
@@ -212,12 +442,8 @@ public static RequestResult delete(String url, Map<?, ?> params, Map<?, ?> heade
     public static String getResponseBodyAsString(HttpResponse response) {
         try {
             HttpEntity httpEntity = response.getEntity();
-            if (httpEntity != null) {
-                httpEntity = new BufferedHttpEntity(httpEntity);
-                InputStream is = httpEntity.getContent();
-                String content = IOUtils.toString(is, "UTF-8");
-                is.close();
-                return content;
+            if (httpEntity != null) {// read the content once, the entity is not buffered again.
+                return EntityUtils.toString(httpEntity, "UTF-8");
             }
         } catch (Exception e) {
         }
@@ -329,4 +555,90 @@ public String toString() {
                     + "]";
         }
     }
+
+    /**
+     * read the body of the stream result.
+     *
+     * @param <T>
+     */
+    public interface BodyReader<T> {
+        T read(StreamResult result) throws IOException;
+    }
+
+    /**
+     * Request result with the body as a stream, close it to release the connection to the pool.
+     *
+     * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+     * @since 2026-10-18
+     */
+    public static class StreamResult implements Closeable {
+        final HttpRequestBase method;
+        final CloseableHttpResponse response;
+
+        StreamResult(HttpRequestBase method, CloseableHttpResponse response) {
+            this.method = method;
+            this.response = response;
+        }
+
+        public boolean isOK() {
+            return getCode() == 200;
+        }
+
+        public int getCode() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        public String getStatus() {
+            return response.getStatusLine().toString();
+        }
+
+        /**
+         * @param name
+         * @return the first header value of the name, or null.
+         */
+        public String getHeader(String name) {
+            Header header = response.getFirstHeader(name);
+            return header == null ? null : header.getValue();
+        }
+
+        /**
+         * @return the body stream, an empty stream if the response has no body.
+         * @throws IOException
+         */
+        public InputStream getBody() throws IOException {
+            HttpEntity entity = response.getEntity();
+            return entity == null ? new ByteArrayInputStream(new byte[0]) : entity.getContent();
+        }
+
+        public String getBodyAsString() throws IOException {
+            HttpEntity entity = response.getEntity();
+            return entity == null ? "" : EntityUtils.toString(entity, "UTF-8");
+        }
+
+        /**
+         * drop the connection without reading the remaining body.
+         */
+        public void abort() {
+            method.abort();
+            try {
+                response.close();
+            } catch (Exception e) {
+            }
+        }
+
+        /**
+         * the remaining body is consumed so the connection can be reused, the connection is dropped if it fails.
+         */
+        public void close() {
+            try {
+                EntityUtils.consume(response.getEntity());
+            } catch (Exception e) {
+                method.abort();
+            }
+            try {
+                response.close();
+            } catch (Exception e) {
+            }
+        }
+    }
 }
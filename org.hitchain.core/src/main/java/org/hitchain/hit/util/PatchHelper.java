@@ -19,11 +19,13 @@
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.TemporaryBuffer;
 import org.iff.infra.util.FCS;
 import org.iff.infra.util.HttpHelper;
 import org.iff.infra.util.MapHelper;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -46,84 +48,9 @@ public static void main(String[] args) {
 
     public static List<PatchFileInfo> parsePatch(InputStream in) {
         List<PatchFileInfo> list = new ArrayList<>();
-        try {
-            String content = IOUtils.toString(in, "UTF-8");
-            String[] split = StringUtils.split(content, '\n');
-            boolean isHead = false, isSubject = false, isDiff = false;
-            StringBuilder msg = new StringBuilder();
-            StringBuilder diff = new StringBuilder();
-            PatchFileInfo pfi = null;
-            for (String s : split) {
-                if (s.startsWith("From ") && s.endsWith("Mon Sep 17 00:00:00 2001")) {
-                    if (isHead) {//new patch section
-                        isSubject = isDiff = false;
-                        pfi.diff(diff.toString());
-                        list.add(pfi);
-                        pfi = null;
-                        diff.setLength(0);
-                        msg.setLength(0);
-                    }
-                    isHead = true;
-                    pfi = new PatchFileInfo();
-                    String commit = StringUtils.substringBefore(StringUtils.substringAfter(s, "From ").trim(), " ");
-                    String dateStr = StringUtils.substringAfter(s, commit).trim();//Mon Sep 17 00:00:00 2001
-                    pfi.commit(commit).from(DateUtils.parseDate(dateStr, new String[]{"EEE MMM dd HH:mm:ss yyyy", "EEE, dd MMM yyyy HH:mm:ss Z", "yyyy-MM-dd'T'HH:mm:ssXXX"}));
-                    continue;
-                }
-                if (isHead && !isDiff && s.startsWith("From: ")) {
-                    String author = StringUtils.substringBefore(StringUtils.substringAfter(s, "From: ").trim(), " ");
-                    String email = StringUtils.substringBefore(StringUtils.substringAfter(s, "<"), ">").trim();
-                    pfi.author(author).email(email);
-                    continue;
-                }
-                if (isHead && !isDiff && s.startsWith("Date: ")) {
-                    String dateStr = StringUtils.substringAfter(s, "Date: ").trim();//Thu, 3 Jan 2019 19:24:33 +0800
-                    Date date = DateUtils.parseDate(dateStr, new String[]{"EEE MMM dd HH:mm:ss yyyy", "EEE, dd MMM yyyy HH:mm:ss Z", "yyyy-MM-dd'T'HH:mm:ssXXX"});
-                    pfi.date(date);
-                    continue;
-                }
-                if (isHead && !isDiff && s.startsWith("Subject: ")) {
-                    isSubject = true;
-                    String shortMsg = StringUtils.substringAfter(s, "]").trim();
-                    pfi.shortMsg(shortMsg);
-                    continue;
-                }
-                if (isHead && isSubject && !isDiff) {
-                    if (!s.equals("---")) {
-                        msg.append(s).append("\n");
-                    } else {
-                        isHead = isSubject = false;
-                        String message = msg.toString();
-                        pfi.msg(StringUtils.isBlank(message) ? pfi.shortMsg() : message.trim());
-                    }
-                    continue;
-                }
-                if (!isHead && !isSubject && !isDiff && (s.startsWith("diff --git ") || s.startsWith("diff --cc ") || s.startsWith("diff --combined "))) {
-                    isDiff = true;
-                    diff.append(s).append('\n');
-                    continue;
-                }
-                if (isDiff) {
-                    if (s.equals("-- ")) {//jgit
-                        isDiff = false;
-                        continue;
-                    }
-                    if (s.equals("--")) {//libgit2
-                        isDiff = false;
-                        continue;
-                    }
-                    diff.append(s).append('\n');
-                }
-            }
-            if (pfi != null) {
-                pfi.diff(diff.toString());
-                list.add(pfi);
-                pfi = null;
-                diff.setLength(0);
-                msg.setLength(0);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        PatchReader reader = new PatchReader(in);
+        while (reader.hasNext()) {
+            list.add(reader.next());
         }
         return list;
     }
@@ -142,14 +69,16 @@ public static List<PatchFileInfo> parsePatch(InputStream in) {
      */
     public static PatchInfo parseDiff(InputStream in) {
         try {
-            String content = IOUtils.toString(in, "UTF-8");
-            String[] split = StringUtils.split(content, '\n');
+            LineReader reader = new LineReader(in);
             StringBuilder diff = new StringBuilder();
             PatchInfo pi = new PatchInfo();
             int files = 0;
             int insertions = 0;
             int deletions = 0;
-            for (String s : split) {
+            for (String s; (s = reader.readLine()) != null; ) {
+                if (s.isEmpty()) {
+                    continue;
+                }
                 if (s.startsWith("diff --git ") || s.startsWith("diff --cc ") || s.startsWith("diff --combined ")) {
                     diff.append(s).append('\n');
                     files += 1;
@@ -184,10 +113,36 @@ public static PatchInfo parseDiff(InputStream in) {
     }
 
     public static PatchSummaryInfo createPatch(File gitDir, String startRev, String endRev, String comment) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PatchSummaryInfo summary = createPatch(gitDir, startRev, endRev, comment, baos, true);
+        {
+            summary.patch = ByteHelper.utf8(baos.toByteArray());
+        }
+        return summary;
+    }
+
+    /**
+     * write the patch from start revision (not include) to end revision to the output stream.
+     * <pre>
+     * #1.The diff of each commit is spooled to a temporary file over 1M, and written after the change summary of the commit.
+     * #2.The patch content of the PatchSummaryInfo and the PatchInfo is not kept, the memory is bounded by the largest file of the diff.
+     * #3.The diff is written as the raw bytes of the files, like the C Git's format-patch.
+     * </pre>
+     *
+     * @param gitDir   git dir
+     * @param startRev the start revision (no include)
+     * @param endRev   the end revision.
+     * @param comment  patch comment.
+     * @param out      the output stream of the patch, it is not closed.
+     * @return the summary without the patch content.
+     */
+    public static PatchSummaryInfo writePatch(File gitDir, String startRev, String endRev, String comment, OutputStream out) {
+        return createPatch(gitDir, startRev, endRev, comment, out, false);
+    }
+
+    private static PatchSummaryInfo createPatch(File gitDir, String startRev, String endRev, String comment, OutputStream out, boolean keepPatch) {
         PatchSummaryInfo summary = new PatchSummaryInfo();
-        try (Repository repo = new FileRepository(gitDir)) {
-            RevWalk walk = new RevWalk(repo);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (Repository repo = new FileRepository(gitDir); RevWalk walk = new RevWalk(repo)) {
             Iterable<RevCommit> result = new Git(repo).log()
                     .not(repo.resolve(startRev))
                     .add(repo.resolve(endRev))
@@ -210,18 +165,18 @@ public static PatchSummaryInfo createPatch(File gitDir, String startRev, String
                         .date(new Date());
             }
             for (RevCommit rev : commits) {
-                PatchFormatter patch = new PatchFormatter(baos);
-                patch.setRepository(repo);
-                patch.format(base.getTree(), rev.getTree());
-                PatchInfo patchInfo = patch.writePatch(base, rev, count.incrementAndGet(), total);
-                {
-                    summary.patchs().add(patchInfo);
+                try (PatchFormatter patch = keepPatch
+                        ? new PatchFormatter(out)
+                        : new PatchFormatter(out, new TemporaryBuffer.LocalFile(null)).keepPatch(false)) {
+                    patch.setRepository(repo);
+                    patch.format(base.getTree(), rev.getTree());
+                    PatchInfo patchInfo = patch.writePatch(base, rev, count.incrementAndGet(), total);
+                    {
+                        summary.patchs().add(patchInfo);
+                    }
                 }
                 base = rev;
             }
-            {
-                summary.patch = ByteHelper.utf8(baos.toByteArray());
-            }
             return summary;
         } catch (Exception e) {
             throw new RuntimeException("GitHelper can not create patch!", e);
@@ -270,22 +225,308 @@ public static Map<String, Object> format(PatchSummaryInfo info, String url, Stri
         return map;
     }
 
+    /**
+     * Incremental parser of the patch, the sections of the commits are parsed when they are read.
+     * <pre>
+     * #1.Only the current section is kept in memory, the stream is read line by line.
+     * #2.The empty lines are skipped, like the patch is split by the new line.
+     * </pre>
+     */
+    public static class PatchReader implements Iterator<PatchFileInfo>, Closeable {
+        private static final String[] DATE_PATTERNS = {"EEE MMM dd HH:mm:ss yyyy", "EEE, dd MMM yyyy HH:mm:ss Z", "yyyy-MM-dd'T'HH:mm:ssXXX"};
+        private final LineReader reader;
+        /**
+         * the first line of the next section.
+         */
+        private String nextFrom;
+        private PatchFileInfo next;
+        private boolean end;
+
+        public PatchReader(InputStream in) {
+            this.reader = new LineReader(in);
+        }
+
+        public boolean hasNext() {
+            if (next == null && !end) {
+                try {
+                    next = read();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                end = next == null;
+            }
+            return next != null;
+        }
+
+        public PatchFileInfo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            PatchFileInfo pfi = next;
+            next = null;
+            return pfi;
+        }
+
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private static boolean isFrom(String s) {
+            return s.startsWith("From ") && s.endsWith("Mon Sep 17 00:00:00 2001");
+        }
+
+        private PatchFileInfo read() throws Exception {
+            String s = nextFrom;
+            nextFrom = null;
+            while (s == null || !isFrom(s)) {// skip to the first section.
+                if ((s = reader.readLine()) == null) {
+                    return null;
+                }
+            }
+            PatchFileInfo pfi = new PatchFileInfo();
+            {
+                String commit = StringUtils.substringBefore(StringUtils.substringAfter(s, "From ").trim(), " ");
+                String dateStr = StringUtils.substringAfter(s, commit).trim();//Mon Sep 17 00:00:00 2001
+                pfi.commit(commit).from(DateUtils.parseDate(dateStr, DATE_PATTERNS));
+            }
+            boolean isHead = true, isSubject = false, isDiff = false;
+            StringBuilder msg = new StringBuilder();
+            StringBuilder diff = new StringBuilder();
+            while ((s = reader.readLine()) != null) {
+                if (s.isEmpty()) {
+                    continue;
+                }
+                if (isFrom(s)) {//new patch section
+                    nextFrom = s;
+                    break;
+                }
+                if (isHead && !isDiff && s.startsWith("From: ")) {
+                    String author = StringUtils.substringBefore(StringUtils.substringAfter(s, "From: ").trim(), " ");
+                    String email = StringUtils.substringBefore(StringUtils.substringAfter(s, "<"), ">").trim();
+                    pfi.author(author).email(email);
+                    continue;
+                }
+                if (isHead && !isDiff && s.startsWith("Date: ")) {
+                    String dateStr = StringUtils.substringAfter(s, "Date: ").trim();//Thu, 3 Jan 2019 19:24:33 +0800
+                    pfi.date(DateUtils.parseDate(dateStr, DATE_PATTERNS));
+                    continue;
+                }
+                if (isHead && !isDiff && s.startsWith("Subject: ")) {
+                    isSubject = true;
+                    String shortMsg = StringUtils.substringAfter(s, "]").trim();
+                    pfi.shortMsg(shortMsg);
+                    continue;
+                }
+                if (isHead && isSubject && !isDiff) {
+                    if (!s.equals("---")) {
+                        msg.append(s).append("\n");
+                    } else {
+                        isHead = isSubject = false;
+                        String message = msg.toString();
+                        pfi.msg(StringUtils.isBlank(message) ? pfi.shortMsg() : message.trim());
+                    }
+                    continue;
+                }
+                if (!isHead && !isSubject && !isDiff && (s.startsWith("diff --git ") || s.startsWith("diff --cc ") || s.startsWith("diff --combined "))) {
+                    isDiff = true;
+                    diff.append(s).append('\n');
+                    continue;
+                }
+                if (isDiff) {
+                    if (s.equals("-- ")) {//jgit
+                        isDiff = false;
+                        continue;
+                    }
+                    if (s.equals("--")) {//libgit2
+                        isDiff = false;
+                        continue;
+                    }
+                    diff.append(s).append('\n');
+                }
+            }
+            return pfi.diff(diff.toString());
+        }
+    }
+
+    /**
+     * Incremental parser of the diff, the diff of each file is parsed when it is read.
+     * <pre>
+     * #1.The lines before the first "diff --git" and after the end of the diff ("-- " or "--") are skipped.
+     * #2.The lines of the file diff are kept as they are, the insertions and the deletions are counted in the hunks.
+     * </pre>
+     */
+    public static class DiffReader implements Iterator<FileDiffInfo>, Closeable {
+        private final LineReader reader;
+        /**
+         * the first line of the next file diff.
+         */
+        private String nextHead;
+        private FileDiffInfo next;
+        private boolean end;
+
+        public DiffReader(InputStream in) {
+            this.reader = new LineReader(in);
+        }
+
+        public boolean hasNext() {
+            if (next == null && !end) {
+                try {
+                    next = read();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                end = next == null;
+            }
+            return next != null;
+        }
+
+        public FileDiffInfo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            FileDiffInfo fdi = next;
+            next = null;
+            return fdi;
+        }
+
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private static boolean isHead(String s) {
+            return s.startsWith("diff --git ") || s.startsWith("diff --cc ") || s.startsWith("diff --combined ");
+        }
+
+        private FileDiffInfo read() throws IOException {
+            String s = nextHead;
+            nextHead = null;
+            while (s == null || !isHead(s)) {// skip to the first file diff.
+                if ((s = reader.readLine()) == null) {
+                    return null;
+                }
+            }
+            FileDiffInfo fdi = new FileDiffInfo();
+            StringBuilder diff = new StringBuilder(s).append('\n');
+            boolean inHunk = false;
+            int insertions = 0, deletions = 0;
+            while ((s = reader.readLine()) != null) {
+                if (isHead(s)) {
+                    nextHead = s;
+                    break;
+                }
+                if (s.equals("-- ") || s.equals("--")) {// the end of the diff, jgit and libgit2.
+                    break;
+                }
+                if (!inHunk && s.startsWith("--- ")) {
+                    fdi.oldPath(path(s.substring(4)));
+                } else if (!inHunk && s.startsWith("+++ ")) {
+                    fdi.newPath(path(s.substring(4)));
+                } else if (s.startsWith("@@")) {
+                    inHunk = true;
+                } else if (inHunk && s.startsWith("+")) {
+                    insertions++;
+                } else if (inHunk && s.startsWith("-")) {
+                    deletions++;
+                }
+                diff.append(s).append('\n');
+            }
+            if (fdi.oldPath() == null && fdi.newPath() == null) {// binary or mode change only: diff --git a/path b/path
+                String head = StringUtils.substringAfter(diff.substring(0, diff.indexOf("\n")), " a/");
+                String path = StringUtils.substringBefore(head, " b/");
+                fdi.oldPath(path).newPath(path);
+            }
+            return fdi.insertions(insertions).deletions(deletions).diff(diff.toString());
+        }
+
+        private static String path(String name) {
+            name = StringUtils.substringBefore(name, "\t");
+            if (name.equals("/dev/null")) {
+                return null;
+            }
+            return name.startsWith("a/") || name.startsWith("b/") ? name.substring(2) : name;
+        }
+    }
+
+    /**
+     * read the utf-8 lines split by '\n' only, the '\r' is kept in the line.
+     */
+    static class LineReader implements Closeable {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+
+        LineReader(InputStream in) {
+            this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        }
+
+        String readLine() throws IOException {
+            line.setLength(0);
+            while (true) {
+                if (position >= limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit < 0) {
+                        limit = 0;
+                        return line.length() > 0 ? line.toString() : null;
+                    }
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                line.append(buffer, start, position - start);
+                if (position < limit) {// the new line.
+                    position++;
+                    return line.toString();
+                }
+            }
+        }
+
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
     public static class PatchFormatter extends DiffFormatter {
         /**
          * the output stream for real output when call writePatch.
          */
         private final OutputStream os;
 
-        private final ByteArrayOutputStream baos;
+        /**
+         * the diff of the commit, it is written to the output stream after the change summary.
+         */
+        private final TemporaryBuffer buffer;
+
+        private boolean keepPatch = true;
 
         private Map<String, int[/*0:insertions, 1:deletions*/]> changes = new HashMap<>();
 
         private int[/*0:insertions, 1:deletions*/] currentCount;
 
         public PatchFormatter(OutputStream os) {
-            super(new ByteArrayOutputStream());
+            this(os, new TemporaryBuffer.Heap(Integer.MAX_VALUE));
+        }
+
+        /**
+         * @param os     the output stream for real output when call writePatch.
+         * @param buffer the buffer of the diff, such as a TemporaryBuffer.LocalFile for the large diff.
+         */
+        public PatchFormatter(OutputStream os, TemporaryBuffer buffer) {
+            super(buffer);
             this.os = os;
-            this.baos = (ByteArrayOutputStream) super.getOutputStream();
+            this.buffer = buffer;
+        }
+
+        /**
+         * @param keepPatch false to stream the diff to the output stream without the patch content of the PatchInfo.
+         * @return
+         */
+        public PatchFormatter keepPatch(boolean keepPatch) {
+            this.keepPatch = keepPatch;
+            return this;
         }
 
         private static String formatDate(PersonIdent author) {
@@ -336,8 +577,9 @@ public PatchInfo writePatch(RevCommit startCommit, RevCommit endCommit, int inde
                     "{msg}\n" +//
                     "---\n" +//
                     "{changeDetail}\n" +//
-                    " {files} files changed, {insertions} insertions(+), {deletions} deletions(-)\n\n" +//
-                    "{diff}\n" +//
+                    " {files} files changed, {insertions} insertions(+), {deletions} deletions(-)\n\n";//
+            String patchEnd = "" +//
+                    "\n" +//the end of {diff}
                     "-- \n";
 
             List<String> changeDetail = new ArrayList<>();
@@ -375,7 +617,7 @@ public PatchInfo writePatch(RevCommit startCommit, RevCommit endCommit, int inde
                     );
                 }
             }
-            String patchContent = FCS.get(patchInfo,
+            String patchHead = FCS.get(patchInfo,
                     endCommit.getName(),
                     author.getName(),
                     author.getEmailAddress(),
@@ -387,14 +629,25 @@ public PatchInfo writePatch(RevCommit startCommit, RevCommit endCommit, int inde
                     StringUtils.join(changeDetail, "\n"),
                     files,
                     insertions,
-                    deletions,
-                    ByteHelper.utf8(baos.toByteArray())
+                    deletions
             ).toString();
 
+            String patchContent = null;
             try {
-                os.write(ByteHelper.utf8(patchContent));
+                flush();
+                buffer.close();
+                if (keepPatch) {
+                    patchContent = patchHead + ByteHelper.utf8(buffer.toByteArray()) + patchEnd;
+                    os.write(ByteHelper.utf8(patchContent));
+                } else {
+                    os.write(ByteHelper.utf8(patchHead));
+                    buffer.writeTo(os, null);
+                    os.write(ByteHelper.utf8(patchEnd));
+                }
             } catch (Exception e) {
                 throw new RuntimeException(e);
+            } finally {
+                buffer.destroy();
             }
             PatchInfo info = new PatchInfo()
                     .commitIndex(index)
@@ -819,4 +1072,74 @@ public String toString() {
         }
     }
 
-}
\ No newline at end of file
+
+    public static class FileDiffInfo implements Serializable {
+        /*--- a/path, null if the file is added*/
+        protected String oldPath;
+        /*+++ b/path, null if the file is deleted*/
+        protected String newPath;
+        /*the lines start with '+' in the hunks*/
+        protected int insertions;
+        /*the lines start with '-' in the hunks*/
+        protected int deletions;
+        /*diff --git a/path b/path and the following lines of the file*/
+        protected String diff;
+
+        public String oldPath() {
+            return oldPath;
+        }
+
+        public FileDiffInfo oldPath(String oldPath) {
+            this.oldPath = oldPath;
+            return this;
+        }
+
+        public String newPath() {
+            return newPath;
+        }
+
+        public FileDiffInfo newPath(String newPath) {
+            this.newPath = newPath;
+            return this;
+        }
+
+        /**
+         * @return the new path, or the old path if the file is deleted.
+         */
+        public String path() {
+            return newPath == null ? oldPath : newPath;
+        }
+
+        public int insertions() {
+            return insertions;
+        }
+
+        public FileDiffInfo insertions(int insertions) {
+            this.insertions = insertions;
+            return this;
+        }
+
+        public int deletions() {
+            return deletions;
+        }
+
+        public FileDiffInfo deletions(int deletions) {
+            this.deletions = deletions;
+            return this;
+        }
+
+        public String diff() {
+            return diff;
+        }
+
+        public FileDiffInfo diff(String diff) {
+            this.diff = diff;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return path() + " | " + insertions + " insertions(+), " + deletions + " deletions(-)";
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.util;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent cache of the verified signatures, the verified content is not verified again.
+ * <pre>
+ * ==~/.hit/cache/verified==
+ *     version, sha256(algorithm, public key, sha256(content), signature)* (32 bytes each, appended when verified)
+ * #1.Only the successful verifications are cached, the key is the digest of all inputs, so any change of the content,
+ *    the signature or the signer misses the cache and is verified again.
+ * #2.The rsa verification and the ec public key recovery cost milliseconds, the lookup costs a sha256 of the content.
+ * #3.The cache file is appended by each process, and rewritten with the latest entries when it is over the max size.
+ * #4.The cache file is in the user's home like the keys of ~/.hit/config, who can write it can replace the keys anyway.
+ * ==system properties==
+ *     hit.verify.cache=false            the verified signatures are only kept in memory.
+ *     hit.verify.cache.file=path        the cache file.
+ *     hit.verify.cache.maxSize=count    the max count of the entries, default is 65536.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public class SignatureCache {
+
+    public static final int VERSION = 1;
+    public static final int DEFAULT_MAX_SIZE = 65536;
+    private static final int KEY_LENGTH = 32;
+    private static volatile SignatureCache defaultCache;
+
+    private final File file;
+    private final int maxSize;
+    /**
+     * {hex key: hex key} in the access order, the eldest entries are dropped when it is over the max size.
+     */
+    private final Map<String, String> verified;
+    private boolean loaded;
+
+    /**
+     * verify the signature of the data.
+     */
+    public interface Verifier {
+        boolean verify(byte[] publicKey, byte[] data, byte[] sign);
+    }
+
+    public SignatureCache(File file, int maxSize) {
+        this.file = file;
+        this.maxSize = maxSize < 1 ? DEFAULT_MAX_SIZE : maxSize;
+        this.verified = new LinkedHashMap<String, String>(256, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > SignatureCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * return the user's cache.
+     *
+     * @return
+     */
+    public static SignatureCache getDefault() {
+        if (defaultCache == null) {
+            synchronized (SignatureCache.class) {
+                if (defaultCache == null) {
+                    File file = null;
+                    if (!"false".equalsIgnoreCase(System.getProperty("hit.verify.cache"))) {
+                        String path = System.getProperty("hit.verify.cache.file");
+                        file = StringUtils.isBlank(path)
+                                ? new File(new File(HitHelper.FILE_HIT_CONFIG).getParentFile(), "cache/verified")
+                                : new File(path);
+                    }
+                    defaultCache = new SignatureCache(file, Integer.getInteger("hit.verify.cache.maxSize", DEFAULT_MAX_SIZE));
+                }
+            }
+        }
+        return defaultCache;
+    }
+
+    /**
+     * replace the user's cache, the tests use a temporary cache file instead of ~/.hit/cache/verified.
+     *
+     * @param cache the new cache, or null to read the system properties again.
+     * @return the previous cache, or null if it is not created yet.
+     */
+    static SignatureCache setDefault(SignatureCache cache) {
+        synchronized (SignatureCache.class) {
+            SignatureCache previous = defaultCache;
+            defaultCache = cache;
+            return previous;
+        }
+    }
+
+    /**
+     * verify the signature, or return true if the same signature of the same content is verified.
+     *
+     * @param algorithm the name of the algorithm, the same key of the different algorithms are different entries.
+     * @param publicKey the public key, the address or the node id of the signer.
+     * @param data      the signed content.
+     * @param sign      the signature.
+     * @param verifier  verify the signature if the cache is missed, the exception is thrown to the caller.
+     * @return
+     */
+    public boolean verify(String algorithm, byte[] publicKey, byte[] data, byte[] sign, Verifier verifier) {
+        String key = toKey(algorithm, publicKey, data, sign);
+        if (contains(key)) {
+            return true;
+        }
+        if (!verifier.verify(publicKey, data, sign)) {
+            return false;
+        }
+        add(Collections.singletonList(key));
+        return true;
+    }
+
+    public synchronized int size() {
+        load();
+        return verified.size();
+    }
+
+    /**
+     * clear the entries in memory, the cache file is not changed.
+     */
+    public synchronized void clear() {
+        verified.clear();
+        loaded = true;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    protected synchronized boolean contains(String key) {
+        load();
+        return verified.get(key) != null;
+    }
+
+    protected synchronized void add(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        load();
+        for (String key : keys) {
+            verified.put(key, key);
+        }
+        if (file == null) {
+            return;
+        }
+        try {
+            FileUtils.forceMkdir(file.getParentFile());
+            if (!file.isFile() || file.length() >= 4L + (long) KEY_LENGTH * maxSize) {
+                rewrite();
+                return;
+            }
+            try (OutputStream out = new FileOutputStream(file, true)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(keys.size() * KEY_LENGTH);
+                for (String key : keys) {
+                    bytes.write(Hex.decode(key));
+                }
+                out.write(bytes.toByteArray());// one write, the entries of the concurrent processes are not interleaved.
+            }
+        } catch (IOException e) {// the cache is optional.
+            System.err.println("Can not write the signature cache: " + e.getMessage());
+        }
+    }
+
+    protected void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (file == null || !file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != VERSION) {
+                return;
+            }
+            byte[] key = new byte[KEY_LENGTH];
+            while (true) {
+                try {
+                    in.readFully(key);
+                } catch (EOFException e) {// the end, or the entry of an interrupted write.
+                    break;
+                }
+                String hex = Hex.toHexString(key);
+                verified.put(hex, hex);
+            }
+        } catch (IOException e) {// the broken cache is dropped.
+            verified.clear();
+        }
+    }
+
+    private void rewrite() throws IOException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(VERSION);
+                for (String key : verified.keySet()) {
+                    out.write(Hex.decode(key));
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            FileUtils.deleteQuietly(tmp);
+        }
+    }
+
+    /**
+     * @return hex of sha256(algorithm, public key, sha256(data), signature), each part is prefixed by the length.
+     */
+    static String toKey(String algorithm, byte[] publicKey, byte[] data, byte[] sign) {
+        MessageDigest md = DigestUtils.getSha256Digest();
+        update(md, ByteHelper.utf8(StringUtils.defaultString(algorithm)));
+        update(md, publicKey);
+        update(md, DigestUtils.sha256(data == null ? new byte[0] : data));
+        update(md, sign);
+        return Hex.toHexString(md.digest());
+    }
+
+    private static void update(MessageDigest md, byte[] bytes) {
+        int length = bytes == null ? 0 : bytes.length;
+        md.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        if (length > 0) {
+            md.update(bytes);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2026-10-18 @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>.
+ * All rights reserved.
+ *
+ * Contributors:
+ *     <a href="mailto:iffiff1@gmail.com">Tyler Chen</a> - initial API and implementation.
+ ******************************************************************************/
+package org.hitchain.hit.util.cryptohash;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Keccak-256 (the ethereum sha3, the original keccak padding) without allocation.
+ * <pre>
+ * #1.The input is xored into the 17 long lanes of the rate directly, there is no block buffer to copy.
+ * #2.The Keccak-f[1600] permutation keeps the 25 lanes in local variables and unrolls the steps of a round.
+ * #3.The instance is reusable, digest resets the state; hash uses one instance per thread.
+ * #4.The instance is not thread safe.
+ * </pre>
+ *
+ * @author <a href="mailto:iffiff1@gmail.com">Tyler Chen</a>
+ * @since 2026-10-18
+ */
+public final class FastKeccak256 {
+
+    public static final int DIGEST_LENGTH = 32;
+    /**
+     * the rate of Keccak-256 in bytes, (1600 - 2 * 256) / 8.
+     */
+    public static final int RATE = 136;
+    private static final int RATE_LANES = RATE / 8;
+    private static final long[] RC = {
+            0x0000000000000001L, 0x0000000000008082L, 0x800000000000808AL, 0x8000000080008000L,
+            0x000000000000808BL, 0x0000000080000001L, 0x8000000080008081L, 0x8000000000008009L,
+            0x000000000000008AL, 0x0000000000000088L, 0x0000000080008009L, 0x000000008000000AL,
+            0x000000008000808BL, 0x800000000000008BL, 0x8000000000008089L, 0x8000000000008003L,
+            0x8000000000008002L, 0x8000000000000080L, 0x000000000000800AL, 0x800000008000000AL,
+            0x8000000080008081L, 0x8000000000008080L, 0x0000000080000001L, 0x8000000080008008L
+    };
+    private static final ThreadLocal<FastKeccak256> INSTANCES = new ThreadLocal<FastKeccak256>() {
+        protected FastKeccak256 initialValue() {
+            return new FastKeccak256();
+        }
+    };
+
+    private final long[] state = new long[25];
+    /**
+     * the count of the bytes absorbed in the current block.
+     */
+    private int position;
+
+    /**
+     * hash the input by the instance of the current thread.
+     *
+     * @param input
+     * @return the 32 bytes hash.
+     */
+    public static byte[] hash(byte[] input) {
+        FastKeccak256 keccak = INSTANCES.get();
+        keccak.reset();
+        return keccak.update(input, 0, input.length).digest();
+    }
+
+    public FastKeccak256 update(byte b) {
+        state[position >>> 3] ^= (b & 0xFFL) << ((position & 7) << 3);
+        if (++position == RATE) {
+            permute(state);
+            position = 0;
+        }
+        return this;
+    }
+
+    public FastKeccak256 update(byte[] input) {
+        return update(input, 0, input.length);
+    }
+
+    public FastKeccak256 update(byte[] input, int offset, int length) {
+        int end = offset + length;
+        while (offset < end && (position & 7) != 0) {
+            update(input[offset++]);
+        }
+        long[] a = state;
+        while (end - offset >= 8) {// the whole lanes.
+            a[position >>> 3] ^= (input[offset] & 0xFFL)
+                    | (input[offset + 1] & 0xFFL) << 8
+                    | (input[offset + 2] & 0xFFL) << 16
+                    | (input[offset + 3] & 0xFFL) << 24
+                    | (input[offset + 4] & 0xFFL) << 32
+                    | (input[offset + 5] & 0xFFL) << 40
+                    | (input[offset + 6] & 0xFFL) << 48
+                    | (long) input[offset + 7] << 56;
+            offset += 8;
+            position += 8;
+            if (position == RATE) {
+                permute(a);
+                position = 0;
+            }
+        }
+        while (offset < end) {
+            update(input[offset++]);
+        }
+        return this;
+    }
+
+    /**
+     * absorb the remaining bytes of the buffer, the whole lanes are read by getLong, so the direct buffer is not copied.
+     *
+     * @param input the position is moved to the limit.
+     * @return
+     */
+    public FastKeccak256 update(ByteBuffer input) {
+        int offset = input.position(), end = input.limit();
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + offset, end - offset);
+            input.position(end);
+            return this;
+        }
+        while (offset < end && (position & 7) != 0) {
+            update(input.get(offset++));
+        }
+        boolean bigEndian = input.order() == ByteOrder.BIG_ENDIAN;
+        long[] a = state;
+        while (end - offset >= 8) {
+            long lane = input.getLong(offset);
+            a[position >>> 3] ^= bigEndian ? Long.reverseBytes(lane) : lane;
+            offset += 8;
+            position += 8;
+            if (position == RATE) {
+                permute(a);
+                position = 0;
+            }
+        }
+        while (offset < end) {
+            update(input.get(offset++));
+        }
+        input.position(end);
+        return this;
+    }
+
+    /**
+     * @return the 32 bytes hash, the instance is reset.
+     */
+    public byte[] digest() {
+        byte[] out = new byte[DIGEST_LENGTH];
+        digest(out, 0);
+        return out;
+    }
+
+    /**
+     * write the hash to the output, the instance is reset.
+     *
+     * @param out
+     * @param offset
+     */
+    public void digest(byte[] out, int offset) {
+        long[] a = state;
+        a[position >>> 3] ^= 0x01L << ((position & 7) << 3);
+        a[RATE_LANES - 1] ^= 0x80L << 56;
+        permute(a);
+        for (int i = 0; i < DIGEST_LENGTH / 8; i++) {
+            long lane = a[i];
+            for (int j = 0; j < 8; j++) {
+                out[offset++] = (byte) (lane >>> (j << 3));
+            }
+        }
+        reset();
+    }
+
+    public void reset() {
+        for (int i = 0; i < state.length; i++) {
+            state[i] = 0;
+        }
+        position = 0;
+    }
+
+    /**
+     * the Keccak-f[1600] permutation, the lane index is x + 5 * y.
+     *
+     * @param a
+     */
+    private static void permute(long[] a) {
+        long a00 = a[0], a01 = a[1], a02 = a[2], a03 = a[3], a04 = a[4];
+        long a05 = a[5], a06 = a[6], a07 = a[7], a08 = a[8], a09 = a[9];
+        long a10 = a[10], a11 = a[11], a12 = a[12], a13 = a[13], a14 = a[14];
+        long a15 = a[15], a16 = a[16], a17 = a[17], a18 = a[18], a19 = a[19];
+        long a20 = a[20], a21 = a[21], a22 = a[22], a23 = a[23], a24 = a[24];
+        for (int round = 0; round < 24; round++) {
+            // theta
+            long c0 = a00 ^ a05 ^ a10 ^ a15 ^ a20;
+            long c1 = a01 ^ a06 ^ a11 ^ a16 ^ a21;
+            long c2 = a02 ^ a07 ^ a12 ^ a17 ^ a22;
+            long c3 = a03 ^ a08 ^ a13 ^ a18 ^ a23;
+            long c4 = a04 ^ a09 ^ a14 ^ a19 ^ a24;
+            long d0 = (c1 << 1 | c1 >>> 63) ^ c4;
+            long d1 = (c2 << 1 | c2 >>> 63) ^ c0;
+            long d2 = (c3 << 1 | c3 >>> 63) ^ c1;
+            long d3 = (c4 << 1 | c4 >>> 63) ^ c2;
+            long d4 = (c0 << 1 | c0 >>> 63) ^ c3;
+            a00 ^= d0;
+            a05 ^= d0;
+            a10 ^= d0;
+            a15 ^= d0;
+            a20 ^= d0;
+            a01 ^= d1;
+            a06 ^= d1;
+            a11 ^= d1;
+            a16 ^= d1;
+            a21 ^= d1;
+            a02 ^= d2;
+            a07 ^= d2;
+            a12 ^= d2;
+            a17 ^= d2;
+            a22 ^= d2;
+            a03 ^= d3;
+            a08 ^= d3;
+            a13 ^= d3;
+            a18 ^= d3;
+            a23 ^= d3;
+            a04 ^= d4;
+            a09 ^= d4;
+            a14 ^= d4;
+            a19 ^= d4;
+            a24 ^= d4;
+            // rho and pi
+            c1 = a01 << 1 | a01 >>> 63;
+            a01 = a06 << 44 | a06 >>> 20;
+            a06 = a09 << 20 | a09 >>> 44;
+            a09 = a22 << 61 | a22 >>> 3;
+            a22 = a14 << 39 | a14 >>> 25;
+            a14 = a20 << 18 | a20 >>> 46;
+            a20 = a02 << 62 | a02 >>> 2;
+            a02 = a12 << 43 | a12 >>> 21;
+            a12 = a13 << 25 | a13 >>> 39;
+            a13 = a19 << 8 | a19 >>> 56;
+            a19 = a23 << 56 | a23 >>> 8;
+            a23 = a15 << 41 | a15 >>> 23;
+            a15 = a04 << 27 | a04 >>> 37;
+            a04 = a24 << 14 | a24 >>> 50;
+            a24 = a21 << 2 | a21 >>> 62;
+            a21 = a08 << 55 | a08 >>> 9;
+            a08 = a16 << 45 | a16 >>> 19;
+            a16 = a05 << 36 | a05 >>> 28;
+            a05 = a03 << 28 | a03 >>> 36;
+            a03 = a18 << 21 | a18 >>> 43;
+            a18 = a17 << 15 | a17 >>> 49;
+            a17 = a11 << 10 | a11 >>> 54;
+            a11 = a07 << 6 | a07 >>> 58;
+            a07 = a10 << 3 | a10 >>> 61;
+            a10 = c1;
+            // chi
+            c0 = a00 ^ (~a01 & a02);
+            c1 = a01 ^ (~a02 & a03);
+            a02 ^= ~a03 & a04;
+            a03 ^= ~a04 & a00;
+            a04 ^= ~a00 & a01;
+            a00 = c0;
+            a01 = c1;
+            c0 = a05 ^ (~a06 & a07);
+            c1 = a06 ^ (~a07 & a08);
+            a07 ^= ~a08 & a09;
+            a08 ^= ~a09 & a05;
+            a09 ^= ~a05 & a06;
+            a05 = c0;
+            a06 = c1;
+            c0 = a10 ^ (~a11 & a12);
+            c1 = a11 ^ (~a12 & a13);
+            a12 ^= ~a13 & a14;
+            a13 ^= ~a14 & a10;
+            a14 ^= ~a10 & a11;
+            a10 = c0;
+            a11 = c1;
+            c0 = a15 ^ (~a16 & a17);
+            c1 = a16 ^ (~a17 & a18);
+            a17 ^= ~a18 & a19;
+            a18 ^= ~a19 & a15;
+            a19 ^= ~a15 & a16;
+            a15 = c0;
+            a16 = c1;
+            c0 = a20 ^ (~a21 & a22);
+            c1 = a21 ^ (~a22 & a23);
+            a22 ^= ~a23 & a24;
+            a23 ^= ~a24 & a20;
+            a24 ^= ~a20 & a21;
+            a20 = c0;
+            a21 = c1;
+            // iota
+            a00 ^= RC[round];
+        }
+        a[0] = a00;
+        a[1] = a01;
+        a[2] = a02;
+        a[3] = a03;
+        a[4] = a04;
+        a[5] = a05;
+        a[6] = a06;
+        a[7] = a07;
+        a[8] = a08;
+        a[9] = a09;
+        a[10] = a10;
+        a[11] = a11;
+        a[12] = a12;
+        a[13] = a13;
+        a[14] = a14;
+        a[15] = a15;
+        a[16] = a16;
+        a[17] = a17;
+        a[18] = a18;
+        a[19] = a19;
+        a[20] = a20;
+        a[21] = a21;
+        a[22] = a22;
+        a[23] = a23;
+        a[24] = a24;
+    }
+}
@@ -7,9 +7,19 @@
  ******************************************************************************/
 package org.hitchain;
 
+import org.hitchain.core.HitIPFSCacheTest;
+import org.hitchain.core.HitIPFSReaderTest;
 import org.hitchain.hit.api.DecryptableFileWrapperTest;
 import org.hitchain.hit.api.EncryptableFileWrapperTest;
+import org.hitchain.hit.api.GitFileIndexTest;
 import org.hitchain.hit.api.ProjectInfoFileTest;
+import org.hitchain.hit.provider.BlobStoreTest;
+import org.hitchain.hit.util.FileHashCacheTest;
+import org.hitchain.hit.util.HitConfigServiceTest;
+import org.hitchain.hit.util.HttpRequestHelperTest;
+import org.hitchain.hit.util.PatchHelperTest;
+import org.hitchain.hit.util.SignatureCacheTest;
+import org.hitchain.hit.util.cryptohash.FastKeccak256Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -24,7 +34,17 @@
 @Suite.SuiteClasses({
         DecryptableFileWrapperTest.class,
         EncryptableFileWrapperTest.class,
-        ProjectInfoFileTest.class
+        ProjectInfoFileTest.class,
+        HitIPFSCacheTest.class,
+        GitFileIndexTest.class,
+        FileHashCacheTest.class,
+        FastKeccak256Test.class,
+        HttpRequestHelperTest.class,
+        HitIPFSReaderTest.class,
+        BlobStoreTest.class,
+        SignatureCacheTest.class,
+        PatchHelperTest.class,
+        HitConfigServiceTest.class
 })
 public class TestSuite {
 }
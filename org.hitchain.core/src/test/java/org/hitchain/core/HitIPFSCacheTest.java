@@ -0,0 +1,123 @@
+package org.hitchain.core;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HitIPFSCacheTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("hit-ipfs-cache").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Test
+    public void hash() throws Exception {
+        Assert.assertEquals("QmbFMke1KXqnYyBBWxB74N4c5SBnJMVAiMNRcGu6x1AwQH", hash(new byte[0]));
+        Assert.assertEquals("QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o", hash("hello world\n".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void open() throws Exception {
+        HitIPFSCache cache = new HitIPFSCache(dir, 1024);
+        AtomicInteger opened = new AtomicInteger();
+        HitIPFSCache.Source source = source(new byte[]{1, 2, 3}, opened);
+        String hash = hash(new byte[]{1, 2, 3});
+        try (InputStream is = cache.open(hash, source)) {
+            Assert.assertArrayEquals(new byte[]{1, 2, 3}, IOUtils.toByteArray(is));
+        }
+        Assert.assertTrue(cache.contains(hash));
+        try (InputStream is = cache.open(hash, source)) {
+            Assert.assertArrayEquals(new byte[]{1, 2, 3}, IOUtils.toByteArray(is));
+        }
+        Assert.assertEquals(1, opened.get());
+        Assert.assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void openNotCompleted() throws Exception {
+        HitIPFSCache cache = new HitIPFSCache(dir, 1024);
+        String hash = hash(new byte[]{1, 2, 3});
+        try (InputStream is = cache.open(hash, source(new byte[]{1, 2, 3}, new AtomicInteger()))) {
+            Assert.assertEquals(1, is.read());
+        }
+        Assert.assertFalse(cache.contains(hash));
+        Assert.assertEquals(0, FileUtils.listFiles(dir, null, true).size());
+    }
+
+    @Test
+    public void openMismatched() throws Exception {
+        HitIPFSCache cache = new HitIPFSCache(dir, 1024);
+        String hash = hash(new byte[]{1, 2, 3});
+        try (InputStream is = cache.open(hash, source(new byte[]{1, 2, 4}, new AtomicInteger()))) {
+            Assert.assertArrayEquals(new byte[]{1, 2, 4}, IOUtils.toByteArray(is));
+        }
+        Assert.assertFalse(cache.contains(hash));
+        Assert.assertEquals(0, FileUtils.listFiles(dir, null, true).size());
+    }
+
+    @Test
+    public void openMultipleChunks() throws Exception {
+        HitIPFSCache cache = new HitIPFSCache(dir, 1024 * 1024);
+        byte[] content = new byte[HitIPFSCache.DagHasher.CHUNK_SIZE * 2 + 100];
+        new Random(1).nextBytes(content);
+        String hash = hash(content);
+        try (InputStream is = cache.open(hash, source(content, new AtomicInteger()))) {
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(is));
+        }
+        Assert.assertTrue(cache.contains(hash));
+        Assert.assertNotEquals(hash, hash(Arrays.copyOf(content, content.length - 1)));
+    }
+
+    @Test
+    public void evict() throws Exception {
+        HitIPFSCache cache = new HitIPFSCache(dir, 100);
+        String[] hashes = new String[3];
+        for (int i = 0; i < 3; i++) {
+            byte[] content = new byte[40];
+            content[0] = (byte) i;
+            hashes[i] = hash(content);
+            try (InputStream is = cache.open(hashes[i], source(content, new AtomicInteger()))) {
+                IOUtils.toByteArray(is);
+            }
+            new File(new File(dir, "Qm"), hashes[i]).setLastModified(System.currentTimeMillis() - (10 - i) * 1000L);
+        }
+        Assert.assertFalse(cache.contains(hashes[0]));
+        Assert.assertTrue(cache.contains(hashes[2]));
+        Assert.assertTrue(cache.size() <= 100);
+    }
+
+    private static String hash(byte[] content) {
+        HitIPFSCache.DagHasher hasher = new HitIPFSCache.DagHasher();
+        hasher.update(content, 0, content.length);
+        return hasher.digest();
+    }
+
+    private static HitIPFSCache.Source source(final byte[] content, final AtomicInteger opened) {
+        return new HitIPFSCache.Source() {
+            public InputStream open() throws IOException {
+                opened.incrementAndGet();
+                return new ByteArrayInputStream(content);
+            }
+        };
+    }
+}
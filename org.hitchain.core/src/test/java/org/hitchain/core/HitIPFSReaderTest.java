@@ -0,0 +1,153 @@
+package org.hitchain.core;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HitIPFSReaderTest {
+
+    @Test
+    public void hedge() throws Exception {
+        CountDownLatch stall = new CountDownLatch(1);
+        Endpoint slow = new Endpoint("slow", stall, false);
+        Endpoint fast = new Endpoint("fast", null, false);
+        HitIPFSReader reader = new HitIPFSReader(Arrays.asList(slow, fast), true, 90, 2);
+        try {
+            long start = System.currentTimeMillis();
+            try (InputStream is = reader.read("QmHash")) {
+                Assert.assertEquals("fast:QmHash", IOUtils.toString(is, "UTF-8"));
+            }
+            // the hedged request is sent after the default delay, not after the stalled node.
+            Assert.assertTrue(System.currentTimeMillis() - start < HitIPFSReader.DEFAULT_HEDGE_MILLIS * 5);
+            Assert.assertEquals(1, slow.opened.get());
+            Assert.assertEquals(1, fast.opened.get());
+        } finally {
+            stall.countDown();
+        }
+        // the fast node has the latency now, it is tried first.
+        Assert.assertTrue(reader.getStats().get(0).startsWith("fast"));
+    }
+
+    @Test
+    public void failover() throws Exception {
+        Endpoint broken = new Endpoint("broken", null, true);
+        Endpoint good = new Endpoint("good", null, false);
+        HitIPFSReader reader = new HitIPFSReader(Arrays.asList(broken, good), false, 90, 1);
+        for (int i = 0; i < HitIPFSReader.FAILURE_THRESHOLD + 2; i++) {
+            try (InputStream is = reader.read("QmHash" + i)) {
+                Assert.assertEquals("good:QmHash" + i, IOUtils.toString(is, "UTF-8"));
+            }
+        }
+        // the good node is faster than the unknown, the broken node is not tried again.
+        Assert.assertEquals(1, broken.opened.get());
+        Assert.assertTrue(reader.getStats().get(1).startsWith("broken"));
+    }
+
+    @Test
+    public void allFailed() throws Exception {
+        HitIPFSReader reader = new HitIPFSReader(Arrays.asList(new Endpoint("a", null, true), new Endpoint("b", null, true)), true, 90, 2);
+        try {
+            reader.read("QmHash");
+            Assert.fail("IOException expected");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("QmHash"));
+        }
+    }
+
+    @Test
+    public void interrupted() throws Exception {
+        CountDownLatch stall = new CountDownLatch(1);
+        Endpoint a = new Endpoint("a", stall, false);
+        Endpoint b = new Endpoint("b", stall, false);
+        HitIPFSReader reader = new HitIPFSReader(Arrays.asList(a, b), true, 90, 2);
+        final Thread caller = Thread.currentThread();
+        Thread interrupter = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(HitIPFSReader.DEFAULT_HEDGE_MILLIS * 2);
+                } catch (InterruptedException e) {
+                }
+                caller.interrupt();
+            }
+        });
+        interrupter.start();
+        try {
+            reader.read("QmHash");
+            Assert.fail("InterruptedIOException expected");
+        } catch (InterruptedIOException e) {
+        } finally {
+            interrupter.join();
+            Thread.interrupted();
+            stall.countDown();
+        }
+        // the late streams are closed, nobody reads them.
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((a.closed.get() < a.opened.get() || b.closed.get() < b.opened.get()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(2, a.opened.get() + b.opened.get());
+        Assert.assertEquals(a.opened.get(), a.closed.get());
+        Assert.assertEquals(b.opened.get(), b.closed.get());
+    }
+
+    @Test
+    public void hedgeMillis() throws Exception {
+        HitIPFSReader reader = new HitIPFSReader(Arrays.asList(new Endpoint("a", null, false)), true, 90, 2);
+        Assert.assertEquals(HitIPFSReader.DEFAULT_HEDGE_MILLIS, reader.getHedgeMillis());
+        for (int i = 1; i <= 100; i++) {
+            reader.sample(i * 10);
+        }
+        // the last 64 samples are 370..1000, the 90th percentile is 940.
+        Assert.assertEquals(940, reader.getHedgeMillis());
+        for (int i = 0; i < 64; i++) {
+            reader.sample(1);
+        }
+        Assert.assertEquals(HitIPFSReader.MIN_HEDGE_MILLIS, reader.getHedgeMillis());
+    }
+
+    private static class Endpoint implements HitIPFSReader.Endpoint {
+        final String name;
+        final CountDownLatch stall;
+        final boolean broken;
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+
+        Endpoint(String name, CountDownLatch stall, boolean broken) {
+            this.name = name;
+            this.stall = stall;
+            this.broken = broken;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public InputStream open(String hash) throws IOException {
+            opened.incrementAndGet();
+            if (broken) {
+                throw new IOException("broken: " + hash);
+            }
+            if (stall != null) {
+                try {
+                    stall.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            return new ByteArrayInputStream((name + ":" + hash).getBytes("UTF-8")) {
+                public void close() {
+                    closed.incrementAndGet();
+                }
+            };
+        }
+    }
+}
@@ -1,9 +1,26 @@
 package org.hitchain.hit.api;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.util.encoders.Hex;
+import org.hitchain.hit.util.AESHelper;
+import org.hitchain.hit.util.ByteHelper;
+import org.hitchain.hit.util.ECCHelper;
+import org.hitchain.hit.util.RSAHelper;
+import org.hitchain.hit.util.WalletHelper;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
 public class DecryptableFileWrapperTest {
 
     @Before
@@ -23,7 +40,139 @@ public void getContents1() {
     }
 
     @Test
-    public void getInputStream() {
+    public void getInputStream() throws Exception {
+        ProjectInfoFile pif = ProjectInfoFile.fromFile(new HashedFile.FileWrapper("projectinfo", new HashedFile.ByteArrayInputStreamCallback(ByteHelper.utf8(ProjectInfoFileTest.PIF_CONTENT))));
+        pif.setRepoPubKey(ProjectInfoFileTest.repoPub);
+        pif.setRepoPriKey(Hex.toHexString(RSAHelper.encrypt(Hex.decode(ProjectInfoFileTest.repoPri), RSAHelper.getPublicKeyFromHex(ProjectInfoFileTest.rsaPub))));
+        Assert.assertTrue(pif.isPrivate());
+        byte[] content = ByteHelper.utf8(StringUtils.repeat("hello hit ", 10000));
+        // encrypt and decrypt by stream.
+        byte[] encrypted;
+        try (InputStream is = new EncryptableFileWrapper(new HashedFile.FileWrapper("objects/00/11", new HashedFile.ByteArrayInputStreamCallback(content)), pif).getInputStream()) {
+            encrypted = IOUtils.toByteArray(is);
+        }
+        Assert.assertFalse(Arrays.equals(content, encrypted));
+        String priKeyRsa = WalletHelper.decryptWithPasswordHex(ProjectInfoFileTest.rsaPri, ProjectInfoFileTest.password);
+        DecryptableFileWrapper file = new DecryptableFileWrapper(new HashedFile.FileWrapper("objects/00/11", new HashedFile.ByteArrayInputStreamCallback(encrypted)), pif, ProjectInfoFileTest.accountPub, priKeyRsa);
+        try (InputStream is = file.getInputStream()) {
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(is));
+        }
+    }
+
+    @Test
+    public void getInputStreamLegacy() throws Exception {
+        ProjectInfoFile pif = ProjectInfoFile.fromFile(new HashedFile.FileWrapper("projectinfo", new HashedFile.ByteArrayInputStreamCallback(ByteHelper.utf8(ProjectInfoFileTest.PIF_CONTENT))));
+        pif.setRepoPubKey(ProjectInfoFileTest.repoPub);
+        pif.setRepoPriKey(Hex.toHexString(RSAHelper.encrypt(Hex.decode(ProjectInfoFileTest.repoPri), RSAHelper.getPublicKeyFromHex(ProjectInfoFileTest.rsaPub))));
+        byte[] content = ByteHelper.utf8(StringUtils.repeat("hello hit ", 1000));
+        // the file encrypted by the repository public key directly.
+        byte[] encrypted = ECCHelper.publicEncrypt(content, ECCHelper.getPublicKeyFromEthereumPublicKeyHex(ProjectInfoFileTest.repoPub));
+        Assert.assertFalse(AESHelper.isHybrid(encrypted));
+        String priKeyRsa = WalletHelper.decryptWithPasswordHex(ProjectInfoFileTest.rsaPri, ProjectInfoFileTest.password);
+        DecryptableFileWrapper file = new DecryptableFileWrapper(new HashedFile.FileWrapper("objects/00/11", new HashedFile.ByteArrayInputStreamCallback(encrypted)), pif, ProjectInfoFileTest.accountPub, priKeyRsa);
+        Assert.assertArrayEquals(content, file.getContents());
+    }
+
+    @Test
+    public void getInputStreamModified() throws Exception {
+        ProjectInfoFile pif = ProjectInfoFile.fromFile(new HashedFile.FileWrapper("projectinfo", new HashedFile.ByteArrayInputStreamCallback(ByteHelper.utf8(ProjectInfoFileTest.PIF_CONTENT))));
+        pif.setRepoPubKey(ProjectInfoFileTest.repoPub);
+        pif.setRepoPriKey(Hex.toHexString(RSAHelper.encrypt(Hex.decode(ProjectInfoFileTest.repoPri), RSAHelper.getPublicKeyFromHex(ProjectInfoFileTest.rsaPub))));
+        byte[] content = ByteHelper.utf8(StringUtils.repeat("hello hit ", 1000));
+        byte[] encrypted = new EncryptableFileWrapper(new HashedFile.FileWrapper("objects/00/11", new HashedFile.ByteArrayInputStreamCallback(content)), pif).getContents();
+        byte[] other = new EncryptableFileWrapper(new HashedFile.FileWrapper("objects/00/22", new HashedFile.ByteArrayInputStreamCallback(content)), pif).getContents();
+        Assert.assertTrue(AESHelper.isHybrid(encrypted));
+        // the same data key and a different iv.
+        Assert.assertEquals(encrypted.length, other.length);
+        Assert.assertFalse(Arrays.equals(encrypted, other));
+        encrypted[encrypted.length - 100] ^= 1;
+        String priKeyRsa = WalletHelper.decryptWithPasswordHex(ProjectInfoFileTest.rsaPri, ProjectInfoFileTest.password);
+        DecryptableFileWrapper file = new DecryptableFileWrapper(new HashedFile.FileWrapper("objects/00/11", new HashedFile.ByteArrayInputStreamCallback(encrypted)), pif, ProjectInfoFileTest.accountPub, priKeyRsa);
+        try {
+            file.getContents();
+            Assert.fail("the modified content must not be decrypted.");
+        } catch (IOException e) {
+            // the tag does not match.
+        }
+    }
+
+    @Test
+    public void decryptStreamModified() throws Exception {
+        SecretKey key = AESHelper.generateKey();
+        byte[] iv = AESHelper.generateIv();
+        for (int size : new int[]{0, 1, AESHelper.SEGMENT_SIZE, 2 * AESHelper.SEGMENT_SIZE + 100}) {
+            byte[] content = new byte[size];
+            new Random(size).nextBytes(content);
+            byte[] encrypted = IOUtils.toByteArray(AESHelper.encryptStream(new ByteArrayInputStream(content), key, iv));
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(AESHelper.decryptStream(new ByteArrayInputStream(encrypted), key, iv)));
+        }
+        byte[] content = ByteHelper.utf8(StringUtils.repeat("hello hit ", 10000));
+        byte[] encrypted = IOUtils.toByteArray(AESHelper.encryptStream(new ByteArrayInputStream(content), key, iv));
+        // modify the last segment, only the verified first segment is returned.
+        encrypted[encrypted.length - 20] ^= 1;
+        assertVerifiedPrefix(content, AESHelper.decryptStream(new ByteArrayInputStream(encrypted), key, iv));
+        encrypted[encrypted.length - 20] ^= 1;
+        // truncate at the segment boundary, the first segment is not sealed as the last one.
+        byte[] truncated = Arrays.copyOf(encrypted, AESHelper.SEGMENT_SIZE + AESHelper.TAG_SIZE);
+        try {
+            IOUtils.toByteArray(AESHelper.decryptStream(new ByteArrayInputStream(truncated), key, iv));
+            Assert.fail("the truncated content must not be decrypted.");
+        } catch (IOException e) {
+            // the last flag does not match.
+        }
+    }
+
+    @Test
+    public void clearDataKeys() throws Exception {
+        AESHelper.DataKey dataKey = AESHelper.getDataKey(ProjectInfoFileTest.repoPub);
+        Assert.assertSame(dataKey, AESHelper.getDataKey(ProjectInfoFileTest.repoPub));
+        AESHelper.clearDataKeys();
+        Assert.assertTrue(dataKey.getKey().isDestroyed());
+        Assert.assertNotSame(dataKey, AESHelper.getDataKey(ProjectInfoFileTest.repoPub));
+        AESHelper.clearDataKeys();
+    }
+
+    private static void assertVerifiedPrefix(byte[] content, InputStream is) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            IOUtils.copy(is, out);
+            Assert.fail("the modified content must not be decrypted.");
+        } catch (IOException e) {
+            // the tag does not match.
+        }
+        Assert.assertEquals(AESHelper.SEGMENT_SIZE, out.size());
+        Assert.assertArrayEquals(Arrays.copyOf(content, AESHelper.SEGMENT_SIZE), out.toByteArray());
+    }
+
+    @Test
+    public void getInputStreamKeyHolder() throws Exception {
+        ProjectInfoFile pif = ProjectInfoFile.fromFile(new HashedFile.FileWrapper("projectinfo", new HashedFile.ByteArrayInputStreamCallback(ByteHelper.utf8(ProjectInfoFileTest.PIF_CONTENT))));
+        pif.setRepoPubKey(ProjectInfoFileTest.repoPub);
+        pif.setRepoPriKey(Hex.toHexString(RSAHelper.encrypt(Hex.decode(ProjectInfoFileTest.repoPri), RSAHelper.getPublicKeyFromHex(ProjectInfoFileTest.rsaPub))));
+        String priKeyRsa = WalletHelper.decryptWithPasswordHex(ProjectInfoFileTest.rsaPri, ProjectInfoFileTest.password);
+        RepositoryKeyHolder keyHolder = new RepositoryKeyHolder(pif, ProjectInfoFileTest.accountPub, priKeyRsa);
+        Assert.assertTrue(keyHolder.isMember());
+        Assert.assertSame(keyHolder.getPrivateKey(), keyHolder.getPrivateKey());
+        // the session keys are shared by the files, and the streams can be read at the same time.
+        byte[] content1 = ByteHelper.utf8(StringUtils.repeat("hello hit ", 1000));
+        byte[] content2 = ByteHelper.utf8(StringUtils.repeat("hello git ", 1000));
+        byte[] encrypted1 = new EncryptableFileWrapper(new HashedFile.FileWrapper("objects/00/11", new HashedFile.ByteArrayInputStreamCallback(content1)), pif).getContents();
+        byte[] encrypted2 = new EncryptableFileWrapper(new HashedFile.FileWrapper("objects/00/22", new HashedFile.ByteArrayInputStreamCallback(content2)), pif).getContents();
+        try (InputStream is1 = new DecryptableFileWrapper(new HashedFile.FileWrapper("objects/00/11", new HashedFile.ByteArrayInputStreamCallback(encrypted1)), pif, keyHolder).getInputStream();
+             InputStream is2 = new DecryptableFileWrapper(new HashedFile.FileWrapper("objects/00/22", new HashedFile.ByteArrayInputStreamCallback(encrypted2)), pif, keyHolder).getInputStream()) {
+            Assert.assertEquals(content1[0], is1.read());
+            Assert.assertArrayEquals(content2, IOUtils.toByteArray(is2));
+            Assert.assertArrayEquals(Arrays.copyOfRange(content1, 1, content1.length), IOUtils.toByteArray(is1));
+        }
+        Assert.assertArrayEquals(content1, new DecryptableFileWrapper(new HashedFile.FileWrapper("objects/00/11", new HashedFile.ByteArrayInputStreamCallback(encrypted1)), pif, keyHolder).getContents());
+        keyHolder.close();
+        Assert.assertTrue(keyHolder.isClosed());
+        try {
+            new DecryptableFileWrapper(new HashedFile.FileWrapper("objects/00/11", new HashedFile.ByteArrayInputStreamCallback(encrypted1)), pif, keyHolder).getContents();
+            Assert.fail("the closed key holder must not decrypt.");
+        } catch (IOException e) {
+            // closed.
+        }
     }
 
     @Test
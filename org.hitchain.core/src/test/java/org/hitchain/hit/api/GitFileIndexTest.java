@@ -0,0 +1,153 @@
+package org.hitchain.hit.api;
+
+import org.apache.commons.io.FileUtils;
+import org.hitchain.hit.util.Tuple.Two;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+public class GitFileIndexTest {
+
+    static final String HASH1 = "QmYwAPJzv5CZsnA625s3Xf2nemtYgPpHdWEz79ojWnPbdG";
+    static final String HASH2 = "QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o";
+    static final String SHA1 = "0123456789abcdef0123456789abcdef01234567";
+
+    static Map<String, Two<Object, String, String>> sample() {
+        Map<String, Two<Object, String, String>> map = new LinkedHashMap<>();
+        map.put("objects/hit/projectinfo", new Two<>(HASH1, SHA1));
+        map.put("HEAD", new Two<>(HASH2, SHA1));
+        map.put("refs/heads/master", new Two<>(HASH1, SHA1));
+        map.put("objects/hit/gitfile.idx", new Two<>(HASH2, ""));
+        map.put("refs/heads/中文", new Two<>(HASH2, SHA1));
+        map.put("refs/heads/😀", new Two<>(HASH1, SHA1));
+        map.put("refs/heads/Ａ", new Two<>(HASH1, SHA1));
+        return map;
+    }
+
+    static Map<String, String> flat(Map<String, Two<Object, String, String>> map) {
+        Map<String, String> flat = new TreeMap<>();
+        for (Map.Entry<String, Two<Object, String, String>> entry : map.entrySet()) {
+            flat.put(entry.getKey(), entry.getValue().first() + "," + entry.getValue().second());
+        }
+        return flat;
+    }
+
+    @Test
+    public void toBytes() throws Exception {
+        byte[] bytes = GitFileIndex.toBytes(sample());
+        Assert.assertTrue(GitFileIndex.isBinary(bytes));
+        GitFileIndex index = GitFileIndex.parse(bytes);
+        Assert.assertEquals(sample().size(), index.size());
+        for (Map.Entry<String, Two<Object, String, String>> entry : sample().entrySet()) {
+            Two<Object, String, String> two = index.get(entry.getKey());
+            Assert.assertNotNull(entry.getKey(), two);
+            Assert.assertEquals(entry.getValue().first(), two.first());
+            Assert.assertEquals(entry.getValue().second(), two.second());
+        }
+        Assert.assertNull(index.get("refs/heads/dev"));
+        Assert.assertNull(index.get("objects"));
+        Assert.assertEquals(flat(sample()), flat(index));
+    }
+
+    @Test
+    public void list() throws Exception {
+        GitFileIndex index = GitFileIndex.parse(GitFileIndex.toBytes(sample()));
+        Assert.assertEquals(Arrays.asList("refs/heads/master", "refs/heads/中文", "refs/heads/Ａ", "refs/heads/😀"), index.list("refs/"));
+        index.put("refs/heads/dev", new Two<>(HASH1, SHA1));
+        index.put("refs/heads/master", new Two<>(HASH2, SHA1));
+        Assert.assertEquals(Arrays.asList("refs/heads/dev", "refs/heads/master", "refs/heads/中文", "refs/heads/Ａ", "refs/heads/😀"), index.list("refs/"));
+        Assert.assertEquals(sample().size() + 1, index.size());
+        Assert.assertEquals(HASH2, index.get("refs/heads/master").first());
+        Assert.assertEquals(sample().size() + 1, new ArrayList<>(index.keySet()).size());
+        Assert.assertEquals(sample().size(), index.list("").size() - 1);
+    }
+
+    @Test
+    public void parseLegacy() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Two<Object, String, String>> entry : sample().entrySet()) {
+            sb.append(entry.getValue().first()).append(',').append(entry.getValue().second()).append(',').append(entry.getKey()).append('\n');
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        GitFileIndex index = GitFileIndex.parse(out.toByteArray());
+        Assert.assertFalse(GitFileIndex.isBinary(out.toByteArray()));
+        Assert.assertEquals(sample().size() - 1, index.size());// the empty sha1 line is skipped.
+        Assert.assertEquals(HASH1, index.get("objects/hit/projectinfo").first());
+        Assert.assertEquals(flat(index), flat(GitFileIndex.parse(GitFileIndex.toBytes(index))));
+    }
+
+    @Test
+    public void read() throws Exception {
+        File file = File.createTempFile("gitfile", ".idx");
+        try {
+            FileUtils.writeByteArrayToFile(file, GitFileIndex.toBytes(sample()));
+            Assert.assertEquals(flat(sample()), flat(GitFileIndex.read(file, true)));
+            Assert.assertEquals(flat(sample()), flat(GitFileIndex.read(file, false)));
+        } finally {
+            FileUtils.deleteQuietly(file);
+        }
+        Assert.assertTrue(GitFileIndex.read(file, true).isEmpty());
+    }
+
+    @Test
+    public void corrupt() throws Exception {
+        byte[] bytes = GitFileIndex.toBytes(sample());
+        // a modified path, the structure is still valid.
+        bytes[bytes.length - 21] ^= 1;
+        try {
+            GitFileIndex.parse(bytes);
+            Assert.fail("the modified index must not be read.");
+        } catch (IOException e) {
+            // the trailer does not match.
+        }
+        File file = File.createTempFile("gitfile", ".idx");
+        try {
+            FileUtils.writeByteArrayToFile(file, bytes);
+            GitFileIndex.read(file, true);
+            Assert.fail("the modified index must not be mapped.");
+        } catch (IOException e) {
+            // the trailer does not match.
+        } finally {
+            FileUtils.deleteQuietly(file);
+        }
+    }
+
+    @Test
+    public void delta() throws Exception {
+        GitFileIndex base = GitFileIndex.parse(GitFileIndex.toBytes(sample()));
+        Map<String, Two<Object, String, String>> added = new LinkedHashMap<>();
+        added.put("refs/heads/master", new Two<>(HASH2, SHA1));
+        added.put("objects/ab/cdef", new Two<>(HASH1, SHA1));
+        GitFileIndex segment = GitFileIndex.parse(GitFileIndex.toBytes(added, HASH1, 1));
+        Assert.assertEquals(HASH1, segment.getParentHash());
+        Assert.assertEquals(1, segment.getDepth());
+        Assert.assertFalse(segment.isResolved());
+        segment.setParent(base);
+        Assert.assertTrue(segment.isResolved());
+        Assert.assertEquals(sample().size() + 1, segment.size());
+        Assert.assertEquals(HASH2, segment.get("refs/heads/master").first());
+        Assert.assertEquals(HASH1, segment.get("objects/hit/projectinfo").first());
+        Assert.assertEquals(Arrays.asList("refs/heads/master", "refs/heads/中文", "refs/heads/Ａ", "refs/heads/😀"), segment.list("refs/"));
+        Map<String, Two<Object, String, String>> combine = new LinkedHashMap<>(sample());
+        combine.putAll(added);
+        Assert.assertEquals(flat(combine), flat(segment));
+        segment.put("HEAD", new Two<>(HASH1, ""));
+        segment.put("refs/tags/v1", new Two<>(HASH1, SHA1));
+        Assert.assertEquals(sample().size() + 2, segment.size());
+        Assert.assertEquals(sample().size() + 2, segment.entrySet().size());
+        Assert.assertEquals("", segment.get("HEAD").second());
+    }
+}
@@ -0,0 +1,141 @@
+package org.hitchain.hit.provider;
+
+import io.ipfs.api.NamedStreamable;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.hitchain.core.HitIPFSStorage;
+import org.hitchain.hit.api.EncryptableFileWrapper;
+import org.hitchain.hit.api.GitFileIndex;
+import org.hitchain.hit.api.HashedFile;
+import org.hitchain.hit.api.ProjectInfoFile;
+import org.hitchain.hit.util.ByteHelper;
+import org.hitchain.hit.util.GitHelper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BlobStoreTest {
+
+    private File dir;
+    private String ipfsCache;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("hit-blob-store").toFile();
+        ipfsCache = System.setProperty("hit.ipfs.cache", "false");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (ipfsCache == null) {
+            System.clearProperty("hit.ipfs.cache");
+        } else {
+            System.setProperty("hit.ipfs.cache", ipfsCache);
+        }
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Test
+    public void toHash() throws Exception {
+        // base58 of the sha2-256 multihash (0x12 0x20 digest) of the raw content.
+        String hash = LocalBlobStore.toHash(LocalBlobStore.newDigest().digest(ByteHelper.utf8("hello world")));
+        Assert.assertEquals("QmaozNR7DZHQK1ZcU9p7QdrshMvXqWK6gpu5rmrkPdT3L4", hash);
+        Assert.assertTrue(LocalBlobStore.isValidHash(hash));
+        Assert.assertFalse(LocalBlobStore.isValidHash("../config"));
+    }
+
+    @Test
+    public void memory() throws Exception {
+        assertStore(new MemoryBlobStore());
+    }
+
+    @Test
+    public void file() throws Exception {
+        FileBlobStore store = new FileBlobStore(new File(dir, "blobs"));
+        assertStore(store);
+        String hash = store.put(blob("name", "persistent"));
+        try (InputStream is = new FileBlobStore(new File(dir, "blobs")).open(hash)) {
+            Assert.assertEquals("persistent", IOUtils.toString(is, "UTF-8"));
+        }
+    }
+
+    @Test
+    public void latency() throws Exception {
+        LatencyBlobStore store = new LatencyBlobStore(new MemoryBlobStore(), 50, 0);
+        String hash = store.put(blob("name", "content"));
+        long start = System.currentTimeMillis();
+        store.open(hash).close();
+        Assert.assertTrue(System.currentTimeMillis() - start >= 50);
+        Assert.assertEquals(1, store.getPutCount());
+        Assert.assertEquals(1, store.getOpenCount());
+    }
+
+    @Test
+    public void storage() throws Exception {
+        MemoryBlobStore store = new MemoryBlobStore();
+        ProjectInfoFile info = new ProjectInfoFile();
+        info.setVersion("1");
+        info.setRepoName("test");
+        Map<String, File> files = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            File file = new File(dir, "objects/0" + (i % 4) + "/object" + i);
+            FileUtils.writeStringToFile(file, "object content " + i, "UTF-8");
+            files.put("objects/0" + (i % 4) + "/object" + i, file);
+        }
+        {// push to the empty repository.
+            HitIPFSStorage push = new HitIPFSStorage(dir, info, store, null);
+            push.putAll(files, 4);
+            Assert.assertEquals(20, push.getUploadedGitFileIndex().size());
+            String indexHash = store.put(blob(GitHelper.HIT_GITFILE_IDX, GitFileIndex.toBytes(push.getUploadedGitFileIndex())));
+            // clone from the index.
+            HitIPFSStorage clone = new HitIPFSStorage(dir, info, store, indexHash);
+            try {
+                Assert.assertEquals(5, clone.list("objects/00").size());
+                clone.prefetch(files.keySet(), 4);
+                for (Map.Entry<String, File> entry : files.entrySet()) {
+                    Assert.assertArrayEquals(FileUtils.readFileToByteArray(entry.getValue()), clone.get(entry.getKey()));
+                }
+            } finally {
+                clone.close();
+            }
+        }
+    }
+
+    private void assertStore(BlobStore store) throws Exception {
+        String hash = store.put(blob("a", "content"));
+        Assert.assertTrue(hash.startsWith("Qm"));
+        Assert.assertEquals(hash, store.put(blob("b", "content")));
+        Assert.assertNotEquals(hash, store.put(blob("c", "other")));
+        try (InputStream is = store.open(hash)) {
+            Assert.assertEquals("content", IOUtils.toString(is, "UTF-8"));
+        }
+        try {
+            store.open("QmNotExists");
+            Assert.fail("FileNotFoundException expected");
+        } catch (FileNotFoundException e) {
+        }
+    }
+
+    private static NamedStreamable blob(String name, String content) {
+        return blob(name, ByteHelper.utf8(content));
+    }
+
+    private static NamedStreamable blob(String name, final byte[] content) {
+        ProjectInfoFile info = new ProjectInfoFile();// public repository, the content is not encrypted.
+        return new EncryptableFileWrapper(new HashedFile.FileWrapper(name, new HashedFile.InputStreamCallback() {
+            public InputStream call(HashedFile hashedFile) throws IOException {
+                return new ByteArrayInputStream(content);
+            }
+        }), info);
+    }
+}
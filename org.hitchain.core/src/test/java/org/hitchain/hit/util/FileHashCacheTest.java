@@ -0,0 +1,112 @@
+package org.hitchain.hit.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+public class FileHashCacheTest {
+
+    private File dir;
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("hit-file-hash").toFile();
+        cacheFile = new File(dir, "cache/filehash");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Test
+    public void sha1() throws Exception {
+        Map<String, File> files = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            files.put("refs/heads/b" + i, file("refs/heads/b" + i, "content" + i, true));
+        }
+        Map<String, String> sha1s = new FileHashCache(cacheFile).sha1(files);
+        Assert.assertEquals(20, sha1s.size());
+        for (Map.Entry<String, File> entry : files.entrySet()) {
+            Assert.assertEquals(GitHelper.sha1(entry.getValue()), sha1s.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void saveAndLoad() throws Exception {
+        File head = file("HEAD", "ref: refs/heads/master", true);
+        Map<String, File> files = new HashMap<>();
+        files.put("HEAD", head);
+        FileHashCache cache = new FileHashCache(cacheFile);
+        String sha1 = cache.sha1(files).get("HEAD");
+        cache.save();
+        {// same size and the same last modified time, the cached sha1 is returned without reading the file.
+            long modified = head.lastModified();
+            FileUtils.writeStringToFile(head, "ref: refs/heads/develo", "UTF-8");
+            Assert.assertTrue(head.setLastModified(modified));
+        }
+        FileHashCache loaded = new FileHashCache(cacheFile);
+        loaded.load();
+        Assert.assertEquals(1, loaded.size());
+        Assert.assertEquals(sha1, loaded.sha1(files).get("HEAD"));
+        {// the size is changed.
+            FileUtils.writeStringToFile(head, "ref: refs/heads/dev", "UTF-8");
+            Assert.assertTrue(head.setLastModified(System.currentTimeMillis() - 10000));
+        }
+        Assert.assertEquals(GitHelper.sha1(head), loaded.sha1(files).get("HEAD"));
+    }
+
+    @Test
+    public void notRemembered() throws Exception {
+        Map<String, File> files = new HashMap<>();
+        files.put("objects/ab/cdef", file("objects/ab/cdef", "object", true));
+        files.put("objects/ab/missing", new File(dir, "git/objects/ab/missing"));
+        FileHashCache cache = new FileHashCache(cacheFile);
+        Map<String, String> sha1s = cache.sha1(files, false);
+        Assert.assertEquals(GitHelper.sha1(files.get("objects/ab/cdef")), sha1s.get("objects/ab/cdef"));
+        Assert.assertFalse(sha1s.containsKey("objects/ab/missing"));
+        Assert.assertEquals(0, cache.size());
+        cache.save();
+        FileHashCache loaded = new FileHashCache(cacheFile);
+        loaded.load();
+        Assert.assertEquals(0, loaded.size());
+    }
+
+    @Test
+    public void racy() throws Exception {
+        File config = file("config", "[core]", false);
+        FileHashCache cache = new FileHashCache(cacheFile);
+        cache.put("config", config);
+        {// modified in the same timestamp after it is hashed.
+            long modified = config.lastModified();
+            FileUtils.writeStringToFile(config, "[hit ]", "UTF-8");
+            Assert.assertTrue(config.setLastModified(modified));
+        }
+        Assert.assertNull(cache.get("config", config));
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        FileHashCache cache = new FileHashCache(null);
+        cache.put("config", file("config", "[core]", true));
+        cache.save();
+        Assert.assertFalse(cacheFile.exists());
+    }
+
+    private File file(String path, String content, boolean old) throws Exception {
+        File file = new File(dir, "git/" + path);
+        FileUtils.writeStringToFile(file, content, "UTF-8");
+        if (old) {
+            Assert.assertTrue(file.setLastModified(System.currentTimeMillis() - 10000));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,119 @@
+package org.hitchain.hit.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class HitConfigServiceTest {
+
+    private File dir;
+    private HitKeyring keyring;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("hit-config").toFile();
+        keyring = new HitKeyring(60000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        keyring.close();
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Test
+    public void parse() throws Exception {
+        Map<String, Map<String, String>> config = HitConfigService.parse("[account]\n    default=a\n    a=b,c\n\n[rsa]\n    default=\n");
+        Assert.assertEquals("b,c", config.get("account").get("a"));
+        Assert.assertEquals("", config.get("rsa").get("default"));
+        Assert.assertEquals(config, HitConfigService.parse(HitConfigService.format(config)));
+        try {
+            HitConfigService.parse("name=value");
+            Assert.fail("RuntimeException expected");
+        } catch (RuntimeException e) {
+        }
+    }
+
+    @Test
+    public void get() throws Exception {
+        File file = new File(dir, "config");
+        FileUtils.writeStringToFile(file, "[account]\n    default=a\n", "UTF-8");
+        HitConfigService service = new HitConfigService(file, 0, keyring);
+        Map<String, Map<String, String>> config = service.get();
+        Assert.assertEquals("a", config.get("account").get("default"));
+        // the unmodified file is not parsed again.
+        Assert.assertSame(config, service.get());
+        keyring.put("password", "secret");
+        // the same content is not parsed again, the keyring is kept.
+        FileUtils.writeStringToFile(file, "[account]\n    default=a\n", "UTF-8");
+        file.setLastModified(file.lastModified() + 5000);
+        Assert.assertSame(config, service.get());
+        Assert.assertEquals("secret", keyring.get("password"));
+        // the changed content is parsed again, the keyring is cleared.
+        FileUtils.writeStringToFile(file, "[account]\n    default=b\n", "UTF-8");
+        file.setLastModified(file.lastModified() + 10000);
+        Assert.assertEquals("b", service.get().get("account").get("default"));
+        Assert.assertNull(keyring.get("password"));
+    }
+
+    @Test
+    public void write() throws Exception {
+        File file = new File(dir, "hit/config");
+        HitConfigService service = new HitConfigService(file, 0, keyring);
+        Map<String, Map<String, String>> config = service.get();
+        Assert.assertTrue(config.isEmpty());
+        Map<String, String> kv = new LinkedHashMap<>();
+        kv.put("default", "a");
+        config.put("account", kv);
+        keyring.put("password", "secret");
+        service.write(config);
+        Assert.assertSame(config, service.get());
+        Assert.assertEquals("secret", keyring.get("password"));
+        Assert.assertEquals(config, new HitConfigService(file, 0, keyring).get());
+    }
+
+    @Test
+    public void keyring() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Supplier<String> loader = new Supplier<String>() {
+            public String get() {
+                count.incrementAndGet();
+                return "private key";
+            }
+        };
+        Assert.assertEquals("private key", keyring.get("account:a", loader));
+        Assert.assertEquals("private key", keyring.get("account:a", loader));
+        Assert.assertEquals(1, count.get());
+        keyring.remove("account:a");
+        Assert.assertEquals("private key", keyring.get("account:a", loader));
+        Assert.assertEquals(2, count.get());
+        // the idle entries expire.
+        HitKeyring expiring = new HitKeyring(50);
+        try {
+            expiring.put("password", "secret");
+            Assert.assertEquals("secret", expiring.get("password"));
+            Thread.sleep(100);
+            Assert.assertNull(expiring.get("password"));
+            expiring.put("password", "secret");
+            Thread.sleep(100);
+            expiring.sweep();
+            Assert.assertEquals(0, expiring.size());
+        } finally {
+            expiring.close();
+        }
+        // nothing is kept without ttl.
+        HitKeyring none = new HitKeyring(0);
+        none.put("password", "secret");
+        Assert.assertNull(none.get("password"));
+        none.close();
+    }
+}
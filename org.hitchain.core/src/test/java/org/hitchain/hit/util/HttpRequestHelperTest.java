@@ -0,0 +1,121 @@
+package org.hitchain.hit.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class HttpRequestHelperTest {
+
+    private static final int BODY_SIZE = 1024 * 1024;
+    private HttpServer server;
+    private String url;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/text", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, 200, ByteHelper.utf8("hello " + exchange.getRequestURI().getQuery()));
+            }
+        });
+        server.createContext("/large", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = new byte[BODY_SIZE];
+                for (int i = 0; i < body.length; i++) {
+                    body[i] = (byte) i;
+                }
+                exchange.getResponseHeaders().add("X-RateLimit-Remaining", "42");
+                respond(exchange, 200, body);
+            }
+        });
+        server.createContext("/missing", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, 404, ByteHelper.utf8("not found"));
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void getAsync() throws Exception {
+        List<CompletableFuture<HttpRequestHelper.RequestResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(HttpRequestHelper.getAsync(url + "/text", Collections.singletonMap("i", String.valueOf(i)), null));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            HttpRequestHelper.RequestResult result = futures.get(i).get(30, TimeUnit.SECONDS);
+            Assert.assertTrue(result.toString(), result.isOK());
+            Assert.assertEquals("hello i=" + i, result.getBody());
+        }
+    }
+
+    @Test
+    public void stream() throws Exception {
+        try (HttpRequestHelper.StreamResult result = HttpRequestHelper.stream(url + "/large", null, null)) {
+            Assert.assertTrue(result.isOK());
+            Assert.assertEquals("42", result.getHeader("X-RateLimit-Remaining"));
+            Assert.assertNull(result.getHeader("X-Missing"));
+            long size = 0;
+            byte[] buffer = new byte[8192];
+            try (InputStream in = result.getBody()) {
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    Assert.assertEquals((byte) size, buffer[0]);
+                    size += n;
+                }
+            }
+            Assert.assertEquals(BODY_SIZE, size);
+        }
+        {// the connection is released to the pool, the unread body is consumed by close.
+            for (int i = 0; i < 20; i++) {
+                HttpRequestHelper.stream(url + "/large", null, null).close();
+            }
+            Assert.assertEquals(0, HttpRequestHelper.connectionManager.getTotalStats().getLeased());
+        }
+    }
+
+    @Test
+    public void readAsync() throws Exception {
+        CompletableFuture<Integer> size = HttpRequestHelper.readAsync(url + "/large", null, null, new HttpRequestHelper.BodyReader<Integer>() {
+            public Integer read(HttpRequestHelper.StreamResult result) throws IOException {
+                return IOUtils.toByteArray(result.getBody()).length;
+            }
+        });
+        CompletableFuture<Integer> code = HttpRequestHelper.readAsync(url + "/missing", null, null, new HttpRequestHelper.BodyReader<Integer>() {
+            public Integer read(HttpRequestHelper.StreamResult result) throws IOException {
+                return result.getCode();
+            }
+        });
+        Assert.assertEquals(BODY_SIZE, size.get(30, TimeUnit.SECONDS).intValue());
+        Assert.assertEquals(404, code.get(30, TimeUnit.SECONDS).intValue());
+    }
+
+    private static void respond(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.hitchain.hit.util;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+public class PatchHelperTest {
+
+    private File dir;
+    private File gitDir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("hit-patch").toFile();
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            gitDir = git.getRepository().getDirectory();
+            commit(git, "README.md", "hello\n", "init");
+            git.branchCreate().setName("base").call();
+            commit(git, "README.md", "hello\nworld\n", "update readme\n\nthe second line.");
+            commit(git, "src/Main.java", "class Main {\n}\n", "add main");
+            FileUtils.deleteQuietly(new File(dir, "README.md"));
+            git.rm().addFilepattern("README.md").call();
+            git.commit().setMessage("remove readme").setAuthor("tester", "tester@hit.org").call();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Test
+    public void writePatch() throws Exception {
+        PatchHelper.PatchSummaryInfo created = PatchHelper.createPatch(gitDir, "base", "master", "comment");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PatchHelper.PatchSummaryInfo written = PatchHelper.writePatch(gitDir, "base", "master", "comment", out);
+        Assert.assertEquals(created.patch(), ByteHelper.utf8(out.toByteArray()));
+        Assert.assertNull(written.patch());
+        Assert.assertEquals(3, written.totalCommit());
+        Assert.assertEquals(3, written.patchs().size());
+        for (int i = 0; i < 3; i++) {
+            PatchHelper.PatchInfo c = created.patchs().get(i), w = written.patchs().get(i);
+            Assert.assertNotNull(c.patch());
+            Assert.assertNull(w.patch());
+            Assert.assertEquals(c.endCommit(), w.endCommit());
+            Assert.assertEquals(c.summary(), w.summary());
+            Assert.assertEquals(c.insertions(), w.insertions());
+            Assert.assertEquals(c.deletions(), w.deletions());
+        }
+    }
+
+    @Test
+    public void parsePatch() throws Exception {
+        PatchHelper.PatchSummaryInfo created = PatchHelper.createPatch(gitDir, "base", "master", "comment");
+        List<PatchHelper.PatchFileInfo> list = PatchHelper.parsePatch(new ByteArrayInputStream(ByteHelper.utf8(created.patch())));
+        Assert.assertEquals(3, list.size());
+        Assert.assertEquals("update readme", list.get(0).shortMsg());
+        Assert.assertEquals("the second line.", list.get(0).msg());
+        Assert.assertEquals("tester", list.get(0).author());
+        Assert.assertEquals("tester@hit.org", list.get(0).email());
+        Assert.assertEquals(created.patchs().get(1).endCommit(), list.get(1).commit());
+        Assert.assertTrue(list.get(1).diff().startsWith("diff --git a/src/Main.java b/src/Main.java\n"));
+        Assert.assertTrue(list.get(2).diff().contains("deleted file mode"));
+        // the reader returns the same sections one by one.
+        PatchHelper.PatchReader reader = new PatchHelper.PatchReader(new ByteArrayInputStream(ByteHelper.utf8(created.patch())));
+        for (PatchHelper.PatchFileInfo pfi : list) {
+            Assert.assertTrue(reader.hasNext());
+            Assert.assertEquals(pfi.diff(), reader.next().diff());
+        }
+        Assert.assertFalse(reader.hasNext());
+        reader.close();
+    }
+
+    @Test
+    public void readDiff() throws Exception {
+        String diff = "" +
+                "diff --git a/README.md b/README.md\n" +
+                "index ce01362..94954ab 100644\n" +
+                "--- a/README.md\n" +
+                "+++ b/README.md\n" +
+                "@@ -1 +1,2 @@\n" +
+                " hello\n" +
+                "+world\n" +
+                "diff --git a/src/Main.java b/src/Main.java\n" +
+                "new file mode 100644\n" +
+                "--- /dev/null\n" +
+                "+++ b/src/Main.java\n" +
+                "@@ -0,0 +1,2 @@\n" +
+                "+class Main {\n" +
+                "+}\n" +
+                "diff --git a/old.txt b/old.txt\n" +
+                "deleted file mode 100644\n" +
+                "--- a/old.txt\n" +
+                "+++ /dev/null\n" +
+                "@@ -1 +0,0 @@\n" +
+                "--- not a header\n" +
+                "-- \n" +
+                "2.20.1\n";
+        PatchHelper.DiffReader reader = new PatchHelper.DiffReader(new ByteArrayInputStream(ByteHelper.utf8(diff)));
+        PatchHelper.FileDiffInfo readme = reader.next();
+        Assert.assertEquals("README.md", readme.path());
+        Assert.assertEquals(1, readme.insertions());
+        Assert.assertEquals(0, readme.deletions());
+        Assert.assertTrue(readme.diff().endsWith("+world\n"));
+        PatchHelper.FileDiffInfo main = reader.next();
+        Assert.assertNull(main.oldPath());
+        Assert.assertEquals("src/Main.java", main.newPath());
+        Assert.assertEquals(2, main.insertions());
+        PatchHelper.FileDiffInfo old = reader.next();
+        Assert.assertEquals("old.txt", old.path());
+        Assert.assertNull(old.newPath());
+        Assert.assertEquals(1, old.deletions());
+        Assert.assertFalse(reader.hasNext());
+        reader.close();
+        // the counts of parseDiff are not changed, the file headers are counted.
+        PatchHelper.PatchInfo pi = PatchHelper.parseDiff(new ByteArrayInputStream(ByteHelper.utf8(diff)));
+        Assert.assertEquals(3, pi.files());
+        Assert.assertEquals(6, pi.insertions());
+        Assert.assertEquals(4, pi.deletions());
+        Assert.assertFalse(pi.patch().contains("\n-- \n"));
+    }
+
+    private static void commit(Git git, String path, String content, String message) throws Exception {
+        File file = new File(git.getRepository().getWorkTree(), path);
+        FileUtils.writeStringToFile(file, content, "UTF-8");
+        git.add().addFilepattern(path).call();
+        git.commit().setMessage(message).setAuthor("tester", "tester@hit.org").call();
+    }
+}
@@ -0,0 +1,103 @@
+package org.hitchain.hit.util;
+
+import org.apache.commons.io.FileUtils;
+import org.hitchain.hit.api.HashedFile;
+import org.hitchain.hit.api.ProjectInfoFile;
+import org.hitchain.hit.api.ProjectInfoFileTest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SignatureCacheTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("hit-signature-cache").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Test
+    public void verify() throws Exception {
+        File file = new File(dir, "verified");
+        CountingVerifier verifier = new CountingVerifier();
+        SignatureCache cache = new SignatureCache(file, 0);
+        Assert.assertTrue(cache.verify("test", bytes("key"), bytes("content"), bytes("key"), verifier));
+        Assert.assertTrue(cache.verify("test", bytes("key"), bytes("content"), bytes("key"), verifier));
+        Assert.assertEquals(1, verifier.count.get());
+        // the failed verification is not cached.
+        Assert.assertFalse(cache.verify("test", bytes("key"), bytes("content"), bytes("other"), verifier));
+        Assert.assertFalse(cache.verify("test", bytes("key"), bytes("content"), bytes("other"), verifier));
+        Assert.assertEquals(3, verifier.count.get());
+        // the other content, signer or algorithm is verified again.
+        Assert.assertTrue(cache.verify("test", bytes("key"), bytes("changed"), bytes("key"), verifier));
+        Assert.assertTrue(cache.verify("other", bytes("key"), bytes("content"), bytes("key"), verifier));
+        Assert.assertEquals(5, verifier.count.get());
+        // the next process reads the cache file.
+        SignatureCache next = new SignatureCache(file, 0);
+        Assert.assertEquals(3, next.size());
+        Assert.assertTrue(next.verify("test", bytes("key"), bytes("content"), bytes("key"), verifier));
+        Assert.assertEquals(5, verifier.count.get());
+    }
+
+    @Test
+    public void maxSize() throws Exception {
+        File file = new File(dir, "verified");
+        SignatureCache cache = new SignatureCache(file, 4);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(cache.verify("test", bytes("key"), bytes("content" + i), bytes("key"), new CountingVerifier()));
+        }
+        Assert.assertEquals(4, cache.size());
+        Assert.assertTrue(file.length() <= 4 + 32 * 5);
+    }
+
+    @Test
+    public void projectInfoFile() throws Exception {
+        // the default cache of ProjectInfoFile must not write the user's ~/.hit/cache/verified.
+        File file = new File(dir, "verified");
+        SignatureCache previous = SignatureCache.setDefault(new SignatureCache(file, 0));
+        try {
+            verifyProjectInfoFile();
+            Assert.assertTrue(file.length() > 0);
+        } finally {
+            SignatureCache.setDefault(previous);
+        }
+    }
+
+    private void verifyProjectInfoFile() throws Exception {
+        ProjectInfoFile pif = ProjectInfoFile.fromFile(new HashedFile.FileWrapper("projectinfo",
+                new HashedFile.ByteArrayInputStreamCallback(ByteHelper.utf8(ProjectInfoFileTest.PIF_CONTENT))));
+        ProjectInfoFile changed = ProjectInfoFile.fromFile(new HashedFile.FileWrapper("projectinfo",
+                new HashedFile.ByteArrayInputStreamCallback(ByteHelper.utf8(ProjectInfoFileTest.PIF_CONTENT.replace("\"1\"", "\"2\"")))));
+        Assert.assertTrue(pif.verify(null));
+        Assert.assertTrue(pif.verify(pif));
+        Assert.assertFalse(changed.verify(null));
+    }
+
+    private static byte[] bytes(String value) {
+        return ByteHelper.utf8(value);
+    }
+
+    /**
+     * the signature is valid if it equals the key.
+     */
+    private static class CountingVerifier implements SignatureCache.Verifier {
+        final AtomicInteger count = new AtomicInteger();
+
+        public boolean verify(byte[] publicKey, byte[] data, byte[] sign) {
+            count.incrementAndGet();
+            return Arrays.equals(publicKey, sign);
+        }
+    }
+}
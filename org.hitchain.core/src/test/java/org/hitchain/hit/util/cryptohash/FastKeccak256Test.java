@@ -0,0 +1,86 @@
+package org.hitchain.hit.util.cryptohash;
+
+import org.bouncycastle.crypto.digests.KeccakDigest;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+public class FastKeccak256Test {
+
+    @Test
+    public void hash() throws Exception {
+        Assert.assertEquals("c5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470",
+                Hex.toHexString(FastKeccak256.hash(new byte[0])));
+        Assert.assertEquals("4e03657aea45a94fc7d47ba826c8d667c0d1e6e33a64a036ec44f58fa12d6c45",
+                Hex.toHexString(FastKeccak256.hash("abc".getBytes("UTF-8"))));
+    }
+
+    @Test
+    public void compare() throws Exception {
+        Random random = new Random(1);
+        for (int length = 0; length < 600; length++) {
+            byte[] input = new byte[length];
+            random.nextBytes(input);
+            Keccak256 legacy = new Keccak256();
+            legacy.update(input);
+            byte[] expected = legacy.digest();
+            Assert.assertArrayEquals("length " + length, expected, FastKeccak256.hash(input));
+            Assert.assertArrayEquals("length " + length, expected, bouncyCastle(input));
+        }
+    }
+
+    @Test
+    public void updateInParts() throws Exception {
+        Random random = new Random(2);
+        byte[] input = new byte[1000];
+        random.nextBytes(input);
+        byte[] expected = FastKeccak256.hash(input);
+        FastKeccak256 keccak = new FastKeccak256();
+        for (int i = 0; i < 20; i++) {// reused instance.
+            int offset = 0;
+            while (offset < input.length) {
+                int length = Math.min(input.length - offset, random.nextInt(50));
+                if (length == 1) {
+                    keccak.update(input[offset]);
+                } else {
+                    keccak.update(input, offset, length);
+                }
+                offset += length;
+            }
+            Assert.assertArrayEquals(expected, keccak.digest());
+        }
+    }
+
+    @Test
+    public void updateByteBuffer() throws Exception {
+        Random random = new Random(3);
+        byte[] input = new byte[777];
+        random.nextBytes(input);
+        byte[] expected = FastKeccak256.hash(input);
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            ByteBuffer direct = ByteBuffer.allocateDirect(input.length + 3).order(order);
+            direct.position(3);
+            direct.put(input);
+            direct.position(3);
+            FastKeccak256 keccak = new FastKeccak256();
+            keccak.update(input[0]);
+            direct.position(4);
+            keccak.update(direct);
+            Assert.assertEquals(direct.limit(), direct.position());
+            Assert.assertArrayEquals(expected, keccak.digest());
+        }
+        Assert.assertArrayEquals(expected, new FastKeccak256().update(ByteBuffer.wrap(input)).digest());
+    }
+
+    private static byte[] bouncyCastle(byte[] input) {
+        KeccakDigest digest = new KeccakDigest(256);
+        digest.update(input, 0, input.length);
+        byte[] out = new byte[32];
+        digest.doFinal(out, 0);
+        return out;
+    }
+}